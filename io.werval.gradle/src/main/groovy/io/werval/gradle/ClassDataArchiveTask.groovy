@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.gradle
+
+import io.werval.commands.StartCommand
+
+import org.gradle.api.DefaultTask
+import org.gradle.api.tasks.TaskAction
+
+/**
+ * Class Data Archive Task.
+ * <p>
+ * Run the Application once, stopping right after startup, to dump a class data sharing archive.
+ * Requires Java 13 or later.
+ * <p>
+ * The archive is only used by JVMs started with the very same classpath and only contains classes loaded from jars.
+ * By default the Application is run from its jar and runtime dependencies, as the {@literal start} task does when its
+ * {@literal classDataArchive} property is set.
+ * Set {@link #distributionDir} to run it from an installed distribution instead.
+ */
+class ClassDataArchiveTask extends DefaultTask
+{
+    /**
+     * Installed distribution directory, default to none.
+     * <p>
+     * If set, the Application is run from this distribution {@literal lib} jars and {@literal etc} directory.
+     */
+    File distributionDir
+
+    /**
+     * Main class, default to io.werval.server.bootstrap.Main.
+     */
+    String mainClass = "io.werval.server.bootstrap.Main"
+
+    /**
+     * Main class arguments.
+     */
+    String[] arguments = new String[ 0 ]
+
+    /**
+     * Configuration resource name.
+     * <p>
+     * Loaded from the application classpath.
+     */
+    String configResource
+
+    /**
+     * Configuration file.
+     */
+    File configFile
+
+    /**
+     * Configuration URL.
+     */
+    URL configUrl
+
+    /**
+     * Class data sharing archive file, default to {@literal build/werval/$projectName.jsa}.
+     */
+    File archiveFile = project.file( "build/werval/${project.name}.jsa" )
+
+    @TaskAction
+    void dumpClassDataArchive()
+    {
+        project.logger.lifecycle ">> Werval Class Data Archive for " + project.getName() + " dumping..."
+
+        def classpath
+        if( distributionDir != null )
+        {
+            // Same classpath as the distribution start scripts
+            classpath = project.startScripts.classpath.files.collect { f ->
+                new File( distributionDir, "lib/${f.name}" ).toURI().toURL()
+            } + [ new File( distributionDir, "etc/" ).toURI().toURL() ]
+        }
+        else
+        {
+            // Same classpath as the start task using a class data sharing archive
+            classpath = [ project.jar.archivePath.toURI().toURL() ] +
+                project.configurations.runtime.files.collect { f -> f.toURI().toURL() }
+        }
+        project.logger.debug "Class Data Archive classpath: " + classpath.toString()
+
+        new StartCommand(
+            StartCommand.ClassDataSharing.dump( archiveFile ),
+            mainClass,
+            arguments,
+            classpath as URL[],
+            configResource, configFile, configUrl
+        ).run();
+
+        project.logger.lifecycle ">> Werval Class Data Archive dumped to " + archiveFile
+    }
+}
@@ -58,6 +58,14 @@ class StartTask extends DefaultTask
      */
     URL configUrl
 
+    /**
+     * Class data sharing archive, default to none.
+     * <p>
+     * If set, the Application is started from its jar in a forked JVM using this archive, see the
+     * {@literal classDataArchive} task.
+     */
+    File classDataArchive
+
     @TaskAction
     void startProductionMode()
     {
@@ -81,12 +89,23 @@ class StartTask extends DefaultTask
         msg.append( ")" );
         project.logger.debug msg.toString()
 
-        def applicationClasspath = sourceSets.collect { sourceSet ->
-            [ sourceSet.output.classesDir.toURI().toURL(), sourceSet.output.resourcesDir.toURI().toURL() ]
-        }.flatten()
-        def runtimeClasspath = sourceSets.collect { sourceSet ->
-            project.configurations[sourceSet.runtimeConfigurationName].files.collect { f -> f.toURI().toURL() }
-        }.flatten()
+        def applicationClasspath
+        def runtimeClasspath
+        if( classDataArchive == null )
+        {
+            applicationClasspath = sourceSets.collect { sourceSet ->
+                [ sourceSet.output.classesDir.toURI().toURL(), sourceSet.output.resourcesDir.toURI().toURL() ]
+            }.flatten()
+            runtimeClasspath = sourceSets.collect { sourceSet ->
+                project.configurations[sourceSet.runtimeConfigurationName].files.collect { f -> f.toURI().toURL() }
+            }.flatten()
+        }
+        else
+        {
+            // Same classpath as the classDataArchive task, class data sharing only archives classes loaded from jars
+            applicationClasspath = [ project.jar.archivePath.toURI().toURL() ]
+            runtimeClasspath = project.configurations.runtime.files.collect { f -> f.toURI().toURL() }
+        }
 
         project.logger.debug "====================================================================================="
         project.logger.debug "APPLICATION CLASSPATH"
@@ -95,12 +114,24 @@ class StartTask extends DefaultTask
         project.logger.debug runtimeClasspath.toString()
         project.logger.debug "====================================================================================="
 
-        new StartCommand(
-            StartCommand.ExecutionModel.ISOLATED_THREADS,
-            mainClass,
-            arguments,
-            ( applicationClasspath + runtimeClasspath ) as URL[],
-            configResource, configFile, configUrl
-        ).run();
+        def classpath = ( applicationClasspath + runtimeClasspath ) as URL[]
+        def startCommand
+        if( classDataArchive == null )
+        {
+            startCommand = new StartCommand(
+                StartCommand.ExecutionModel.ISOLATED_THREADS,
+                mainClass, arguments, classpath,
+                configResource, configFile, configUrl
+            )
+        }
+        else
+        {
+            startCommand = new StartCommand(
+                StartCommand.ClassDataSharing.use( classDataArchive ),
+                mainClass, arguments, classpath,
+                configResource, configFile, configUrl
+            )
+        }
+        startCommand.run();
     }
 }
@@ -73,6 +73,46 @@ class WervalApplicationPlugin implements Plugin<Project>
             dependsOn: [ project.tasks.getByName( "clean" ), project.tasks.getByName( "installApp" ) ]
         )
 
+        // Class data sharing archive for the installed distribution
+        project.task(
+            "stageClassDataArchive",
+            type: ClassDataArchiveTask,
+            group: "Werval",
+            description: "Dump a class data sharing archive for the installed distribution, requires Java 13+.",
+            dependsOn: project.tasks.getByName( "installApp" )
+        ) {
+            distributionDir = project.installApp.destinationDir
+            archiveFile = new File( project.installApp.destinationDir, "lib/${project.name}.jsa" )
+            doLast {
+                // Archived jars must come first, etc is appended and the start scripts use the archive
+                def unixScript = new File( distributionDir, "bin/${project.applicationName}" )
+                unixScript.text = unixScript.text.replaceAll(
+                    'CLASSPATH=\\$APP_HOME/etc/:(.+)\n',
+                    'CLASSPATH=$1:\\$APP_HOME/etc/\n'
+                ).replaceAll(
+                    "DEFAULT_JVM_OPTS='(.*)'",
+                    "DEFAULT_JVM_OPTS='\$1 \"-XX:+UnlockDiagnosticVMOptions\" \"-Xshare:auto\" " +
+                    "\"-XX:SharedArchiveFile=\\\$APP_HOME/lib/${archiveFile.name}\"'"
+                )
+                def windowsScript = new File( distributionDir, "bin/${project.applicationName}.bat" )
+                windowsScript.text = windowsScript.text.replaceAll(
+                    'CLASSPATH=%APP_HOME%\\\\etc\\\\;(.+)\r\n',
+                    'CLASSPATH=$1;%APP_HOME%\\\\etc\\\\\r\n'
+                ).replaceAll(
+                    'set DEFAULT_JVM_OPTS=(.*)\r\n',
+                    'set DEFAULT_JVM_OPTS=$1 "-XX:+UnlockDiagnosticVMOptions" "-Xshare:auto" ' +
+                    "\"-XX:SharedArchiveFile=%~dp0..\\\\lib\\\\${archiveFile.name}\"\r\n"
+                )
+            }
+        }
+        // Configuration files are then only loaded from etc, not from the application jar
+        project.gradle.taskGraph.whenReady { graph ->
+            if( graph.hasTask( project.stageClassDataArchive ) )
+            {
+                project.jar.exclude "*.conf"
+            }
+        }
+
         // TODO task stageHeroku( dependsOn: [ 'stage' ] )
     }
 }
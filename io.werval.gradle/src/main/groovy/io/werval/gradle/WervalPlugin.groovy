@@ -25,7 +25,7 @@ import org.gradle.api.plugins.JavaPlugin
  *
  * Apply the 'java' plugin on the project if absent.
  * <p>
- * Create {@literal secret}, {@literal start} and {@literal devshell} tasks.
+ * Create {@literal secret}, {@literal start}, {@literal classDataArchive} and {@literal devshell} tasks.
  * <p>
  * Define 'devshell' configuration and 'dev' SourceSet for dev mode classpath enrichment.
  */
@@ -81,6 +81,15 @@ class WervalPlugin implements Plugin<Project>
             dependsOn: project.tasks.getByName( "classes" )
         )
 
+        // Class Data Sharing Archive Task
+        project.task(
+            "classDataArchive",
+            type: ClassDataArchiveTask,
+            group: "Werval",
+            description: "Run the Application once to dump a class data sharing archive, requires Java 13+.",
+            dependsOn: project.tasks.getByName( "jar" )
+        )
+
         // DevShell Task
         project.configurations.create( "devshell" )
         project.configurations.devshell {
@@ -58,4 +58,10 @@ public class ApplicationPluginTest
     {
         assertThat( project.getTasks().getByName( "stage" ), notNullValue() );
     }
+
+    @Test
+    public void stageClassDataArchiveTask()
+    {
+        assertThat( project.getTasks().getByName( "stageClassDataArchive" ), notNullValue() );
+    }
 }
@@ -69,4 +69,10 @@ public class WervalPluginTest
         assertThat( project.getTasks().getByName( "devshell" ), instanceOf( DevShellTask.class ) );
         assertThat( project.getTasks().getByName( "devshell_rebuild" ), instanceOf( RebuildTask.class ) );
     }
+
+    @Test
+    public void classDataArchiveTask()
+    {
+        assertThat( project.getTasks().getByName( "classDataArchive" ), instanceOf( ClassDataArchiveTask.class ) );
+    }
 }
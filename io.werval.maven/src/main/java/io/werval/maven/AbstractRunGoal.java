@@ -71,4 +71,23 @@ public abstract class AbstractRunGoal
         }
         return classPathSet.toArray( new URL[ classPathSet.size() ] );
     }
+
+    /**
+     * Runtime classpath with the project jar in place of its classes directory.
+     * <p>
+     * Class data sharing only archives classes loaded from jars.
+     */
+    protected final URL[] packagedRuntimeClassPath()
+        throws DependencyResolutionRequiredException, MalformedURLException
+    {
+        File outputDirectory = new File( project.getBuild().getOutputDirectory() );
+        File jar = new File( project.getBuild().getDirectory(), project.getBuild().getFinalName() + ".jar" );
+        Set<URL> classPathSet = new LinkedHashSet<>();
+        for( String runtimeClassPathElement : project.getRuntimeClasspathElements() )
+        {
+            File element = new File( runtimeClassPathElement );
+            classPathSet.add( ( outputDirectory.equals( element ) ? jar : element ).toURI().toURL() );
+        }
+        return classPathSet.toArray( new URL[ classPathSet.size() ] );
+    }
 }
@@ -52,6 +52,15 @@ public class StartMojo
     @Parameter( property = "wervalstart.arguments" )
     private String[] arguments;
 
+    /**
+     * Class data sharing archive.
+     * <p>
+     * If set, the application is started from the jar packaged by the {@literal class-data-archive} goal in a
+     * forked JVM using this archive.
+     */
+    @Parameter( property = "werval.classDataArchive" )
+    private File classDataArchive;
+
     @Override
     public void execute()
         throws MojoExecutionException, MojoFailureException
@@ -70,7 +79,9 @@ public class StartMojo
         try
         {
             Set<URL> runtimeCP = new LinkedHashSet<>();
-            runtimeCP.addAll( Arrays.asList( runtimeClassPath() ) );
+            runtimeCP.addAll(
+                Arrays.asList( classDataArchive == null ? runtimeClassPath() : packagedRuntimeClassPath() )
+            );
             for( String extraCP : extraClassPath )
             {
                 runtimeCP.add( new File( project.getBasedir(), extraCP ).toURI().toURL() );
@@ -94,15 +105,32 @@ public class StartMojo
                 getLog().debug( msg );
             }
 
-            new StartCommand(
-                StartCommand.ExecutionModel.ISOLATED_THREADS,
-                mainClass,
-                arguments,
-                runtimeClassPath,
-                configResource,
-                configFile,
-                configUrl
-            ).run();
+            StartCommand startCommand;
+            if( classDataArchive == null )
+            {
+                startCommand = new StartCommand(
+                    StartCommand.ExecutionModel.ISOLATED_THREADS,
+                    mainClass,
+                    arguments,
+                    runtimeClassPath,
+                    configResource,
+                    configFile,
+                    configUrl
+                );
+            }
+            else
+            {
+                startCommand = new StartCommand(
+                    StartCommand.ClassDataSharing.use( classDataArchive ),
+                    mainClass,
+                    arguments,
+                    runtimeClassPath,
+                    configResource,
+                    configFile,
+                    configUrl
+                );
+            }
+            startCommand.run();
         }
         catch( Exception ex )
         {
@@ -15,6 +15,12 @@
  */
 package io.werval.modules.cache;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 import io.werval.spi.cache.CacheAdapter;
 import io.werval.modules.metrics.Metrics;
 import io.werval.modules.metrics.internal.CacheMetricsHandler;
@@ -64,6 +70,37 @@ import net.sf.ehcache.Element;
         backingCache.remove( key );
     }
 
+    @Override
+    protected <T> Map<String, T> doGetAll( Collection<String> keys )
+    {
+        Map<String, T> values = new LinkedHashMap<>();
+        for( Map.Entry<Object, Element> element : backingCache.getAll( keys ).entrySet() )
+        {
+            if( element.getValue() != null )
+            {
+                values.put( (String) element.getKey(), (T) element.getValue().getObjectValue() );
+            }
+        }
+        return values;
+    }
+
+    @Override
+    protected <T> void doSetAll( int ttlSeconds, Map<String, T> entries )
+    {
+        List<Element> elements = new ArrayList<>( entries.size() );
+        for( Map.Entry<String, T> entry : entries.entrySet() )
+        {
+            elements.add( element( ttlSeconds, entry.getKey(), entry.getValue() ) );
+        }
+        backingCache.putAll( elements );
+    }
+
+    @Override
+    protected void doRemoveAll( Collection<String> keys )
+    {
+        backingCache.removeAll( keys );
+    }
+
     private Element element( int ttlSeconds, String key, Object value )
     {
         Element element = new Element( key, value );
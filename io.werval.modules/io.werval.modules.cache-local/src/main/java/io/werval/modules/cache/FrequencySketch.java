@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.modules.cache;
+
+/**
+ * Approximate access frequency of cache keys.
+ * <p>
+ * Count-Min sketch of 4 bits counters packed in a {@literal long[]}, four counters per key.
+ * All counters are halved once the number of recorded accesses reaches ten times the cache capacity so that
+ * popularity ages and old hot keys make room for new ones.
+ * <p>
+ * Not thread-safe, guarded by the owning {@link LocalCache} eviction lock.
+ */
+/* package */ final class FrequencySketch
+{
+    private static final long[] SEEDS =
+    {
+        0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final long ONE_MASK = 0x1111111111111111L;
+    private static final int MAX_TABLE_SIZE = 1 << 26;
+    private static final int MAX_COUNT = 15;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int additions;
+
+    /* package */ FrequencySketch( long capacity )
+    {
+        int size = (int) Math.min( Math.max( capacity, 16 ), MAX_TABLE_SIZE );
+        this.table = new long[ Integer.highestOneBit( size - 1 ) << 1 ];
+        this.tableMask = table.length - 1;
+        this.sampleSize = 10 * size;
+    }
+
+    /**
+     * @param key Key
+     *
+     * @return Estimated access frequency of the key, in the {@literal [0..15]} range
+     */
+    /* package */ int frequency( String key )
+    {
+        int hash = spread( key.hashCode() );
+        int start = ( hash & 3 ) << 2;
+        int frequency = MAX_COUNT;
+        for( int idx = 0; idx < 4; idx++ )
+        {
+            int index = indexOf( hash, idx );
+            int count = (int) ( ( table[index] >>> ( ( start + idx ) << 2 ) ) & 0xfL );
+            frequency = Math.min( frequency, count );
+        }
+        return frequency;
+    }
+
+    /**
+     * Record an access to the key.
+     *
+     * @param key Key
+     */
+    /* package */ void increment( String key )
+    {
+        int hash = spread( key.hashCode() );
+        int start = ( hash & 3 ) << 2;
+        boolean added = false;
+        for( int idx = 0; idx < 4; idx++ )
+        {
+            added |= incrementAt( indexOf( hash, idx ), start + idx );
+        }
+        if( added && ++additions == sampleSize )
+        {
+            reset();
+        }
+    }
+
+    private boolean incrementAt( int index, int counter )
+    {
+        int offset = counter << 2;
+        long mask = 0xfL << offset;
+        if( ( table[index] & mask ) != mask )
+        {
+            table[index] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    private void reset()
+    {
+        int odds = 0;
+        for( int idx = 0; idx < table.length; idx++ )
+        {
+            odds += Long.bitCount( table[idx] & ONE_MASK );
+            table[idx] = ( table[idx] >>> 1 ) & RESET_MASK;
+        }
+        additions = ( additions - ( odds >>> 2 ) ) >>> 1;
+    }
+
+    private int indexOf( int hash, int depth )
+    {
+        long index = ( hash + SEEDS[depth] ) * SEEDS[depth];
+        index += index >>> 32;
+        return ( (int) index ) & tableMask;
+    }
+
+    private static int spread( int hash )
+    {
+        int spread = ( ( hash >>> 16 ) ^ hash ) * 0x45d9f3b;
+        spread = ( ( spread >>> 16 ) ^ spread ) * 0x45d9f3b;
+        return ( spread >>> 16 ) ^ spread;
+    }
+}
@@ -0,0 +1,672 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.modules.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+import io.werval.modules.metrics.Metrics;
+import io.werval.modules.metrics.internal.CacheMetricsHandler;
+import io.werval.spi.cache.CacheAdapter;
+import io.werval.spi.cache.SnapshotableCache;
+import io.werval.util.Numbers;
+
+/**
+ * Bounded in-process Cache.
+ * <p>
+ * Entries are held in a {@link ConcurrentHashMap}, reads are lock-free.
+ * Cache policy bookkeeping happens under a lock, reads are recorded in a lossy buffer drained in batches, writes
+ * apply it directly.
+ * <p>
+ * Eviction follows the W-TinyLFU policy: new entries enter a small LRU window, entries leaving the window are
+ * admitted in the main segmented LRU only if they are accessed more frequently than the entry they would evict,
+ * according to a {@link FrequencySketch}.
+ * <p>
+ * Expiration is applied on access and by {@link #cleanUp()} that advances a {@link TimerWheel}.
+ * <p>
+ * Hottest entries are selected for snapshots according to the frequency sketch or the policy queues order.
+ */
+/* package */ class LocalCache
+    extends CacheAdapter
+    implements SnapshotableCache
+{
+    /**
+     * Cache entry, also the intrusive node of the policy queues and timer wheel buckets.
+     */
+    /* package */ static final class Node
+    {
+        /* package */ final String key;
+        /* package */ final long weight;
+        /* package */ final long expiresAt;
+        private final Object value;
+        // Guarded by the eviction lock
+        private int queue;
+        private boolean alive = true;
+        private Node prev;
+        private Node next;
+        private Node timerPrev;
+        private Node timerNext;
+
+        private Node( String key, Object value, long weight, long expiresAt )
+        {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+
+        private static Node sentinel()
+        {
+            Node sentinel = new Node( null, null, 0, Long.MAX_VALUE );
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+            return sentinel;
+        }
+
+        /* package */ static Node timerSentinel()
+        {
+            Node sentinel = new Node( null, null, 0, Long.MAX_VALUE );
+            sentinel.timerPrev = sentinel;
+            sentinel.timerNext = sentinel;
+            return sentinel;
+        }
+
+        /**
+         * Append this node to a timer bucket.
+         *
+         * @param sentinel Timer bucket sentinel
+         */
+        /* package */ void linkTimer( Node sentinel )
+        {
+            timerPrev = sentinel.timerPrev;
+            timerNext = sentinel;
+            sentinel.timerPrev.timerNext = this;
+            sentinel.timerPrev = this;
+        }
+
+        /**
+         * Remove this node from its timer bucket, if any.
+         */
+        /* package */ void unlinkTimer()
+        {
+            if( timerNext != null )
+            {
+                timerPrev.timerNext = timerNext;
+                timerNext.timerPrev = timerPrev;
+                timerPrev = null;
+                timerNext = null;
+            }
+        }
+
+        /**
+         * Empty this timer bucket sentinel, leaving its former nodes chained up to a {@literal null} link.
+         *
+         * @return First former node of the bucket, or this sentinel if it was empty
+         */
+        /* package */ Node detachTimerBucket()
+        {
+            Node first = timerNext;
+            timerPrev.timerNext = null;
+            timerNext = this;
+            timerPrev = this;
+            return first;
+        }
+
+        /**
+         * Clear this node timer links, once detached from its bucket.
+         *
+         * @return Next node of the detached chain, may be {@literal null}
+         */
+        /* package */ Node clearTimerLinks()
+        {
+            Node following = timerNext;
+            timerPrev = null;
+            timerNext = null;
+            return following;
+        }
+    }
+
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+    private static final int READ_DRAIN_THRESHOLD = 64;
+    private static final int READ_BUFFER_MAX = 1024;
+
+    private final ConcurrentMap<String, Node> data = new ConcurrentHashMap<>();
+    private final Queue<Node> readBuffer = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingReads = new AtomicInteger();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final LongSupplier clock;
+    private final Weigher weigher;
+    private final long maximum;
+    private final long windowMaximum;
+    private final long protectedMaximum;
+    // Guarded by the eviction lock
+    private final FrequencySketch sketch;
+    private final TimerWheel timerWheel;
+    private final Node window = Node.sentinel();
+    private final Node probation = Node.sentinel();
+    private final Node protectedSegment = Node.sentinel();
+    private long weightedSize;
+    private long windowWeight;
+    private long protectedWeight;
+
+    /* package */ LocalCache( long maximum, Weigher weigher )
+    {
+        this( null, maximum, weigher, System::currentTimeMillis );
+    }
+
+    /* package */ LocalCache( Metrics metrics, long maximum, Weigher weigher )
+    {
+        this(
+            new CacheMetricsHandler( metrics.metrics(), "local", "werval-cache" ),
+            maximum, weigher, System::currentTimeMillis
+        );
+    }
+
+    /* package */ LocalCache(
+        Function<CacheEvent, CacheEvent.Closeable> handler,
+        long maximum, Weigher weigher, LongSupplier clock
+    )
+    {
+        super( handler );
+        this.clock = clock;
+        this.weigher = weigher;
+        this.maximum = maximum;
+        this.windowMaximum = Math.max( 1, maximum / 100 );
+        this.protectedMaximum = ( maximum - windowMaximum ) * 8 / 10;
+        this.sketch = new FrequencySketch( weigher == Weigher.SINGLETON ? maximum : maximum / 1024 );
+        this.timerWheel = new TimerWheel( clock.getAsLong() );
+    }
+
+    /**
+     * @return Number of entries, may include expired entries not cleaned up yet
+     */
+    /* package */ long size()
+    {
+        return data.size();
+    }
+
+    /**
+     * @return Total weight of entries, that is the number of entries if not bounded by weight
+     */
+    /* package */ long weightedSize()
+    {
+        evictionLock.lock();
+        try
+        {
+            return weightedSize;
+        }
+        finally
+        {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Apply pending policy bookkeeping and discard expired entries.
+     */
+    /* package */ void cleanUp()
+    {
+        evictionLock.lock();
+        try
+        {
+            drainReads();
+            timerWheel.advance(
+                clock.getAsLong(),
+                node ->
+                {
+                    if( data.remove( node.key, node ) )
+                    {
+                        retire( node );
+                        record( CacheEvent.EXPIRATION );
+                    }
+                }
+            );
+        }
+        finally
+        {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Discard all entries.
+     */
+    /* package */ void clear()
+    {
+        evictionLock.lock();
+        try
+        {
+            drainReads();
+            for( Node node : data.values() )
+            {
+                if( data.remove( node.key, node ) )
+                {
+                    retire( node );
+                }
+            }
+        }
+        finally
+        {
+            evictionLock.unlock();
+        }
+    }
+
+    @Override
+    protected <T> T doGet( String key )
+    {
+        Node node = data.get( key );
+        if( node == null )
+        {
+            return null;
+        }
+        if( node.expiresAt <= clock.getAsLong() )
+        {
+            expire( node );
+            return null;
+        }
+        afterRead( node );
+        return (T) node.value;
+    }
+
+    @Override
+    protected <T> void doSet( int ttlSeconds, String key, T value )
+    {
+        Node node = new Node( key, value, weigher.weigh( key, value ), expiration( clock.getAsLong(), ttlSeconds ) );
+        evictionLock.lock();
+        try
+        {
+            drainReads();
+            put( node );
+            evict();
+        }
+        finally
+        {
+            evictionLock.unlock();
+        }
+    }
+
+    @Override
+    protected <T> void doSetAll( int ttlSeconds, Map<String, T> entries )
+    {
+        long expiresAt = expiration( clock.getAsLong(), ttlSeconds );
+        List<Node> nodes = new ArrayList<>( entries.size() );
+        for( Map.Entry<String, T> entry : entries.entrySet() )
+        {
+            long weight = weigher.weigh( entry.getKey(), entry.getValue() );
+            nodes.add( new Node( entry.getKey(), entry.getValue(), weight, expiresAt ) );
+        }
+        evictionLock.lock();
+        try
+        {
+            drainReads();
+            for( Node node : nodes )
+            {
+                put( node );
+                evict();
+            }
+        }
+        finally
+        {
+            evictionLock.unlock();
+        }
+    }
+
+    @Override
+    protected void doRemove( String key )
+    {
+        evictionLock.lock();
+        try
+        {
+            Node node = data.remove( key );
+            if( node != null )
+            {
+                retire( node );
+            }
+        }
+        finally
+        {
+            evictionLock.unlock();
+        }
+    }
+
+    @Override
+    protected void doRemoveAll( Collection<String> keys )
+    {
+        evictionLock.lock();
+        try
+        {
+            for( String key : keys )
+            {
+                Node node = data.remove( key );
+                if( node != null )
+                {
+                    retire( node );
+                }
+            }
+        }
+        finally
+        {
+            evictionLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Entry> hottest( Policy policy, int maxEntries )
+    {
+        long now = clock.getAsLong();
+        List<Node> nodes = new ArrayList<>();
+        evictionLock.lock();
+        try
+        {
+            drainReads();
+            if( policy == Policy.FREQUENCY )
+            {
+                for( Node node : data.values() )
+                {
+                    if( node.expiresAt > now )
+                    {
+                        nodes.add( node );
+                    }
+                }
+                Map<String, Integer> frequencies = new HashMap<>( nodes.size() );
+                for( Node node : nodes )
+                {
+                    frequencies.put( node.key, sketch.frequency( node.key ) );
+                }
+                nodes.sort( Comparator.comparing( ( Node node ) -> frequencies.get( node.key ) ).reversed() );
+            }
+            else
+            {
+                // Most recently used first, protected entries having proven their worth
+                for( Node sentinel : new Node[]
+                {
+                    protectedSegment, window, probation
+                } )
+                {
+                    for( Node node = sentinel.prev; node != sentinel && nodes.size() < maxEntries; node = node.prev )
+                    {
+                        if( node.expiresAt > now )
+                        {
+                            nodes.add( node );
+                        }
+                    }
+                }
+            }
+        }
+        finally
+        {
+            evictionLock.unlock();
+        }
+        List<Entry> hottest = new ArrayList<>( Math.min( maxEntries, nodes.size() ) );
+        for( Node node : nodes.subList( 0, Math.min( maxEntries, nodes.size() ) ) )
+        {
+            hottest.add( new Entry( node.key, node.value, node.expiresAt ) );
+        }
+        return hottest;
+    }
+
+    @Override
+    public boolean restore( String key, Object value, long expiresAt )
+    {
+        if( data.containsKey( key ) )
+        {
+            return false;
+        }
+        Node node = new Node( key, value, weigher.weigh( key, value ), expiresAt );
+        evictionLock.lock();
+        try
+        {
+            if( data.containsKey( key ) )
+            {
+                return false;
+            }
+            drainReads();
+            put( node );
+            evict();
+            return true;
+        }
+        finally
+        {
+            evictionLock.unlock();
+        }
+    }
+
+    // Must hold the eviction lock
+    private void put( Node node )
+    {
+        if( node.weight > maximum )
+        {
+            // Would evict everything else, refuse it
+            Node previous = data.remove( node.key );
+            if( previous != null )
+            {
+                retire( previous );
+            }
+            record( CacheEvent.EVICTION );
+            return;
+        }
+        Node previous = data.put( node.key, node );
+        if( previous != null )
+        {
+            retire( previous );
+        }
+        sketch.increment( node.key );
+        node.queue = WINDOW;
+        link( window, node );
+        windowWeight += node.weight;
+        weightedSize += node.weight;
+        if( node.expiresAt != Long.MAX_VALUE )
+        {
+            timerWheel.schedule( node );
+        }
+    }
+
+    private void afterRead( Node node )
+    {
+        int pending = pendingReads.incrementAndGet();
+        if( pending <= READ_BUFFER_MAX )
+        {
+            readBuffer.offer( node );
+        }
+        else
+        {
+            // Buffer full, this read is not recorded
+            pendingReads.decrementAndGet();
+        }
+        if( pending >= READ_DRAIN_THRESHOLD && evictionLock.tryLock() )
+        {
+            try
+            {
+                drainReads();
+            }
+            finally
+            {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    private void expire( Node node )
+    {
+        evictionLock.lock();
+        try
+        {
+            if( data.remove( node.key, node ) )
+            {
+                retire( node );
+                record( CacheEvent.EXPIRATION );
+            }
+        }
+        finally
+        {
+            evictionLock.unlock();
+        }
+    }
+
+    private void drainReads()
+    {
+        Node node;
+        while( ( node = readBuffer.poll() ) != null )
+        {
+            pendingReads.decrementAndGet();
+            onAccess( node );
+        }
+    }
+
+    private void onAccess( Node node )
+    {
+        if( !node.alive )
+        {
+            return;
+        }
+        sketch.increment( node.key );
+        switch( node.queue )
+        {
+            case WINDOW:
+                unlink( node );
+                link( window, node );
+                break;
+            case PROBATION:
+                unlink( node );
+                node.queue = PROTECTED;
+                link( protectedSegment, node );
+                protectedWeight += node.weight;
+                while( protectedWeight > protectedMaximum )
+                {
+                    Node demoted = protectedSegment.next;
+                    unlink( demoted );
+                    protectedWeight -= demoted.weight;
+                    demoted.queue = PROBATION;
+                    link( probation, demoted );
+                }
+                break;
+            case PROTECTED:
+                unlink( node );
+                link( protectedSegment, node );
+                break;
+            default:
+                throw new IllegalStateException( "Unknown queue: " + node.queue );
+        }
+    }
+
+    private void evict()
+    {
+        // Entries leaving the window become admission candidates at the tail of probation
+        while( windowWeight > windowMaximum )
+        {
+            Node candidate = window.next;
+            unlink( candidate );
+            windowWeight -= candidate.weight;
+            candidate.queue = PROBATION;
+            link( probation, candidate );
+        }
+        while( weightedSize > maximum )
+        {
+            Node victim = firstOf( probation, protectedSegment, window );
+            Node candidate = probation.prev;
+            if( victim.queue == PROBATION && candidate != victim
+                && sketch.frequency( candidate.key ) <= sketch.frequency( victim.key ) )
+            {
+                // Candidate not more popular than the victim, reject it
+                evict( candidate );
+            }
+            else
+            {
+                evict( victim );
+            }
+        }
+    }
+
+    private void evict( Node node )
+    {
+        data.remove( node.key, node );
+        retire( node );
+        record( CacheEvent.EVICTION );
+    }
+
+    private void retire( Node node )
+    {
+        node.alive = false;
+        unlink( node );
+        switch( node.queue )
+        {
+            case WINDOW:
+                windowWeight -= node.weight;
+                break;
+            case PROTECTED:
+                protectedWeight -= node.weight;
+                break;
+            default:
+                break;
+        }
+        weightedSize -= node.weight;
+        timerWheel.deschedule( node );
+    }
+
+    private static Node firstOf( Node... sentinels )
+    {
+        for( Node sentinel : sentinels )
+        {
+            if( sentinel.next != sentinel )
+            {
+                return sentinel.next;
+            }
+        }
+        throw new IllegalStateException( "Cache weight accounting is broken, no entry left to evict" );
+    }
+
+    private static void link( Node sentinel, Node node )
+    {
+        node.prev = sentinel.prev;
+        node.next = sentinel;
+        sentinel.prev.next = node;
+        sentinel.prev = node;
+    }
+
+    private static void unlink( Node node )
+    {
+        if( node.next != null )
+        {
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+            node.prev = null;
+            node.next = null;
+        }
+    }
+
+    private static long expiration( long now, int ttlSeconds )
+    {
+        if( ttlSeconds == 0 )
+        {
+            return Long.MAX_VALUE;
+        }
+        return Numbers.safeLongValueOfSum( now, Numbers.safeLongValueOfMultiply( ttlSeconds, 1000 ) );
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.modules.cache;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import io.werval.api.Application;
+import io.werval.api.Config;
+import io.werval.api.cache.Cache;
+import io.werval.api.cache.CachePlugin;
+import io.werval.api.exceptions.ActivationException;
+import io.werval.modules.metrics.Metrics;
+import io.werval.spi.cache.CacheCodecs;
+import io.werval.spi.cache.CacheSnapshots;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+
+import static java.util.Collections.EMPTY_LIST;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+/**
+ * Local Cache Plugin.
+ */
+public class LocalCachePlugin
+    extends CachePlugin
+{
+    private static final String METRICS_PREFIX = "io.werval.modules.cache.local.werval-cache";
+    private LocalCache localCache;
+    private ScheduledExecutorService sweeper;
+    private MetricRegistry metrics;
+    private CacheSnapshots snapshots;
+
+    @Override
+    public List<Class<?>> dependencies( Config config )
+    {
+        if( config.bool( "local_cache.metrics" ) )
+        {
+            return Arrays.asList( Metrics.class );
+        }
+        return EMPTY_LIST;
+    }
+
+    @Override
+    public Cache api()
+    {
+        return localCache;
+    }
+
+    @Override
+    public void onActivate( Application application )
+        throws ActivationException
+    {
+        Config config = application.config().atKey( "local_cache" );
+        long maximum;
+        Weigher weigher;
+        if( config.has( "max_weight" ) )
+        {
+            maximum = config.longNumber( "max_weight" );
+            weigher = weigher( application, config.string( "weigher" ) );
+        }
+        else
+        {
+            maximum = config.longNumber( "max_entries" );
+            weigher = Weigher.SINGLETON;
+        }
+        if( maximum <= 0 )
+        {
+            throw new ActivationException( "Local Cache maximum must be greater than zero, was " + maximum );
+        }
+        if( config.bool( "metrics" ) )
+        {
+            localCache = new LocalCache( application.plugin( Metrics.class ), maximum, weigher );
+            metrics = application.plugin( Metrics.class ).metrics();
+            metrics.register( name( METRICS_PREFIX, "size" ), (Gauge<Long>) localCache::size );
+            metrics.register( name( METRICS_PREFIX, "weight" ), (Gauge<Long>) localCache::weightedSize );
+        }
+        else
+        {
+            localCache = new LocalCache( maximum, weigher );
+        }
+        long periodicity = config.milliseconds( "sweeper.periodicity" );
+        sweeper = Executors.newSingleThreadScheduledExecutor(
+            runnable ->
+            {
+                Thread thread = new Thread( runnable, "werval-local-cache-sweeper" );
+                thread.setDaemon( true );
+                return thread;
+            }
+        );
+        sweeper.scheduleWithFixedDelay( localCache::cleanUp, periodicity, periodicity, MILLISECONDS );
+        Config snapshotConfig = config.atKey( "snapshot" );
+        snapshots = CacheSnapshots.fromConfig(
+            application, snapshotConfig, "werval-local-cache",
+            CacheCodecs.codec( application, snapshotConfig.atKey( "codec" ) )
+        );
+        if( snapshots != null )
+        {
+            snapshots.restoreOnActivation( localCache, application.classLoader() );
+        }
+    }
+
+    @Override
+    public void onPassivate( Application application )
+    {
+        if( snapshots != null && localCache != null )
+        {
+            snapshots.saveOnPassivation( localCache );
+        }
+        snapshots = null;
+        if( sweeper != null )
+        {
+            sweeper.shutdownNow();
+            sweeper = null;
+        }
+        if( metrics != null )
+        {
+            metrics.remove( name( METRICS_PREFIX, "size" ) );
+            metrics.remove( name( METRICS_PREFIX, "weight" ) );
+            metrics = null;
+        }
+        localCache = null;
+    }
+
+    private static Weigher weigher( Application application, String weigher )
+        throws ActivationException
+    {
+        switch( weigher )
+        {
+            case "estimating":
+                return Weigher.ESTIMATING;
+            case "serializing":
+                return Weigher.SERIALIZING;
+            default:
+                try
+                {
+                    return (Weigher) application.classLoader().loadClass( weigher ).newInstance();
+                }
+                catch( ClassNotFoundException | InstantiationException | IllegalAccessException
+                       | ClassCastException ex )
+                {
+                    throw new ActivationException( "Invalid Local Cache Weigher: " + weigher, ex );
+                }
+        }
+    }
+}
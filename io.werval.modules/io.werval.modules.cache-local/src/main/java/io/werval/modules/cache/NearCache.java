@@ -0,0 +1,296 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.modules.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import io.werval.api.cache.Cache;
+import io.werval.modules.metrics.Metrics;
+import io.werval.modules.metrics.internal.CacheMetricsHandler;
+import io.werval.spi.cache.CacheAdapter;
+import io.werval.spi.cache.InvalidationChannel;
+
+/**
+ * Near Cache.
+ * <p>
+ * Decorate a remote Cache with a bounded local cache whose entries live at most a short time.
+ * <p>
+ * Reads are served from the local tier when possible, misses are read from the remote tier and kept locally.
+ * Writes go to both tiers and are published on an {@link InvalidationChannel} so that other nodes evict their local
+ * entries.
+ * Without a channel, other nodes may serve stale values until their local entries expire.
+ * <p>
+ * Local entries are expired lazily, on read or when evicted to honor the local capacity.
+ * <p>
+ * When built with {@link Metrics}, local tier metrics are named {@literal <impl>.werval-cache.l1.*} and overall
+ * near cache metrics {@literal <impl>.werval-cache.near.*}, remote tier metrics are the remote Cache ones.
+ */
+public final class NearCache
+    extends CacheAdapter
+{
+    private final LocalCache local;
+    private final Cache remote;
+    private final int localTtlSeconds;
+    private final InvalidationChannel channel;
+    private final String origin = UUID.randomUUID().toString();
+    // Incremented on each received invalidation, guards local population against concurrent invalidations
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Create a new NearCache.
+     *
+     * @param remote            Remote Cache
+     * @param localMaxEntries   Local tier maximum number of entries
+     * @param localTtlSeconds   Local tier entries maximum time to live
+     * @param channel           Invalidation channel, may be {@literal null}
+     */
+    public NearCache( Cache remote, long localMaxEntries, int localTtlSeconds, InvalidationChannel channel )
+    {
+        this(
+            new LocalCache( localMaxEntries, Weigher.SINGLETON ),
+            null, remote, localTtlSeconds, channel
+        );
+    }
+
+    /**
+     * Create a new NearCache with metrics.
+     *
+     * @param metrics           Metrics
+     * @param implName          Remote Cache implementation name, used in metrics names
+     * @param remote            Remote Cache
+     * @param localMaxEntries   Local tier maximum number of entries
+     * @param localTtlSeconds   Local tier entries maximum time to live
+     * @param channel           Invalidation channel, may be {@literal null}
+     */
+    public NearCache(
+        Metrics metrics, String implName,
+        Cache remote, long localMaxEntries, int localTtlSeconds, InvalidationChannel channel
+    )
+    {
+        this(
+            new LocalCache(
+                new CacheMetricsHandler( metrics.metrics(), implName, "werval-cache.l1" ),
+                localMaxEntries, Weigher.SINGLETON, System::currentTimeMillis
+            ),
+            new CacheMetricsHandler( metrics.metrics(), implName, "werval-cache.near" ),
+            remote, localTtlSeconds, channel
+        );
+    }
+
+    /* package */ NearCache(
+        LocalCache local, CacheMetricsHandler handler,
+        Cache remote, int localTtlSeconds, InvalidationChannel channel
+    )
+    {
+        super( handler == null ? CacheEvent.NOOP_HANDLER : handler );
+        this.local = local;
+        this.remote = remote;
+        this.localTtlSeconds = localTtlSeconds;
+        this.channel = channel;
+        if( channel != null )
+        {
+            channel.subscribe( new LocalInvalidation() );
+        }
+    }
+
+    /**
+     * Close the invalidation channel.
+     */
+    public void close()
+    {
+        if( channel != null )
+        {
+            channel.close();
+        }
+        local.clear();
+    }
+
+    @Override
+    protected <T> T doGet( String key )
+    {
+        T value = local.get( key );
+        if( value != null )
+        {
+            return value;
+        }
+        long generation = invalidations.get();
+        value = remote.get( key );
+        if( value != null && generation == invalidations.get() )
+        {
+            local.set( localTtlSeconds, key, value );
+        }
+        return value;
+    }
+
+    @Override
+    protected <T> void doSet( int ttlSeconds, String key, T value )
+    {
+        remote.set( ttlSeconds, key, value );
+        local.set( localTtl( ttlSeconds ), key, value );
+        publish( Collections.singletonList( key ) );
+    }
+
+    @Override
+    protected void doRemove( String key )
+    {
+        remote.remove( key );
+        local.remove( key );
+        publish( Collections.singletonList( key ) );
+    }
+
+    @Override
+    protected <T> Map<String, T> doGetAll( Collection<String> keys )
+    {
+        Map<String, T> values = new LinkedHashMap<>( local.getAll( keys ) );
+        if( values.size() == keys.size() )
+        {
+            return values;
+        }
+        List<String> missing = new ArrayList<>( keys.size() - values.size() );
+        for( String key : keys )
+        {
+            if( !values.containsKey( key ) )
+            {
+                missing.add( key );
+            }
+        }
+        long generation = invalidations.get();
+        Map<String, T> remoteValues = remote.getAll( missing );
+        if( !remoteValues.isEmpty() && generation == invalidations.get() )
+        {
+            local.setAll( localTtlSeconds, remoteValues );
+        }
+        values.putAll( remoteValues );
+        return values;
+    }
+
+    @Override
+    protected <T> void doSetAll( int ttlSeconds, Map<String, T> entries )
+    {
+        remote.setAll( ttlSeconds, entries );
+        local.setAll( localTtl( ttlSeconds ), entries );
+        publish( entries.keySet() );
+    }
+
+    @Override
+    protected void doRemoveAll( Collection<String> keys )
+    {
+        remote.removeAll( keys );
+        local.removeAll( keys );
+        publish( keys );
+    }
+
+    @Override
+    protected <T> CompletableFuture<T> doGetAsync( String key )
+    {
+        T value = local.get( key );
+        if( value != null )
+        {
+            return CompletableFuture.completedFuture( value );
+        }
+        long generation = invalidations.get();
+        return remote.<T>getAsync( key ).thenApply(
+            remoteValue ->
+            {
+                if( remoteValue != null && generation == invalidations.get() )
+                {
+                    local.set( localTtlSeconds, key, remoteValue );
+                }
+                return remoteValue;
+            }
+        );
+    }
+
+    @Override
+    protected <T> CompletableFuture<Void> doSetAsync( int ttlSeconds, String key, T value )
+    {
+        return remote.setAsync( ttlSeconds, key, value ).thenRun(
+            () ->
+            {
+                local.set( localTtl( ttlSeconds ), key, value );
+                publish( Collections.singletonList( key ) );
+            }
+        );
+    }
+
+    @Override
+    protected CompletableFuture<Void> doRemoveAsync( String key )
+    {
+        local.remove( key );
+        return remote.removeAsync( key ).thenRun(
+            () ->
+            {
+                local.remove( key );
+                publish( Collections.singletonList( key ) );
+            }
+        );
+    }
+
+    @Override
+    protected <T> T doCompute( String key, int ttlSeconds, Supplier<T> loader )
+    {
+        // Let the remote Cache coordinate nodes if it can
+        T value = remote.getOrCompute( key, ttlSeconds, loader );
+        if( value != null )
+        {
+            local.set( localTtl( ttlSeconds ), key, value );
+        }
+        return value;
+    }
+
+    private int localTtl( int ttlSeconds )
+    {
+        return ttlSeconds == 0 ? localTtlSeconds : Math.min( ttlSeconds, localTtlSeconds );
+    }
+
+    private void publish( Collection<String> keys )
+    {
+        if( channel != null )
+        {
+            channel.publish( origin, keys );
+        }
+    }
+
+    private final class LocalInvalidation
+        implements InvalidationChannel.Subscriber
+    {
+        @Override
+        public void onInvalidation( String publisher, Collection<String> keys )
+        {
+            if( !origin.equals( publisher ) )
+            {
+                invalidations.incrementAndGet();
+                local.removeAll( keys );
+            }
+        }
+
+        @Override
+        public void onReset()
+        {
+            invalidations.incrementAndGet();
+            local.clear();
+        }
+    }
+}
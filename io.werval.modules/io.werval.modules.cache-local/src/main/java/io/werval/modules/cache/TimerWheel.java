@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.modules.cache;
+
+import java.util.function.Consumer;
+
+import io.werval.modules.cache.LocalCache.Node;
+
+/**
+ * Hierarchical timer wheel of cache entries expiration.
+ * <p>
+ * Four wheels of 64 buckets, each bucket spanning respectively ~1 second, ~1 minute, ~1 hour and ~3 days.
+ * Entries further in the future sit in an overflow bucket.
+ * Scheduling and descheduling are O(1), advancing only visits the buckets whose time elapsed and cascades entries
+ * that are not yet expired to finer wheels.
+ * <p>
+ * Not thread-safe, guarded by the owning {@link LocalCache} eviction lock.
+ */
+/* package */ final class TimerWheel
+{
+    private static final int BUCKETS = 64;
+    private static final int[] SHIFTS =
+    {
+        10, 16, 22, 28
+    };
+
+    private final Node[][] wheels;
+    private final Node overflow;
+    private long time;
+
+    /* package */ TimerWheel( long now )
+    {
+        this.wheels = new Node[ SHIFTS.length ][ BUCKETS ];
+        for( Node[] wheel : wheels )
+        {
+            for( int idx = 0; idx < BUCKETS; idx++ )
+            {
+                wheel[idx] = Node.timerSentinel();
+            }
+        }
+        this.overflow = Node.timerSentinel();
+        this.time = now;
+    }
+
+    /* package */ void schedule( Node node )
+    {
+        node.linkTimer( bucketOf( node.expiresAt ) );
+    }
+
+    /* package */ void deschedule( Node node )
+    {
+        node.unlinkTimer();
+    }
+
+    /**
+     * Advance the wheels to the given time.
+     *
+     * @param now       Current time in milliseconds
+     * @param onExpired Callback for each expired entry, called after the entry has been descheduled
+     */
+    /* package */ void advance( long now, Consumer<Node> onExpired )
+    {
+        long previous = time;
+        time = now;
+        for( int level = 0; level < SHIFTS.length; level++ )
+        {
+            long previousTicks = previous >>> SHIFTS[level];
+            long delta = ( now >>> SHIFTS[level] ) - previousTicks;
+            if( delta <= 0 )
+            {
+                return;
+            }
+            int start = (int) ( previousTicks & ( BUCKETS - 1 ) );
+            int steps = (int) Math.min( delta + 1, BUCKETS );
+            for( int step = 0; step < steps; step++ )
+            {
+                expire( wheels[level][( start + step ) & ( BUCKETS - 1 )], onExpired );
+            }
+        }
+        expire( overflow, onExpired );
+    }
+
+    private void expire( Node sentinel, Consumer<Node> onExpired )
+    {
+        // Detach the whole bucket first as entries that are not expired yet may be rescheduled into it
+        Node node = sentinel.detachTimerBucket();
+        while( node != null && node != sentinel )
+        {
+            Node next = node.clearTimerLinks();
+            if( node.expiresAt <= time )
+            {
+                onExpired.accept( node );
+            }
+            else
+            {
+                schedule( node );
+            }
+            node = next;
+        }
+    }
+
+    private Node bucketOf( long expiresAt )
+    {
+        long at = Math.max( expiresAt, time );
+        long duration = at - time;
+        for( int level = 0; level < SHIFTS.length; level++ )
+        {
+            if( duration < ( 1L << ( SHIFTS[level] + 6 ) ) )
+            {
+                return wheels[level][(int) ( ( at >>> SHIFTS[level] ) & ( BUCKETS - 1 ) )];
+            }
+        }
+        return overflow;
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.modules.cache;
+
+/**
+ * Local Cache entries Weigher.
+ * <p>
+ * Used when the Local Cache is bounded by weight, implementations must have a public no-arg constructor to be set
+ * in configuration.
+ */
+@FunctionalInterface
+public interface Weigher
+{
+    /**
+     * Weigher counting entries, used when the Local Cache is bounded by entries count.
+     */
+    Weigher SINGLETON = ( key, value ) -> 1L;
+
+    /**
+     * Weigher estimating the memory footprint of values in bytes, cheaply.
+     * <p>
+     * Byte arrays, primitive arrays, character sequences and boxed primitives are measured, values implementing
+     * {@link Sized} give their own weight, other values are weighted by a shallow constant estimate.
+     */
+    Weigher ESTIMATING = ( key, value ) -> Weighers.keyWeight( key ) + Weighers.estimatedWeight( value );
+
+    /**
+     * Weigher measuring values by their serialized form size, in bytes.
+     * <p>
+     * Accurate but serializes every value on each write, use only when values sizes vary too much to be estimated.
+     */
+    Weigher SERIALIZING = ( key, value ) -> Weighers.keyWeight( key ) + Weighers.serializedWeight( value );
+
+    /**
+     * Size hint for cached values, used by the {@link #ESTIMATING} Weigher.
+     */
+    @FunctionalInterface
+    interface Sized
+    {
+        /**
+         * @return Estimated memory footprint of this value in bytes, must not be negative
+         */
+        long weight();
+    }
+
+    /**
+     * @param key   Cache Key
+     * @param value Cache Value
+     *
+     * @return Weight of the entry, must not be negative
+     */
+    long weigh( String key, Object value );
+}
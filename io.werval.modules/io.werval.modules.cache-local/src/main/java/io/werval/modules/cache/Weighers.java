@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.modules.cache;
+
+import java.io.Serializable;
+import java.lang.reflect.Array;
+
+import io.werval.util.Serializables;
+
+/**
+ * Weights computations of the provided {@link Weigher}s.
+ */
+/* package */ final class Weighers
+{
+    /* package */ static long keyWeight( String key )
+    {
+        return 2L * key.length();
+    }
+
+    /* package */ static long estimatedWeight( Object value )
+    {
+        if( value instanceof Weigher.Sized )
+        {
+            return ( (Weigher.Sized) value ).weight();
+        }
+        if( value instanceof byte[] )
+        {
+            return ( (byte[]) value ).length;
+        }
+        if( value instanceof CharSequence )
+        {
+            return 2L * ( (CharSequence) value ).length();
+        }
+        if( value instanceof Number || value instanceof Boolean || value instanceof Character )
+        {
+            return 16L;
+        }
+        if( value != null && value.getClass().isArray() && value.getClass().getComponentType().isPrimitive() )
+        {
+            return 8L * Array.getLength( value );
+        }
+        return 1024L;
+    }
+
+    /* package */ static long serializedWeight( Object value )
+    {
+        if( value instanceof byte[] )
+        {
+            return ( (byte[]) value ).length;
+        }
+        if( value instanceof Serializable )
+        {
+            return Serializables.toBytes( value ).length;
+        }
+        return 1024L;
+    }
+
+    private Weighers()
+    {
+    }
+}
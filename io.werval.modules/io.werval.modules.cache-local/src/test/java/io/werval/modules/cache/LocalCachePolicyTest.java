@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.modules.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.werval.spi.cache.CacheAdapter.CacheEvent;
+import io.werval.spi.cache.SnapshotableCache;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * LocalCache eviction & expiration policy Test.
+ */
+public class LocalCachePolicyTest
+{
+    private final AtomicLong clock = new AtomicLong( 1_000_000L );
+    private final List<CacheEvent> events = new ArrayList<>();
+
+    private LocalCache newCache( long maximum, Weigher weigher )
+    {
+        return new LocalCache(
+            event ->
+            {
+                events.add( event );
+                return CacheEvent.NOOP_CLOSEABLE;
+            },
+            maximum, weigher, clock::get
+        );
+    }
+
+    private long count( CacheEvent event )
+    {
+        return events.stream().filter( e -> e == event ).count();
+    }
+
+    @Test
+    public void boundedByEntries()
+    {
+        LocalCache cache = newCache( 100, Weigher.SINGLETON );
+        for( int idx = 0; idx < 1000; idx++ )
+        {
+            cache.set( "key-" + idx, idx );
+            assertThat( cache.size(), lessThanOrEqualTo( 100L ) );
+        }
+        assertThat( cache.size(), is( 100L ) );
+        assertThat( cache.weightedSize(), is( 100L ) );
+        assertThat( count( CacheEvent.EVICTION ), is( 900L ) );
+    }
+
+    @Test
+    public void boundedByWeight()
+    {
+        LocalCache cache = newCache( 10_000, Weigher.ESTIMATING );
+        for( int idx = 0; idx < 100; idx++ )
+        {
+            cache.set( "key-" + idx, new byte[ 1000 ] );
+            assertThat( cache.weightedSize(), lessThanOrEqualTo( 10_000L ) );
+        }
+        // Heavier than the whole cache, refused
+        cache.set( "huge", new byte[ 20_000 ] );
+        assertThat( cache.get( "huge" ), nullValue() );
+        assertThat( cache.weightedSize(), lessThanOrEqualTo( 10_000L ) );
+    }
+
+    @Test
+    public void estimatingWeigher()
+    {
+        assertThat( Weigher.ESTIMATING.weigh( "key", new byte[ 100 ] ), is( 106L ) );
+        assertThat( Weigher.ESTIMATING.weigh( "key", "value" ), is( 16L ) );
+        assertThat( Weigher.ESTIMATING.weigh( "key", new long[ 10 ] ), is( 86L ) );
+        assertThat( Weigher.ESTIMATING.weigh( "key", (Weigher.Sized) () -> 4242L ), is( 4248L ) );
+        assertThat( Weigher.ESTIMATING.weigh( "key", new ArrayList<>() ), is( 1030L ) );
+        assertThat( Weigher.SERIALIZING.weigh( "key", new byte[ 100 ] ), is( 106L ) );
+    }
+
+    @Test
+    public void frequentlyUsedEntriesSurviveScans()
+    {
+        LocalCache cache = newCache( 100, Weigher.SINGLETON );
+        for( int idx = 0; idx < 50; idx++ )
+        {
+            cache.set( "hot-" + idx, idx );
+        }
+        for( int round = 0; round < 10; round++ )
+        {
+            for( int idx = 0; idx < 50; idx++ )
+            {
+                cache.get( "hot-" + idx );
+            }
+            cache.cleanUp();
+        }
+        // A scan of one-hit wonders must not flush the hot entries
+        for( int idx = 0; idx < 1_000; idx++ )
+        {
+            cache.set( "scan-" + idx, idx );
+        }
+        int hotHits = 0;
+        for( int idx = 0; idx < 50; idx++ )
+        {
+            if( cache.get( "hot-" + idx ) != null )
+            {
+                hotHits++;
+            }
+        }
+        assertThat( hotHits, is( 50 ) );
+    }
+
+    @Test
+    public void expiredEntriesAreSwept()
+    {
+        LocalCache cache = newCache( 100, Weigher.SINGLETON );
+        cache.set( 1, "short", "value" );
+        cache.set( 120, "medium", "value" );
+        cache.set( 100_000, "long", "value" );
+        cache.set( "forever", "value" );
+
+        clock.addAndGet( 2_000 );
+        cache.cleanUp();
+        assertThat( cache.size(), is( 3L ) );
+
+        clock.addAndGet( 120_000 );
+        cache.cleanUp();
+        assertThat( cache.size(), is( 2L ) );
+
+        clock.addAndGet( 100_000_000L );
+        cache.cleanUp();
+        assertThat( cache.size(), is( 1L ) );
+        assertThat( cache.get( "forever" ), equalTo( "value" ) );
+        assertThat( count( CacheEvent.EXPIRATION ), is( 3L ) );
+    }
+
+    @Test
+    public void expiredEntriesAreDiscardedOnAccess()
+    {
+        LocalCache cache = newCache( 100, Weigher.SINGLETON );
+        cache.set( 1, "short", "value" );
+        clock.addAndGet( 1_000 );
+        assertThat( cache.get( "short" ), nullValue() );
+        assertThat( cache.size(), is( 0L ) );
+        assertThat( count( CacheEvent.EXPIRATION ), is( 1L ) );
+    }
+
+    @Test
+    public void replacedEntriesAreRescheduled()
+    {
+        LocalCache cache = newCache( 100, Weigher.SINGLETON );
+        cache.set( 1, "key", "first" );
+        cache.set( 60, "key", "second" );
+        clock.addAndGet( 2_000 );
+        cache.cleanUp();
+        assertThat( cache.get( "key" ), equalTo( "second" ) );
+        assertThat( cache.weightedSize(), is( 1L ) );
+    }
+
+    @Test
+    public void hottestEntries()
+    {
+        LocalCache cache = newCache( 100, Weigher.SINGLETON );
+        for( int idx = 0; idx < 10; idx++ )
+        {
+            cache.set( 60, "key-" + idx, idx );
+        }
+        for( int hit = 0; hit < 5; hit++ )
+        {
+            cache.get( "key-3" );
+        }
+        cache.get( "key-7" );
+        List<SnapshotableCache.Entry> frequent = cache.hottest( SnapshotableCache.Policy.FREQUENCY, 2 );
+        assertThat( frequent.size(), is( 2 ) );
+        assertThat( frequent.get( 0 ).key(), equalTo( "key-3" ) );
+        assertThat( frequent.get( 0 ).expiresAt(), is( clock.get() + 60_000L ) );
+        List<SnapshotableCache.Entry> recent = cache.hottest( SnapshotableCache.Policy.RECENCY, 10 );
+        assertThat( recent.size(), is( 10 ) );
+        clock.addAndGet( 61_000L );
+        assertThat( cache.hottest( SnapshotableCache.Policy.RECENCY, 10 ).size(), is( 0 ) );
+    }
+
+    @Test
+    public void restoreDoNotOverwrite()
+    {
+        LocalCache cache = newCache( 100, Weigher.SINGLETON );
+        cache.set( "present", "current" );
+        assertThat( cache.restore( "present", "restored", Long.MAX_VALUE ), is( false ) );
+        assertThat( cache.restore( "absent", "restored", clock.get() + 1000 ), is( true ) );
+        assertThat( cache.<String>get( "present" ), equalTo( "current" ) );
+        assertThat( cache.<String>get( "absent" ), equalTo( "restored" ) );
+        for( SnapshotableCache.Entry entry : cache.hottest( SnapshotableCache.Policy.RECENCY, 10 ) )
+        {
+            assertThat(
+                entry.expiresAt(),
+                is( "absent".equals( entry.key() ) ? clock.get() + 1000 : Long.MAX_VALUE )
+            );
+        }
+        clock.addAndGet( 1001 );
+        assertThat( cache.get( "absent" ), nullValue() );
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.modules.cache;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.werval.modules.metrics.internal.CacheMetricsHandler;
+import io.werval.spi.cache.CacheAdapter.CacheEvent;
+import io.werval.test.cache.InProcessInvalidationBroker;
+
+import com.codahale.metrics.MetricRegistry;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * NearCache Test.
+ * <p>
+ * Two near caches share a remote cache and an in-process invalidation broker as if they were on two nodes.
+ */
+public class NearCacheTest
+{
+    private static final int LOCAL_TTL_SECONDS = 5;
+    private final AtomicLong clock = new AtomicLong( 1_000_000L );
+    private final LocalCache remote = new LocalCache( 1000, Weigher.SINGLETON );
+    private final InProcessInvalidationBroker broker = new InProcessInvalidationBroker();
+
+    private NearCache newNode()
+    {
+        return new NearCache(
+            new LocalCache( CacheEvent.NOOP_HANDLER, 100, Weigher.SINGLETON, clock::get ), null,
+            remote, LOCAL_TTL_SECONDS, broker.channel()
+        );
+    }
+
+    @Test
+    public void readsAreServedLocally()
+    {
+        NearCache node = newNode();
+        node.set( "foo", "bar" );
+        remote.remove( "foo" );
+        assertThat( node.get( "foo" ), equalTo( "bar" ) );
+        assertThat( newNode().get( "foo" ), nullValue() );
+    }
+
+    @Test
+    public void setInvalidatesOtherNodes()
+    {
+        NearCache nodeA = newNode();
+        NearCache nodeB = newNode();
+        nodeA.set( "foo", "bar" );
+        assertThat( nodeB.get( "foo" ), equalTo( "bar" ) );
+        nodeA.set( "foo", "baz" );
+        assertThat( nodeB.get( "foo" ), equalTo( "baz" ) );
+        assertThat( nodeA.get( "foo" ), equalTo( "baz" ) );
+    }
+
+    @Test
+    public void removeInvalidatesOtherNodes()
+    {
+        NearCache nodeA = newNode();
+        NearCache nodeB = newNode();
+        nodeA.set( "foo", "bar" );
+        assertThat( nodeB.get( "foo" ), equalTo( "bar" ) );
+        nodeA.remove( "foo" );
+        assertThat( nodeB.get( "foo" ), nullValue() );
+    }
+
+    @Test
+    public void bulkOperationsInvalidateOtherNodes()
+    {
+        NearCache nodeA = newNode();
+        NearCache nodeB = newNode();
+        Map<String, String> entries = new LinkedHashMap<>();
+        entries.put( "foo", "bar" );
+        entries.put( "bar", "baz" );
+        nodeA.setAll( entries );
+        assertThat( nodeB.getAll( Arrays.asList( "foo", "bar", "baz" ) ), equalTo( entries ) );
+        entries.put( "foo", "qux" );
+        nodeA.setAll( entries );
+        assertThat( nodeB.get( "foo" ), equalTo( "qux" ) );
+        nodeA.removeAll( entries.keySet() );
+        assertThat( nodeB.getAll( entries.keySet() ).isEmpty(), is( true ) );
+    }
+
+    @Test
+    public void asyncOperationsInvalidateOtherNodes()
+    {
+        NearCache nodeA = newNode();
+        NearCache nodeB = newNode();
+        nodeA.setAsync( "foo", "bar" ).join();
+        assertThat( nodeB.getAsync( "foo" ).join(), equalTo( "bar" ) );
+        nodeA.setAsync( "foo", "baz" ).join();
+        assertThat( nodeB.getAsync( "foo" ).join(), equalTo( "baz" ) );
+        nodeA.removeAsync( "foo" ).join();
+        assertThat( nodeB.getAsync( "foo" ).join(), nullValue() );
+    }
+
+    @Test
+    public void localEntriesExpire()
+    {
+        NearCache node = newNode();
+        node.set( "foo", "bar" );
+        // Changed behind the near cache back, eg. by a node without near cache
+        remote.set( "foo", "baz" );
+        assertThat( node.get( "foo" ), equalTo( "bar" ) );
+        clock.addAndGet( LOCAL_TTL_SECONDS * 1000L );
+        assertThat( node.get( "foo" ), equalTo( "baz" ) );
+    }
+
+    @Test
+    public void resetClearsLocalEntries()
+    {
+        NearCache node = newNode();
+        node.set( "foo", "bar" );
+        remote.set( "foo", "baz" );
+        broker.reset();
+        assertThat( node.get( "foo" ), equalTo( "baz" ) );
+    }
+
+    @Test
+    public void hitRatioPerTier()
+    {
+        MetricRegistry metrics = new MetricRegistry();
+        LocalCache instrumentedRemote = new LocalCache(
+            new CacheMetricsHandler( metrics, "test", "werval-cache" ),
+            1000, Weigher.SINGLETON, clock::get
+        );
+        NearCache node = new NearCache(
+            new LocalCache(
+                new CacheMetricsHandler( metrics, "test", "werval-cache.l1" ),
+                100, Weigher.SINGLETON, clock::get
+            ),
+            new CacheMetricsHandler( metrics, "test", "werval-cache.near" ),
+            instrumentedRemote, LOCAL_TTL_SECONDS, null
+        );
+        instrumentedRemote.set( "foo", "bar" );
+        node.get( "foo" ); // L1 miss, L2 hit
+        node.get( "foo" ); // L1 hit
+        node.get( "foo" ); // L1 hit
+        node.get( "bar" ); // L1 miss, L2 miss
+        String prefix = "io.werval.modules.cache.test.werval-cache.";
+        assertThat( ratio( metrics, prefix + "l1.hit-ratio" ), closeTo( 0.5, 0.01 ) );
+        assertThat( ratio( metrics, prefix + "hit-ratio" ), closeTo( 0.5, 0.01 ) );
+        assertThat( ratio( metrics, prefix + "near.hit-ratio" ), closeTo( 0.75, 0.01 ) );
+    }
+
+    private static double ratio( MetricRegistry metrics, String name )
+    {
+        return (Double) metrics.getGauges().get( name ).getValue();
+    }
+}
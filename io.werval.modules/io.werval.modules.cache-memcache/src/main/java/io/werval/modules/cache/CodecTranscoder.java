@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.modules.cache;
+
+import io.werval.spi.cache.CacheCodec;
+
+import net.spy.memcached.CachedData;
+import net.spy.memcached.transcoders.Transcoder;
+
+/**
+ * Memcache Transcoder delegating to a {@link CacheCodec}.
+ */
+/* package */ final class CodecTranscoder
+    implements Transcoder<Object>
+{
+    private static final int FLAGS = 0;
+
+    private final CacheCodec codec;
+
+    /* package */ CodecTranscoder( CacheCodec codec )
+    {
+        this.codec = codec;
+    }
+
+    @Override
+    public boolean asyncDecode( CachedData data )
+    {
+        return false;
+    }
+
+    @Override
+    public CachedData encode( Object value )
+    {
+        return new CachedData( FLAGS, codec.encode( value ), getMaxSize() );
+    }
+
+    @Override
+    public Object decode( CachedData data )
+    {
+        return codec.decode( data.getData() );
+    }
+
+    @Override
+    public int getMaxSize()
+    {
+        return CachedData.MAX_SIZE;
+    }
+}
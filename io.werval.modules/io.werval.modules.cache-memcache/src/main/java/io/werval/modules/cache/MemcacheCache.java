@@ -15,47 +15,88 @@
  */
 package io.werval.modules.cache;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import io.werval.modules.metrics.Metrics;
 import io.werval.modules.metrics.internal.CacheMetricsHandler;
 import io.werval.spi.cache.CacheAdapter;
+import io.werval.spi.cache.CacheCodec;
+import io.werval.spi.cache.ComputeLock;
 
+import net.spy.memcached.CASValue;
 import net.spy.memcached.MemcachedClient;
-import net.spy.memcached.transcoders.SerializingTranscoder;
+import net.spy.memcached.internal.OperationFuture;
 
 /**
  * Memcache Cache.
+ * <p>
+ * Keys are prefixed by the configured namespace, shared by all nodes, or by a random prefix per instance if none.
+ * <p>
+ * When enabled, {@literal getOrCompute} takes a short lock using {@literal add} in the namespace so that only one node
+ * computes a missing value.
+ * <p>
+ * Asynchronous operations are completed by the client I/O thread through its futures listeners.
+ * <p>
+ * Values are encoded using the configured {@link CacheCodec}.
  */
 /* package */ class MemcacheCache
     extends CacheAdapter
 {
     private final MemcachedClient client;
-    // WARN Use a prefix per instance to start from a fresh cache on each Application activation
-    private final String prefix = UUID.randomUUID().toString() + "_";
+    private final String prefix;
+    private final String lockPrefix;
+    private final ComputeLock computeLock = new MemcacheComputeLock();
+    private final int lockTtlSeconds;
+    private final long lockWaitMillis;
+    private final CodecTranscoder transcoder;
 
-    /* package */ MemcacheCache( MemcachedClient client )
+    /* package */ MemcacheCache(
+        MemcachedClient client, CacheCodec codec, String namespace, int lockTtlSeconds, long lockWaitMillis
+    )
     {
         super();
+        this.prefix = prefix( namespace );
+        this.lockPrefix = lockPrefix( prefix );
         this.client = client;
+        this.transcoder = new CodecTranscoder( codec );
+        this.lockTtlSeconds = lockTtlSeconds;
+        this.lockWaitMillis = lockWaitMillis;
     }
 
-    /* package */ MemcacheCache( Metrics metrics, MemcachedClient client )
+    /* package */ MemcacheCache(
+        Metrics metrics, MemcachedClient client, CacheCodec codec, String namespace, int lockTtlSeconds,
+        long lockWaitMillis
+    )
     {
         super(new CacheMetricsHandler( metrics.metrics(), "memcache", "werval-cache" ) );
+        this.prefix = prefix( namespace );
+        this.lockPrefix = lockPrefix( prefix );
         this.client = client;
+        this.transcoder = new CodecTranscoder( codec );
+        this.lockTtlSeconds = lockTtlSeconds;
+        this.lockWaitMillis = lockWaitMillis;
     }
 
     @Override
     protected <T> T doGet( String key )
     {
-        return (T) client.get( prefix + key, new SerializingTranscoder() );
+        return (T) client.get( prefix + key, transcoder );
     }
 
     @Override
     protected <T> void doSet( int ttlSeconds, String key, T value )
     {
-        client.set( prefix + key, ttl( ttlSeconds ), value, new SerializingTranscoder() );
+        client.set( prefix + key, ttl( ttlSeconds ), value, transcoder );
     }
 
     @Override
@@ -64,6 +105,194 @@ import net.spy.memcached.transcoders.SerializingTranscoder;
         client.delete( prefix + key );
     }
 
+    @Override
+    protected <T> Map<String, T> doGetAll( Collection<String> keys )
+    {
+        List<String> prefixedKeys = new ArrayList<>( keys.size() );
+        for( String key : keys )
+        {
+            prefixedKeys.add( prefix + key );
+        }
+        Map<String, Object> elements = client.getBulk( prefixedKeys, transcoder );
+        Map<String, T> values = new LinkedHashMap<>();
+        for( Map.Entry<String, Object> element : elements.entrySet() )
+        {
+            values.put( element.getKey().substring( prefix.length() ), (T) element.getValue() );
+        }
+        return values;
+    }
+
+    @Override
+    protected <T> void doSetAll( int ttlSeconds, Map<String, T> entries )
+    {
+        // Sets are asynchronous, the client pipelines them on its connections
+        for( Map.Entry<String, T> entry : entries.entrySet() )
+        {
+            client.set( prefix + entry.getKey(), ttl( ttlSeconds ), entry.getValue(), transcoder );
+        }
+    }
+
+    @Override
+    protected void doRemoveAll( Collection<String> keys )
+    {
+        for( String key : keys )
+        {
+            client.delete( prefix + key );
+        }
+    }
+
+    @Override
+    protected <T> CompletableFuture<T> doGetAsync( String key )
+    {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        client.asyncGet( prefix + key, transcoder ).addListener(
+            get -> complete( get, future, value -> (T) value )
+        );
+        return future;
+    }
+
+    @Override
+    protected <T> CompletableFuture<Void> doSetAsync( int ttlSeconds, String key, T value )
+    {
+        return completion( client.set( prefix + key, ttl( ttlSeconds ), value, transcoder ) );
+    }
+
+    @Override
+    protected CompletableFuture<Void> doRemoveAsync( String key )
+    {
+        return completion( client.delete( prefix + key ) );
+    }
+
+    @Override
+    protected <T> CompletableFuture<Map<String, T>> doGetAllAsync( Collection<String> keys )
+    {
+        List<String> prefixedKeys = new ArrayList<>( keys.size() );
+        for( String key : keys )
+        {
+            prefixedKeys.add( prefix + key );
+        }
+        CompletableFuture<Map<String, T>> future = new CompletableFuture<>();
+        client.asyncGetBulk( prefixedKeys, transcoder ).addListener(
+            getBulk -> complete(
+                getBulk, future,
+                elements ->
+                {
+                    Map<String, T> values = new LinkedHashMap<>();
+                    for( Map.Entry<String, Object> element : ( (Map<String, Object>) elements ).entrySet() )
+                    {
+                        values.put( element.getKey().substring( prefix.length() ), (T) element.getValue() );
+                    }
+                    return values;
+                }
+            )
+        );
+        return future;
+    }
+
+    @Override
+    protected <T> CompletableFuture<Void> doSetAllAsync( int ttlSeconds, Map<String, T> entries )
+    {
+        List<CompletableFuture<Void>> sets = new ArrayList<>( entries.size() );
+        for( Map.Entry<String, T> entry : entries.entrySet() )
+        {
+            sets.add(
+                completion( client.set( prefix + entry.getKey(), ttl( ttlSeconds ), entry.getValue(), transcoder ) )
+            );
+        }
+        return CompletableFuture.allOf( sets.toArray( new CompletableFuture<?>[ sets.size() ] ) );
+    }
+
+    @Override
+    protected CompletableFuture<Void> doRemoveAllAsync( Collection<String> keys )
+    {
+        List<CompletableFuture<Void>> deletes = new ArrayList<>( keys.size() );
+        for( String key : keys )
+        {
+            deletes.add( completion( client.delete( prefix + key ) ) );
+        }
+        return CompletableFuture.allOf( deletes.toArray( new CompletableFuture<?>[ deletes.size() ] ) );
+    }
+
+    @Override
+    protected <T> T doCompute( String key, int ttlSeconds, Supplier<T> loader )
+    {
+        if( lockTtlSeconds <= 0 )
+        {
+            return super.doCompute( key, ttlSeconds, loader );
+        }
+        return doComputeLocked( key, ttlSeconds, loader, computeLock, lockTtlSeconds, lockWaitMillis );
+    }
+
+    private final class MemcacheComputeLock
+        implements ComputeLock
+    {
+        @Override
+        public String tryLock( String key, int ttlSeconds )
+        {
+            String token = UUID.randomUUID().toString();
+            try
+            {
+                return client.add( lockPrefix + key, ttlSeconds, token ).get() ? token : null;
+            }
+            catch( InterruptedException ex )
+            {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            catch( ExecutionException ex )
+            {
+                return null;
+            }
+        }
+
+        @Override
+        public void unlock( String key, String token )
+        {
+            CASValue<Object> lock = client.gets( lockPrefix + key );
+            if( lock != null && token.equals( lock.getValue() ) )
+            {
+                client.delete( lockPrefix + key, lock.getCas() );
+            }
+        }
+    }
+
+    private static String prefix( String namespace )
+    {
+        // WARN Without a shared namespace, use a prefix per instance to start from a fresh cache on each Application
+        // activation
+        return namespace == null ? UUID.randomUUID().toString() + "_" : namespace + ":";
+    }
+
+    private static String lockPrefix( String prefix )
+    {
+        // Lock keys replace the prefix separator so that no user key can produce them
+        return prefix.substring( 0, prefix.length() - 1 ) + "#lock:";
+    }
+
+    private static CompletableFuture<Void> completion( OperationFuture<Boolean> operation )
+    {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        operation.addListener( op -> complete( op, future, result -> null ) );
+        return future;
+    }
+
+    private static <T> void complete( Future<?> source, CompletableFuture<T> target, Function<Object, T> mapper )
+    {
+        // Called by listeners, the source future is done and get() do not block
+        try
+        {
+            target.complete( mapper.apply( source.get() ) );
+        }
+        catch( ExecutionException ex )
+        {
+            target.completeExceptionally( ex.getCause() );
+        }
+        catch( InterruptedException | RuntimeException ex )
+        {
+            target.completeExceptionally( ex );
+        }
+    }
+
     private static int ttl( int ttlSeconds )
     {
         if( ttlSeconds == 0 )
@@ -26,7 +26,12 @@ import io.werval.api.Config;
 import io.werval.api.cache.Cache;
 import io.werval.api.cache.CachePlugin;
 import io.werval.api.exceptions.ActivationException;
+import io.werval.api.exceptions.WervalException;
 import io.werval.modules.metrics.Metrics;
+import io.werval.spi.cache.CacheCodec;
+import io.werval.spi.cache.CacheCodecs;
+import io.werval.spi.cache.InvalidationChannel;
+import io.werval.spi.cache.InvalidationChannels;
 import io.werval.util.Strings;
 
 import net.spy.memcached.AddrUtil;
@@ -46,6 +51,7 @@ public class MemcachePlugin
 {
     private MemcachedClient client;
     private MemcacheCache backingCache;
+    private NearCache nearCache;
 
     public MemcachePlugin()
     {
@@ -68,7 +74,7 @@ public class MemcachePlugin
     @Override
     public Cache api()
     {
-        return backingCache;
+        return nearCache != null ? nearCache : backingCache;
     }
 
     @Override
@@ -82,6 +88,34 @@ public class MemcachePlugin
         String username = config.has( "username" ) ? config.string( "username" ) : null;
         String password = config.has( "password" ) ? config.string( "password" ) : null;
         String authMech = config.string( "authMechanism" );
+        String namespace = config.has( "namespace" ) ? config.string( "namespace" ) : null;
+        if( namespace == null && config.bool( "compute_lock.enabled" ) )
+        {
+            throw new ActivationException( "memcache.compute_lock.enabled requires memcache.namespace to be set" );
+        }
+        if( namespace == null && config.bool( "near_cache.enabled" )
+            && !"none".equals( config.string( "near_cache.invalidation" ) ) )
+        {
+            throw new ActivationException( "memcache.near_cache.invalidation requires memcache.namespace to be set" );
+        }
+        int lockTtlSeconds = config.bool( "compute_lock.enabled" )
+                             ? config.seconds( "compute_lock.ttl" ).intValue()
+                             : 0;
+        long lockWaitMillis = config.milliseconds( "compute_lock.wait" );
+        CacheCodec codec;
+        InvalidationChannel channel = null;
+        try
+        {
+            codec = CacheCodecs.codec( application, config.atKey( "codec" ) );
+            if( config.bool( "near_cache.enabled" ) )
+            {
+                channel = InvalidationChannels.channel( application, config.string( "near_cache.invalidation" ) );
+            }
+        }
+        catch( WervalException ex )
+        {
+            throw new ActivationException( ex.getMessage(), ex );
+        }
 
         // Create Client
         try
@@ -109,13 +143,33 @@ public class MemcachePlugin
 
         // Create Cache Instance
         backingCache = config.bool( "metrics" )
-                       ? new MemcacheCache( application.plugin( Metrics.class ), client )
-                       : new MemcacheCache( client );
+                       ? new MemcacheCache(
+                           application.plugin( Metrics.class ), client, codec, namespace, lockTtlSeconds, lockWaitMillis
+                       )
+                       : new MemcacheCache( client, codec, namespace, lockTtlSeconds, lockWaitMillis );
+
+        // Near Cache
+        if( config.bool( "near_cache.enabled" ) )
+        {
+            long maxEntries = config.longNumber( "near_cache.max_entries" );
+            int ttlSeconds = config.seconds( "near_cache.ttl" ).intValue();
+            nearCache = config.bool( "metrics" )
+                        ? new NearCache(
+                            application.plugin( Metrics.class ), "memcache",
+                            backingCache, maxEntries, ttlSeconds, channel
+                        )
+                        : new NearCache( backingCache, maxEntries, ttlSeconds, channel );
+        }
     }
 
     @Override
     public void onPassivate( Application application )
     {
+        if( nearCache != null )
+        {
+            nearCache.close();
+            nearCache = null;
+        }
         if( client != null )
         {
             client.shutdown();
@@ -15,6 +15,8 @@
  */
 package io.werval.modules.cache;
 
+import java.util.UUID;
+
 import io.werval.api.cache.Cache;
 import io.werval.api.outcomes.Outcome;
 import io.werval.runtime.routes.RoutesParserProvider;
@@ -35,6 +37,12 @@ import static org.hamcrest.CoreMatchers.is;
  */
 public class MemcacheCacheMetricsTest
 {
+    static
+    {
+        // Random namespace per run so that runs sharing a Memcache server do not see each other keys
+        System.setProperty( "memcache.namespace", "werval-test-" + UUID.randomUUID() );
+    }
+
     @BeforeClass
     public static void beforeMemcacheTests()
     {
@@ -15,6 +15,8 @@
  */
 package io.werval.modules.cache;
 
+import java.util.UUID;
+
 import io.werval.test.cache.CacheTest;
 import org.junit.BeforeClass;
 
@@ -28,6 +30,12 @@ import static io.werval.test.util.Assume.assumeConnectivity;
 public class MemcacheTest
     extends CacheTest
 {
+    static
+    {
+        // Random namespace per run so that runs sharing a Memcache server do not see each other keys
+        System.setProperty( "memcache.namespace", "werval-test-" + UUID.randomUUID() );
+    }
+
     @BeforeClass
     public static void beforeMemcacheTests()
     {
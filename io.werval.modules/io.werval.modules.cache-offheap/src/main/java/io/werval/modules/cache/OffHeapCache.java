@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.modules.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+import io.werval.modules.metrics.Metrics;
+import io.werval.modules.metrics.internal.CacheMetricsHandler;
+import io.werval.spi.cache.CacheAdapter;
+import io.werval.spi.cache.CacheCodec;
+import io.werval.spi.cache.SnapshotableCache;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import static io.werval.util.Charsets.UTF_8;
+
+/**
+ * Off-Heap Cache.
+ * <p>
+ * Values are encoded using a {@link CacheCodec} and stored outside of the Java heap, in direct memory or in a
+ * memory-mapped file, split into {@link OffHeapSegment}s selected by key hash.
+ * Each segment is bounded by its size and evicts its oldest entries first.
+ * <p>
+ * When backed by a file and reused, cleanly closed segments are reloaded on startup so that the cache content
+ * survives restarts.
+ * <p>
+ * Snapshots are made of the most recently written entries with their encoded values, only the
+ * {@link SnapshotableCache.Policy#RECENCY} policy is supported.
+ */
+/* package */ final class OffHeapCache
+    extends CacheAdapter
+    implements SnapshotableCache
+{
+    private final OffHeapSegment[] segments;
+    private final CacheCodec codec;
+    private final LongSupplier clock;
+    private final FileChannel file;
+
+    /* package */ OffHeapCache( CacheCodec codec, int segmentCount, int segmentSize, File file, boolean reuse )
+        throws IOException
+    {
+        this( null, codec, segmentCount, segmentSize, file, reuse, System::currentTimeMillis );
+    }
+
+    /* package */ OffHeapCache(
+        Metrics metrics, CacheCodec codec, int segmentCount, int segmentSize, File file, boolean reuse
+    )
+        throws IOException
+    {
+        this(
+            new CacheMetricsHandler( metrics.metrics(), "offheap", "werval-cache" ),
+            codec, segmentCount, segmentSize, file, reuse, System::currentTimeMillis
+        );
+    }
+
+    /* package */ OffHeapCache(
+        Function<CacheEvent, CacheEvent.Closeable> handler, CacheCodec codec,
+        int segmentCount, int segmentSize, File file, boolean reuse, LongSupplier clock
+    )
+        throws IOException
+    {
+        super( handler == null ? CacheEvent.NOOP_HANDLER : handler );
+        this.codec = codec;
+        this.clock = clock;
+        this.segments = new OffHeapSegment[ segmentCount ];
+        if( file == null )
+        {
+            this.file = null;
+            for( int idx = 0; idx < segmentCount; idx++ )
+            {
+                segments[idx] = new OffHeapSegment(
+                    ByteBuffer.allocateDirect( segmentSize ), false, segmentCount, false, clock, this::record
+                );
+            }
+        }
+        else
+        {
+            this.file = FileChannel.open( file.toPath(), CREATE, READ, WRITE );
+            if( !reuse )
+            {
+                this.file.truncate( 0 );
+            }
+            for( int idx = 0; idx < segmentCount; idx++ )
+            {
+                segments[idx] = new OffHeapSegment(
+                    this.file.map( FileChannel.MapMode.READ_WRITE, (long) idx * segmentSize, segmentSize ), true,
+                    segmentCount, reuse, clock, this::record
+                );
+            }
+        }
+    }
+
+    /**
+     * @return Number of entries, may include expired entries not read since
+     */
+    /* package */ long size()
+    {
+        long size = 0;
+        for( OffHeapSegment segment : segments )
+        {
+            size += segment.entries();
+        }
+        return size;
+    }
+
+    /**
+     * @return Bytes used by entries, including removed ones not evicted yet
+     */
+    /* package */ long usedBytes()
+    {
+        long used = 0;
+        for( OffHeapSegment segment : segments )
+        {
+            used += segment.usedBytes();
+        }
+        return used;
+    }
+
+    /**
+     * Close segments and the mapped file if any.
+     * <p>
+     * Mapped memory is released by the JVM once unreachable.
+     */
+    /* package */ void close()
+        throws IOException
+    {
+        for( OffHeapSegment segment : segments )
+        {
+            segment.close();
+        }
+        if( file != null )
+        {
+            file.close();
+        }
+    }
+
+    @Override
+    protected <T> T doGet( String key )
+    {
+        byte[] rawKey = key.getBytes( UTF_8 );
+        int hash = hash( key );
+        byte[] value = segment( hash ).get( rawKey, hash );
+        if( value == null )
+        {
+            return null;
+        }
+        return codec.decode( value );
+    }
+
+    @Override
+    protected <T> void doSet( int ttlSeconds, String key, T value )
+    {
+        byte[] rawKey = key.getBytes( UTF_8 );
+        int hash = hash( key );
+        long expiresAt = ttlSeconds == 0 ? OffHeapSegment.NEVER : clock.getAsLong() + ttlSeconds * 1000L;
+        // Values larger than a segment are not cached
+        segment( hash ).put( rawKey, hash, codec.encode( value ), expiresAt );
+    }
+
+    @Override
+    protected void doRemove( String key )
+    {
+        int hash = hash( key );
+        segment( hash ).remove( key.getBytes( UTF_8 ), hash );
+    }
+
+    /**
+     * @return Live entries, most recently written first per segment, values being the raw encoded bytes
+     */
+    @Override
+    public List<Entry> hottest( Policy policy, int maxEntries )
+    {
+        int perSegment = ( maxEntries + segments.length - 1 ) / segments.length;
+        List<Entry> hottest = new ArrayList<>();
+        for( OffHeapSegment segment : segments )
+        {
+            hottest.addAll( segment.newest( perSegment ) );
+        }
+        return hottest.size() > maxEntries ? hottest.subList( 0, maxEntries ) : hottest;
+    }
+
+    /**
+     * @param value Raw encoded bytes, as listed by {@link #hottest(Policy, int)}
+     */
+    @Override
+    public boolean restore( String key, Object value, long expiresAt )
+    {
+        int hash = hash( key );
+        return segment( hash ).putIfAbsent( key.getBytes( UTF_8 ), hash, (byte[]) value, expiresAt );
+    }
+
+    private OffHeapSegment segment( int hash )
+    {
+        // Use the hash high bits, low ones are used by segments indexes
+        return segments[(int) ( ( ( hash & 0xFFFFFFFFL ) * segments.length ) >>> 32 )];
+    }
+
+    private static int hash( String key )
+    {
+        int hash = key.hashCode() * 0x9E3779B9;
+        return hash ^ ( hash >>> 16 );
+    }
+}
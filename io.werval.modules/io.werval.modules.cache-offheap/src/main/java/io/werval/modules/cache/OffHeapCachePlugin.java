@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.modules.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import io.werval.api.Application;
+import io.werval.api.Config;
+import io.werval.api.cache.Cache;
+import io.werval.api.cache.CachePlugin;
+import io.werval.api.exceptions.ActivationException;
+import io.werval.api.exceptions.WervalException;
+import io.werval.modules.metrics.Metrics;
+import io.werval.spi.cache.CacheCodec;
+import io.werval.spi.cache.CacheCodecs;
+import io.werval.spi.cache.CacheSnapshots;
+import io.werval.spi.cache.PassthroughCacheCodec;
+import io.werval.spi.cache.SerializationCacheCodec;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+
+import static java.util.Collections.EMPTY_LIST;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+/**
+ * Off-Heap Cache Plugin.
+ */
+public class OffHeapCachePlugin
+    extends CachePlugin
+{
+    private static final String METRICS_PREFIX = "io.werval.modules.cache.offheap.werval-cache";
+    private static final long MIN_SEGMENT_SIZE = 4096;
+    private OffHeapCache offHeapCache;
+    private MetricRegistry metrics;
+    private CacheSnapshots snapshots;
+
+    @Override
+    public List<Class<?>> dependencies( Config config )
+    {
+        if( config.bool( "offheap_cache.metrics" ) )
+        {
+            return Arrays.asList( Metrics.class );
+        }
+        return EMPTY_LIST;
+    }
+
+    @Override
+    public Cache api()
+    {
+        return offHeapCache;
+    }
+
+    @Override
+    public void onActivate( Application application )
+        throws ActivationException
+    {
+        Config config = application.config().atKey( "offheap_cache" );
+        long capacity = config.longNumber( "capacity" );
+        int segmentCount = config.intNumber( "segments" );
+        if( segmentCount <= 0 )
+        {
+            throw new ActivationException( "Off-Heap Cache segments must be greater than zero, was " + segmentCount );
+        }
+        long segmentSize = capacity / segmentCount;
+        if( segmentSize < MIN_SEGMENT_SIZE || segmentSize > Integer.MAX_VALUE )
+        {
+            throw new ActivationException(
+                "Off-Heap Cache segments size must be in the [" + MIN_SEGMENT_SIZE + ".." + Integer.MAX_VALUE + "] "
+                + "range, was " + segmentSize + ", adjust capacity or segments count"
+            );
+        }
+        File file = config.has( "file" ) ? config.file( "file" ) : null;
+        boolean reuse = config.bool( "reuse" );
+        if( reuse && file == null )
+        {
+            throw new ActivationException( "Off-Heap Cache can only be reused across restarts when backed by a file" );
+        }
+        CacheCodec codec;
+        try
+        {
+            codec = CacheCodecs.codec( application, config.atKey( "codec" ) );
+            // Snapshotted values are the already encoded bytes
+            snapshots = CacheSnapshots.fromConfig(
+                application, config.atKey( "snapshot" ), "werval-offheap-cache",
+                new PassthroughCacheCodec( new SerializationCacheCodec() )
+            );
+        }
+        catch( WervalException ex )
+        {
+            throw new ActivationException( ex.getMessage(), ex );
+        }
+        try
+        {
+            if( file != null && file.getParentFile() != null )
+            {
+                file.getParentFile().mkdirs();
+            }
+            if( config.bool( "metrics" ) )
+            {
+                offHeapCache = new OffHeapCache(
+                    application.plugin( Metrics.class ), codec, segmentCount, (int) segmentSize, file, reuse
+                );
+                metrics = application.plugin( Metrics.class ).metrics();
+                metrics.register( name( METRICS_PREFIX, "size" ), (Gauge<Long>) offHeapCache::size );
+                metrics.register( name( METRICS_PREFIX, "used-bytes" ), (Gauge<Long>) offHeapCache::usedBytes );
+            }
+            else
+            {
+                offHeapCache = new OffHeapCache( codec, segmentCount, (int) segmentSize, file, reuse );
+            }
+        }
+        catch( IOException ex )
+        {
+            throw new ActivationException( "Unable to allocate Off-Heap Cache: " + ex.getMessage(), ex );
+        }
+        if( snapshots != null )
+        {
+            snapshots.restoreOnActivation( offHeapCache, application.classLoader() );
+        }
+    }
+
+    @Override
+    public void onPassivate( Application application )
+    {
+        if( metrics != null )
+        {
+            metrics.remove( name( METRICS_PREFIX, "size" ) );
+            metrics.remove( name( METRICS_PREFIX, "used-bytes" ) );
+            metrics = null;
+        }
+        if( offHeapCache != null )
+        {
+            if( snapshots != null )
+            {
+                snapshots.saveOnPassivation( offHeapCache );
+                snapshots = null;
+            }
+            try
+            {
+                offHeapCache.close();
+            }
+            catch( IOException ex )
+            {
+                throw new WervalException( "Unable to close Off-Heap Cache: " + ex.getMessage(), ex );
+            }
+            finally
+            {
+                offHeapCache = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,569 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.modules.cache;
+
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+import io.werval.spi.cache.CacheAdapter.CacheEvent;
+import io.werval.spi.cache.SnapshotableCache;
+
+import static io.werval.util.Charsets.UTF_8;
+
+/**
+ * Off-Heap Cache Segment.
+ * <p>
+ * Records are appended to a ring buffer living in a direct or memory-mapped {@link ByteBuffer}, the oldest records
+ * being evicted to make room for new ones.
+ * Records are located using an open addressing hash index kept on-heap, eight bytes per entry, keys are compared
+ * against the bytes stored in the records.
+ * <p>
+ * Buffer layout is a header followed by the ring of records:
+ * <pre>
+ * header: magic(8) size(4) segments(4) head(4) tail(4) records(4) clean(4)
+ * record: length(4) key-length(4) expires-at(8) hash(4) key value
+ * </pre>
+ * A wrap marker, or too few bytes to hold a record header, tells that the ring continues after the header.
+ * Removed and overwritten records are marked dead by zeroing their expiration so that they are not resurrected
+ * when a segment is reloaded.
+ * <p>
+ * All operations are guarded by a per segment lock.
+ */
+/* package */ final class OffHeapSegment
+{
+    /* package */ static final int HEADER = 32;
+    /* package */ static final int RECORD_HEADER = 20;
+    /* package */ static final long NEVER = Long.MAX_VALUE;
+    private static final long MAGIC = 0x5765727661_6C4F48L;
+    private static final int SIZE_OFFSET = 8;
+    private static final int SEGMENTS_OFFSET = 12;
+    private static final int HEAD_OFFSET = 16;
+    private static final int TAIL_OFFSET = 20;
+    private static final int RECORDS_OFFSET = 24;
+    private static final int CLEAN_OFFSET = 28;
+    private static final int WRAP = -1;
+    private static final long DEAD = 0L;
+    private static final int INITIAL_INDEX_CAPACITY = 64;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ByteBuffer buffer;
+    private final boolean fileBacked;
+    private final ByteBuffer view;
+    private final int size;
+    private final int segments;
+    private final LongSupplier clock;
+    private final Consumer<CacheEvent> events;
+    private long[] index;
+    private int mask;
+    private int indexed;
+    private int head;
+    private int tail;
+    private int records;
+
+    /* package */ OffHeapSegment(
+        ByteBuffer buffer, boolean fileBacked, int segments, boolean reuse,
+        LongSupplier clock, Consumer<CacheEvent> events
+    )
+    {
+        this.buffer = buffer;
+        this.fileBacked = fileBacked;
+        this.view = buffer.duplicate();
+        this.size = buffer.capacity();
+        this.segments = segments;
+        this.clock = clock;
+        this.events = events;
+        this.index = new long[ INITIAL_INDEX_CAPACITY ];
+        this.mask = INITIAL_INDEX_CAPACITY - 1;
+        if( !reuse || !load() )
+        {
+            reset();
+        }
+        // Dirty until closed
+        buffer.putInt( CLEAN_OFFSET, 0 );
+    }
+
+    /**
+     * @return Number of live entries, may include expired entries not read since
+     */
+    /* package */ int entries()
+    {
+        lock.lock();
+        try
+        {
+            return indexed;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Bytes used by records, including dead ones not evicted yet
+     */
+    /* package */ long usedBytes()
+    {
+        lock.lock();
+        try
+        {
+            if( records == 0 )
+            {
+                return 0;
+            }
+            return head > tail ? head - tail : ( size - tail ) + ( head - HEADER );
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /* package */ byte[] get( byte[] key, int hash )
+    {
+        lock.lock();
+        try
+        {
+            int slot = find( key, hash );
+            if( slot < 0 )
+            {
+                return null;
+            }
+            int offset = offsetOf( index[slot] );
+            if( buffer.getLong( offset + 8 ) <= clock.getAsLong() )
+            {
+                kill( offset );
+                delete( slot );
+                events.accept( CacheEvent.EXPIRATION );
+                return null;
+            }
+            byte[] value = new byte[ buffer.getInt( offset ) - RECORD_HEADER - key.length ];
+            view.position( offset + RECORD_HEADER + key.length );
+            view.get( value );
+            return value;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Put a record, replacing any previous one.
+     *
+     * @return {@literal false} if the record is larger than the segment and could not be stored
+     */
+    /* package */ boolean put( byte[] key, int hash, byte[] value, long expiresAt )
+    {
+        long length = (long) RECORD_HEADER + key.length + value.length;
+        lock.lock();
+        try
+        {
+            int existing = find( key, hash );
+            if( existing >= 0 )
+            {
+                kill( offsetOf( index[existing] ) );
+                delete( existing );
+            }
+            if( length > size - HEADER )
+            {
+                writeHeader();
+                return false;
+            }
+            allocate( (int) length );
+            int offset = head;
+            buffer.putInt( offset, (int) length );
+            buffer.putInt( offset + 4, key.length );
+            buffer.putLong( offset + 8, expiresAt );
+            buffer.putInt( offset + 16, hash );
+            view.position( offset + RECORD_HEADER );
+            view.put( key );
+            view.put( value );
+            head += (int) length;
+            records++;
+            insert( hash, offset );
+            writeHeader();
+            return true;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Put a record unless a live one is present for the key.
+     *
+     * @return {@literal false} if a live record is present or if the record could not be stored
+     */
+    /* package */ boolean putIfAbsent( byte[] key, int hash, byte[] value, long expiresAt )
+    {
+        lock.lock();
+        try
+        {
+            int existing = find( key, hash );
+            if( existing >= 0 && buffer.getLong( offsetOf( index[existing] ) + 8 ) > clock.getAsLong() )
+            {
+                return false;
+            }
+            return put( key, hash, value, expiresAt );
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * List live records, most recently written first, values being the raw encoded bytes.
+     */
+    /* package */ List<SnapshotableCache.Entry> newest( int maxEntries )
+    {
+        lock.lock();
+        try
+        {
+            long now = clock.getAsLong();
+            List<Integer> offsets = new ArrayList<>( Math.min( indexed, maxEntries ) );
+            int position = tail;
+            for( int count = 0; count < records; count++ )
+            {
+                if( size - position < RECORD_HEADER || buffer.getInt( position ) == WRAP )
+                {
+                    position = HEADER;
+                }
+                if( buffer.getLong( position + 8 ) > now )
+                {
+                    offsets.add( position );
+                }
+                position += buffer.getInt( position );
+            }
+            List<SnapshotableCache.Entry> newest = new ArrayList<>( Math.min( offsets.size(), maxEntries ) );
+            for( int idx = offsets.size() - 1; idx >= 0 && newest.size() < maxEntries; idx-- )
+            {
+                int offset = offsets.get( idx );
+                int length = buffer.getInt( offset );
+                byte[] key = new byte[ buffer.getInt( offset + 4 ) ];
+                byte[] value = new byte[ length - RECORD_HEADER - key.length ];
+                view.position( offset + RECORD_HEADER );
+                view.get( key );
+                view.get( value );
+                long expiresAt = buffer.getLong( offset + 8 );
+                newest.add( new SnapshotableCache.Entry( new String( key, UTF_8 ), value, expiresAt ) );
+            }
+            return newest;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /* package */ void remove( byte[] key, int hash )
+    {
+        lock.lock();
+        try
+        {
+            int slot = find( key, hash );
+            if( slot >= 0 )
+            {
+                kill( offsetOf( index[slot] ) );
+                delete( slot );
+            }
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /* package */ void clear()
+    {
+        lock.lock();
+        try
+        {
+            reset();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Mark the segment as cleanly closed and flush memory-mapped content to storage.
+     */
+    /* package */ void close()
+    {
+        lock.lock();
+        try
+        {
+            writeHeader();
+            buffer.putInt( CLEAN_OFFSET, 1 );
+            // Direct buffers are MappedByteBuffers too but only file-backed ones can be forced
+            if( fileBacked )
+            {
+                ( (MappedByteBuffer) buffer ).force();
+            }
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    // Make room for a record of the given length at head, evicting the oldest records
+    private void allocate( int length )
+    {
+        while( true )
+        {
+            if( records == 0 )
+            {
+                head = HEADER;
+                tail = HEADER;
+                return;
+            }
+            if( head > tail )
+            {
+                if( size - head >= length )
+                {
+                    return;
+                }
+                if( size - head >= RECORD_HEADER )
+                {
+                    buffer.putInt( head, WRAP );
+                }
+                head = HEADER;
+                continue;
+            }
+            if( tail - head >= length )
+            {
+                return;
+            }
+            evictTail();
+        }
+    }
+
+    private void evictTail()
+    {
+        if( size - tail < RECORD_HEADER || buffer.getInt( tail ) == WRAP )
+        {
+            tail = HEADER;
+            return;
+        }
+        long expiresAt = buffer.getLong( tail + 8 );
+        if( expiresAt != DEAD )
+        {
+            int slot = findOffset( buffer.getInt( tail + 16 ), tail );
+            if( slot >= 0 )
+            {
+                delete( slot );
+                events.accept( expiresAt <= clock.getAsLong() ? CacheEvent.EXPIRATION : CacheEvent.EVICTION );
+            }
+        }
+        tail += buffer.getInt( tail );
+        records--;
+    }
+
+    private void kill( int offset )
+    {
+        buffer.putLong( offset + 8, DEAD );
+    }
+
+    private int find( byte[] key, int hash )
+    {
+        for( int slot = hash & mask; index[slot] != 0; slot = ( slot + 1 ) & mask )
+        {
+            if( hashOf( index[slot] ) == hash && keyEquals( offsetOf( index[slot] ), key ) )
+            {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private int findOffset( int hash, int offset )
+    {
+        for( int slot = hash & mask; index[slot] != 0; slot = ( slot + 1 ) & mask )
+        {
+            if( offsetOf( index[slot] ) == offset )
+            {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private boolean keyEquals( int offset, byte[] key )
+    {
+        if( buffer.getInt( offset + 4 ) != key.length )
+        {
+            return false;
+        }
+        int keyOffset = offset + RECORD_HEADER;
+        for( int idx = 0; idx < key.length; idx++ )
+        {
+            if( buffer.get( keyOffset + idx ) != key[idx] )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void insert( int hash, int offset )
+    {
+        int slot = hash & mask;
+        while( index[slot] != 0 )
+        {
+            slot = ( slot + 1 ) & mask;
+        }
+        index[slot] = ( (long) hash << 32 ) | ( offset & 0xFFFFFFFFL );
+        indexed++;
+        if( indexed > index.length * 3 / 4 )
+        {
+            long[] previous = index;
+            index = new long[ previous.length * 2 ];
+            mask = index.length - 1;
+            indexed = 0;
+            for( long entry : previous )
+            {
+                if( entry != 0 )
+                {
+                    insert( hashOf( entry ), offsetOf( entry ) );
+                }
+            }
+        }
+    }
+
+    // Backward shift deletion, keeps probe sequences intact without tombstones
+    private void delete( int slot )
+    {
+        indexed--;
+        int gap = slot;
+        int next = slot;
+        while( true )
+        {
+            next = ( next + 1 ) & mask;
+            long entry = index[next];
+            if( entry == 0 )
+            {
+                break;
+            }
+            int ideal = hashOf( entry ) & mask;
+            boolean reachable = gap <= next
+                                ? gap < ideal && ideal <= next
+                                : gap < ideal || ideal <= next;
+            if( !reachable )
+            {
+                index[gap] = entry;
+                gap = next;
+            }
+        }
+        index[gap] = 0;
+    }
+
+    private void reset()
+    {
+        buffer.putLong( 0, MAGIC );
+        buffer.putInt( SIZE_OFFSET, size );
+        buffer.putInt( SEGMENTS_OFFSET, segments );
+        head = HEADER;
+        tail = HEADER;
+        records = 0;
+        index = new long[ INITIAL_INDEX_CAPACITY ];
+        mask = INITIAL_INDEX_CAPACITY - 1;
+        indexed = 0;
+        writeHeader();
+    }
+
+    private void writeHeader()
+    {
+        buffer.putInt( HEAD_OFFSET, head );
+        buffer.putInt( TAIL_OFFSET, tail );
+        buffer.putInt( RECORDS_OFFSET, records );
+    }
+
+    // Rebuild the index from a cleanly closed segment, return false if the content cannot be trusted
+    private boolean load()
+    {
+        if( buffer.getLong( 0 ) != MAGIC
+            || buffer.getInt( SIZE_OFFSET ) != size
+            || buffer.getInt( SEGMENTS_OFFSET ) != segments
+            || buffer.getInt( CLEAN_OFFSET ) != 1 )
+        {
+            return false;
+        }
+        head = buffer.getInt( HEAD_OFFSET );
+        tail = buffer.getInt( TAIL_OFFSET );
+        records = buffer.getInt( RECORDS_OFFSET );
+        if( head < HEADER || head > size || tail < HEADER || tail > size || records < 0 )
+        {
+            return false;
+        }
+        long now = clock.getAsLong();
+        int position = tail;
+        boolean wrapped = false;
+        for( int count = 0; count < records; count++ )
+        {
+            if( size - position < RECORD_HEADER || buffer.getInt( position ) == WRAP )
+            {
+                if( wrapped )
+                {
+                    return false;
+                }
+                wrapped = true;
+                position = HEADER;
+            }
+            int length = buffer.getInt( position );
+            int keyLength = buffer.getInt( position + 4 );
+            if( length < RECORD_HEADER || keyLength < 0 || keyLength > length - RECORD_HEADER
+                || (long) position + length > size )
+            {
+                return false;
+            }
+            if( buffer.getLong( position + 8 ) > now )
+            {
+                byte[] key = new byte[ keyLength ];
+                view.position( position + RECORD_HEADER );
+                view.get( key );
+                int hash = buffer.getInt( position + 16 );
+                int existing = find( key, hash );
+                if( existing >= 0 )
+                {
+                    kill( offsetOf( index[existing] ) );
+                    delete( existing );
+                }
+                insert( hash, position );
+            }
+            position += length;
+        }
+        return position == head || ( records == 0 && head == tail );
+    }
+
+    private static int hashOf( long entry )
+    {
+        return (int) ( entry >>> 32 );
+    }
+
+    private static int offsetOf( long entry )
+    {
+        return (int) entry;
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.modules.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.werval.spi.cache.CacheAdapter.CacheEvent;
+import io.werval.spi.cache.PassthroughCacheCodec;
+import io.werval.spi.cache.SerializationCacheCodec;
+import io.werval.spi.cache.SnapshotableCache;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * OffHeapCache storage Test.
+ */
+public class OffHeapCacheStorageTest
+{
+    @Rule
+    public final TemporaryFolder tmp = new TemporaryFolder();
+
+    private final AtomicLong clock = new AtomicLong( 1_000_000L );
+    private final List<CacheEvent> events = new ArrayList<>();
+
+    private OffHeapCache newCache( int segments, int segmentSize, File file, boolean reuse )
+        throws IOException
+    {
+        return new OffHeapCache(
+            event ->
+            {
+                events.add( event );
+                return CacheEvent.NOOP_CLOSEABLE;
+            },
+            new PassthroughCacheCodec( new SerializationCacheCodec() ),
+            segments, segmentSize, file, reuse, clock::get
+        );
+    }
+
+    private long count( CacheEvent event )
+    {
+        return events.stream().filter( e -> e == event ).count();
+    }
+
+    @Test
+    public void overwriteAndRemove()
+        throws IOException
+    {
+        OffHeapCache cache = newCache( 2, 4096, null, false );
+        cache.set( "foo", "bar" );
+        cache.set( "foo", "baz" );
+        assertThat( cache.get( "foo" ), equalTo( "baz" ) );
+        assertThat( cache.size(), is( 1L ) );
+        cache.remove( "foo" );
+        assertThat( cache.get( "foo" ), nullValue() );
+        assertThat( cache.size(), is( 0L ) );
+    }
+
+    @Test
+    public void boundedBySize()
+        throws IOException
+    {
+        OffHeapCache cache = newCache( 4, 8192, null, false );
+        byte[] value = new byte[ 100 ];
+        for( int idx = 0; idx < 10_000; idx++ )
+        {
+            cache.set( "key-" + idx, value );
+            assertThat( cache.usedBytes(), lessThanOrEqualTo( 4L * 8192 ) );
+        }
+        assertThat( count( CacheEvent.EVICTION ), greaterThan( 9_000L ) );
+        assertThat( cache.size() + count( CacheEvent.EVICTION ), is( 10_000L ) );
+        // Most recent entries are kept
+        assertThat( cache.get( "key-9999" ), equalTo( value ) );
+        assertThat( cache.get( "key-0" ), nullValue() );
+        for( int idx = 9_900; idx < 10_000; idx++ )
+        {
+            assertThat( (byte[]) cache.get( "key-" + idx ), equalTo( value ) );
+        }
+    }
+
+    @Test
+    public void randomOperationsNeverReturnStaleValues()
+        throws IOException
+    {
+        OffHeapCache cache = newCache( 2, 16384, null, false );
+        Map<String, String> reference = new HashMap<>();
+        Random random = new Random( 42 );
+        for( int idx = 0; idx < 100_000; idx++ )
+        {
+            String key = "key-" + random.nextInt( 2000 );
+            switch( random.nextInt( 3 ) )
+            {
+                case 0:
+                    String value = "value-" + idx + "-" + new String( new char[ random.nextInt( 200 ) ] );
+                    cache.set( key, value );
+                    reference.put( key, value );
+                    break;
+                case 1:
+                    cache.remove( key );
+                    reference.remove( key );
+                    break;
+                default:
+                    String cached = cache.get( key );
+                    // Either evicted or current
+                    if( cached != null )
+                    {
+                        assertThat( cached, equalTo( reference.get( key ) ) );
+                    }
+                    break;
+            }
+        }
+    }
+
+    @Test
+    public void tooLargeValuesAreNotCached()
+        throws IOException
+    {
+        OffHeapCache cache = newCache( 1, 4096, null, false );
+        cache.set( "foo", "bar" );
+        cache.set( "foo", new byte[ 8192 ] );
+        assertThat( cache.get( "foo" ), nullValue() );
+    }
+
+    @Test
+    public void timeToLive()
+        throws IOException
+    {
+        OffHeapCache cache = newCache( 1, 4096, null, false );
+        cache.set( 1, "foo", "bar" );
+        cache.set( "bar", "baz" );
+        clock.addAndGet( 1000 );
+        assertThat( cache.get( "foo" ), nullValue() );
+        assertThat( cache.get( "bar" ), equalTo( "baz" ) );
+        assertThat( count( CacheEvent.EXPIRATION ), is( 1L ) );
+    }
+
+    @Test
+    public void reuseMappedFileAcrossRestarts()
+        throws IOException
+    {
+        File file = new File( tmp.getRoot(), "cache.bin" );
+        OffHeapCache cache = newCache( 2, 8192, file, true );
+        for( int idx = 0; idx < 500; idx++ )
+        {
+            cache.set( "key-" + idx, "value-" + idx );
+        }
+        cache.set( "removed", "value" );
+        cache.remove( "removed" );
+        cache.set( "overwritten", "before" );
+        cache.set( "overwritten", "after" );
+        long size = cache.size();
+        cache.close();
+
+        OffHeapCache reused = newCache( 2, 8192, file, true );
+        assertThat( reused.size(), is( size ) );
+        assertThat( reused.get( "key-499" ), equalTo( "value-499" ) );
+        assertThat( reused.get( "removed" ), nullValue() );
+        assertThat( reused.get( "overwritten" ), equalTo( "after" ) );
+        reused.close();
+
+        OffHeapCache differentLayout = newCache( 4, 4096, file, true );
+        assertThat( differentLayout.get( "key-499" ), nullValue() );
+        differentLayout.close();
+    }
+
+    @Test
+    public void uncleanFilesAreNotReused()
+        throws IOException
+    {
+        File file = new File( tmp.getRoot(), "cache.bin" );
+        OffHeapCache cache = newCache( 1, 8192, file, true );
+        cache.set( "foo", "bar" );
+        // Not closed, eg. crashed
+
+        OffHeapCache reused = newCache( 1, 8192, file, true );
+        assertThat( reused.get( "foo" ), nullValue() );
+        reused.close();
+    }
+
+    @Test
+    public void snapshotNewestEntries()
+        throws IOException
+    {
+        OffHeapCache cache = newCache( 1, 64 * 1024, null, false );
+        for( int idx = 0; idx < 10; idx++ )
+        {
+            cache.set( 60, "key-" + idx, "value-" + idx );
+        }
+        cache.remove( "key-9" );
+        List<SnapshotableCache.Entry> newest = cache.hottest( SnapshotableCache.Policy.RECENCY, 3 );
+        assertThat( newest.size(), is( 3 ) );
+        assertThat( newest.get( 0 ).key(), equalTo( "key-8" ) );
+        assertThat( newest.get( 2 ).key(), equalTo( "key-6" ) );
+        assertThat( newest.get( 0 ).expiresAt(), is( clock.get() + 60_000L ) );
+
+        OffHeapCache restored = newCache( 4, 64 * 1024, null, false );
+        restored.set( "key-7", "current" );
+        for( SnapshotableCache.Entry entry : newest )
+        {
+            restored.restore( entry.key(), entry.value(), entry.expiresAt() );
+        }
+        assertThat( restored.<String>get( "key-8" ), equalTo( "value-8" ) );
+        assertThat( restored.<String>get( "key-7" ), equalTo( "current" ) );
+        assertThat( restored.<String>get( "key-6" ), equalTo( "value-6" ) );
+        clock.addAndGet( 61_000L );
+        assertThat( restored.get( "key-8" ), nullValue() );
+    }
+}
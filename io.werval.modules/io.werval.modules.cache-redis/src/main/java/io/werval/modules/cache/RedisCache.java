@@ -15,60 +15,278 @@
  */
 package io.werval.modules.cache;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 
 import io.werval.spi.cache.CacheAdapter;
+import io.werval.spi.cache.CacheCodec;
+import io.werval.spi.cache.ComputeLock;
 import io.werval.modules.metrics.Metrics;
 import io.werval.modules.metrics.internal.CacheMetricsHandler;
-import io.werval.util.Serializables;
 
 import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
 
 import static io.werval.util.Charsets.UTF_8;
 
 /**
  * Redis Cache.
+ * <p>
+ * Keys are prefixed by the configured namespace, shared by all nodes, or by a random prefix per instance if none.
+ * <p>
+ * When enabled, {@literal getOrCompute} takes a short lock using {@literal SET NX EX} in the namespace so that only one
+ * node computes a missing value.
+ * <p>
+ * Connections are borrowed from a pool for each operation.
+ * Jedis is a blocking client, asynchronous operations are run on a dedicated I/O executor so that they do not park
+ * Application threads, single key ones are automatically pipelined, see {@link RedisPipeliner}.
+ * <p>
+ * Values are encoded using the configured {@link CacheCodec}.
  */
 /* package */ class RedisCache
     extends CacheAdapter
 {
-    private final Jedis backingCache;
-    // WARN Use a prefix per instance to start from a fresh cache on each Application activation
-    private final String prefix = UUID.randomUUID().toString() + "_";
+    private final RedisConnections connections;
+    private final RedisPipeliner pipeliner;
+    private final String prefix;
+    private final String lockPrefix;
+    private final ComputeLock computeLock = new RedisComputeLock();
+    private final int lockTtlSeconds;
+    private final long lockWaitMillis;
+    private final Executor ioExecutor;
+    private final CacheCodec codec;
 
-    /* package */ RedisCache( Jedis backingCache )
+    /* package */ RedisCache(
+        RedisConnections connections, RedisPipeliner pipeliner, Executor ioExecutor, CacheCodec codec,
+        String namespace, int lockTtlSeconds, long lockWaitMillis
+    )
     {
         super();
-        this.backingCache = backingCache;
+        this.prefix = prefix( namespace );
+        this.lockPrefix = lockPrefix( prefix );
+        this.connections = connections;
+        this.pipeliner = pipeliner;
+        this.ioExecutor = ioExecutor;
+        this.codec = codec;
+        this.lockTtlSeconds = lockTtlSeconds;
+        this.lockWaitMillis = lockWaitMillis;
     }
 
-    /* package */ RedisCache( Metrics metrics, Jedis backingCache )
+    /* package */ RedisCache(
+        Metrics metrics, RedisConnections connections, RedisPipeliner pipeliner, Executor ioExecutor, CacheCodec codec,
+        String namespace, int lockTtlSeconds, long lockWaitMillis
+    )
     {
         super(new CacheMetricsHandler( metrics.metrics(), "redis", "werval-cache" ) );
-        this.backingCache = backingCache;
+        this.prefix = prefix( namespace );
+        this.lockPrefix = lockPrefix( prefix );
+        this.connections = connections;
+        this.pipeliner = pipeliner;
+        this.ioExecutor = ioExecutor;
+        this.codec = codec;
+        this.lockTtlSeconds = lockTtlSeconds;
+        this.lockWaitMillis = lockWaitMillis;
     }
 
     @Override
     protected <T> T doGet( String key )
     {
-        byte[] element = backingCache.get( ( prefix + key ).getBytes( UTF_8 ) );
-        if( element == null )
+        try( Jedis jedis = connections.borrow() )
         {
-            return null;
+            return fromBytes( jedis.get( ( prefix + key ).getBytes( UTF_8 ) ) );
         }
-        return Serializables.fromBytes( element );
     }
 
     @Override
     protected <T> void doSet( int ttlSeconds, String key, T value )
     {
-        backingCache.setex( ( prefix + key ).getBytes( UTF_8 ), ttl( ttlSeconds ), Serializables.toBytes( value ) );
+        try( Jedis jedis = connections.borrow() )
+        {
+            jedis.setex( ( prefix + key ).getBytes( UTF_8 ), ttl( ttlSeconds ), codec.encode( value ) );
+        }
     }
 
     @Override
     protected void doRemove( String key )
     {
-        backingCache.del( ( prefix + key ).getBytes( UTF_8 ) );
+        try( Jedis jedis = connections.borrow() )
+        {
+            jedis.del( ( prefix + key ).getBytes( UTF_8 ) );
+        }
+    }
+
+    @Override
+    protected <T> Map<String, T> doGetAll( Collection<String> keys )
+    {
+        List<String> keyList = new ArrayList<>( keys );
+        List<byte[]> elements;
+        try( Jedis jedis = connections.borrow() )
+        {
+            elements = jedis.mget( rawKeys( keyList ) );
+        }
+        Map<String, T> values = new LinkedHashMap<>();
+        for( int idx = 0; idx < keyList.size(); idx++ )
+        {
+            byte[] element = elements.get( idx );
+            if( element != null )
+            {
+                values.put( keyList.get( idx ), codec.<T>decode( element ) );
+            }
+        }
+        return values;
+    }
+
+    @Override
+    protected <T> void doSetAll( int ttlSeconds, Map<String, T> entries )
+    {
+        try( Jedis jedis = connections.borrow() )
+        {
+            Pipeline pipeline = jedis.pipelined();
+            for( Map.Entry<String, T> entry : entries.entrySet() )
+            {
+                pipeline.setex(
+                    ( prefix + entry.getKey() ).getBytes( UTF_8 ),
+                    ttl( ttlSeconds ),
+                    codec.encode( entry.getValue() )
+                );
+            }
+            pipeline.sync();
+        }
+    }
+
+    @Override
+    protected void doRemoveAll( Collection<String> keys )
+    {
+        try( Jedis jedis = connections.borrow() )
+        {
+            jedis.del( rawKeys( keys ) );
+        }
+    }
+
+    @Override
+    protected <T> CompletableFuture<T> doGetAsync( String key )
+    {
+        byte[] rawKey = ( prefix + key ).getBytes( UTF_8 );
+        return pipeliner.submit( pipeline -> pipeline.get( rawKey ) ).thenApply( this::fromBytes );
+    }
+
+    @Override
+    protected <T> CompletableFuture<Void> doSetAsync( int ttlSeconds, String key, T value )
+    {
+        byte[] rawKey = ( prefix + key ).getBytes( UTF_8 );
+        byte[] rawValue = codec.encode( value );
+        return pipeliner.submit( pipeline -> pipeline.setex( rawKey, ttl( ttlSeconds ), rawValue ) )
+            .thenApply( reply -> null );
+    }
+
+    @Override
+    protected CompletableFuture<Void> doRemoveAsync( String key )
+    {
+        byte[] rawKey = ( prefix + key ).getBytes( UTF_8 );
+        return pipeliner.submit( pipeline -> pipeline.del( rawKey ) ).thenApply( count -> null );
+    }
+
+    @Override
+    protected <T> CompletableFuture<Map<String, T>> doGetAllAsync( Collection<String> keys )
+    {
+        return CompletableFuture.supplyAsync( () -> doGetAll( keys ), ioExecutor );
+    }
+
+    @Override
+    protected <T> CompletableFuture<Void> doSetAllAsync( int ttlSeconds, Map<String, T> entries )
+    {
+        return CompletableFuture.runAsync( () -> doSetAll( ttlSeconds, entries ), ioExecutor );
+    }
+
+    @Override
+    protected CompletableFuture<Void> doRemoveAllAsync( Collection<String> keys )
+    {
+        return CompletableFuture.runAsync( () -> doRemoveAll( keys ), ioExecutor );
+    }
+
+    @Override
+    protected <T> T doCompute( String key, int ttlSeconds, Supplier<T> loader )
+    {
+        if( lockTtlSeconds <= 0 )
+        {
+            return super.doCompute( key, ttlSeconds, loader );
+        }
+        return doComputeLocked( key, ttlSeconds, loader, computeLock, lockTtlSeconds, lockWaitMillis );
+    }
+
+    private final class RedisComputeLock
+        implements ComputeLock
+    {
+        private final byte[] nx = "NX".getBytes( UTF_8 );
+        private final byte[] ex = "EX".getBytes( UTF_8 );
+        private final byte[] unlockScript = (
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end"
+        ).getBytes( UTF_8 );
+
+        @Override
+        public String tryLock( String key, int ttlSeconds )
+        {
+            String token = UUID.randomUUID().toString();
+            try( Jedis jedis = connections.borrow() )
+            {
+                String reply = jedis.set( lockKey( key ), token.getBytes( UTF_8 ), nx, ex, ttlSeconds );
+                return "OK".equals( reply ) ? token : null;
+            }
+        }
+
+        @Override
+        public void unlock( String key, String token )
+        {
+            try( Jedis jedis = connections.borrow() )
+            {
+                jedis.eval( unlockScript, 1, lockKey( key ), token.getBytes( UTF_8 ) );
+            }
+        }
+
+        private byte[] lockKey( String key )
+        {
+            return ( lockPrefix + key ).getBytes( UTF_8 );
+        }
+    }
+
+    private static String prefix( String namespace )
+    {
+        // WARN Without a shared namespace, use a prefix per instance to start from a fresh cache on each Application
+        // activation
+        return namespace == null ? UUID.randomUUID().toString() + "_" : namespace + ":";
+    }
+
+    private static String lockPrefix( String prefix )
+    {
+        // Lock keys replace the prefix separator so that no user key can produce them
+        return prefix.substring( 0, prefix.length() - 1 ) + "#lock:";
+    }
+
+    private byte[][] rawKeys( Collection<String> keys )
+    {
+        byte[][] rawKeys = new byte[ keys.size() ][];
+        int idx = 0;
+        for( String key : keys )
+        {
+            rawKeys[idx++] = ( prefix + key ).getBytes( UTF_8 );
+        }
+        return rawKeys;
+    }
+
+    private <T> T fromBytes( byte[] element )
+    {
+        if( element == null )
+        {
+            return null;
+        }
+        return codec.decode( element );
     }
 
     private static int ttl( int ttlSeconds )
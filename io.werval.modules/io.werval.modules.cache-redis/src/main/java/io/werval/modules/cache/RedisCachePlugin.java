@@ -17,26 +17,42 @@ package io.werval.modules.cache;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import io.werval.api.Application;
 import io.werval.api.Config;
 import io.werval.api.cache.Cache;
 import io.werval.api.cache.CachePlugin;
 import io.werval.api.exceptions.ActivationException;
+import io.werval.api.exceptions.WervalException;
 import io.werval.modules.metrics.Metrics;
+import io.werval.spi.cache.CacheCodec;
+import io.werval.spi.cache.CacheCodecs;
+import io.werval.spi.cache.InvalidationChannel;
+import io.werval.spi.cache.InvalidationChannels;
 
-import redis.clients.jedis.Jedis;
+import com.codahale.metrics.MetricRegistry;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+
+import redis.clients.jedis.JedisPool;
 
 import static java.util.Collections.EMPTY_LIST;
 
 /**
- * EhCache Plugin.
+ * Redis Cache Plugin.
  */
 public class RedisCachePlugin
     extends CachePlugin
 {
     private RedisCache redisCache;
-    private Jedis jedis;
+    private NearCache nearCache;
+    private RedisConnections connections;
+    private RedisPipeliner pipeliner;
+    private ExecutorService ioExecutor;
+    private MetricRegistry metrics;
 
     @Override
     public List<Class<?>> dependencies( Config config )
@@ -51,30 +67,143 @@ public class RedisCachePlugin
     @Override
     public Cache api()
     {
-        return redisCache;
+        return nearCache != null ? nearCache : redisCache;
     }
 
     @Override
     public void onActivate( Application application )
         throws ActivationException
     {
-        jedis = new Jedis(
-            application.config().string( "redis.host" ),
-            application.config().intNumber( "redis.port" )
+        Config config = application.config().atKey( "redis" );
+
+        // Values Codec
+        CacheCodec codec;
+        try
+        {
+            codec = CacheCodecs.codec( application, config.atKey( "codec" ) );
+        }
+        catch( WervalException ex )
+        {
+            throw new ActivationException( ex.getMessage(), ex );
+        }
+
+        // Connections Pool
+        GenericObjectPoolConfig poolConfig = new GenericObjectPoolConfig();
+        poolConfig.setMinIdle( config.intNumber( "pool.min_idle" ) );
+        poolConfig.setMaxIdle( config.intNumber( "pool.max_idle" ) );
+        poolConfig.setMaxTotal( config.intNumber( "pool.max_total" ) );
+        poolConfig.setMaxWaitMillis( config.milliseconds( "pool.borrow_timeout" ) );
+        poolConfig.setTestOnBorrow( config.bool( "pool.test_on_borrow" ) );
+        poolConfig.setJmxEnabled( false );
+        connections = new RedisConnections(
+            new JedisPool(
+                poolConfig,
+                config.string( "host" ),
+                config.intNumber( "port" ),
+                config.milliseconds( "timeout" ).intValue()
+            ),
+            poolConfig.getMaxTotal()
+        );
+
+        // I/O threads, one per pooled connection
+        AtomicInteger threadCount = new AtomicInteger();
+        ioExecutor = Executors.newFixedThreadPool(
+            poolConfig.getMaxTotal(),
+            runnable ->
+            {
+                Thread thread = new Thread( runnable, "werval-redis-io-" + threadCount.incrementAndGet() );
+                thread.setDaemon( true );
+                return thread;
+            }
         );
-        redisCache = application.config().bool( "redis.metrics" )
-                     ? new RedisCache( application.plugin( Metrics.class ), jedis )
-                     : new RedisCache( jedis );
+        pipeliner = new RedisPipeliner( connections, ioExecutor, config.intNumber( "pipelining.max_batch" ) );
+
+        // Cache
+        String namespace = config.has( "namespace" ) ? config.string( "namespace" ) : null;
+        if( namespace == null && config.bool( "compute_lock.enabled" ) )
+        {
+            throw new ActivationException( "redis.compute_lock.enabled requires redis.namespace to be set" );
+        }
+        int lockTtlSeconds = config.bool( "compute_lock.enabled" )
+                             ? config.seconds( "compute_lock.ttl" ).intValue()
+                             : 0;
+        long lockWaitMillis = config.milliseconds( "compute_lock.wait" );
+        if( config.bool( "metrics" ) )
+        {
+            Metrics metricsPlugin = application.plugin( Metrics.class );
+            metrics = metricsPlugin.metrics();
+            connections.registerMetrics( metrics );
+            pipeliner.registerMetrics( metrics );
+            redisCache = new RedisCache(
+                metricsPlugin, connections, pipeliner, ioExecutor, codec, namespace, lockTtlSeconds, lockWaitMillis
+            );
+        }
+        else
+        {
+            redisCache = new RedisCache(
+                connections, pipeliner, ioExecutor, codec, namespace, lockTtlSeconds, lockWaitMillis
+            );
+        }
+
+        // Near Cache
+        if( config.bool( "near_cache.enabled" ) )
+        {
+            InvalidationChannel channel;
+            String invalidation = config.string( "near_cache.invalidation" );
+            if( namespace == null && !"none".equals( invalidation ) )
+            {
+                throw new ActivationException( "redis.near_cache.invalidation requires redis.namespace to be set" );
+            }
+            try
+            {
+                channel = "redis".equals( invalidation )
+                          ? new RedisInvalidationChannel(
+                              connections,
+                              config.string( "host" ),
+                              config.intNumber( "port" ),
+                              namespace + ":" + config.string( "near_cache.channel" )
+                          )
+                          : InvalidationChannels.channel( application, invalidation );
+            }
+            catch( WervalException ex )
+            {
+                throw new ActivationException( ex.getMessage(), ex );
+            }
+            long maxEntries = config.longNumber( "near_cache.max_entries" );
+            int ttlSeconds = config.seconds( "near_cache.ttl" ).intValue();
+            nearCache = metrics != null
+                        ? new NearCache(
+                            application.plugin( Metrics.class ), "redis", redisCache, maxEntries, ttlSeconds, channel
+                        )
+                        : new NearCache( redisCache, maxEntries, ttlSeconds, channel );
+        }
     }
 
     @Override
     public void onPassivate( Application application )
     {
-        if( jedis != null )
+        if( nearCache != null )
+        {
+            nearCache.close();
+            nearCache = null;
+        }
+        if( ioExecutor != null )
+        {
+            ioExecutor.shutdown();
+            ioExecutor = null;
+        }
+        if( metrics != null )
+        {
+            connections.unregisterMetrics( metrics );
+            pipeliner.unregisterMetrics( metrics );
+            metrics = null;
+        }
+        if( connections != null )
         {
-            jedis.close();
-            jedis = null;
+            connections.close();
+            connections = null;
         }
+        pipeliner = null;
         redisCache = null;
     }
 }
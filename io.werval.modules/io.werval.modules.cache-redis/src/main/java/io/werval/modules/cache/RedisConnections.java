@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.modules.cache;
+
+import java.util.NoSuchElementException;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
+import com.codahale.metrics.Timer;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+/**
+ * Redis connections pool.
+ * <p>
+ * Borrowed connections must be closed to be returned to the pool.
+ * Borrow wait time and pool exhaustion are measured and can be exposed through the metrics module.
+ */
+/* package */ final class RedisConnections
+{
+    private static final String METRICS_PREFIX = "io.werval.modules.cache.redis.werval-cache.pool";
+    private final JedisPool pool;
+    private final int maxTotal;
+    private final Timer borrows = new Timer();
+    private final Meter exhaustions = new Meter();
+
+    /* package */ RedisConnections( JedisPool pool, int maxTotal )
+    {
+        this.pool = pool;
+        this.maxTotal = maxTotal;
+    }
+
+    /* package */ Jedis borrow()
+    {
+        try ( Timer.Context borrowTimer = borrows.time() )
+        {
+            return pool.getResource();
+        }
+        catch( JedisConnectionException ex )
+        {
+            if( ex.getCause() instanceof NoSuchElementException )
+            {
+                exhaustions.mark();
+            }
+            throw ex;
+        }
+    }
+
+    /* package */ void registerMetrics( MetricRegistry metrics )
+    {
+        metrics.register( name( METRICS_PREFIX, "borrows" ), borrows );
+        metrics.register( name( METRICS_PREFIX, "exhaustions" ), exhaustions );
+        metrics.register( name( METRICS_PREFIX, "active" ), (Gauge<Integer>) pool::getNumActive );
+        metrics.register( name( METRICS_PREFIX, "idle" ), (Gauge<Integer>) pool::getNumIdle );
+        metrics.register( name( METRICS_PREFIX, "waiters" ), (Gauge<Integer>) pool::getNumWaiters );
+        metrics.register(
+            name( METRICS_PREFIX, "utilization" ),
+            new RatioGauge()
+            {
+                @Override
+                protected Ratio getRatio()
+                {
+                    return Ratio.of( pool.getNumActive(), maxTotal );
+                }
+            }
+        );
+    }
+
+    /* package */ void unregisterMetrics( MetricRegistry metrics )
+    {
+        metrics.removeMatching( ( metricName, metric ) -> metricName.startsWith( METRICS_PREFIX + "." ) );
+    }
+
+    /* package */ void close()
+    {
+        pool.close();
+    }
+}
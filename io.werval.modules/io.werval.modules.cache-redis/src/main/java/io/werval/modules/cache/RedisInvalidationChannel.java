@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.modules.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import io.werval.spi.cache.InvalidationChannel;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.exceptions.JedisException;
+
+/**
+ * Redis publish/subscribe InvalidationChannel.
+ * <p>
+ * Invalidations are published using pooled connections.
+ * Subscription uses a dedicated connection and thread, it is reestablished on failure and subscribers are reset as
+ * invalidations may have been missed.
+ * <p>
+ * Messages are made of the origin and the keys, each prefixed by its length and a colon so that keys can hold any
+ * character, eg. {@literal 36:<origin>3:foo8:bar\nbaz}.
+ */
+/* package */ final class RedisInvalidationChannel
+    implements InvalidationChannel
+{
+    private static final Logger LOG = LoggerFactory.getLogger( RedisInvalidationChannel.class );
+    private static final char LENGTH_SEPARATOR = ':';
+    private static final long RECONNECT_DELAY_MILLIS = 1000;
+
+    private final RedisConnections connections;
+    private final String host;
+    private final int port;
+    private final String channel;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final Thread subscription;
+    private volatile boolean running = true;
+    private volatile JedisPubSub pubSub;
+
+    /* package */ RedisInvalidationChannel( RedisConnections connections, String host, int port, String channel )
+    {
+        this.connections = connections;
+        this.host = host;
+        this.port = port;
+        this.channel = channel;
+        this.subscription = new Thread( this::subscription, "werval-redis-invalidations" );
+        this.subscription.setDaemon( true );
+        this.subscription.start();
+    }
+
+    @Override
+    public void publish( String origin, Collection<String> keys )
+    {
+        List<String> parts = new ArrayList<>( keys.size() + 1 );
+        parts.add( origin );
+        parts.addAll( keys );
+        try ( Jedis jedis = connections.borrow() )
+        {
+            jedis.publish( channel, encode( parts ) );
+        }
+    }
+
+    @Override
+    public void subscribe( Subscriber subscriber )
+    {
+        subscribers.add( subscriber );
+    }
+
+    @Override
+    public void close()
+    {
+        running = false;
+        JedisPubSub current = pubSub;
+        if( current != null && current.isSubscribed() )
+        {
+            current.unsubscribe();
+        }
+        subscription.interrupt();
+    }
+
+    private void subscription()
+    {
+        while( running )
+        {
+            // Invalidations may have been missed while not subscribed
+            subscribers.forEach( Subscriber::onReset );
+            // Subscribed connections must not time out
+            try ( Jedis jedis = new Jedis( host, port, 0 ) )
+            {
+                pubSub = new JedisPubSub()
+                {
+                    @Override
+                    public void onMessage( String messageChannel, String message )
+                    {
+                        List<String> parts = decode( message );
+                        if( parts == null || parts.isEmpty() )
+                        {
+                            LOG.warn( "Ignoring malformed Redis invalidation message on {}", messageChannel );
+                            return;
+                        }
+                        Collection<String> keys = parts.subList( 1, parts.size() );
+                        subscribers.forEach( subscriber -> subscriber.onInvalidation( parts.get( 0 ), keys ) );
+                    }
+                };
+                jedis.subscribe( pubSub, channel );
+            }
+            catch( JedisException ex )
+            {
+                if( running )
+                {
+                    LOG.warn( "Redis invalidations subscription failed, will retry: {}", ex.getMessage() );
+                    try
+                    {
+                        Thread.sleep( RECONNECT_DELAY_MILLIS );
+                    }
+                    catch( InterruptedException interrupted )
+                    {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Encode a message.
+     *
+     * @param parts Message parts, the origin followed by the keys
+     *
+     * @return Message
+     */
+    /* package */ static String encode( List<String> parts )
+    {
+        StringBuilder message = new StringBuilder();
+        for( String part : parts )
+        {
+            message.append( part.length() ).append( LENGTH_SEPARATOR ).append( part );
+        }
+        return message.toString();
+    }
+
+    /**
+     * Decode a message.
+     *
+     * @param message Message
+     *
+     * @return Message parts, or {@literal null} if the message is malformed
+     */
+    /* package */ static List<String> decode( String message )
+    {
+        List<String> parts = new ArrayList<>();
+        int idx = 0;
+        while( idx < message.length() )
+        {
+            int separator = message.indexOf( LENGTH_SEPARATOR, idx );
+            if( separator <= idx )
+            {
+                return null;
+            }
+            int length;
+            try
+            {
+                length = Integer.parseInt( message.substring( idx, separator ) );
+            }
+            catch( NumberFormatException ex )
+            {
+                return null;
+            }
+            int end = separator + 1 + length;
+            if( length < 0 || end > message.length() )
+            {
+                return null;
+            }
+            parts.add( message.substring( separator + 1, end ) );
+            idx = end;
+        }
+        return parts;
+    }
+}
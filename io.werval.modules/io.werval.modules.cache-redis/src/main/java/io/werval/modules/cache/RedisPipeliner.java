@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.modules.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Function;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.UniformReservoir;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+
+/**
+ * Redis automatic pipelining.
+ * <p>
+ * Asynchronous commands are queued and sent by I/O threads.
+ * Each I/O thread drains all the commands queued so far, up to a maximum batch size, and sends them in a single
+ * pipeline on one connection.
+ * Concurrent commands are then batched without adding latency when the load is low.
+ */
+/* package */ final class RedisPipeliner
+{
+    private static final class Command<T>
+    {
+        private final Function<Pipeline, Response<T>> call;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private Response<T> response;
+
+        private Command( Function<Pipeline, Response<T>> call )
+        {
+            this.call = call;
+        }
+
+        private void queue( Pipeline pipeline )
+        {
+            response = call.apply( pipeline );
+        }
+
+        private void complete()
+        {
+            try
+            {
+                future.complete( response.get() );
+            }
+            catch( RuntimeException ex )
+            {
+                future.completeExceptionally( ex );
+            }
+        }
+    }
+
+    private static final String METRICS_NAME = "io.werval.modules.cache.redis.werval-cache.pipelines.sizes";
+    private final BlockingQueue<Command<?>> queue = new LinkedBlockingQueue<>();
+    private final RedisConnections connections;
+    private final Executor ioExecutor;
+    private final int maxBatch;
+    private final Histogram batchSizes = new Histogram( new UniformReservoir() );
+
+    /* package */ RedisPipeliner( RedisConnections connections, Executor ioExecutor, int maxBatch )
+    {
+        this.connections = connections;
+        this.ioExecutor = ioExecutor;
+        this.maxBatch = maxBatch;
+    }
+
+    /* package */ <T> CompletableFuture<T> submit( Function<Pipeline, Response<T>> call )
+    {
+        Command<T> command = new Command<>( call );
+        queue.add( command );
+        ioExecutor.execute( this::drain );
+        return command.future;
+    }
+
+    /* package */ void registerMetrics( MetricRegistry metrics )
+    {
+        metrics.register( METRICS_NAME, batchSizes );
+    }
+
+    /* package */ void unregisterMetrics( MetricRegistry metrics )
+    {
+        metrics.remove( METRICS_NAME );
+    }
+
+    private void drain()
+    {
+        List<Command<?>> batch = new ArrayList<>();
+        queue.drainTo( batch, maxBatch );
+        if( batch.isEmpty() )
+        {
+            // Commands already sent by a previous drain
+            return;
+        }
+        batchSizes.update( batch.size() );
+        try ( Jedis jedis = connections.borrow() )
+        {
+            Pipeline pipeline = jedis.pipelined();
+            for( Command<?> command : batch )
+            {
+                command.queue( pipeline );
+            }
+            pipeline.sync();
+            for( Command<?> command : batch )
+            {
+                command.complete();
+            }
+        }
+        catch( RuntimeException ex )
+        {
+            for( Command<?> command : batch )
+            {
+                command.future.completeExceptionally( ex );
+            }
+        }
+    }
+}
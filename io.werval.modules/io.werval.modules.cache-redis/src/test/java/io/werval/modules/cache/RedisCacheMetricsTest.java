@@ -15,6 +15,8 @@
  */
 package io.werval.modules.cache;
 
+import java.util.UUID;
+
 import io.werval.api.cache.Cache;
 import io.werval.api.outcomes.Outcome;
 import io.werval.runtime.routes.RoutesParserProvider;
@@ -35,6 +37,12 @@ import static org.hamcrest.CoreMatchers.is;
  */
 public class RedisCacheMetricsTest
 {
+    static
+    {
+        // Random namespace per run so that runs sharing a Redis server do not see each other keys
+        System.setProperty( "redis.namespace", "werval-test-" + UUID.randomUUID() );
+    }
+
     @BeforeClass
     public static void beforeMemcacheTests()
     {
@@ -91,6 +99,9 @@ public class RedisCacheMetricsTest
             .body( "timers.'io.werval.modules.cache.redis.werval-cache.gets'.count", is( 6 ) )
             .body( "timers.'io.werval.modules.cache.redis.werval-cache.sets'.count", is( 2 ) )
             .body( "timers.'io.werval.modules.cache.redis.werval-cache.removes'.count", is( 1 ) )
+            .body( "timers.'io.werval.modules.cache.redis.werval-cache.pool.borrows'.count", is( 9 ) )
+            .body( "meters.'io.werval.modules.cache.redis.werval-cache.pool.exhaustions'.count", is( 0 ) )
+            .body( "gauges.'io.werval.modules.cache.redis.werval-cache.pool.active'.value", is( 0 ) )
             .when()
             .get( "/" );
     }
@@ -15,6 +15,8 @@
  */
 package io.werval.modules.cache;
 
+import java.util.UUID;
+
 import io.werval.test.cache.CacheTest;
 import org.junit.BeforeClass;
 
@@ -28,6 +30,12 @@ import static io.werval.test.util.Assume.assumeConnectivity;
 public class RedisCacheTest
     extends CacheTest
 {
+    static
+    {
+        // Random namespace per run so that runs sharing a Redis server do not see each other keys
+        System.setProperty( "redis.namespace", "werval-test-" + UUID.randomUUID() );
+    }
+
     @BeforeClass
     public static void beforeMemcacheTests()
     {
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.modules.cache;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * RedisInvalidationChannel messages encoding Test.
+ */
+public class RedisInvalidationChannelTest
+{
+    @Test
+    public void keysWithSeparatorsRoundTrip()
+    {
+        List<String> parts = Arrays.asList( "origin", "foo", "bar\nbaz", "", "4:qux", "été" );
+        assertThat( RedisInvalidationChannel.decode( RedisInvalidationChannel.encode( parts ) ), equalTo( parts ) );
+    }
+
+    @Test
+    public void malformedMessagesAreRejected()
+    {
+        assertThat( RedisInvalidationChannel.decode( "origin\nfoo" ), nullValue() );
+        assertThat( RedisInvalidationChannel.decode( "6:origin9:foo" ), nullValue() );
+        assertThat( RedisInvalidationChannel.decode( "6:origin:foo" ), nullValue() );
+    }
+}
@@ -0,0 +1,353 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.modules.jdbc;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.Arrays;
+import javax.sql.DataSource;
+
+import io.werval.modules.jdbc.StatementStats.Series;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * DataSource instrumenting statements.
+ * <p>
+ * Connections, statements and result sets are wrapped in dynamic proxies that record executions in
+ * {@link StatementStats}.
+ * Wrapped objects can still be unwrapped using {@link java.sql.Wrapper#unwrap(Class)}.
+ */
+/* package */ final class InstrumentedDataSource
+    implements DataSource, AutoCloseable
+{
+    private final String name;
+    private final DataSource delegate;
+    private final StatementStats stats;
+
+    /* package */ InstrumentedDataSource( String name, DataSource delegate, StatementStats stats )
+    {
+        this.name = name;
+        this.delegate = delegate;
+        this.stats = stats;
+    }
+
+    @Override
+    public Connection getConnection()
+        throws SQLException
+    {
+        return connection( delegate.getConnection() );
+    }
+
+    @Override
+    public Connection getConnection( String username, String password )
+        throws SQLException
+    {
+        return connection( delegate.getConnection( username, password ) );
+    }
+
+    @Override
+    public void close()
+    {
+        if( delegate instanceof ReplicatedDataSource )
+        {
+            ( (ReplicatedDataSource) delegate ).close();
+        }
+        else if( delegate instanceof HikariDataSource )
+        {
+            ( (HikariDataSource) delegate ).close();
+        }
+    }
+
+    @Override
+    public PrintWriter getLogWriter()
+        throws SQLException
+    {
+        return delegate.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter( PrintWriter out )
+        throws SQLException
+    {
+        delegate.setLogWriter( out );
+    }
+
+    @Override
+    public void setLoginTimeout( int seconds )
+        throws SQLException
+    {
+        delegate.setLoginTimeout( seconds );
+    }
+
+    @Override
+    public int getLoginTimeout()
+        throws SQLException
+    {
+        return delegate.getLoginTimeout();
+    }
+
+    @Override
+    public java.util.logging.Logger getParentLogger()
+        throws SQLFeatureNotSupportedException
+    {
+        return delegate.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap( Class<T> iface )
+        throws SQLException
+    {
+        if( iface.isInstance( delegate ) )
+        {
+            return iface.cast( delegate );
+        }
+        return delegate.unwrap( iface );
+    }
+
+    @Override
+    public boolean isWrapperFor( Class<?> iface )
+        throws SQLException
+    {
+        return iface.isInstance( delegate ) || delegate.isWrapperFor( iface );
+    }
+
+    private Connection connection( Connection connection )
+    {
+        return proxy( Connection.class, new ConnectionHandler( connection ) );
+    }
+
+    private static <T> T proxy( Class<T> type, InvocationHandler handler )
+    {
+        return type.cast(
+            Proxy.newProxyInstance(
+                InstrumentedDataSource.class.getClassLoader(),
+                new Class<?>[]
+                {
+                    type
+                },
+                handler
+            )
+        );
+    }
+
+    private static Object invoke( Object target, Method method, Object[] args )
+        throws Throwable
+    {
+        try
+        {
+            return method.invoke( target, args );
+        }
+        catch( InvocationTargetException ex )
+        {
+            throw ex.getCause();
+        }
+    }
+
+    private final class ConnectionHandler
+        implements InvocationHandler
+    {
+        private final Connection connection;
+
+        private ConnectionHandler( Connection connection )
+        {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke( Object proxy, Method method, Object[] args )
+            throws Throwable
+        {
+            Object result = InstrumentedDataSource.invoke( connection, method, args );
+            switch( method.getName() )
+            {
+                case "createStatement":
+                    return statement( Statement.class, (Connection) proxy, result, null );
+                case "prepareStatement":
+                    return statement( PreparedStatement.class, (Connection) proxy, result, (String) args[0] );
+                case "prepareCall":
+                    return statement( CallableStatement.class, (Connection) proxy, result, (String) args[0] );
+                default:
+                    return result;
+            }
+        }
+
+        private <T extends Statement> T statement( Class<T> type, Connection proxy, Object statement, String sql )
+        {
+            return proxy(
+                type,
+                new StatementHandler( proxy, (Statement) statement, sql == null ? null : stats.series( sql ) )
+            );
+        }
+    }
+
+    private final class StatementHandler
+        implements InvocationHandler
+    {
+        private final Connection connection;
+        private final Statement statement;
+        private final Series prepared;
+        private Object[] parameters;
+        private Series batch;
+        private Series last;
+        private Series lastRoute;
+
+        private StatementHandler( Connection connection, Statement statement, Series prepared )
+        {
+            this.connection = connection;
+            this.statement = statement;
+            this.prepared = prepared;
+        }
+
+        @Override
+        public Object invoke( Object proxy, Method method, Object[] args )
+            throws Throwable
+        {
+            String methodName = method.getName();
+            if( methodName.startsWith( "execute" ) )
+            {
+                Series series = prepared;
+                if( series == null )
+                {
+                    series = args != null && args.length > 0 && args[0] instanceof String
+                             ? stats.series( (String) args[0] )
+                             : batch;
+                }
+                if( series == null )
+                {
+                    return InstrumentedDataSource.invoke( statement, method, args );
+                }
+                long start = System.nanoTime();
+                Object result;
+                try
+                {
+                    result = InstrumentedDataSource.invoke( statement, method, args );
+                }
+                finally
+                {
+                    last = series;
+                    lastRoute = stats.executed( name, series, System.nanoTime() - start, parameters );
+                }
+                return result instanceof ResultSet ? resultSet( (ResultSet) result ) : result;
+            }
+            if( prepared != null && methodName.startsWith( "set" )
+                && args != null && args.length >= 2 && args[0] instanceof Integer )
+            {
+                parameter( (Integer) args[0], "setNull".equals( methodName ) ? null : args[1] );
+            }
+            else if( "clearParameters".equals( methodName ) )
+            {
+                parameters = null;
+            }
+            else if( "addBatch".equals( methodName ) && batch == null && args != null && args[0] instanceof String )
+            {
+                batch = stats.series( (String) args[0] );
+            }
+            else if( "getConnection".equals( methodName ) )
+            {
+                return connection;
+            }
+            Object result = InstrumentedDataSource.invoke( statement, method, args );
+            if( "getResultSet".equals( methodName ) && result != null && last != null )
+            {
+                return resultSet( (ResultSet) result );
+            }
+            return result;
+        }
+
+        private void parameter( int index, Object value )
+        {
+            if( index < 1 )
+            {
+                return;
+            }
+            if( parameters == null )
+            {
+                parameters = new Object[ Math.max( index, 8 ) ];
+            }
+            else if( parameters.length < index )
+            {
+                parameters = Arrays.copyOf( parameters, Math.max( index, parameters.length * 2 ) );
+            }
+            parameters[index - 1] = value == null ? StatementStats.NULL_PARAMETER : value;
+        }
+
+        private ResultSet resultSet( ResultSet resultSet )
+        {
+            return proxy( ResultSet.class, new ResultSetHandler( resultSet, last, lastRoute ) );
+        }
+    }
+
+    private final class ResultSetHandler
+        implements InvocationHandler
+    {
+        private final ResultSet resultSet;
+        private final Series statement;
+        private final Series route;
+        private long rows;
+
+        private ResultSetHandler( ResultSet resultSet, Series statement, Series route )
+        {
+            this.resultSet = resultSet;
+            this.statement = statement;
+            this.route = route;
+        }
+
+        @Override
+        public Object invoke( Object proxy, Method method, Object[] args )
+            throws Throwable
+        {
+            Object result = InstrumentedDataSource.invoke( resultSet, method, args );
+            switch( method.getName() )
+            {
+                case "next":
+                    if( Boolean.TRUE.equals( result ) )
+                    {
+                        rows++;
+                    }
+                    else
+                    {
+                        flush();
+                    }
+                    break;
+                case "close":
+                    flush();
+                    break;
+                default:
+            }
+            return result;
+        }
+
+        private void flush()
+        {
+            if( rows > 0 )
+            {
+                stats.fetched( statement, route, rows );
+                rows = 0;
+            }
+        }
+    }
+}
@@ -18,24 +18,79 @@ package io.werval.modules.jdbc;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 import javax.sql.DataSource;
 
+import io.werval.api.context.Context;
+import io.werval.api.context.CurrentContext;
+import io.werval.api.context.ThreadContextHelper;
+
 import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
 
 /**
  * JDBC.
  */
 public class JDBC
 {
-    private final Map<String, HikariDataSource> dataSources;
+    /**
+     * Function using a Connection.
+     *
+     * @param <T> Parameterized type of the result
+     */
+    @FunctionalInterface
+    public interface ConnectionFunction<T>
+    {
+        /**
+         * Apply this function to a Connection.
+         *
+         * @param connection Connection
+         *
+         * @return Result
+         *
+         * @throws SQLException if a database access error occurs
+         */
+        T apply( Connection connection )
+            throws SQLException;
+    }
+
+    private static final Logger LOG = LoggerFactory.getLogger( JDBC.class );
+    private final Map<String, DataSource> dataSources;
+    private final Map<String, ExecutorService> executors;
+    private final StatementStats statements;
     private final String defaultDsName;
 
-    /* package */ JDBC( Map<String, HikariDataSource> dataSources, String defaultDsName )
+    /* package */ JDBC(
+        Map<String, DataSource> dataSources,
+        Map<String, ExecutorService> executors,
+        StatementStats statements,
+        String defaultDsName
+    )
     {
         this.dataSources = dataSources;
+        this.executors = executors;
+        this.statements = statements;
         this.defaultDsName = defaultDsName;
     }
 
+    /**
+     * SQL Statements statistics.
+     *
+     * @return Statements statistics, empty if disabled by the {@literal jdbc.statements.enabled} configuration
+     *         property
+     */
+    public Optional<StatementStats> statements()
+    {
+        return Optional.ofNullable( statements );
+    }
+
     /**
      * Default DataSource.
      *
@@ -68,6 +123,9 @@ public class JDBC
 
     /**
      * DataSource.
+     * <p>
+     * If the DataSource has read replicas configured, it wraps a {@link ReplicatedDataSource}, use
+     * {@link DataSource#unwrap(Class)} to get it.
      *
      * @param dataSourceName Name of the DataSource
      *
@@ -104,9 +162,120 @@ public class JDBC
         }
     }
 
+    /**
+     * Supply a value from a Connection of the default DataSource, asynchronously.
+     *
+     * @param <T>   Parameterized type of the value
+     * @param block Function applied to the Connection
+     *
+     * @return A future of the value
+     *
+     * @see #supplyAsync(String, ConnectionFunction)
+     */
+    public <T> CompletableFuture<T> supplyAsync( ConnectionFunction<T> block )
+    {
+        return supplyAsync( defaultDsName, block );
+    }
+
+    /**
+     * Supply a value from a Connection of a named DataSource, asynchronously.
+     * <p>
+     * The block is run on the DataSource executor, sized after its connection pool, so that threads waiting for
+     * connections are not taken from the application executors.
+     * The Context and the {@link ReadOnly} scope of the caller are propagated.
+     * The Connection is closed once the block returns.
+     * <p>
+     * When the executor queue is full the returned future fails right away with a
+     * {@link RejectedExecutionException}.
+     * Non-async dependent stages run on the DataSource executor, prefer the async variants with an application
+     * executor for further processing.
+     *
+     * @param <T>            Parameterized type of the value
+     * @param dataSourceName Name of the DataSource to use
+     * @param block          Function applied to the Connection
+     *
+     * @return A future of the value, failing with an {@link UncheckedSQLException} on database access errors
+     */
+    public <T> CompletableFuture<T> supplyAsync( String dataSourceName, ConnectionFunction<T> block )
+    {
+        DataSource dataSource = dataSource( dataSourceName );
+        Optional<Context> context = CurrentContext.optional();
+        boolean readOnly = ReadOnly.isActive();
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Supplier<T> supplier = () ->
+        {
+            try ( Connection connection = dataSource.getConnection() )
+            {
+                return block.apply( connection );
+            }
+            catch( SQLException ex )
+            {
+                throw new UncheckedSQLException( ex );
+            }
+        };
+        Runnable task = () ->
+        {
+            try
+            {
+                future.complete( readOnly ? ReadOnly.supply( supplier ) : supplier.get() );
+            }
+            catch( Throwable ex )
+            {
+                future.completeExceptionally( ex );
+            }
+        };
+        try
+        {
+            executors.get( dataSourceName ).execute(
+                context.isPresent() ? () -> ThreadContextHelper.withContext( context.get(), task ) : task
+            );
+        }
+        catch( RejectedExecutionException ex )
+        {
+            future.completeExceptionally( ex );
+        }
+        return future;
+    }
+
     /* package */ void passivate()
     {
-        dataSources.values().forEach( ds -> ds.close() );
+        executors.forEach(
+            ( dsName, executor ) ->
+            {
+                executor.shutdown();
+                try
+                {
+                    if( !executor.awaitTermination( 30, SECONDS ) )
+                    {
+                        LOG.warn( "'{}' DataSource executor did not terminate in time", dsName );
+                        executor.shutdownNow();
+                    }
+                }
+                catch( InterruptedException ex )
+                {
+                    Thread.currentThread().interrupt();
+                    executor.shutdownNow();
+                }
+            }
+        );
+        executors.clear();
+        dataSources.values().forEach(
+            ds ->
+            {
+                if( ds instanceof InstrumentedDataSource )
+                {
+                    ( (InstrumentedDataSource) ds ).close();
+                }
+                else if( ds instanceof ReplicatedDataSource )
+                {
+                    ( (ReplicatedDataSource) ds ).close();
+                }
+                else if( ds instanceof HikariDataSource )
+                {
+                    ( (HikariDataSource) ds ).close();
+                }
+            }
+        );
         dataSources.clear();
     }
 }
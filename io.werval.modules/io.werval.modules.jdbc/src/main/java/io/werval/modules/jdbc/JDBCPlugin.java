@@ -24,24 +24,44 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.naming.InitialContext;
 import javax.naming.NamingException;
+import javax.sql.DataSource;
 
 import io.werval.api.Application;
 import io.werval.api.Config;
+import io.werval.api.Mode;
 import io.werval.api.Plugin;
 import io.werval.api.exceptions.ActivationException;
+import io.werval.api.routes.Route;
+import io.werval.api.routes.RouteBuilder;
+import io.werval.modules.jdbc.ReplicatedDataSource.Balancing;
 import io.werval.modules.jndi.JNDI;
 import io.werval.modules.metrics.Metrics;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 
+import static com.codahale.metrics.MetricRegistry.name;
+import static io.werval.api.Mode.DEV;
+import static io.werval.api.http.Method.GET;
 import static io.werval.util.Strings.EMPTY;
 import static io.werval.util.Strings.isEmpty;
 import static io.werval.util.Strings.join;
+import static java.util.Arrays.asList;
+import static java.util.Collections.EMPTY_LIST;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
 /**
  * JDBC Plugin that manage DataSources using HikariCP pools.
@@ -52,7 +72,15 @@ public class JDBCPlugin
     private static final String DEFAULT_DATASOURCE = "jdbc.default_datasource";
     private static final String DATASOURCES = "jdbc.datasources";
     private static final String METRICS = "jdbc.metrics";
+    private static final String EXECUTOR_QUEUE_SIZE = "jdbc.executor_queue_size";
+    private static final String STATEMENTS_ENABLED = "jdbc.statements.enabled";
+    private static final String STATEMENTS_MAX_SERIES = "jdbc.statements.max_series";
+    private static final String STATEMENTS_SLOW_THRESHOLD = "jdbc.statements.slow_threshold";
+    private static final String STATEMENTS_SLOW_MAX = "jdbc.statements.slow_max";
     private static final String LOG4JDBC_DRIVER = "net.sf.log4jdbc.sql.jdbcapi.DriverSpy";
+    private static final long DEFAULT_REPLICAS_STICKY_PRIMARY = 5_000L;
+    private static final int DEFAULT_REPLICAS_EJECTION_THRESHOLD = 3;
+    private static final long DEFAULT_REPLICAS_HEALTH_CHECK_INTERVAL = 10_000L;
     private JDBC jdbc;
 
     @Override
@@ -91,24 +119,78 @@ public class JDBCPlugin
         return jdbc;
     }
 
+    @Override
+    public List<Route> firstRoutes( Mode mode, RouteBuilder builder )
+    {
+        if( mode == DEV )
+        {
+            return asList(
+                builder.route( GET ).on( "/@jdbc" ).to( Tools.class, c -> c.devShellIndex() ).build()
+            );
+        }
+        return EMPTY_LIST;
+    }
+
     @Override
     public void onActivate( Application application )
         throws ActivationException
     {
         Config config = application.config();
-        Map<String, HikariDataSource> dataSources = new HashMap<>();
+        Map<String, DataSource> dataSources = new HashMap<>();
+        Map<String, ExecutorService> executors = new HashMap<>();
+        StatementStats statements = null;
+        if( config.bool( STATEMENTS_ENABLED ) )
+        {
+            statements = new StatementStats(
+                config.bool( METRICS ) ? application.plugin( Metrics.class ).metrics() : null,
+                config.intNumber( STATEMENTS_MAX_SERIES ),
+                config.milliseconds( STATEMENTS_SLOW_THRESHOLD ),
+                config.intNumber( STATEMENTS_SLOW_MAX )
+            );
+        }
         if( config.has( DATASOURCES ) )
         {
             Config allDsConfig = config.atPath( DATASOURCES );
             setupLog4Jdbc( application, allDsConfig );
+            boolean metrics = config.bool( METRICS );
             for( String dsName : allDsConfig.subKeys() )
             {
                 Config dsConfig = allDsConfig.atKey( dsName );
-                HikariDataSource ds = createDataSource( dsName, dsConfig, application, config.bool( METRICS ) );
+                HikariDataSource primary = createDataSource(
+                    dsName, dsConfig.string( "url" ), dsConfig, application, metrics
+                );
+                DataSource ds = dsConfig.has( "replicas" )
+                                ? createReplicatedDataSource( dsName, primary, dsConfig, application, metrics )
+                                : primary;
+                if( statements != null )
+                {
+                    ds = new InstrumentedDataSource( dsName, ds, statements );
+                }
+                if( dsConfig.has( "jndiName" ) )
+                {
+                    String jndiName = dsConfig.string( "jndiName" );
+                    try
+                    {
+                        new InitialContext().rebind( jndiName, ds );
+                    }
+                    catch( NamingException ex )
+                    {
+                        throw new ActivationException(
+                            "JDBC Plugin unable to register '" + dsName + "' DataSource in JNDI", ex
+                        );
+                    }
+                }
                 dataSources.put( dsName, ds );
+                int queueSize = dsConfig.has( "executor_queue_size" )
+                                ? dsConfig.intNumber( "executor_queue_size" )
+                                : config.intNumber( EXECUTOR_QUEUE_SIZE );
+                executors.put(
+                    dsName,
+                    createExecutor( dsName, primary.getMaximumPoolSize(), queueSize, application, metrics )
+                );
             }
         }
-        jdbc = new JDBC( dataSources, config.string( DEFAULT_DATASOURCE ) );
+        jdbc = new JDBC( dataSources, executors, statements, config.string( DEFAULT_DATASOURCE ) );
     }
 
     @Override
@@ -121,6 +203,53 @@ public class JDBCPlugin
         }
     }
 
+    private ExecutorService createExecutor(
+        String dsName,
+        int threads,
+        int queueSize,
+        Application app,
+        boolean metrics
+    )
+    {
+        AtomicInteger threadCount = new AtomicInteger();
+        Meter rejections = metrics
+                           ? app.plugin( Metrics.class ).metrics().meter( name( dsName, "executor", "rejected" ) )
+                           : null;
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            threads, threads,
+            60L, SECONDS,
+            new ArrayBlockingQueue<>( queueSize ),
+            runnable ->
+            {
+                Thread thread = new Thread( runnable, "werval-jdbc-" + dsName + "-" + threadCount.incrementAndGet() );
+                thread.setDaemon( true );
+                return thread;
+            },
+            (runnable, exec) ->
+            {
+                if( rejections != null )
+                {
+                    rejections.mark();
+                }
+                throw new RejectedExecutionException(
+                    "'" + dsName + "' DataSource executor queue is full (" + queueSize + ")"
+                );
+            }
+        );
+        // Threads are started on demand and released when idle
+        executor.allowCoreThreadTimeOut( true );
+        if( metrics )
+        {
+            MetricRegistry registry = app.plugin( Metrics.class ).metrics();
+            registry.register( name( dsName, "executor", "active" ), (Gauge<Integer>) executor::getActiveCount );
+            registry.register(
+                name( dsName, "executor", "queued" ),
+                (Gauge<Integer>) () -> executor.getQueue().size()
+            );
+        }
+        return executor;
+    }
+
     private void setupLog4Jdbc( Application application, Config allDsConfig )
     {
         // Load log4jdbc properties from application configuration
@@ -157,12 +286,66 @@ public class JDBCPlugin
         }
     }
 
-    private HikariDataSource createDataSource( String dsName, Config dsConfig, Application app, boolean metrics )
+    private ReplicatedDataSource createReplicatedDataSource(
+        String dsName,
+        HikariDataSource primary,
+        Config dsConfig,
+        Application app,
+        boolean metrics
+    )
+    {
+        Config replicasConfig = dsConfig.atKey( "replicas" );
+        List<HikariDataSource> replicas = new ArrayList<>();
+        List<String> urls = replicasConfig.stringList( "urls" );
+        for( int idx = 0; idx < urls.size(); idx++ )
+        {
+            // Replicas share the primary configuration but their URL
+            String poolName = dsName + "_replica" + ( idx + 1 );
+            replicas.add( createDataSource( poolName, urls.get( idx ), dsConfig, app, metrics ) );
+        }
+        Balancing balancing;
+        try
+        {
+            balancing = replicasConfig.has( "balancing" )
+                        ? Balancing.valueOf( replicasConfig.string( "balancing" ).toUpperCase( Locale.US ) )
+                        : Balancing.ROUND_ROBIN;
+        }
+        catch( IllegalArgumentException ex )
+        {
+            throw new ActivationException(
+                "Invalid replicas balancing for '" + dsName + "' DataSource, "
+                + "must be one of round_robin or least_outstanding",
+                ex
+            );
+        }
+        return new ReplicatedDataSource(
+            dsName,
+            primary,
+            replicas,
+            balancing,
+            replicasConfig.has( "sticky_primary" )
+            ? replicasConfig.milliseconds( "sticky_primary" )
+            : DEFAULT_REPLICAS_STICKY_PRIMARY,
+            replicasConfig.has( "ejection_threshold" )
+            ? replicasConfig.intNumber( "ejection_threshold" )
+            : DEFAULT_REPLICAS_EJECTION_THRESHOLD,
+            replicasConfig.has( "health_check_interval" )
+            ? replicasConfig.milliseconds( "health_check_interval" )
+            : DEFAULT_REPLICAS_HEALTH_CHECK_INTERVAL
+        );
+    }
+
+    private HikariDataSource createDataSource(
+        String poolName,
+        String url,
+        Config dsConfig,
+        Application app,
+        boolean metrics
+    )
     {
         // JDBC configuration
         boolean log4jdbc = dsConfig.has( "log4jdbc" ) && dsConfig.bool( "log4jdbc" );
         String driver = dsConfig.string( "driver" );
-        String url = dsConfig.string( "url" );
         String user = null;
         String password = null;
         try
@@ -238,7 +421,7 @@ public class JDBCPlugin
                 );
             }
             HikariConfig hikariConfig = new HikariConfig();
-            hikariConfig.setPoolName( dsName );
+            hikariConfig.setPoolName( poolName );
             hikariConfig.setDriverClassName( log4jdbc ? LOG4JDBC_DRIVER : driver );
             hikariConfig.setJdbcUrl( url );
             hikariConfig.setUsername( user );
@@ -312,21 +495,11 @@ public class JDBCPlugin
                 hikariConfig.setMetricRegistry( app.plugin( Metrics.class ).metrics() );
             }
 
-            HikariDataSource hds = new HikariDataSource( hikariConfig );
-
-            // JNDI
-            if( dsConfig.has( "jndiName" ) )
-            {
-                String jndiName = dsConfig.string( "jndiName" );
-                new InitialContext().rebind( jndiName, hds );
-            }
-
-            return hds;
+            return new HikariDataSource( hikariConfig );
         }
-        catch( ClassNotFoundException | IllegalAccessException | InstantiationException |
-               SQLException | NamingException ex )
+        catch( ClassNotFoundException | IllegalAccessException | InstantiationException | SQLException ex )
         {
-            throw new ActivationException( "JDBC Plugin unable to create '" + dsName + "' DataSource", ex );
+            throw new ActivationException( "JDBC Plugin unable to create '" + poolName + "' DataSource", ex );
         }
     }
 }
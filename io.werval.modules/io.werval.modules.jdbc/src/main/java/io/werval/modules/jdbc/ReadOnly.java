@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.modules.jdbc;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import io.werval.api.context.Context;
+import io.werval.api.context.CurrentContext;
+
+/**
+ * Read-only scope.
+ * <p>
+ * Connections obtained from a DataSource that has read replicas while a read-only scope is active are routed to one of
+ * the replicas, see the module documentation.
+ * <p>
+ * Synchronous scopes are bound to the current thread.
+ * Asynchronous scopes are bound to the current Context, and so to all threads it is propagated to, until the returned
+ * future completes.
+ */
+public final class ReadOnly
+{
+    /* package */ static final String METADATA_KEY = "io.werval.modules.jdbc.read-only";
+    private static final ThreadLocal<int[]> DEPTH = ThreadLocal.withInitial( () -> new int[ 1 ] );
+
+    /**
+     * @return {@literal true} if a read-only scope is active for the current thread or Context
+     */
+    public static boolean isActive()
+    {
+        if( DEPTH.get()[0] > 0 )
+        {
+            return true;
+        }
+        Optional<Context> context = CurrentContext.optional();
+        if( context.isPresent() )
+        {
+            AtomicInteger scopes = context.get().metaData().get( AtomicInteger.class, METADATA_KEY );
+            return scopes != null && scopes.get() > 0;
+        }
+        return false;
+    }
+
+    /**
+     * Run a block in a read-only scope.
+     *
+     * @param block Block
+     */
+    public static void run( Runnable block )
+    {
+        supply(
+            () ->
+            {
+                block.run();
+                return null;
+            }
+        );
+    }
+
+    /**
+     * Supply a value from a block run in a read-only scope.
+     *
+     * @param <T>   Parameterized type of the value
+     * @param block Block
+     *
+     * @return The value returned by the block
+     */
+    public static <T> T supply( Supplier<T> block )
+    {
+        int[] depth = DEPTH.get();
+        depth[0]++;
+        try
+        {
+            return block.get();
+        }
+        finally
+        {
+            depth[0]--;
+        }
+    }
+
+    /**
+     * Supply a future from a block, the read-only scope lasting until the future completes.
+     * <p>
+     * Outside of an interaction this is equivalent to {@link #supply(Supplier)}.
+     *
+     * @param <T>   Parameterized type of the future value
+     * @param block Block returning a future
+     *
+     * @return A future completed once the read-only scope is closed
+     */
+    public static <T> CompletableFuture<T> supplyAsync( Supplier<CompletableFuture<T>> block )
+    {
+        Optional<Context> context = CurrentContext.optional();
+        if( !context.isPresent() )
+        {
+            return supply( block );
+        }
+        AtomicInteger scopes = (AtomicInteger) context.get().metaData().computeIfAbsent(
+            METADATA_KEY,
+            key -> new AtomicInteger()
+        );
+        scopes.incrementAndGet();
+        CompletableFuture<T> future;
+        try
+        {
+            future = block.get();
+        }
+        catch( RuntimeException ex )
+        {
+            scopes.decrementAndGet();
+            throw ex;
+        }
+        return future.whenComplete( ( value, error ) -> scopes.decrementAndGet() );
+    }
+
+    private ReadOnly()
+    {
+    }
+}
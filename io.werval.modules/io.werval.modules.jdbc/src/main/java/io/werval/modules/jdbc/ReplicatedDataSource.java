@@ -0,0 +1,538 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.modules.jdbc;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+
+import io.werval.api.context.Context;
+import io.werval.api.context.CurrentContext;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * DataSource routing connections to a primary pool and a load-balanced set of read replica pools.
+ * <p>
+ * Connections obtained while a {@link ReadOnly} scope is active go to a healthy replica, others go to the primary.
+ * <p>
+ * Replicas failing to provide connections {@literal ejection_threshold} times in a row are ejected, a periodic health
+ * check reinstates them once they respond again.
+ * When no replica is available, read-only connections fall back to the primary.
+ * <p>
+ * Executing an update or a batch on a primary connection obtained during an interaction is considered a write, see
+ * {@link #stickToPrimary()} for writes that cannot be detected.
+ * The primary is then used for read-only connections of the same session during the sticky window, so that clients
+ * read their own writes despite replication lag.
+ * The session is only modified when the window would move forward meaningfully.
+ */
+public final class ReplicatedDataSource
+    implements DataSource, AutoCloseable
+{
+    /**
+     * Replica balancing strategy.
+     */
+    public static enum Balancing
+    {
+        /**
+         * Replicas are used in turn.
+         */
+        ROUND_ROBIN,
+        /**
+         * The replica with the least connections in use is used.
+         */
+        LEAST_OUTSTANDING
+    }
+
+    private static final Logger LOG = LoggerFactory.getLogger( ReplicatedDataSource.class );
+    private static final String STICKY_SESSION_KEY_PREFIX = "_jdbc_primary_until.";
+
+    private final String name;
+    private final DataSource primary;
+    private final Replica[] replicas;
+    private final Balancing balancing;
+    private final long stickyMillis;
+    private final int ejectionThreshold;
+    private final AtomicInteger cursor = new AtomicInteger();
+    private final ScheduledExecutorService healthChecks;
+
+    /* package */ ReplicatedDataSource(
+        String name,
+        DataSource primary,
+        List<? extends DataSource> replicas,
+        Balancing balancing,
+        long stickyMillis,
+        int ejectionThreshold,
+        long healthCheckIntervalMillis
+    )
+    {
+        this.name = name;
+        this.primary = primary;
+        this.replicas = new Replica[ replicas.size() ];
+        for( int idx = 0; idx < this.replicas.length; idx++ )
+        {
+            this.replicas[idx] = new Replica( idx + 1, replicas.get( idx ) );
+        }
+        this.balancing = balancing;
+        this.stickyMillis = stickyMillis;
+        this.ejectionThreshold = ejectionThreshold;
+        this.healthChecks = Executors.newSingleThreadScheduledExecutor(
+            runnable ->
+            {
+                Thread thread = new Thread( runnable, "werval-jdbc-" + name + "-health" );
+                thread.setDaemon( true );
+                return thread;
+            }
+        );
+        this.healthChecks.scheduleWithFixedDelay(
+            this::checkHealth,
+            healthCheckIntervalMillis, healthCheckIntervalMillis, MILLISECONDS
+        );
+    }
+
+    /**
+     * @return Number of configured replicas
+     */
+    public int replicaCount()
+    {
+        return replicas.length;
+    }
+
+    /**
+     * @return Number of replicas currently eligible for read-only connections
+     */
+    public int healthyReplicaCount()
+    {
+        int count = 0;
+        for( Replica replica : replicas )
+        {
+            if( !replica.ejected )
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public Connection getConnection()
+        throws SQLException
+    {
+        return route( DataSource::getConnection );
+    }
+
+    @Override
+    public Connection getConnection( String username, String password )
+        throws SQLException
+    {
+        return route( ds -> ds.getConnection( username, password ) );
+    }
+
+    @Override
+    public void close()
+    {
+        healthChecks.shutdownNow();
+        for( Replica replica : replicas )
+        {
+            closePool( replica.dataSource );
+        }
+        closePool( primary );
+    }
+
+    private static void closePool( DataSource dataSource )
+    {
+        if( dataSource instanceof HikariDataSource )
+        {
+            ( (HikariDataSource) dataSource ).close();
+        }
+    }
+
+    private Connection route( Connector connector )
+        throws SQLException
+    {
+        Optional<Context> context = CurrentContext.optional();
+        if( !ReadOnly.isActive() )
+        {
+            Connection connection = connector.connect( primary );
+            if( context.isPresent() && stickyMillis > 0 )
+            {
+                return new WriteDetector( context.get() ).connection( connection );
+            }
+            return connection;
+        }
+        if( context.isPresent() && isSticky( context.get() ) )
+        {
+            return connector.connect( primary );
+        }
+        boolean[] tried = new boolean[ replicas.length ];
+        for( int attempt = 0; attempt < replicas.length; attempt++ )
+        {
+            Replica replica = select( tried );
+            if( replica == null )
+            {
+                break;
+            }
+            tried[replica.index - 1] = true;
+            try
+            {
+                Connection connection = connector.connect( replica.dataSource );
+                replica.failures.set( 0 );
+                return balancing == Balancing.LEAST_OUTSTANDING ? replica.track( connection ) : connection;
+            }
+            catch( SQLException ex )
+            {
+                replicaFailed( replica, ex );
+            }
+        }
+        LOG.debug( "No read replica available for '{}' DataSource, using the primary", name );
+        return connector.connect( primary );
+    }
+
+    /**
+     * Stick the current session to the primary for the sticky window.
+     * <p>
+     * Writes done through JDBC updates and batches are detected, use this for other writes, eg. stored procedures
+     * called using queries.
+     * Has no effect outside of an interaction.
+     */
+    public void stickToPrimary()
+    {
+        Optional<Context> context = CurrentContext.optional();
+        if( context.isPresent() )
+        {
+            stickToPrimary( context.get() );
+        }
+    }
+
+    private void stickToPrimary( Context context )
+    {
+        if( stickyMillis <= 0 )
+        {
+            return;
+        }
+        long until = System.currentTimeMillis() + stickyMillis;
+        // Avoid rewriting the session, hence its cookie, for each write
+        if( until - stickyUntil( context ) >= Math.min( 1000, stickyMillis / 2 ) )
+        {
+            context.session().set( STICKY_SESSION_KEY_PREFIX + name, String.valueOf( until ) );
+        }
+    }
+
+    private boolean isSticky( Context context )
+    {
+        return stickyUntil( context ) > System.currentTimeMillis();
+    }
+
+    private long stickyUntil( Context context )
+    {
+        Optional<String> until = context.session().get( STICKY_SESSION_KEY_PREFIX + name );
+        if( !until.isPresent() )
+        {
+            return 0;
+        }
+        try
+        {
+            return Long.parseLong( until.get() );
+        }
+        catch( NumberFormatException ex )
+        {
+            return 0;
+        }
+    }
+
+    private Replica select( boolean[] tried )
+    {
+        int start = Math.floorMod( cursor.getAndIncrement(), replicas.length );
+        Replica selected = null;
+        for( int offset = 0; offset < replicas.length; offset++ )
+        {
+            Replica candidate = replicas[( start + offset ) % replicas.length];
+            if( candidate.ejected || tried[candidate.index - 1] )
+            {
+                continue;
+            }
+            if( balancing == Balancing.ROUND_ROBIN )
+            {
+                return candidate;
+            }
+            if( selected == null || candidate.outstanding.get() < selected.outstanding.get() )
+            {
+                selected = candidate;
+            }
+        }
+        return selected;
+    }
+
+    private void replicaFailed( Replica replica, SQLException ex )
+    {
+        int failures = replica.failures.incrementAndGet();
+        if( failures >= ejectionThreshold && !replica.ejected )
+        {
+            replica.ejected = true;
+            LOG.warn(
+                "Ejected read replica #{} of '{}' DataSource after {} failure(s): {}",
+                replica.index, name, failures, ex.getMessage()
+            );
+        }
+        else
+        {
+            LOG.debug( "Read replica #{} of '{}' DataSource failed: {}", replica.index, name, ex.getMessage() );
+        }
+    }
+
+    private void checkHealth()
+    {
+        for( Replica replica : replicas )
+        {
+            try ( Connection connection = replica.dataSource.getConnection() )
+            {
+                if( !connection.isValid( 5 ) )
+                {
+                    throw new SQLException( "Invalid connection" );
+                }
+                replica.failures.set( 0 );
+                if( replica.ejected )
+                {
+                    replica.ejected = false;
+                    LOG.info( "Reinstated read replica #{} of '{}' DataSource", replica.index, name );
+                }
+            }
+            catch( SQLException ex )
+            {
+                replicaFailed( replica, ex );
+            }
+            catch( RuntimeException ex )
+            {
+                LOG.warn( "Health check of read replica #{} of '{}' DataSource failed", replica.index, name, ex );
+            }
+        }
+    }
+
+    @Override
+    public PrintWriter getLogWriter()
+        throws SQLException
+    {
+        return primary.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter( PrintWriter out )
+        throws SQLException
+    {
+        primary.setLogWriter( out );
+    }
+
+    @Override
+    public void setLoginTimeout( int seconds )
+        throws SQLException
+    {
+        primary.setLoginTimeout( seconds );
+    }
+
+    @Override
+    public int getLoginTimeout()
+        throws SQLException
+    {
+        return primary.getLoginTimeout();
+    }
+
+    @Override
+    public java.util.logging.Logger getParentLogger()
+        throws SQLFeatureNotSupportedException
+    {
+        return primary.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap( Class<T> iface )
+        throws SQLException
+    {
+        if( iface.isInstance( this ) )
+        {
+            return iface.cast( this );
+        }
+        return primary.unwrap( iface );
+    }
+
+    @Override
+    public boolean isWrapperFor( Class<?> iface )
+        throws SQLException
+    {
+        return iface.isInstance( this ) || primary.isWrapperFor( iface );
+    }
+
+    @FunctionalInterface
+    private interface Connector
+    {
+        Connection connect( DataSource dataSource )
+            throws SQLException;
+    }
+
+    /**
+     * Proxies primary connections and their statements to stick the session to the primary on the first write.
+     */
+    private final class WriteDetector
+    {
+        private final Context context;
+        private final AtomicBoolean written = new AtomicBoolean( false );
+
+        private WriteDetector( Context context )
+        {
+            this.context = context;
+        }
+
+        private Connection connection( Connection connection )
+        {
+            Connection[] proxy = new Connection[ 1 ];
+            InvocationHandler handler = ( self, method, args ) ->
+            {
+                Object result = invoke( connection, method, args );
+                if( result instanceof Statement && Statement.class.isAssignableFrom( method.getReturnType() ) )
+                {
+                    return statement( (Statement) result, method.getReturnType(), proxy[0] );
+                }
+                return result;
+            };
+            proxy[0] = (Connection) Proxy.newProxyInstance(
+                ReplicatedDataSource.class.getClassLoader(),
+                new Class<?>[]
+                {
+                    Connection.class
+                },
+                handler
+            );
+            return proxy[0];
+        }
+
+        private Statement statement( Statement statement, Class<?> type, Connection connection )
+        {
+            InvocationHandler handler = ( self, method, args ) ->
+            {
+                if( "getConnection".equals( method.getName() ) && method.getParameterCount() == 0 )
+                {
+                    return connection;
+                }
+                Object result = invoke( statement, method, args );
+                if( isWrite( method.getName(), result ) && written.compareAndSet( false, true ) )
+                {
+                    stickToPrimary( context );
+                }
+                return result;
+            };
+            return (Statement) Proxy.newProxyInstance(
+                ReplicatedDataSource.class.getClassLoader(),
+                new Class<?>[]
+                {
+                    type
+                },
+                handler
+            );
+        }
+
+        private boolean isWrite( String methodName, Object result )
+        {
+            switch( methodName )
+            {
+                case "executeUpdate":
+                case "executeLargeUpdate":
+                case "executeBatch":
+                case "executeLargeBatch":
+                    return true;
+                case "execute":
+                    // false means the result is an update count or there is no result
+                    return Boolean.FALSE.equals( result );
+                default:
+                    return false;
+            }
+        }
+
+        private Object invoke( Object target, Method method, Object[] args )
+            throws Throwable
+        {
+            try
+            {
+                return method.invoke( target, args );
+            }
+            catch( InvocationTargetException ex )
+            {
+                throw ex.getCause();
+            }
+        }
+    }
+
+    private static final class Replica
+    {
+        private final int index;
+        private final DataSource dataSource;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicInteger failures = new AtomicInteger();
+        private volatile boolean ejected;
+
+        private Replica( int index, DataSource dataSource )
+        {
+            this.index = index;
+            this.dataSource = dataSource;
+        }
+
+        private Connection track( Connection connection )
+        {
+            outstanding.incrementAndGet();
+            AtomicBoolean released = new AtomicBoolean( false );
+            InvocationHandler handler = ( proxy, method, args ) ->
+            {
+                if( "close".equals( method.getName() )
+                    && method.getParameterCount() == 0
+                    && released.compareAndSet( false, true ) )
+                {
+                    outstanding.decrementAndGet();
+                }
+                try
+                {
+                    return method.invoke( connection, args );
+                }
+                catch( InvocationTargetException ex )
+                {
+                    throw ex.getCause();
+                }
+            };
+            return (Connection) Proxy.newProxyInstance(
+                ReplicatedDataSource.class.getClassLoader(),
+                new Class<?>[]
+                {
+                    Connection.class
+                },
+                handler
+            );
+        }
+    }
+}
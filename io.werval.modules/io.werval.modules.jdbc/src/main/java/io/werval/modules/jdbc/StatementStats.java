@@ -0,0 +1,514 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.modules.jdbc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import io.werval.api.context.Context;
+import io.werval.api.context.CurrentContext;
+import io.werval.api.routes.Route;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static java.util.Collections.unmodifiableList;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * SQL Statements statistics.
+ * <p>
+ * Statements are grouped by normalized SQL, that is with literals replaced by {@literal ?}, comments removed,
+ * whitespaces collapsed and {@literal IN} lists folded.
+ * Their execution time is also attributed to the route of the current Context, if any.
+ * Once {@literal jdbc.statements.max_series} distinct keys are reached, further ones are recorded in an
+ * {@literal other} series.
+ * <p>
+ * Statements slower than {@literal jdbc.statements.slow_threshold} are captured with the shapes of their bind
+ * parameters, never their values.
+ * <p>
+ * Execution time is measured around {@literal execute*} calls, it do not include fetching time.
+ */
+public final class StatementStats
+{
+    /**
+     * Statistics of a series of statements.
+     */
+    public static final class Series
+    {
+        private final String key;
+        private final Timer timer;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator( Math::max, 0L );
+        private final LongAdder rows = new LongAdder();
+
+        private Series( String key, Timer timer )
+        {
+            this.key = key;
+            this.timer = timer;
+        }
+
+        /**
+         * @return Normalized SQL or route of this series
+         */
+        public String key()
+        {
+            return key;
+        }
+
+        /**
+         * @return Number of executions
+         */
+        public long count()
+        {
+            return count.sum();
+        }
+
+        /**
+         * @return Total execution time in nanoseconds
+         */
+        public long totalNanos()
+        {
+            return totalNanos.sum();
+        }
+
+        /**
+         * @return Maximum execution time in nanoseconds
+         */
+        public long maxNanos()
+        {
+            return maxNanos.get();
+        }
+
+        /**
+         * @return Number of rows fetched
+         */
+        public long rows()
+        {
+            return rows.sum();
+        }
+
+        private void update( long elapsedNanos )
+        {
+            count.increment();
+            totalNanos.add( elapsedNanos );
+            maxNanos.accumulate( elapsedNanos );
+            if( timer != null )
+            {
+                timer.update( elapsedNanos, NANOSECONDS );
+            }
+        }
+    }
+
+    /**
+     * A captured slow statement.
+     */
+    public static final class SlowStatement
+    {
+        private final String dataSource;
+        private final String sql;
+        private final List<String> parameters;
+        private final String route;
+        private final long elapsedNanos;
+        private final long timestamp;
+
+        private SlowStatement(
+            String dataSource, String sql, List<String> parameters, String route, long elapsedNanos
+        )
+        {
+            this.dataSource = dataSource;
+            this.sql = sql;
+            this.parameters = parameters;
+            this.route = route;
+            this.elapsedNanos = elapsedNanos;
+            this.timestamp = System.currentTimeMillis();
+        }
+
+        /**
+         * @return DataSource name
+         */
+        public String dataSource()
+        {
+            return dataSource;
+        }
+
+        /**
+         * @return Normalized SQL
+         */
+        public String sql()
+        {
+            return sql;
+        }
+
+        /**
+         * @return Bind parameters shapes, e.g. {@literal String(12)}, {@literal Integer} or {@literal null}
+         */
+        public List<String> parameters()
+        {
+            return parameters;
+        }
+
+        /**
+         * @return Route of the Context the statement was executed in, if any
+         */
+        public Optional<String> route()
+        {
+            return Optional.ofNullable( route );
+        }
+
+        /**
+         * @return Execution time in nanoseconds
+         */
+        public long elapsedNanos()
+        {
+            return elapsedNanos;
+        }
+
+        /**
+         * @return Capture time in milliseconds since the epoch
+         */
+        public long timestamp()
+        {
+            return timestamp;
+        }
+    }
+
+    /* package */ static final Object NULL_PARAMETER = new Object();
+    private static final String OTHER = "other";
+    private static final String STATEMENTS = "io.werval.jdbc.statements";
+    private static final String ROUTES = "io.werval.jdbc.routes";
+    private static final Pattern IN_LIST = Pattern.compile(
+        "\\b(IN) ?\\( ?\\?(?: ?, ?\\?)* ?\\)",
+        Pattern.CASE_INSENSITIVE
+    );
+
+    private final MetricRegistry metrics;
+    private final int maxSeries;
+    private final long slowThresholdNanos;
+    private final Map<String, Series> statements = new ConcurrentHashMap<>();
+    private final Map<String, Series> routes = new ConcurrentHashMap<>();
+    private final Map<String, Series> sqlCache = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<SlowStatement> slowStatements;
+    private final AtomicLong slowSequence = new AtomicLong();
+
+    /* package */ StatementStats( MetricRegistry metrics, int maxSeries, long slowThresholdMillis, int slowMax )
+    {
+        this.metrics = metrics;
+        this.maxSeries = maxSeries;
+        this.slowThresholdNanos = MILLISECONDS.toNanos( slowThresholdMillis );
+        this.slowStatements = new AtomicReferenceArray<>( slowMax );
+    }
+
+    /**
+     * @return Statements series, by descending total execution time
+     */
+    public List<Series> statements()
+    {
+        return sorted( statements );
+    }
+
+    /**
+     * @return Routes series, by descending total execution time
+     */
+    public List<Series> routes()
+    {
+        return sorted( routes );
+    }
+
+    /**
+     * @return Captured slow statements, newest first
+     */
+    public List<SlowStatement> slowStatements()
+    {
+        int capacity = slowStatements.length();
+        long last = slowSequence.get();
+        List<SlowStatement> list = new ArrayList<>();
+        for( long seq = last - 1; seq >= 0 && seq >= last - capacity; seq-- )
+        {
+            SlowStatement slow = slowStatements.get( (int) ( seq % capacity ) );
+            if( slow != null )
+            {
+                list.add( slow );
+            }
+        }
+        return unmodifiableList( list );
+    }
+
+    /**
+     * Series of a SQL statement.
+     *
+     * @param sql SQL
+     *
+     * @return The Series of the normalized SQL
+     */
+    /* package */ Series series( String sql )
+    {
+        Series series = sqlCache.get( sql );
+        if( series != null )
+        {
+            return series;
+        }
+        series = series( statements, STATEMENTS, normalize( sql ) );
+        // Racy, the cap can be exceeded by a few entries under contention
+        if( sqlCache.size() < maxSeries * 4 )
+        {
+            sqlCache.put( sql, series );
+        }
+        return series;
+    }
+
+    /**
+     * Record a statement execution.
+     *
+     * @param dataSource   DataSource name
+     * @param statement    Statement series
+     * @param elapsedNanos Execution time in nanoseconds
+     * @param parameters   Bind parameters, may be null
+     *
+     * @return The route series the execution was attributed to, or null
+     */
+    /* package */ Series executed( String dataSource, Series statement, long elapsedNanos, Object[] parameters )
+    {
+        statement.update( elapsedNanos );
+        String route = currentRoute();
+        Series routeSeries = null;
+        if( route != null )
+        {
+            routeSeries = series( routes, ROUTES, route );
+            routeSeries.update( elapsedNanos );
+        }
+        if( elapsedNanos >= slowThresholdNanos && slowStatements.length() > 0 )
+        {
+            SlowStatement slow = new SlowStatement(
+                dataSource, statement.key, shapes( parameters ), route, elapsedNanos
+            );
+            long seq = slowSequence.getAndIncrement();
+            slowStatements.set( (int) ( seq % slowStatements.length() ), slow );
+        }
+        return routeSeries;
+    }
+
+    /* package */ void fetched( Series statement, Series route, long rows )
+    {
+        statement.rows.add( rows );
+        if( route != null )
+        {
+            route.rows.add( rows );
+        }
+    }
+
+    private Series series( Map<String, Series> series, String prefix, String key )
+    {
+        Series existing = series.get( key );
+        if( existing != null )
+        {
+            return existing;
+        }
+        // Racy, the cap can be exceeded by a few series under contention
+        String actualKey = series.size() >= maxSeries ? OTHER : key;
+        return series.computeIfAbsent(
+            actualKey,
+            k -> new Series( k, metrics == null ? null : metrics.timer( name( prefix, k ) ) )
+        );
+    }
+
+    private static String currentRoute()
+    {
+        Optional<Context> context = CurrentContext.optional();
+        if( context.isPresent() )
+        {
+            Route route = context.get().route();
+            if( route != null )
+            {
+                return route.httpMethod() + " " + route.path();
+            }
+        }
+        return null;
+    }
+
+    private static List<Series> sorted( Map<String, Series> series )
+    {
+        List<Series> list = new ArrayList<>( series.values() );
+        list.sort( ( left, right ) -> Long.compare( right.totalNanos(), left.totalNanos() ) );
+        return unmodifiableList( list );
+    }
+
+    /* package */ static List<String> shapes( Object[] parameters )
+    {
+        int count = parameters == null ? 0 : parameters.length;
+        while( count > 0 && parameters[count - 1] == null )
+        {
+            count--;
+        }
+        if( count == 0 )
+        {
+            return Collections.emptyList();
+        }
+        List<String> shapes = new ArrayList<>( count );
+        for( int idx = 0; idx < count; idx++ )
+        {
+            Object parameter = parameters[idx];
+            if( parameter == null )
+            {
+                shapes.add( "?" );
+            }
+            else if( parameter == NULL_PARAMETER )
+            {
+                shapes.add( "null" );
+            }
+            else if( parameter instanceof CharSequence )
+            {
+                shapes.add( "String(" + ( (CharSequence) parameter ).length() + ")" );
+            }
+            else if( parameter instanceof byte[] )
+            {
+                shapes.add( "byte[" + ( (byte[]) parameter ).length + "]" );
+            }
+            else
+            {
+                shapes.add( parameter.getClass().getSimpleName() );
+            }
+        }
+        return unmodifiableList( shapes );
+    }
+
+    /**
+     * Normalize SQL.
+     *
+     * @param sql SQL
+     *
+     * @return Normalized SQL
+     */
+    /* package */ static String normalize( String sql )
+    {
+        StringBuilder normalized = new StringBuilder( sql.length() );
+        int length = sql.length();
+        int idx = 0;
+        while( idx < length )
+        {
+            char current = sql.charAt( idx );
+            char next = idx + 1 < length ? sql.charAt( idx + 1 ) : 0;
+            if( current == '-' && next == '-' )
+            {
+                // Line comment
+                while( idx < length && sql.charAt( idx ) != '\n' )
+                {
+                    idx++;
+                }
+                space( normalized );
+            }
+            else if( current == '/' && next == '*' )
+            {
+                // Block comment
+                int end = sql.indexOf( "*/", idx + 2 );
+                idx = end < 0 ? length : end + 2;
+                space( normalized );
+            }
+            else if( current == '\'' )
+            {
+                // String literal, quotes are escaped by doubling them
+                idx++;
+                while( idx < length )
+                {
+                    if( sql.charAt( idx ) == '\'' )
+                    {
+                        if( idx + 1 < length && sql.charAt( idx + 1 ) == '\'' )
+                        {
+                            idx += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    idx++;
+                }
+                idx++;
+                normalized.append( '?' );
+            }
+            else if( current == '"' || current == '`' )
+            {
+                // Quoted identifier, kept as is
+                int end = sql.indexOf( current, idx + 1 );
+                end = end < 0 ? length : end + 1;
+                normalized.append( sql, idx, end );
+                idx = end;
+            }
+            else if( Character.isWhitespace( current ) )
+            {
+                space( normalized );
+                idx++;
+            }
+            else if( Character.isDigit( current ) || ( current == '.' && Character.isDigit( next ) ) )
+            {
+                if( isIdentifierPart( normalized ) )
+                {
+                    // Digits of an identifier
+                    normalized.append( current );
+                    idx++;
+                }
+                else
+                {
+                    // Numeric literal, including decimals, exponents and hexadecimals
+                    idx++;
+                    while( idx < length
+                           && ( Character.isLetterOrDigit( sql.charAt( idx ) ) || sql.charAt( idx ) == '.'
+                                || ( ( sql.charAt( idx ) == '-' || sql.charAt( idx ) == '+' )
+                                     && ( sql.charAt( idx - 1 ) == 'e' || sql.charAt( idx - 1 ) == 'E' ) ) ) )
+                    {
+                        idx++;
+                    }
+                    normalized.append( '?' );
+                }
+            }
+            else
+            {
+                normalized.append( current );
+                idx++;
+            }
+        }
+        String result = normalized.toString().trim();
+        return IN_LIST.matcher( result ).replaceAll( "$1 (?+)" );
+    }
+
+    private static void space( StringBuilder normalized )
+    {
+        if( normalized.length() > 0 && normalized.charAt( normalized.length() - 1 ) != ' ' )
+        {
+            normalized.append( ' ' );
+        }
+    }
+
+    private static boolean isIdentifierPart( StringBuilder normalized )
+    {
+        if( normalized.length() == 0 )
+        {
+            return false;
+        }
+        char previous = normalized.charAt( normalized.length() - 1 );
+        return Character.isLetterOrDigit( previous ) || previous == '_' || previous == '$';
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.modules.jdbc;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+import io.werval.api.outcomes.Outcome;
+import io.werval.filters.ContentSecurityPolicy;
+import io.werval.filters.NeverCached;
+import io.werval.filters.XContentTypeOptions;
+import io.werval.filters.XFrameOptions;
+import io.werval.filters.XXSSProtection;
+import io.werval.modules.jdbc.StatementStats.Series;
+import io.werval.modules.jdbc.StatementStats.SlowStatement;
+
+import static io.werval.api.context.CurrentContext.outcomes;
+import static io.werval.api.context.CurrentContext.plugin;
+import static io.werval.util.Strings.join;
+
+/**
+ * JDBC Tools.
+ */
+@NeverCached
+@XContentTypeOptions
+public class Tools
+{
+    @ContentSecurityPolicy
+    @XFrameOptions
+    @XXSSProtection
+    public Outcome devShellIndex()
+    {
+        Optional<StatementStats> stats = plugin( JDBC.class ).statements();
+        StringBuilder html = new StringBuilder();
+        html.append( "<!DOCTYPE html>\n<html>\n<head>\n<title>JDBC</title>\n<meta charset=\"UTF-8\">\n" )
+            .append( "<meta name=\"viewport\" content=\"width=device-width, initial-scale=1.0\">\n</head>\n<body>\n" );
+        if( !stats.isPresent() )
+        {
+            html.append( "<p>Statements instrumentation is disabled, see <code>jdbc.statements.enabled</code>.</p>\n" );
+        }
+        else
+        {
+            series( html, "Statements", "SQL", stats.get().statements() );
+            series( html, "Routes", "Route", stats.get().routes() );
+            slowStatements( html, stats.get().slowStatements() );
+        }
+        html.append( "</body>\n</html>\n" );
+        return outcomes().ok( html.toString() ).asHtml().build();
+    }
+
+    private static void series( StringBuilder html, String title, String keyTitle, List<Series> series )
+    {
+        html.append( "<h2>" ).append( title ).append( "</h2>\n<table>\n<tr><th>" ).append( keyTitle )
+            .append( "</th><th>Count</th><th>Total ms</th><th>Mean ms</th><th>Max ms</th><th>Rows</th></tr>\n" );
+        for( Series entry : series )
+        {
+            long count = entry.count();
+            html.append( "<tr><td><code>" ).append( escape( entry.key() ) ).append( "</code></td>" )
+                .append( "<td>" ).append( count ).append( "</td>" )
+                .append( "<td>" ).append( millis( entry.totalNanos() ) ).append( "</td>" )
+                .append( "<td>" ).append( millis( count == 0 ? 0 : entry.totalNanos() / count ) ).append( "</td>" )
+                .append( "<td>" ).append( millis( entry.maxNanos() ) ).append( "</td>" )
+                .append( "<td>" ).append( entry.rows() ).append( "</td></tr>\n" );
+        }
+        html.append( "</table>\n" );
+    }
+
+    private static void slowStatements( StringBuilder html, List<SlowStatement> slowStatements )
+    {
+        html.append( "<h2>Slow Statements</h2>\n<table>\n" )
+            .append( "<tr><th>Time</th><th>DataSource</th><th>SQL</th><th>Parameters</th>" )
+            .append( "<th>Route</th><th>ms</th></tr>\n" );
+        for( SlowStatement slow : slowStatements )
+        {
+            html.append( "<tr><td>" ).append( new Date( slow.timestamp() ) ).append( "</td>" )
+                .append( "<td>" ).append( escape( slow.dataSource() ) ).append( "</td>" )
+                .append( "<td><code>" ).append( escape( slow.sql() ) ).append( "</code></td>" )
+                .append( "<td>" ).append( escape( join( slow.parameters(), ", " ) ) ).append( "</td>" )
+                .append( "<td>" ).append( escape( slow.route().orElse( "" ) ) ).append( "</td>" )
+                .append( "<td>" ).append( millis( slow.elapsedNanos() ) ).append( "</td></tr>\n" );
+        }
+        html.append( "</table>\n" );
+    }
+
+    private static String millis( long nanos )
+    {
+        return String.format( Locale.US, "%.3f", nanos / 1_000_000D );
+    }
+
+    private static String escape( String text )
+    {
+        StringBuilder escaped = new StringBuilder( text.length() );
+        for( char character : text.toCharArray() )
+        {
+            switch( character )
+            {
+                case '<':
+                    escaped.append( "&lt;" );
+                    break;
+                case '>':
+                    escaped.append( "&gt;" );
+                    break;
+                case '&':
+                    escaped.append( "&amp;" );
+                    break;
+                case '"':
+                    escaped.append( "&quot;" );
+                    break;
+                default:
+                    escaped.append( character );
+            }
+        }
+        return escaped.toString();
+    }
+}
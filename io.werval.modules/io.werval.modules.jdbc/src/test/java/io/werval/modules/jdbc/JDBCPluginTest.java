@@ -19,6 +19,10 @@ import com.codahale.metrics.MetricRegistry;
 import io.werval.test.WervalRule;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
 import javax.naming.InitialContext;
 import javax.naming.NamingException;
 import javax.sql.DataSource;
@@ -26,11 +30,14 @@ import org.junit.ClassRule;
 import org.junit.Test;
 import io.werval.modules.metrics.Metrics;
 
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.core.IsEqual.equalTo;
 import static org.hamcrest.core.IsInstanceOf.instanceOf;
 import static org.hamcrest.core.IsNull.notNullValue;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * JDBC Plugin Test.
@@ -84,4 +91,55 @@ public class JDBCPluginTest
         MetricRegistry metrics = WERVAL.application().plugin( Metrics.class ).metrics();
         assertThat( metrics.getGauges().get( "default.pool.TotalConnections" ).getValue(), is( 10 ) );
     }
+
+    @Test
+    public void asyncUsage()
+        throws InterruptedException, ExecutionException
+    {
+        CompletableFuture<String> product = WERVAL.application().plugin( JDBC.class ).supplyAsync(
+            connection -> connection.getMetaData().getDatabaseProductName()
+        );
+        assertThat( product.get(), equalTo( "H2" ) );
+    }
+
+    @Test
+    public void asyncBulkhead()
+        throws InterruptedException, ExecutionException
+    {
+        // 'another' DataSource has a pool of 2 connections and an executor queue of 1
+        JDBC jdbc = WERVAL.application().plugin( JDBC.class );
+        CountDownLatch release = new CountDownLatch( 1 );
+        JDBC.ConnectionFunction<Boolean> blocking = connection ->
+        {
+            try
+            {
+                return release.await( 30, SECONDS );
+            }
+            catch( InterruptedException ex )
+            {
+                throw new RuntimeException( ex );
+            }
+        };
+        CompletableFuture<Boolean> first = jdbc.supplyAsync( "another", blocking );
+        CompletableFuture<Boolean> second = jdbc.supplyAsync( "another", blocking );
+        CompletableFuture<Boolean> queued = jdbc.supplyAsync( "another", blocking );
+        CompletableFuture<Boolean> rejected = jdbc.supplyAsync( "another", blocking );
+        try
+        {
+            assertTrue( rejected.isCompletedExceptionally() );
+            rejected.get();
+            fail( "Should have been rejected" );
+        }
+        catch( ExecutionException expected )
+        {
+            assertThat( expected.getCause(), instanceOf( RejectedExecutionException.class ) );
+        }
+        finally
+        {
+            release.countDown();
+        }
+        assertTrue( first.get() && second.get() && queued.get() );
+        MetricRegistry metrics = WERVAL.application().plugin( Metrics.class ).metrics();
+        assertThat( metrics.getMeters().get( "another.executor.rejected" ).getCount(), is( 1L ) );
+    }
 }
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.modules.jdbc;
+
+import io.werval.api.outcomes.Outcome;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static io.werval.api.context.CurrentContext.outcomes;
+import static io.werval.api.context.CurrentContext.plugin;
+
+/**
+ * Controller under test.
+ */
+public class ReplicasController
+{
+    public Outcome primary()
+    {
+        return outcomes().ok( database( plugin( JDBC.class ) ) ).build();
+    }
+
+    public Outcome write()
+    {
+        try( Connection connection = plugin( JDBC.class ).connection();
+             Statement statement = connection.createStatement() )
+        {
+            statement.executeUpdate( "CREATE TABLE IF NOT EXISTS WRITES( ID INT )" );
+            statement.executeUpdate( "INSERT INTO WRITES VALUES( 1 )" );
+        }
+        catch( SQLException ex )
+        {
+            throw new UncheckedSQLException( ex );
+        }
+        return outcomes().ok( database( plugin( JDBC.class ) ) ).build();
+    }
+
+    public Outcome read()
+    {
+        return outcomes().ok( ReadOnly.supply( () -> database( plugin( JDBC.class ) ) ) ).build();
+    }
+
+    /* package */ static String database( JDBC jdbc )
+    {
+        try( Connection connection = jdbc.connection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery( "SELECT DATABASE()" ) )
+        {
+            rs.next();
+            return rs.getString( 1 );
+        }
+        catch( SQLException ex )
+        {
+            throw new UncheckedSQLException( ex );
+        }
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.modules.jdbc;
+
+import com.jayway.restassured.response.Response;
+import io.werval.modules.jdbc.ReplicatedDataSource.Balancing;
+import io.werval.runtime.routes.RoutesParserProvider;
+import io.werval.test.WervalHttpRule;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.sql.DataSource;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import static com.jayway.restassured.RestAssured.expect;
+import static com.jayway.restassured.RestAssured.given;
+import static java.util.Arrays.asList;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Read Replicas Test.
+ */
+public class ReplicasTest
+{
+    @ClassRule
+    public static final WervalHttpRule WERVAL = new WervalHttpRule(
+        "replicas.conf",
+        new RoutesParserProvider(
+            "GET /primary io.werval.modules.jdbc.ReplicasController.primary\n"
+            + "GET /write io.werval.modules.jdbc.ReplicasController.write\n"
+            + "GET /read io.werval.modules.jdbc.ReplicasController.read\n"
+        )
+    );
+
+    @Test
+    public void routing()
+        throws SQLException
+    {
+        JDBC jdbc = WERVAL.application().plugin( JDBC.class );
+        assertThat( jdbc.dataSource().unwrap( ReplicatedDataSource.class ).replicaCount(), is( 2 ) );
+        assertThat( ReplicasController.database( jdbc ), equalTo( "PRIMARY" ) );
+        Set<String> replicas = new HashSet<>();
+        ReadOnly.run(
+            () ->
+            {
+                replicas.add( ReplicasController.database( jdbc ) );
+                replicas.add( ReplicasController.database( jdbc ) );
+            }
+        );
+        assertThat( replicas, containsInAnyOrder( "REPLICA1", "REPLICA2" ) );
+    }
+
+    @Test
+    public void stickyToPrimaryAfterWrite()
+    {
+        expect().statusCode( 200 ).body( not( equalTo( "PRIMARY" ) ) ).when().get( "/read" );
+        Response write = expect().statusCode( 200 ).body( equalTo( "PRIMARY" ) ).when().get( "/write" );
+        given()
+            .cookies( write.getCookies() )
+            .expect().statusCode( 200 ).body( equalTo( "PRIMARY" ) )
+            .when().get( "/read" );
+    }
+
+    @Test
+    public void readsOnPrimaryDoNotStick()
+    {
+        Response primary = expect().statusCode( 200 ).body( equalTo( "PRIMARY" ) ).when().get( "/primary" );
+        assertThat( primary.getCookies().isEmpty(), is( true ) );
+    }
+
+    @Test
+    public void ejectionAndReinstatement()
+        throws Exception
+    {
+        AtomicBoolean down = new AtomicBoolean( true );
+        try( ReplicatedDataSource ds = new ReplicatedDataSource(
+            "test",
+            h2( "primary", new AtomicBoolean( false ) ),
+            Arrays.asList( h2( "replica1", down ), h2( "replica2", new AtomicBoolean( false ) ) ),
+            Balancing.ROUND_ROBIN,
+            0, 1, 100
+        ) )
+        {
+            assertThat( readOnlyDatabases( ds, 3 ), equalTo( asList( "REPLICA2", "REPLICA2", "REPLICA2" ) ) );
+            assertThat( ds.healthyReplicaCount(), is( 1 ) );
+
+            down.set( false );
+            Thread.sleep( 500 );
+            assertThat( ds.healthyReplicaCount(), is( 2 ) );
+            assertThat( new HashSet<>( readOnlyDatabases( ds, 2 ) ), containsInAnyOrder( "REPLICA1", "REPLICA2" ) );
+        }
+    }
+
+    @Test
+    public void fallbackToPrimary()
+        throws Exception
+    {
+        try( ReplicatedDataSource ds = new ReplicatedDataSource(
+            "test",
+            h2( "primary", new AtomicBoolean( false ) ),
+            Arrays.asList( h2( "replica1", new AtomicBoolean( true ) ) ),
+            Balancing.ROUND_ROBIN,
+            0, 3, 60_000
+        ) )
+        {
+            assertThat( readOnlyDatabases( ds, 2 ), equalTo( asList( "PRIMARY", "PRIMARY" ) ) );
+            assertThat( ds.healthyReplicaCount(), is( 1 ) );
+        }
+    }
+
+    @Test
+    public void leastOutstanding()
+        throws Exception
+    {
+        try( ReplicatedDataSource ds = new ReplicatedDataSource(
+            "test",
+            h2( "primary", new AtomicBoolean( false ) ),
+            Arrays.asList( h2( "replica1", new AtomicBoolean( false ) ), h2( "replica2", new AtomicBoolean( false ) ) ),
+            Balancing.LEAST_OUTSTANDING,
+            0, 3, 60_000
+        ) )
+        {
+            try( Connection held = ReadOnly.supply( () -> connection( ds ) ) )
+            {
+                String busy = database( held );
+                String idle = busy.equals( "REPLICA1" ) ? "REPLICA2" : "REPLICA1";
+                assertThat( readOnlyDatabases( ds, 3 ), equalTo( asList( idle, idle, idle ) ) );
+            }
+            assertThat( new HashSet<>( readOnlyDatabases( ds, 2 ) ), containsInAnyOrder( "REPLICA1", "REPLICA2" ) );
+        }
+    }
+
+    private static List<String> readOnlyDatabases( DataSource ds, int count )
+    {
+        return ReadOnly.supply(
+            () ->
+            {
+                List<String> databases = new ArrayList<>();
+                for( int idx = 0; idx < count; idx++ )
+                {
+                    try( Connection connection = connection( ds ) )
+                    {
+                        databases.add( database( connection ) );
+                    }
+                    catch( SQLException ex )
+                    {
+                        throw new UncheckedSQLException( ex );
+                    }
+                }
+                return databases;
+            }
+        );
+    }
+
+    private static Connection connection( DataSource ds )
+    {
+        try
+        {
+            return ds.getConnection();
+        }
+        catch( SQLException ex )
+        {
+            throw new UncheckedSQLException( ex );
+        }
+    }
+
+    private static String database( Connection connection )
+        throws SQLException
+    {
+        try( Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery( "SELECT DATABASE()" ) )
+        {
+            rs.next();
+            return rs.getString( 1 );
+        }
+    }
+
+    private static DataSource h2( String name, AtomicBoolean down )
+    {
+        return (DataSource) Proxy.newProxyInstance(
+            ReplicasTest.class.getClassLoader(),
+            new Class<?>[]
+            {
+                DataSource.class
+            },
+            (proxy, method, args) ->
+            {
+                if( !"getConnection".equals( method.getName() ) )
+                {
+                    throw new UnsupportedOperationException( method.getName() );
+                }
+                if( down.get() )
+                {
+                    throw new SQLException( name + " is down" );
+                }
+                return DriverManager.getConnection( "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "sa" );
+            }
+        );
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.modules.jdbc;
+
+import io.werval.modules.jdbc.StatementStats.Series;
+import io.werval.modules.jdbc.StatementStats.SlowStatement;
+import io.werval.runtime.routes.RoutesParserProvider;
+import io.werval.test.WervalHttpRule;
+import java.util.Optional;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import static com.jayway.restassured.RestAssured.expect;
+import static java.util.Arrays.asList;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Statements instrumentation Test.
+ */
+public class StatementStatsTest
+{
+    private static final String SQL = "SELECT X FROM SYSTEM_RANGE(?, ?) WHERE X > ?";
+
+    @ClassRule
+    public static final WervalHttpRule WERVAL = new WervalHttpRule(
+        new RoutesParserProvider(
+            "GET /query io.werval.modules.jdbc.StatementsController.query\n"
+            + "GET /@jdbc io.werval.modules.jdbc.Tools.devShellIndex\n"
+        )
+    );
+
+    @Test
+    public void normalization()
+    {
+        assertThat(
+            StatementStats.normalize( "select *  from T1\n where A = 'it''s' and B=42 and C = -1.5e-3 /* hint */" ),
+            equalTo( "select * from T1 where A = ? and B=? and C = -?" )
+        );
+        assertThat(
+            StatementStats.normalize( "SELECT \"col 1\" FROM t WHERE id IN (1, 2, 3) OR id in (?,?)" ),
+            equalTo( "SELECT \"col 1\" FROM t WHERE id IN (?+) OR id in (?+)" )
+        );
+        assertThat(
+            StatementStats.normalize( "INSERT INTO t (a, b) VALUES (?, ?)" ),
+            equalTo( "INSERT INTO t (a, b) VALUES (?, ?)" )
+        );
+    }
+
+    @Test
+    public void shapes()
+    {
+        assertThat(
+            StatementStats.shapes( new Object[]
+            {
+                "abc", 42, StatementStats.NULL_PARAMETER, null, new byte[ 16 ], null, null
+            } ),
+            equalTo( asList( "String(3)", "Integer", "null", "?", "byte[16]" ) )
+        );
+    }
+
+    @Test
+    public void instrumentation()
+    {
+        expect().statusCode( 200 ).body( equalTo( "6" ) ).when().get( "/query" );
+
+        StatementStats stats = WERVAL.application().plugin( JDBC.class ).statements().get();
+        Optional<Series> statement = stats.statements().stream().filter( s -> SQL.equals( s.key() ) ).findFirst();
+        assertTrue( statement.isPresent() );
+        assertThat( statement.get().count(), is( 1L ) );
+        assertThat( statement.get().rows(), is( 3L ) );
+        assertThat( statement.get().totalNanos(), greaterThan( 0L ) );
+
+        Optional<Series> route = stats.routes().stream().filter( s -> "GET /query".equals( s.key() ) ).findFirst();
+        assertTrue( route.isPresent() );
+        assertThat( route.get().count(), is( 1L ) );
+        assertThat( route.get().rows(), is( 3L ) );
+
+        SlowStatement slow = stats.slowStatements().get( 0 );
+        assertThat( slow.dataSource(), equalTo( "default" ) );
+        assertThat( slow.sql(), equalTo( SQL ) );
+        assertThat( slow.parameters(), equalTo( asList( "Integer", "String(1)" ) ) );
+        assertThat( slow.route().get(), equalTo( "GET /query" ) );
+
+        expect()
+            .statusCode( 200 )
+            .body( containsString( "SYSTEM_RANGE(?, ?) WHERE X &gt; ?" ) )
+            .body( containsString( "GET /query" ) )
+            .when()
+            .get( "/@jdbc" );
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.modules.jdbc;
+
+import io.werval.api.outcomes.Outcome;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static io.werval.api.context.CurrentContext.outcomes;
+import static io.werval.api.context.CurrentContext.plugin;
+
+/**
+ * Controller under test.
+ */
+public class StatementsController
+{
+    public Outcome query()
+        throws SQLException
+    {
+        int sum = 0;
+        try( Connection connection = plugin( JDBC.class ).connection();
+             PreparedStatement statement = connection.prepareStatement(
+                 "SELECT X FROM SYSTEM_RANGE(1, ?)\n  WHERE X > ? -- Numbers"
+             ) )
+        {
+            statement.setInt( 1, 3 );
+            statement.setString( 2, "0" );
+            try( ResultSet rs = statement.executeQuery() )
+            {
+                while( rs.next() )
+                {
+                    sum += rs.getInt( 1 );
+                }
+            }
+        }
+        return outcomes().ok( String.valueOf( sum ) ).build();
+    }
+}
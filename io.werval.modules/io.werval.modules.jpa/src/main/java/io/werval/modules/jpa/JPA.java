@@ -21,10 +21,21 @@ import java.lang.annotation.Inherited;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import javax.persistence.EntityManager;
@@ -40,6 +51,7 @@ import io.werval.api.filters.Filter;
 import io.werval.api.filters.FilterChain;
 import io.werval.api.filters.FilterWith;
 import io.werval.api.outcomes.Outcome;
+import io.werval.modules.jdbc.ReadOnly;
 import io.werval.modules.jpa.internal.MetricsSessionCustomizer;
 import io.werval.modules.jpa.internal.Slf4jSessionLogger;
 import io.werval.modules.metrics.Metrics;
@@ -52,6 +64,9 @@ import static io.werval.api.Mode.DEV;
 import static io.werval.api.Mode.TEST;
 import static io.werval.util.IllegalArguments.ensureNotEmpty;
 import static io.werval.modules.jpa.JPAContext.METADATA_CONTEXT_KEY;
+import static java.util.Collections.unmodifiableMap;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
 /**
  * JPA 2 Plugin API.
@@ -71,11 +86,23 @@ public final class JPA
     {
         String persistenceUnit() default "";
 
+        /**
+         * @return {@literal true} to not open a transaction and use the read replicas of the DataSource, if any
+         */
         boolean readOnly() default false;
+
+        /**
+         * @return Transaction timeout in seconds, negative to use the {@literal jpa.transaction_timeout} configuration
+         *         property, zero for none
+         */
+        int timeout() default -1;
     }
 
     /**
      * Transactional filter.
+     * <p>
+     * The transaction is committed, or rollbacked, once the Outcome future completes, asynchronous interactions hence
+     * run in a single transaction even when hopping threads using the application executors.
      */
     public static final class TransactionalFilter
         implements Filter<Transactional>
@@ -87,15 +114,16 @@ public final class JPA
             Function<EntityManager, CompletableFuture<Outcome>> action = (em) -> chain.next( context );
             if( config.isPresent() )
             {
-                String persistenceUnit = config.get().persistenceUnit();
+                String persistenceUnit = Strings.isEmpty( config.get().persistenceUnit() )
+                                         ? jpa.defaultPersistanceUnitName
+                                         : config.get().persistenceUnit();
                 boolean readOnly = config.get().readOnly();
-                if( Strings.isEmpty( persistenceUnit ) )
-                {
-                    return jpa.supplyWithTx( readOnly, action );
-                }
-                return jpa.supplyWithTx( persistenceUnit, readOnly, action );
+                long timeoutMillis = config.get().timeout() < 0
+                                     ? jpa.defaultTxTimeoutMillis
+                                     : SECONDS.toMillis( config.get().timeout() );
+                return jpa.supplyWithTxAsync( persistenceUnit, readOnly, timeoutMillis, action );
             }
-            return jpa.supplyWithTx( false, action );
+            return jpa.supplyWithTxAsync( false, action );
         }
     }
 
@@ -117,9 +145,13 @@ public final class JPA
     private final Mode mode;
     private final ClassLoader loader;
     private final Map<String, Map<String, Object>> unitsProperties;
-    private final Map<String, EntityManagerFactory> emfs = new HashMap<>();
+    // Factories are bootstrapped once, lookups do not lock
+    private final Map<String, CompletableFuture<EntityManagerFactory>> emfs = new ConcurrentHashMap<>();
+    private final Map<String, Long> bootstrapTimes = new ConcurrentHashMap<>();
     private final String defaultPersistanceUnitName;
+    private final long defaultTxTimeoutMillis;
     private final Metrics metrics;
+    private final ScheduledExecutorService txTimeouts;
     // Only used out of interaction context
     private final ThreadLocal<JPAContext> threadLocalContext = ThreadLocal.withInitial( () -> new JPAContext() );
 
@@ -128,6 +160,7 @@ public final class JPA
         ClassLoader loader,
         Map<String, Map<String, Object>> properties,
         String defaultPersistanceUnitName,
+        long defaultTxTimeoutMillis,
         Metrics metrics
     )
     {
@@ -135,7 +168,16 @@ public final class JPA
         this.loader = loader;
         this.unitsProperties = properties;
         this.defaultPersistanceUnitName = defaultPersistanceUnitName;
+        this.defaultTxTimeoutMillis = defaultTxTimeoutMillis;
         this.metrics = metrics;
+        this.txTimeouts = Executors.newSingleThreadScheduledExecutor(
+            runnable ->
+            {
+                Thread thread = new Thread( runnable, "werval-jpa-tx-timeouts" );
+                thread.setDaemon( true );
+                return thread;
+            }
+        );
     }
 
     public PersistenceUtil util()
@@ -151,35 +193,121 @@ public final class JPA
 
     public EntityManagerFactory emf( String persistenceUnitName )
     {
-        synchronized( emfs )
+        CompletableFuture<EntityManagerFactory> future = emfs.get( persistenceUnitName );
+        if( future == null )
         {
-            if( !emfs.containsKey( persistenceUnitName ) )
+            CompletableFuture<EntityManagerFactory> created = new CompletableFuture<>();
+            future = emfs.putIfAbsent( persistenceUnitName, created );
+            if( future == null )
             {
-                Map<String, Object> props = new HashMap<>();
-                props.putAll( GLOBAL_UNITS_PROPERTIES );
-                if( mode == DEV || mode == TEST )
-                {
-                    // Log query parameters in dev mode
-                    props.put( "eclipselink.logging.parameters", "true" );
-                }
-                if( unitsProperties.containsKey( persistenceUnitName ) )
-                {
-                    props.putAll( unitsProperties.get( persistenceUnitName ) );
-                }
-                props.put( "eclipselink.classloader", loader );
-                if( metrics != null )
-                {
-                    MetricsSessionCustomizer.metricsHack = metrics;
-                    props.put( "eclipselink.session.customizer", MetricsSessionCustomizer.class.getName() );
-                }
-                EntityManagerFactory emf = Persistence.createEntityManagerFactory( persistenceUnitName, props );
-                emfs.put( persistenceUnitName, emf );
-                if( metrics != null )
-                {
-                    MetricsSessionCustomizer.metricsHack = null;
-                }
+                // This thread won, bootstrap outside of any lock, concurrent callers wait for the very same future
+                future = created;
+                // Forget failed bootstraps so that next calls retry
+                created.whenComplete(
+                    (emf, ex) ->
+                    {
+                        if( ex != null )
+                        {
+                            emfs.remove( persistenceUnitName, created );
+                        }
+                    }
+                );
+                bootstrap( persistenceUnitName, created );
+            }
+        }
+        try
+        {
+            return future.join();
+        }
+        catch( CompletionException ex )
+        {
+            if( ex.getCause() instanceof RuntimeException )
+            {
+                throw (RuntimeException) ex.getCause();
+            }
+            if( ex.getCause() instanceof Error )
+            {
+                throw (Error) ex.getCause();
             }
-            return emfs.get( persistenceUnitName );
+            throw ex;
+        }
+    }
+
+    /**
+     * @return Bootstrap time in milliseconds of each started persistence unit
+     */
+    public Map<String, Long> bootstrapTimes()
+    {
+        return unmodifiableMap( new LinkedHashMap<>( bootstrapTimes ) );
+    }
+
+    /**
+     * Bootstrap persistence units in parallel.
+     *
+     * @param persistenceUnitNames Names of the persistence units to bootstrap
+     */
+    /* package */ void bootstrapEagerly( Collection<String> persistenceUnitNames )
+    {
+        if( persistenceUnitNames.isEmpty() )
+        {
+            return;
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(
+            persistenceUnitNames.size(),
+            runnable ->
+            {
+                Thread thread = new Thread( runnable, "werval-jpa-bootstrap-" + threadCount.incrementAndGet() );
+                thread.setDaemon( true );
+                return thread;
+            }
+        );
+        try
+        {
+            CompletableFuture.allOf(
+                persistenceUnitNames.stream()
+                .map( puName -> CompletableFuture.runAsync( () -> emf( puName ), executor ) )
+                .toArray( CompletableFuture[]::new )
+            ).join();
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    private void bootstrap( String persistenceUnitName, CompletableFuture<EntityManagerFactory> future )
+    {
+        long start = System.nanoTime();
+        try
+        {
+            Map<String, Object> props = new HashMap<>();
+            props.putAll( GLOBAL_UNITS_PROPERTIES );
+            if( mode == DEV || mode == TEST )
+            {
+                // Log query parameters in dev mode
+                props.put( "eclipselink.logging.parameters", "true" );
+            }
+            if( unitsProperties.containsKey( persistenceUnitName ) )
+            {
+                props.putAll( unitsProperties.get( persistenceUnitName ) );
+            }
+            props.put( "eclipselink.classloader", loader );
+            if( metrics != null )
+            {
+                props.put( MetricsSessionCustomizer.METRICS_PROPERTY, metrics );
+                props.put( "eclipselink.session.customizer", MetricsSessionCustomizer.class.getName() );
+            }
+            EntityManagerFactory emf = Persistence.createEntityManagerFactory( persistenceUnitName, props );
+            long elapsedMillis = ( System.nanoTime() - start ) / 1_000_000;
+            bootstrapTimes.put( persistenceUnitName, elapsedMillis );
+            LOG.info( "JPA persistence unit '{}' started in {}ms", persistenceUnitName, elapsedMillis );
+            future.complete( emf );
+        }
+        catch( Throwable ex )
+        {
+            // Errors included or waiting callers would hang forever
+            future.completeExceptionally( ex );
         }
     }
 
@@ -219,21 +347,21 @@ public final class JPA
      *         no current Context, a new EntityManager stored in a ThreadLocal.
      */
     public EntityManager em( String persistenceUnitName )
+    {
+        return jpaContext().entityManagers().computeIfAbsent(
+            persistenceUnitName,
+            puName -> newEntityManager( puName )
+        );
+    }
+
+    private JPAContext jpaContext()
     {
         return CurrentContext.optional().map(
             // In context, using JPAContext from Context's MetaData
-            (ctx) -> ( (JPAContext) ctx.metaData().computeIfAbsent( METADATA_CONTEXT_KEY, key -> new JPAContext() ) )
-            .entityManagers()
-            .computeIfAbsent(
-                persistenceUnitName,
-                puName -> newEntityManager( puName )
-            )
+            (ctx) -> (JPAContext) ctx.metaData().computeIfAbsent( METADATA_CONTEXT_KEY, key -> new JPAContext() )
         ).orElseGet(
             // Out of context, using ThreadLocal JPAContext
-            () -> threadLocalContext.get().entityManagers().computeIfAbsent(
-                persistenceUnitName,
-                puName -> newEntityManager( puName )
-            )
+            () -> threadLocalContext.get()
         );
     }
 
@@ -312,7 +440,8 @@ public final class JPA
         }
         try
         {
-            T result = block.apply( em );
+            // Route connections to the read replicas, if any, when read-only
+            T result = readOnly ? ReadOnly.supply( () -> block.apply( em ) ) : block.apply( em );
             if( tx != null )
             {
                 if( tx.getRollbackOnly() )
@@ -357,8 +486,173 @@ public final class JPA
         }
     }
 
+    public <T> CompletableFuture<T> supplyWithTxAsync(
+        boolean readOnly,
+        Function<EntityManager, CompletableFuture<T>> block
+    )
+    {
+        return supplyWithTxAsync( defaultPersistanceUnitName, readOnly, defaultTxTimeoutMillis, block );
+    }
+
+    public <T> CompletableFuture<T> supplyWithTxAsync(
+        String persistenceUnitName,
+        boolean readOnly,
+        Function<EntityManager, CompletableFuture<T>> block
+    )
+    {
+        return supplyWithTxAsync( persistenceUnitName, readOnly, defaultTxTimeoutMillis, block );
+    }
+
+    /**
+     * Asynchronous transaction demarcation.
+     * <p>
+     * The transaction is committed, or rollbacked, once the future returned by the given block completes, on the
+     * completing thread.
+     * The EntityManager is the Context one, it can be retrieved using {@link #em(String)} from any thread the Context
+     * is propagated to, e.g. by the application executors.
+     * <p>
+     * If the block do not complete in time, the returned future fails with a {@link TimeoutException} right away.
+     * The EntityManager is then detached from the Context and the transaction rollbacked once the block completes.
+     *
+     * @param <T>                 Parameterized type of the result
+     * @param persistenceUnitName Name of the PersistenceUnit to use
+     * @param readOnly            Do not open a transaction and use read replicas if true
+     * @param timeoutMillis       Transaction timeout in milliseconds, zero or negative for none
+     * @param block               Block returning a future
+     *
+     * @return A future completed once the transaction is committed
+     */
+    public <T> CompletableFuture<T> supplyWithTxAsync(
+        String persistenceUnitName,
+        boolean readOnly,
+        long timeoutMillis,
+        Function<EntityManager, CompletableFuture<T>> block
+    )
+    {
+        JPAContext jpaContext = jpaContext();
+        EntityManager em = jpaContext.entityManagers().computeIfAbsent(
+            persistenceUnitName,
+            puName -> newEntityManager( puName )
+        );
+        if( readOnly )
+        {
+            // Route connections to the read replicas, if any, until the block completes
+            return ReadOnly.supplyAsync( () -> applyAsync( block, em ) );
+        }
+        EntityTransaction tx = em.getTransaction();
+        tx.begin();
+        LOG.trace( "Opened asynchronous transaction with '{}' persistence unit.", persistenceUnitName );
+        CompletableFuture<T> result = new CompletableFuture<>();
+        // Either the block completes or the timeout fires, first wins
+        AtomicBoolean settled = new AtomicBoolean( false );
+        ScheduledFuture<?> timeout = timeoutMillis <= 0 ? null : txTimeouts.schedule(
+            () ->
+            {
+                if( settled.compareAndSet( false, true ) )
+                {
+                    // Take ownership of the EntityManager so that it is not closed under the still running block
+                    jpaContext.entityManagers().remove( persistenceUnitName, em );
+                    result.completeExceptionally( new TimeoutException(
+                        "Transaction with '" + persistenceUnitName + "' persistence unit timed out after "
+                        + timeoutMillis + "ms"
+                    ) );
+                }
+            },
+            timeoutMillis, MILLISECONDS
+        );
+        applyAsync( block, em ).whenComplete(
+            (value, error) ->
+            {
+                if( timeout != null )
+                {
+                    timeout.cancel( false );
+                }
+                if( !settled.compareAndSet( false, true ) )
+                {
+                    // Timed out, rollback and close the detached EntityManager
+                    try
+                    {
+                        rollbackQuietly( tx, persistenceUnitName );
+                    }
+                    finally
+                    {
+                        em.close();
+                    }
+                    return;
+                }
+                if( error != null )
+                {
+                    rollbackQuietly( tx, persistenceUnitName );
+                    result.completeExceptionally( error );
+                    return;
+                }
+                try
+                {
+                    if( tx.getRollbackOnly() )
+                    {
+                        tx.rollback();
+                        LOG.trace( "Rollbacked transaction with '{}' persistence unit.", persistenceUnitName );
+                    }
+                    else
+                    {
+                        tx.commit();
+                        LOG.trace( "Commited transaction with '{}' persistence unit.", persistenceUnitName );
+                    }
+                    result.complete( value );
+                }
+                catch( RuntimeException ex )
+                {
+                    rollbackQuietly( tx, persistenceUnitName );
+                    result.completeExceptionally( ex );
+                }
+            }
+        );
+        return result;
+    }
+
+    private static <T> CompletableFuture<T> applyAsync(
+        Function<EntityManager, CompletableFuture<T>> block,
+        EntityManager em
+    )
+    {
+        try
+        {
+            return block.apply( em );
+        }
+        catch( RuntimeException ex )
+        {
+            CompletableFuture<T> failed = new CompletableFuture<>();
+            failed.completeExceptionally( ex );
+            return failed;
+        }
+    }
+
+    private static void rollbackQuietly( EntityTransaction tx, String persistenceUnitName )
+    {
+        try
+        {
+            if( tx.isActive() )
+            {
+                tx.rollback();
+                LOG.trace( "Rollbacked transaction with '{}' persistence unit, on error.", persistenceUnitName );
+            }
+        }
+        catch( Exception ex )
+        {
+            LOG.warn(
+                "Failed to rollback on error while using '{}' persistence unit. {}",
+                persistenceUnitName, ex.getMessage(), ex
+            );
+        }
+    }
+
     /* package */ void passivate()
     {
-        emfs.values().forEach( emf -> emf.close() );
+        txTimeouts.shutdownNow();
+        emfs.values().stream()
+            .filter( future -> future.isDone() && !future.isCompletedExceptionally() )
+            .forEach( future -> future.join().close() );
+        emfs.clear();
+        bootstrapTimes.clear();
     }
 }
@@ -16,10 +16,10 @@
 package io.werval.modules.jpa;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.persistence.EntityManager;
 import javax.persistence.EntityTransaction;
 
@@ -33,12 +33,15 @@ import org.slf4j.LoggerFactory;
  *
  * That is the object the plugin adds to the Context's MetaData when an interaction Context exist,
  * as a ThreadLocal otherwise.
+ * <p>
+ * As the interaction Context is propagated across threads by the application executors, EntityManagers held here can
+ * be looked up from several threads, albeit not used concurrently.
  */
 public class JPAContext
 {
     private static final Logger LOG = LoggerFactory.getLogger( JPAContext.class );
     /* package */ static final String METADATA_CONTEXT_KEY = JPAContext.class.getName();
-    private final Map<String, EntityManager> ems = new HashMap<>( 5 );
+    private final Map<String, EntityManager> ems = new ConcurrentHashMap<>( 5 );
 
     public Map<String, EntityManager> entityManagers()
     {
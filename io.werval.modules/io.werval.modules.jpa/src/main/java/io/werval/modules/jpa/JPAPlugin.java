@@ -17,9 +17,11 @@ package io.werval.modules.jpa;
 
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import io.werval.api.Application;
 import io.werval.api.Config;
@@ -81,8 +83,32 @@ public class JPAPlugin
             application.classLoader(),
             properties,
             config.has( "jpa.default_pu" ) ? config.string( "jpa.default_pu" ) : null,
+            config.milliseconds( "jpa.transaction_timeout" ),
             config.bool( "jpa.metrics" ) ? application.plugin( Metrics.class ) : null
         );
+        if( config.bool( "jpa.eager_bootstrap" ) )
+        {
+            // Configured persistence units, starting with the default one
+            Set<String> units = new LinkedHashSet<>();
+            if( config.has( "jpa.default_pu" ) )
+            {
+                units.add( config.string( "jpa.default_pu" ) );
+            }
+            units.addAll( properties.keySet() );
+            try
+            {
+                jpa.bootstrapEagerly( units );
+            }
+            catch( RuntimeException ex )
+            {
+                jpa.passivate();
+                jpa = null;
+                Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                throw new ActivationException(
+                    "Unable to bootstrap JPA persistence units: " + cause.getMessage(), cause
+                );
+            }
+        }
     }
 
     @Override
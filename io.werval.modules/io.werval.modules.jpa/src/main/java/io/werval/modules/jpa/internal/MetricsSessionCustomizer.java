@@ -22,22 +22,27 @@ import org.eclipse.persistence.sessions.Session;
 
 /**
  * EclipseLink Metrics SessionCustomizer.
+ * <p>
+ * EclipseLink instanciates customizers by class name, the {@link Metrics} instance to use is then passed along the
+ * persistence unit properties, under the {@link #METRICS_PROPERTY} key, so that each persistence unit gets its own
+ * and concurrent bootstraps are safe.
  */
 public class MetricsSessionCustomizer
     implements SessionCustomizer
 {
-    public static Metrics metricsHack;
-    private final Metrics metrics;
-
-    public MetricsSessionCustomizer()
-    {
-        this.metrics = metricsHack;
-    }
+    /**
+     * Persistence unit property holding the {@link Metrics} instance.
+     */
+    public static final String METRICS_PROPERTY = "io.werval.modules.jpa.metrics";
 
     @Override
     public void customize( Session session )
         throws Exception
     {
-        session.setProfiler( new MetricsSessionProfiler( metrics ) );
+        Object metrics = session.getProperty( METRICS_PROPERTY );
+        if( metrics instanceof Metrics )
+        {
+            session.setProfiler( new MetricsSessionProfiler( (Metrics) metrics ) );
+        }
     }
 }
@@ -98,4 +98,55 @@ public class Controller
             application().executor()
         );
     }
+
+    @JPA.Transactional
+    public CompletableFuture<Outcome> asyncTransactional()
+    {
+        EntityManager em = plugin( JPA.class ).em();
+        return CompletableFuture.supplyAsync(
+            () ->
+            {
+                // Same EntityManager on another thread, within the same transaction
+                EntityManager hopped = plugin( JPA.class ).em();
+                FooEntity foo = new FooEntity( "ASYNC" );
+                hopped.persist( foo );
+                return outcomes().ok( hopped == em && hopped.getTransaction().isActive() ? "PINNED" : "LOST" ).build();
+            },
+            application().executor()
+        );
+    }
+
+    @JPA.Transactional
+    public CompletableFuture<Outcome> asyncTransactionalFailure()
+    {
+        return CompletableFuture.supplyAsync(
+            () ->
+            {
+                plugin( JPA.class ).em().persist( new FooEntity( "ASYNC_FAILURE" ) );
+                throw new IllegalStateException( "Rollback expected" );
+            },
+            application().executor()
+        );
+    }
+
+    @JPA.Transactional( timeout = 1 )
+    public CompletableFuture<Outcome> asyncTransactionalTimeout()
+    {
+        return CompletableFuture.supplyAsync(
+            () ->
+            {
+                plugin( JPA.class ).em().persist( new FooEntity( "ASYNC_TIMEOUT" ) );
+                try
+                {
+                    Thread.sleep( 2_000 );
+                }
+                catch( InterruptedException ex )
+                {
+                    throw new RuntimeException( ex );
+                }
+                return outcomes().ok( "TOO LATE" ).build();
+            },
+            application().executor()
+        );
+    }
 }
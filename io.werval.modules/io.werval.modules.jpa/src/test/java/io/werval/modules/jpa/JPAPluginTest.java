@@ -19,6 +19,7 @@ import io.werval.runtime.routes.RoutesParserProvider;
 import io.werval.test.WervalHttpRule;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceException;
@@ -30,6 +31,7 @@ import io.werval.modules.jdbc.JDBC;
 
 import static com.jayway.restassured.RestAssured.expect;
 import static io.werval.api.mime.MimeTypes.APPLICATION_JSON;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.core.IsEqual.equalTo;
 import static org.hamcrest.core.IsNull.notNullValue;
@@ -49,6 +51,9 @@ public class JPAPluginTest
         + "GET /multithreadedDirectUsage io.werval.modules.jpa.Controller.multithreadedDirectUsage\n"
         + "GET /multithreadedWithTransaction io.werval.modules.jpa.Controller.multithreadedWithTransaction\n"
         + "GET /multithreadedTransactional io.werval.modules.jpa.Controller.multithreadedTransactional\n"
+        + "GET /asyncTransactional io.werval.modules.jpa.Controller.asyncTransactional\n"
+        + "GET /asyncTransactionalFailure io.werval.modules.jpa.Controller.asyncTransactionalFailure\n"
+        + "GET /asyncTransactionalTimeout io.werval.modules.jpa.Controller.asyncTransactionalTimeout\n"
         + "GET /metrics io.werval.modules.metrics.Tools.metrics\n"
     ) );
 
@@ -83,29 +88,36 @@ public class JPAPluginTest
             .statusCode( 200 )
             .contentType( APPLICATION_JSON )
             .body( "histograms.'com.eclipse.persistence.histograms.CacheSizeBarEntity'.count", is( 3 ) )
-            .body( "histograms.'com.eclipse.persistence.histograms.CacheSizeFooEntity'.count", is( 4 ) )
-            .body( "timers.'com.eclipse.persistence.timers.InsertObjectQuery'.count", is( 7 ) )
-            .body( "meters.'com.eclipse.persistence.meters.ClientSessionCreates'.count", is( 8 ) )
-            .body( "meters.'com.eclipse.persistence.meters.ClientSessionReleases'.count", is( 8 ) )
+            .body( "histograms.'com.eclipse.persistence.histograms.CacheSizeFooEntity'.count", is( 5 ) )
+            .body( "timers.'com.eclipse.persistence.timers.InsertObjectQuery'.count", is( 8 ) )
+            .body( "meters.'com.eclipse.persistence.meters.ClientSessionCreates'.count", is( 11 ) )
+            .body( "meters.'com.eclipse.persistence.meters.ClientSessionReleases'.count", is( 11 ) )
             .body( "meters.'com.eclipse.persistence.meters.CacheHits'.count", is( 6 ) )
             .body( "meters.'com.eclipse.persistence.meters.ConnectCalls'.count", is( 4 ) )
-            .body( "meters.'com.eclipse.persistence.meters.InsertObjectQuery'.count", is( 7 ) )
+            .body( "meters.'com.eclipse.persistence.meters.InsertObjectQuery'.count", is( 8 ) )
             .body( "meters.'com.eclipse.persistence.meters.InsertObjectQuery:io.werval.modules.jpa.BarEntity'.count", is( 3 ) )
-            .body( "meters.'com.eclipse.persistence.meters.InsertObjectQuery:io.werval.modules.jpa.FooEntity'.count", is( 4 ) )
+            .body( "meters.'com.eclipse.persistence.meters.InsertObjectQuery:io.werval.modules.jpa.FooEntity'.count", is( 5 ) )
             .body( "meters.'com.eclipse.persistence.meters.ReadObjectQuery'.count", is( 6 ) )
             .body( "meters.'com.eclipse.persistence.meters.ReadObjectQuery:io.werval.modules.jpa.BarEntity:readBarEntity'.count", is( 3 ) )
             .body( "meters.'com.eclipse.persistence.meters.ReadObjectQuery:io.werval.modules.jpa.BarEntity:readBarEntity:CacheHits'.count", is( 3 ) )
             .body( "meters.'com.eclipse.persistence.meters.ReadObjectQuery:io.werval.modules.jpa.FooEntity:readFooEntity'.count", is( 3 ) )
             .body( "meters.'com.eclipse.persistence.meters.ReadObjectQuery:io.werval.modules.jpa.FooEntity:readFooEntity:CacheHits'.count", is( 3 ) )
-            .body( "meters.'com.eclipse.persistence.meters.UnitOfWorkCreates'.count", is( 8 ) )
-            .body( "meters.'com.eclipse.persistence.meters.UnitOfWorkReleases'.count", is( 8 ) )
-            .body( "meters.'com.eclipse.persistence.meters.UnitOfWorkCommits'.count", is( 10 ) )
-            .body( "meters.'com.eclipse.persistence.meters.ValueReadQuery'.count", is( 7 ) )
-            .body( "meters.'com.eclipse.persistence.meters.ValueReadQuery:SEQ_GEN_IDENTITY'.count", is( 7 ) )
+            .body( "meters.'com.eclipse.persistence.meters.UnitOfWorkCreates'.count", is( 11 ) )
+            .body( "meters.'com.eclipse.persistence.meters.UnitOfWorkReleases'.count", is( 11 ) )
+            .body( "meters.'com.eclipse.persistence.meters.UnitOfWorkCommits'.count", is( 11 ) )
+            .body( "meters.'com.eclipse.persistence.meters.ValueReadQuery'.count", is( 8 ) )
+            .body( "meters.'com.eclipse.persistence.meters.ValueReadQuery:SEQ_GEN_IDENTITY'.count", is( 8 ) )
             .when()
             .get( "/metrics" );
     }
 
+    @Test
+    public void eagerBootstrap()
+    {
+        JPA jpa = WERVAL.application().plugin( JPA.class );
+        assertThat( jpa.bootstrapTimes().keySet(), containsInAnyOrder( "default", "another" ) );
+    }
+
     @Test
     public void multiplePersistenceUnits()
     {
@@ -239,4 +251,61 @@ public class JPAPluginTest
             .when()
             .get( "/multithreadedTransactional" );
     }
+
+    @Test
+    public void asyncTransactional()
+        throws SQLException
+    {
+        expect()
+            .statusCode( 200 )
+            .body( equalTo( "PINNED" ) )
+            .when()
+            .get( "/asyncTransactional" );
+        assertThat( countFoos( "ASYNC" ), is( 1 ) );
+    }
+
+    @Test
+    public void asyncTransactionalFailure()
+        throws SQLException
+    {
+        expect()
+            .statusCode( 500 )
+            .when()
+            .get( "/asyncTransactionalFailure" );
+        assertThat( countFoos( "ASYNC_FAILURE" ), is( 0 ) );
+    }
+
+    @Test
+    public void asyncTransactionalTimeout()
+        throws SQLException, InterruptedException
+    {
+        long start = System.currentTimeMillis();
+        expect()
+            .statusCode( 500 )
+            .when()
+            .get( "/asyncTransactionalTimeout" );
+        assertThat( System.currentTimeMillis() - start < 2_000, is( true ) );
+        // Let the timed out block complete
+        Thread.sleep( 1_500 );
+        assertThat( countFoos( "ASYNC_TIMEOUT" ), is( 0 ) );
+    }
+
+    private static int countFoos( String name )
+        throws SQLException
+    {
+        // Plain JDBC so that EclipseLink metrics are not affected
+        JDBC jdbc = WERVAL.application().plugin( JDBC.class );
+        try( Connection connection = jdbc.connection();
+             PreparedStatement statement = connection.prepareStatement(
+                 "SELECT COUNT(*) FROM FOOENTITY WHERE NAME = ?"
+             ) )
+        {
+            statement.setString( 1, name );
+            try( ResultSet resultSet = statement.executeQuery() )
+            {
+                resultSet.next();
+                return resultSet.getInt( 1 );
+            }
+        }
+    }
 }
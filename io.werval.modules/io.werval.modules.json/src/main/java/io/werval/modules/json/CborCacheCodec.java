@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.modules.json;
+
+import io.werval.api.Application;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+/**
+ * CBOR CacheCodec.
+ * <p>
+ * Binary Jackson codec, use it by setting a Cache Plugin {@literal codec.type} to this class name.
+ * The JSON Plugin must be enabled.
+ */
+public final class CborCacheCodec
+    extends JacksonCacheCodec
+{
+    public CborCacheCodec( Application application )
+    {
+        super( application, new CBORFactory() );
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.modules.json;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import io.werval.api.Application;
+import io.werval.spi.cache.CacheCodec;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import static io.werval.util.Charsets.UTF_8;
+
+/**
+ * Jackson based binary CacheCodec.
+ * <p>
+ * Values are written using the {@link ObjectMapper} of the JSON Plugin, prefixed by their class name so that they can
+ * be read back.
+ * Generic type parameters are not recorded, cached collections and maps are read back with their elements as plain
+ * Jackson types.
+ */
+/* package */ abstract class JacksonCacheCodec
+    implements CacheCodec
+{
+    private final Application application;
+    private final JsonFactory factory;
+
+    /* package */ JacksonCacheCodec( Application application, JsonFactory factory )
+    {
+        this.application = application;
+        this.factory = factory;
+    }
+
+    @Override
+    public byte[] encode( Object value )
+    {
+        byte[] className = value.getClass().getName().getBytes( UTF_8 );
+        ByteArrayOutputStream output = new ByteArrayOutputStream( 128 );
+        output.write( className.length >>> 8 );
+        output.write( className.length );
+        output.write( className, 0, className.length );
+        try ( JsonGenerator generator = factory.createGenerator( output ) )
+        {
+            mapper().writer().writeValue( generator, value );
+        }
+        catch( IOException ex )
+        {
+            throw new JsonPluginException( "Unable to encode cache value of type " + value.getClass(), ex );
+        }
+        return output.toByteArray();
+    }
+
+    @Override
+    public <T> T decode( byte[] bytes )
+    {
+        int classNameLength = ( ( bytes[0] & 0xFF ) << 8 ) | ( bytes[1] & 0xFF );
+        String className = new String( bytes, 2, classNameLength, UTF_8 );
+        int offset = 2 + classNameLength;
+        try ( JsonParser parser = factory.createParser( bytes, offset, bytes.length - offset ) )
+        {
+            Class<?> type = application.classLoader().loadClass( className );
+            return mapper().readerFor( type ).readValue( parser );
+        }
+        catch( ClassNotFoundException | IOException ex )
+        {
+            throw new JsonPluginException( "Unable to decode cache value of type " + className, ex );
+        }
+    }
+
+    private ObjectMapper mapper()
+    {
+        // Resolved on each use as the JSON Plugin may be activated after the Cache Plugin
+        return application.plugin( JSON.class ).mapper();
+    }
+}
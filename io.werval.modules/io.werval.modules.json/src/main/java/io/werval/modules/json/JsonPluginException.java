@@ -29,4 +29,9 @@ public class JsonPluginException
     {
         super( cause.getMessage(), cause );
     }
+
+    /* package */ JsonPluginException( String message, Throwable cause )
+    {
+        super( message, cause );
+    }
 }
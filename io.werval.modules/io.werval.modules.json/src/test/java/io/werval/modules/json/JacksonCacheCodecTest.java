@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.modules.json;
+
+import java.util.Arrays;
+import java.util.List;
+
+import io.werval.spi.cache.CacheCodec;
+import io.werval.test.WervalRule;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Jackson CacheCodec Test.
+ */
+public class JacksonCacheCodecTest
+{
+    public static class Value
+    {
+        public String name;
+        public List<String> tags;
+        public long count;
+    }
+
+    @ClassRule
+    public static final WervalRule WERVAL = new WervalRule();
+
+    @Test
+    public void smile()
+    {
+        assertRoundTrip( new SmileCacheCodec( WERVAL.application() ) );
+    }
+
+    @Test
+    public void cbor()
+    {
+        assertRoundTrip( new CborCacheCodec( WERVAL.application() ) );
+    }
+
+    private static void assertRoundTrip( CacheCodec codec )
+    {
+        Value value = new Value();
+        value.name = "werval";
+        value.tags = Arrays.asList( "cache", "codec" );
+        value.count = 42L;
+        Value decoded = codec.decode( codec.encode( value ) );
+        assertThat( decoded.name, equalTo( value.name ) );
+        assertThat( decoded.tags, equalTo( value.tags ) );
+        assertThat( decoded.count, equalTo( value.count ) );
+        assertThat( codec.<String>decode( codec.encode( "foo" ) ), equalTo( "foo" ) );
+        assertThat( codec.<Long>decode( codec.encode( 23L ) ), equalTo( 23L ) );
+    }
+}
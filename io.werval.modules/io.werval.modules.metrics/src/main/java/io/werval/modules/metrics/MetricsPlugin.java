@@ -22,6 +22,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
@@ -40,7 +41,9 @@ import io.werval.api.routes.RouteBuilder;
 import io.werval.modules.json.JSON;
 
 import com.codahale.metrics.ConsoleReporter;
+import com.codahale.metrics.Counter;
 import com.codahale.metrics.CsvReporter;
+import com.codahale.metrics.Histogram;
 import com.codahale.metrics.JmxReporter;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Reporter;
@@ -62,11 +65,13 @@ import com.codahale.metrics.jvm.ThreadStatesGaugeSet;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MarkerFactory;
 
+import static com.codahale.metrics.MetricRegistry.name;
 import static java.lang.management.ManagementFactory.getPlatformMBeanServer;
 import static java.util.Arrays.asList;
 import static java.util.Collections.EMPTY_LIST;
 import static java.util.Locale.US;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
 import static io.werval.api.Mode.DEV;
@@ -78,16 +83,88 @@ import static io.werval.api.http.Method.GET;
 public class MetricsPlugin
     implements Plugin<Metrics>
 {
+    /**
+     * Metrics of a route series.
+     */
+    private static final class RouteMetrics
+    {
+        private final Timer requests;
+        private final Counter inFlight;
+        private final Histogram responseSizes;
+        private final Timer controller;
+
+        private RouteMetrics( Timer requests, Counter inFlight, Histogram responseSizes, Timer controller )
+        {
+            this.requests = requests;
+            this.inFlight = inFlight;
+            this.responseSizes = responseSizes;
+            this.controller = controller;
+        }
+    }
+
+    /**
+     * A routed request, in-flight.
+     */
+    private static final class RoutedRequest
+    {
+        private final RouteMetrics route;
+        private final long start;
+
+        private RoutedRequest( RouteMetrics route, long start )
+        {
+            this.route = route;
+            this.start = start;
+        }
+
+        private void complete( long contentLength )
+        {
+            long elapsed = System.nanoTime() - start;
+            if( route.requests != null )
+            {
+                route.requests.update( elapsed, NANOSECONDS );
+            }
+            if( route.controller != null )
+            {
+                route.controller.update( elapsed, NANOSECONDS );
+            }
+            if( route.inFlight != null )
+            {
+                route.inFlight.dec();
+            }
+            if( route.responseSizes != null && contentLength >= 0 )
+            {
+                route.responseSizes.update( contentLength );
+            }
+        }
+    }
+
     /**
      * Event Listener used for Connection and Http metrics.
+     * <p>
+     * Route and controller series are keyed by route method and path pattern, and by controller method, not by
+     * request URI.
+     * Once {@literal max_series} distinct keys are reached, further ones are recorded in an {@literal other} series.
      */
     private static final class EventListener
         implements Consumer<Event>
     {
+        private static final String ROUTES = "io.werval.http.routes";
+        private static final String CONTROLLERS = "io.werval.http.controllers";
+        private static final String OTHER = "other";
         private final MetricRegistry metrics;
         private final Map<String, Timer.Context> requestTimers;
+        private final Map<String, RoutedRequest> routedRequests;
+        private final Map<Route, RouteMetrics> routeMetrics = new ConcurrentHashMap<>();
+        private final Set<String> routeSeries = ConcurrentHashMap.newKeySet();
+        private final Set<String> controllerSeries = ConcurrentHashMap.newKeySet();
         private final boolean connections;
         private final boolean requests;
+        private final boolean inFlight;
+        private final boolean responseSizes;
+        private final boolean routes;
+        private final int routesMaxSeries;
+        private final boolean controllers;
+        private final int controllersMaxSeries;
         private final boolean success;
         private final boolean redirections;
         private final boolean clientErrors;
@@ -95,20 +172,27 @@ public class MetricsPlugin
         private final boolean unknown;
 
         private EventListener(
-            MetricRegistry metrics, Map<String, Timer.Context> requestTimers,
-            boolean connections, boolean requests,
-            boolean success, boolean redirections, boolean clientErrors, boolean serverErrors, boolean unknown
+            MetricRegistry metrics,
+            Map<String, Timer.Context> requestTimers, Map<String, RoutedRequest> routedRequests,
+            Config config
         )
         {
             this.metrics = metrics;
             this.requestTimers = requestTimers;
-            this.connections = connections;
-            this.requests = requests;
-            this.success = success;
-            this.redirections = redirections;
-            this.clientErrors = clientErrors;
-            this.serverErrors = serverErrors;
-            this.unknown = unknown;
+            this.routedRequests = routedRequests;
+            this.connections = config.bool( "connections.enabled" );
+            this.requests = config.bool( "requests.enabled" );
+            this.inFlight = config.bool( "in_flight.enabled" );
+            this.responseSizes = config.bool( "response_sizes.enabled" );
+            this.routes = config.bool( "routes.enabled" );
+            this.routesMaxSeries = config.intNumber( "routes.max_series" );
+            this.controllers = config.bool( "controllers.enabled" );
+            this.controllersMaxSeries = config.intNumber( "controllers.max_series" );
+            this.success = config.bool( "success.enabled" );
+            this.redirections = config.bool( "redirections.enabled" );
+            this.clientErrors = config.bool( "client_errors.enabled" );
+            this.serverErrors = config.bool( "server_errors.enabled" );
+            this.unknown = config.bool( "unknown.enabled" );
         }
 
         @Override
@@ -124,21 +208,61 @@ public class MetricsPlugin
                 // Decrement open-connections Counter
                 metrics.counter( "io.werval.http.open-connections" ).dec();
             }
-            else if( requests && e instanceof HttpEvent.RequestReceived )
+            else if( e instanceof HttpEvent.RequestReceived )
+            {
+                if( requests )
+                {
+                    // Start requests Timer
+                    requestTimers.put(
+                        ( (HttpEvent.RequestReceived) e ).identity(),
+                        metrics.timer( "io.werval.http.requests" ).time()
+                    );
+                }
+                if( inFlight )
+                {
+                    // Increment in-flight Counter
+                    metrics.counter( "io.werval.http.in-flight" ).inc();
+                }
+            }
+            else if( ( routes || controllers ) && e instanceof HttpEvent.RequestRouted )
             {
-                // Start requests Timer
-                requestTimers.put(
-                    ( (HttpEvent.RequestReceived) e ).identity(),
-                    metrics.timer( "io.werval.http.requests" ).time()
+                // Start route and controller timing
+                RouteMetrics route = routeMetrics.computeIfAbsent(
+                    ( (HttpEvent.RequestRouted) e ).route(),
+                    this::newRouteMetrics
+                );
+                if( route.inFlight != null )
+                {
+                    route.inFlight.inc();
+                }
+                routedRequests.put(
+                    ( (HttpEvent.RequestRouted) e ).identity(),
+                    new RoutedRequest( route, System.nanoTime() )
                 );
             }
             else if( e instanceof HttpEvent.ResponseSent )
             {
+                HttpEvent.ResponseSent sent = (HttpEvent.ResponseSent) e;
                 if( requests )
                 {
                     // Stop requests Timer
-                    Optional.ofNullable( requestTimers.remove( ( (HttpEvent.ResponseSent) e ).identity() ) )
-                        .ifPresent( t -> t.close() );
+                    Optional.ofNullable( requestTimers.remove( sent.identity() ) ).ifPresent( t -> t.close() );
+                }
+                if( inFlight )
+                {
+                    // Decrement in-flight Counter
+                    metrics.counter( "io.werval.http.in-flight" ).dec();
+                }
+                if( responseSizes && sent.contentLength() >= 0 )
+                {
+                    // Update response-sizes Histogram
+                    metrics.histogram( "io.werval.http.response-sizes" ).update( sent.contentLength() );
+                }
+                if( routes || controllers )
+                {
+                    // Stop route and controller timing
+                    Optional.ofNullable( routedRequests.remove( sent.identity() ) )
+                        .ifPresent( r -> r.complete( sent.contentLength() ) );
                 }
 
                 // Mark appropriate response status class Meter
@@ -178,9 +302,55 @@ public class MetricsPlugin
                 }
             }
         }
+
+        private RouteMetrics newRouteMetrics( Route route )
+        {
+            Timer routeRequests = null;
+            Counter routeInFlight = null;
+            Histogram routeResponseSizes = null;
+            if( routes )
+            {
+                String series = series( routeSeries, routesMaxSeries, route.httpMethod() + " " + route.path() );
+                routeRequests = metrics.timer( name( ROUTES, series, "requests" ) );
+                if( inFlight )
+                {
+                    routeInFlight = metrics.counter( name( ROUTES, series, "in-flight" ) );
+                }
+                if( responseSizes )
+                {
+                    routeResponseSizes = metrics.histogram( name( ROUTES, series, "response-sizes" ) );
+                }
+            }
+            Timer controller = null;
+            if( controllers )
+            {
+                String series = series(
+                    controllerSeries, controllersMaxSeries,
+                    route.controllerType().getName() + "." + route.controllerMethodName()
+                );
+                controller = metrics.timer( name( CONTROLLERS, series ) );
+            }
+            return new RouteMetrics( routeRequests, routeInFlight, routeResponseSizes, controller );
+        }
+
+        private static String series( Set<String> series, int maxSeries, String key )
+        {
+            if( series.contains( key ) )
+            {
+                return key;
+            }
+            // Racy, the cap can be exceeded by a few series under contention
+            if( series.size() >= maxSeries )
+            {
+                return OTHER;
+            }
+            series.add( key );
+            return key;
+        }
     }
 
     private Map<String, Timer.Context> requestTimers;
+    private Map<String, RoutedRequest> routedRequests;
     private List<Reporter> reporters;
     private Metrics api;
     private Registration eventRegistration;
@@ -240,6 +410,8 @@ public class MetricsPlugin
     {
         requestTimers.values().forEach( t -> t.stop() );
         requestTimers = null;
+        routedRequests.clear();
+        routedRequests = null;
         reporters.forEach(
             r ->
             {
@@ -293,18 +465,9 @@ public class MetricsPlugin
 
         // Connection & HTTP Metrics
         requestTimers = new ConcurrentHashMap<>();
+        routedRequests = new ConcurrentHashMap<>();
         eventRegistration = application.events().registerListener(
-            new EventListener(
-                metrics,
-                requestTimers,
-                config.bool( "http.connections.enabled" ),
-                config.bool( "http.requests.enabled" ),
-                config.bool( "http.success.enabled" ),
-                config.bool( "http.redirections.enabled" ),
-                config.bool( "http.client_errors.enabled" ),
-                config.bool( "http.server_errors.enabled" ),
-                config.bool( "http.unknown.enabled" )
-            )
+            new EventListener( metrics, requestTimers, routedRequests, config.atKey( "http" ) )
         );
     }
 
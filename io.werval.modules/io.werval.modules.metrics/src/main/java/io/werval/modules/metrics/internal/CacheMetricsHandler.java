@@ -20,6 +20,7 @@ import java.util.function.Function;
 import io.werval.spi.cache.CacheAdapter.CacheEvent;
 
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
 import com.codahale.metrics.Timer;
 
 import static com.codahale.metrics.MetricRegistry.name;
@@ -28,9 +29,11 @@ import static com.codahale.metrics.MetricRegistry.name;
  * Cache Metrics Handler.
  * <p>
  * Suited to give to {@link CacheAdapter} appropriate constructor in {@link Cache} implementations.
+ * <p>
+ * Also register a {@literal hit-ratio} gauge, replacing any previously registered one under the same name.
  */
 public class CacheMetricsHandler
-    implements Function<CacheEvent, CacheEvent.Closeable>
+    implements Function<CacheEvent, CacheEvent.Closeable>, CacheEvent.BatchSizes
 {
     private static final String METRICS_PREFIX = "io.werval.modules.cache";
     private final MetricRegistry metrics;
@@ -39,6 +42,11 @@ public class CacheMetricsHandler
     private final String getsName;
     private final String setsName;
     private final String removesName;
+    private final String bulkGetsName;
+    private final String bulkSetsName;
+    private final String bulkRemovesName;
+    private final String evictionsName;
+    private final String expirationsName;
 
     public CacheMetricsHandler( MetricRegistry metrics, String implName, String cacheName )
     {
@@ -48,6 +56,25 @@ public class CacheMetricsHandler
         this.getsName = name( METRICS_PREFIX, implName, cacheName, "gets" );
         this.setsName = name( METRICS_PREFIX, implName, cacheName, "sets" );
         this.removesName = name( METRICS_PREFIX, implName, cacheName, "removes" );
+        this.bulkGetsName = name( METRICS_PREFIX, implName, cacheName, "bulk-gets" );
+        this.bulkSetsName = name( METRICS_PREFIX, implName, cacheName, "bulk-sets" );
+        this.bulkRemovesName = name( METRICS_PREFIX, implName, cacheName, "bulk-removes" );
+        this.evictionsName = name( METRICS_PREFIX, implName, cacheName, "evictions" );
+        this.expirationsName = name( METRICS_PREFIX, implName, cacheName, "expirations" );
+        String hitRatioName = name( METRICS_PREFIX, implName, cacheName, "hit-ratio" );
+        metrics.remove( hitRatioName );
+        metrics.register(
+            hitRatioName,
+            new RatioGauge()
+            {
+                @Override
+                protected Ratio getRatio()
+                {
+                    long hits = metrics.meter( hitsName ).getCount();
+                    return Ratio.of( hits, hits + metrics.meter( missesName ).getCount() );
+                }
+            }
+        );
     }
 
     @Override
@@ -70,9 +97,43 @@ public class CacheMetricsHandler
             case REMOVE:
                 Timer.Context removeTimer = metrics.timer( removesName ).time();
                 return () -> removeTimer.close();
+            case BULK_GET:
+                Timer.Context bulkGetTimer = metrics.timer( bulkGetsName ).time();
+                return () -> bulkGetTimer.close();
+            case BULK_SET:
+                Timer.Context bulkSetTimer = metrics.timer( bulkSetsName ).time();
+                return () -> bulkSetTimer.close();
+            case BULK_REMOVE:
+                Timer.Context bulkRemoveTimer = metrics.timer( bulkRemovesName ).time();
+                return () -> bulkRemoveTimer.close();
+            case EVICTION:
+                metrics.meter( evictionsName ).mark();
+                break;
+            case EXPIRATION:
+                metrics.meter( expirationsName ).mark();
+                break;
             default:
                 break;
         }
         return CacheEvent.NOOP_CLOSEABLE;
     }
+
+    @Override
+    public void batchSize( CacheEvent event, int size )
+    {
+        switch( event )
+        {
+            case BULK_GET:
+                metrics.histogram( name( bulkGetsName, "sizes" ) ).update( size );
+                break;
+            case BULK_SET:
+                metrics.histogram( name( bulkSetsName, "sizes" ) ).update( size );
+                break;
+            case BULK_REMOVE:
+                metrics.histogram( name( bulkRemovesName, "sizes" ) ).update( size );
+                break;
+            default:
+                break;
+        }
+    }
 }
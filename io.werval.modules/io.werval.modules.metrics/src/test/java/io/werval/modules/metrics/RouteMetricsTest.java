@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.modules.metrics;
+
+import com.codahale.metrics.MetricRegistry;
+import io.werval.api.outcomes.Outcome;
+import io.werval.runtime.routes.RoutesParserProvider;
+import io.werval.test.WervalHttpRule;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import static com.jayway.awaitility.Awaitility.await;
+import static com.jayway.restassured.RestAssured.expect;
+import static io.werval.api.context.CurrentContext.outcomes;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Route Metrics Test.
+ */
+public class RouteMetricsTest
+{
+    @ClassRule
+    public static WervalHttpRule WERVAL = new WervalHttpRule( "route-metrics.conf", new RoutesParserProvider(
+        "GET /items/:id io.werval.modules.metrics.RouteMetricsTest$Controller.item( String id )\n"
+        + "GET /other/:id io.werval.modules.metrics.RouteMetricsTest$Controller.item( String id )\n"
+        + "GET /hello io.werval.modules.metrics.RouteMetricsTest$Controller.hello\n"
+        + "GET /bye io.werval.modules.metrics.RouteMetricsTest$Controller.hello\n"
+    ) );
+
+    public static class Controller
+    {
+        public Outcome item( String id )
+        {
+            return outcomes().ok( "item-" + id ).build();
+        }
+
+        public Outcome hello()
+        {
+            return outcomes().ok( "hello" ).build();
+        }
+    }
+
+    @Test
+    public void routeSeries()
+    {
+        MetricRegistry metrics = WERVAL.application().plugin( Metrics.class ).metrics();
+
+        expect().statusCode( 200 ).when().get( "/items/1" );
+        expect().statusCode( 200 ).when().get( "/items/22" );
+        expect().statusCode( 200 ).when().get( "/other/3" );
+        expect().statusCode( 200 ).when().get( "/hello" );
+        expect().statusCode( 200 ).when().get( "/bye" );
+        expect().statusCode( 404 ).when().get( "/not-found" );
+
+        await( "io.werval.http.requests == 6" ).until(
+            () -> metrics.timer( "io.werval.http.requests" ).getCount() == 6L
+        );
+        await( "io.werval.http.in-flight == 0" ).until(
+            () -> metrics.counter( "io.werval.http.in-flight" ).getCount() == 0L
+        );
+
+        // Keyed by path pattern, capped to two series
+        assertThat( metrics.timer( "io.werval.http.routes.GET /items/:id.requests" ).getCount(), is( 2L ) );
+        assertThat( metrics.timer( "io.werval.http.routes.GET /other/:id.requests" ).getCount(), is( 1L ) );
+        assertThat( metrics.timer( "io.werval.http.routes.other.requests" ).getCount(), is( 2L ) );
+        assertThat( metrics.counter( "io.werval.http.routes.GET /items/:id.in-flight" ).getCount(), is( 0L ) );
+        assertThat( metrics.getTimers().containsKey( "io.werval.http.routes.GET /hello.requests" ), is( false ) );
+
+        // Controller methods
+        assertThat(
+            metrics.timer( "io.werval.http.controllers." + Controller.class.getName() + ".item" ).getCount(),
+            is( 3L )
+        );
+        assertThat(
+            metrics.timer( "io.werval.http.controllers." + Controller.class.getName() + ".hello" ).getCount(),
+            is( 2L )
+        );
+
+        // Response sizes
+        assertThat( metrics.histogram( "io.werval.http.response-sizes" ).getCount(), is( 6L ) );
+        assertThat(
+            metrics.histogram( "io.werval.http.routes.GET /items/:id.response-sizes" ).getSnapshot().getMax(),
+            is( (long) "item-22".length() )
+        );
+    }
+}
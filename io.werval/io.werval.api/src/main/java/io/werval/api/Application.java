@@ -17,6 +17,7 @@ package io.werval.api;
 
 import java.io.File;
 import java.nio.charset.Charset;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 
 import io.werval.api.cache.Cache;
@@ -119,6 +120,15 @@ public interface Application
      */
     <T> Iterable<T> plugins( Class<T> pluginApiType );
 
+    /**
+     * Plugins activation times.
+     *
+     * @return Activation time in milliseconds of each active Plugin, by Plugin class name, in activation order
+     *
+     * @throws IllegalStateException if the {@literal Application} is not active
+     */
+    Map<String, Long> pluginsActivationTimes();
+
     /**
      * Application {@link Crypto}.
      * <p>
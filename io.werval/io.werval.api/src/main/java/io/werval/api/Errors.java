@@ -24,7 +24,10 @@ import java.util.Optional;
  * Records errors happening in the application.
  * <p>
  * To prevent OOME when errors are frequent, it is possible to limit the amount of recorded errors with the
- * `werval.errors.max` configuration property. This default to 100.
+ * `app.errors.record.max` configuration property. This default to 100.
+ * <p>
+ * Repeated errors are also aggregated by {@link Fingerprint}, so that error storms can be spotted even after the
+ * individual records have been evicted.
  * <p>
  * Errors is an Iterable&lt;Error&gt;.
  * Implementations are required to provide predictible and sorted iteration starting with the last error and
@@ -35,6 +38,45 @@ import java.util.Optional;
 public interface Errors
     extends Iterable<io.werval.api.Error>
 {
+    /**
+     * Aggregate of recorded errors sharing the same fingerprint.
+     * <p>
+     * Fingerprints are computed from the exception classes of the cause chain and the top stack frames of the root
+     * cause, messages are not taken into account.
+     */
+    interface Fingerprint
+    {
+        /**
+         * @return Fingerprint, an hexadecimal hash
+         */
+        String fingerprint();
+
+        /**
+         * @return Class name of the recorded causes
+         */
+        String causeClassName();
+
+        /**
+         * @return Count of recorded errors with this fingerprint
+         */
+        long count();
+
+        /**
+         * @return Timestamp of the first recorded error with this fingerprint
+         */
+        long firstSeen();
+
+        /**
+         * @return Timestamp of the last recorded error with this fingerprint
+         */
+        long lastSeen();
+
+        /**
+         * @return ID of the last recorded error with this fingerprint, it may have been evicted from records
+         */
+        String lastErrorId();
+    }
+
     /**
      * Get a list of all Errors.
      *
@@ -96,4 +138,14 @@ public interface Errors
      * @return Last recorded Error pertaining to the given request, optional
      */
     Optional<Error> lastOfRequest( String requestIdentity );
+
+    /**
+     * Get errors aggregated by fingerprint.
+     * <p>
+     * The amount of tracked fingerprints is limited by the `app.errors.fingerprints.max` configuration property, least
+     * recently seen ones are evicted first.
+     *
+     * @return Immutable list of fingerprints, most recently seen first
+     */
+    List<Fingerprint> fingerprints();
 }
@@ -15,11 +15,20 @@
  */
 package io.werval.api.cache;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
 
 /**
  * Cache.
+ * <p>
+ * Asynchronous variants of the operations return {@link CompletableFuture}s.
+ * Depending on the Cache implementation they are completed by the backing client I/O threads, or synchronously on
+ * the calling thread for in-process caches.
+ * Dependent actions should then use the {@literal *Async} methods of {@link CompletableFuture} with an appropriate
+ * executor when they are not trivial.
  */
 public interface Cache
 {
@@ -116,6 +125,42 @@ public interface Cache
      */
     <T> T getOrSetDefault( String key, int ttlSeconds, Supplier<T> defaultValueSupplier );
 
+    /**
+     * Fetch cached object for a given key or compute and set a non-expiring one.
+     * <p>
+     * See {@link #getOrCompute(java.lang.String, int, java.util.function.Supplier)}.
+     *
+     * @param <T>    Object Type
+     * @param key    Cache Key
+     * @param loader Value Loader
+     *
+     * @return The existing cached object for the given key, or the computed one
+     */
+    <T> T getOrCompute( String key, Supplier<T> loader );
+
+    /**
+     * Fetch cached object for a given key or compute and set an expiring one.
+     * <p>
+     * If the cache has a non-expired object for the given key, it is returned and the loader is not called.
+     * <p>
+     * Otherwise, the loader is called and its result set in the cache and returned.
+     * Concurrent calls for the same key share a single loader invocation and all get its result or exception.
+     * Depending on the Cache implementation, nodes sharing a remote cache may also coordinate so that only one of
+     * them calls the loader.
+     * <p>
+     * {@literal null} results are returned but not cached.
+     * A loader must not call {@literal getOrCompute} for its own key, this throws {@link IllegalStateException}.
+     *
+     * @param <T>        Object Type
+     * @param key        Cache Key
+     * @param ttlSeconds Computed Value Time To Live in seconds.
+     *                   If {@literal 0} ({@literal ZERO}), then the entry will never expire
+     * @param loader     Value Loader
+     *
+     * @return The existing cached object for the given key, or the computed one
+     */
+    <T> T getOrCompute( String key, int ttlSeconds, Supplier<T> loader );
+
     /**
      * Set a non-expiring object for a given key in the Cache.
      *
@@ -142,4 +187,127 @@ public interface Cache
      * @param key Key of the entry to remove
      */
     void remove( String key );
+
+    /**
+     * Fetch cached objects for several keys at once.
+     * <p>
+     * Depending on the Cache implementation, this is done in a single round-trip.
+     *
+     * @param <T>  Object Type
+     * @param keys Cache Keys
+     *
+     * @return The cached objects by key, absent keys are not present in the returned map
+     */
+    <T> Map<String, T> getAll( Collection<String> keys );
+
+    /**
+     * Set several non-expiring objects at once.
+     *
+     * @param <T>     Object Type
+     * @param entries Value Objects by Cache Key
+     */
+    <T> void setAll( Map<String, T> entries );
+
+    /**
+     * Set several expiring objects at once.
+     * <p>
+     * Depending on the Cache implementation, this is done in a single round-trip.
+     *
+     * @param <T>        Object Type
+     * @param ttlSeconds Time To Live in seconds.
+     *                   If {@literal 0} ({@literal ZERO}), then the entries will not expire
+     * @param entries    Value Objects by Cache Key
+     */
+    <T> void setAll( int ttlSeconds, Map<String, T> entries );
+
+    /**
+     * Remove several Cache entries at once.
+     *
+     * @param keys Keys of the entries to remove
+     */
+    void removeAll( Collection<String> keys );
+
+    /**
+     * Asynchronously fetch cached object for a given key.
+     *
+     * @param <T> Object Type
+     * @param key Cache Key
+     *
+     * @return A future of the cached object for the given key, completed with {@literal null} if absent
+     */
+    <T> CompletableFuture<T> getAsync( String key );
+
+    /**
+     * Asynchronously set a non-expiring object for a given key in the Cache.
+     *
+     * @param <T>   Object Type
+     * @param key   Cache Key
+     * @param value Value Object
+     *
+     * @return A future completed once the object is set
+     */
+    <T> CompletableFuture<Void> setAsync( String key, T value );
+
+    /**
+     * Asynchronously set an expiring object for a given key in the Cache.
+     *
+     * @param <T>        Object Type
+     * @param ttlSeconds Time To Live in seconds.
+     *                   If {@literal 0} ({@literal ZERO}), then the entry will not expire
+     * @param key        Cache Key
+     * @param value      Value Object
+     *
+     * @return A future completed once the object is set
+     */
+    <T> CompletableFuture<Void> setAsync( int ttlSeconds, String key, T value );
+
+    /**
+     * Asynchronously remove a Cache entry.
+     *
+     * @param key Key of the entry to remove
+     *
+     * @return A future completed once the entry is removed
+     */
+    CompletableFuture<Void> removeAsync( String key );
+
+    /**
+     * Asynchronously fetch cached objects for several keys at once.
+     *
+     * @param <T>  Object Type
+     * @param keys Cache Keys
+     *
+     * @return A future of the cached objects by key, absent keys are not present in the map
+     */
+    <T> CompletableFuture<Map<String, T>> getAllAsync( Collection<String> keys );
+
+    /**
+     * Asynchronously set several non-expiring objects at once.
+     *
+     * @param <T>     Object Type
+     * @param entries Value Objects by Cache Key
+     *
+     * @return A future completed once all objects are set
+     */
+    <T> CompletableFuture<Void> setAllAsync( Map<String, T> entries );
+
+    /**
+     * Asynchronously set several expiring objects at once.
+     *
+     * @param <T>        Object Type
+     * @param ttlSeconds Time To Live in seconds.
+     *                   If {@literal 0} ({@literal ZERO}), then the entries will not expire
+     * @param entries    Value Objects by Cache Key
+     *
+     * @return A future completed once all objects are set
+     */
+    <T> CompletableFuture<Void> setAllAsync( int ttlSeconds, Map<String, T> entries );
+
+    /**
+     * Asynchronously remove several Cache entries at once.
+     *
+     * @param keys Keys of the entries to remove
+     *
+     * @return A future completed once all entries are removed
+     */
+    CompletableFuture<Void> removeAllAsync( Collection<String> keys );
 }
@@ -16,6 +16,7 @@
 package io.werval.api.events;
 
 import io.werval.api.http.Status;
+import io.werval.api.routes.Route;
 
 /**
  * Http Event.
@@ -69,6 +70,50 @@ public interface HttpEvent
         }
     }
 
+    /**
+     * HTTP Request Routed Event.
+     * <p>
+     * Emitted once the route of a request has been resolved, not emitted for requests that match no route.
+     */
+    final class RequestRouted
+        implements HttpEvent
+    {
+        private final String identity;
+        private final Route route;
+
+        public RequestRouted( String identity, Route route )
+        {
+            this.identity = identity;
+            this.route = route;
+        }
+
+        /**
+         * Request identity.
+         *
+         * @return Request identity
+         */
+        public String identity()
+        {
+            return identity;
+        }
+
+        /**
+         * Resolved route.
+         *
+         * @return Resolved route
+         */
+        public Route route()
+        {
+            return route;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Http Request routed (" + route.httpMethod() + " " + route.path() + ')';
+        }
+    }
+
     /**
      * HTTP Response Sent Event.
      */
@@ -77,11 +122,18 @@ public interface HttpEvent
     {
         private final String identity;
         private final Status status;
+        private final long contentLength;
 
         public ResponseSent( String identity, Status status )
+        {
+            this( identity, status, -1 );
+        }
+
+        public ResponseSent( String identity, Status status, long contentLength )
         {
             this.identity = identity;
             this.status = status;
+            this.contentLength = contentLength;
         }
 
         /**
@@ -104,6 +156,16 @@ public interface HttpEvent
             return status;
         }
 
+        /**
+         * Response body length.
+         *
+         * @return Response body length in bytes, or -1 if unknown
+         */
+        public long contentLength()
+        {
+            return contentLength;
+        }
+
         @Override
         public String toString()
         {
@@ -240,6 +240,10 @@ public interface Headers
          * {@code "If-Unmodified-Since"}.
          */
         String IF_UNMODIFIED_SINCE = "If-Unmodified-Since";
+        /**
+         * {@code "Last-Event-ID"}.
+         */
+        String LAST_EVENT_ID = "Last-Event-ID";
         /**
          * {@code "Last-Modified"}.
          */
@@ -1938,6 +1938,10 @@ public interface MimeTypesNames
      * text/csv.
      */
     String TEXT_CSV = "text/csv";
+    /**
+     * text/event-stream.
+     */
+    String TEXT_EVENT_STREAM = "text/event-stream";
     /**
      * application/rls-services+xml.
      */
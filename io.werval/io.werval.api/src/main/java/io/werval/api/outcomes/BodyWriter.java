@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.api.outcomes;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Body Writer.
+ * <p>
+ * Produce a response body of undetermined length by pushing bytes into an {@link OutputStream}, see
+ * {@link OutcomeBuilder#withBody(BodyWriter)}.
+ * <p>
+ * Writers are invoked on an application executor once the response header has been sent, never on a server I/O
+ * thread, they can then block, e.g. on a database cursor.
+ * Written bytes are sent as HTTP chunks, writes block while the client connection cannot accept more data.
+ * The stream is flushed and closed once the writer returns, throwing makes the server abort the connection.
+ */
+@FunctionalInterface
+public interface BodyWriter
+{
+    /**
+     * Write the body.
+     *
+     * @param output Body output, writes fail with {@link IOException} once the connection is closed
+     *
+     * @throws IOException if something goes wrong
+     */
+    void writeTo( OutputStream output )
+        throws IOException;
+}
@@ -18,6 +18,8 @@ package io.werval.api.outcomes;
 import java.io.InputStream;
 import java.nio.charset.Charset;
 
+import io.werval.api.sse.ServerSentEvents;
+
 /**
  * Builder for Outcomes.
  *
@@ -176,6 +178,44 @@ public interface OutcomeBuilder
      */
     OutcomeBuilder withBody( InputStream body, long length );
 
+    /**
+     * Use a BodyWriter body of undetermined length.
+     * <p>
+     * Content-Length header will NOT be set and chunked Transfer-Encoding used.
+     * <p>
+     * Use a chunk size as configured in <code>werval.http.chunksize</code>
+     *
+     * @param body Body writer, invoked on an application executor
+     *
+     * @return This very OutcomeBuilder instance
+     */
+    OutcomeBuilder withBody( BodyWriter body );
+
+    /**
+     * Use a BodyWriter body of undetermined length.
+     * <p>
+     * Content-Length header will NOT be set and chunked Transfer-Encoding used.
+     *
+     * @param body      Body writer, invoked on an application executor
+     * @param chunkSize Desired HTTP chunk size, written bytes are buffered up to this size unless flushed
+     *
+     * @return This very OutcomeBuilder instance
+     */
+    OutcomeBuilder withBody( BodyWriter body, int chunkSize );
+
+    /**
+     * Use a Server-Sent Events stream body.
+     * <p>
+     * Content-Type is set to {@literal text/event-stream}, Cache-Control to {@literal no-cache} and the connection is
+     * kept open, subscribed to the given broadcaster, until either side closes it.
+     * A {@literal Last-Event-ID} request header, if present, is used to replay missed events.
+     *
+     * @param events Server-Sent Events broadcaster
+     *
+     * @return This very OutcomeBuilder instance
+     */
+    OutcomeBuilder withBody( ServerSentEvents events );
+
     /**
      * @return A new Outcome instance
      */
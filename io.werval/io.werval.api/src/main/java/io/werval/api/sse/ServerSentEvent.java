@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.api.sse;
+
+import static io.werval.util.Charsets.UTF_8;
+import static io.werval.util.IllegalArguments.ensureNotNull;
+
+/**
+ * Server-Sent Event.
+ * <p>
+ * Immutable, see the <a href="http://www.w3.org/TR/eventsource/">EventSource specification</a> for the meaning of
+ * each field.
+ */
+public final class ServerSentEvent
+{
+    /**
+     * Create an unnamed event.
+     *
+     * @param data Data, can span several lines
+     *
+     * @return A new ServerSentEvent
+     */
+    public static ServerSentEvent of( String data )
+    {
+        return new ServerSentEvent( null, null, data, -1 );
+    }
+
+    /**
+     * Create a named event.
+     *
+     * @param name Event name
+     * @param data Data, can span several lines
+     *
+     * @return A new ServerSentEvent
+     */
+    public static ServerSentEvent of( String name, String data )
+    {
+        return new ServerSentEvent( null, name, data, -1 );
+    }
+
+    private final String id;
+    private final String name;
+    private final String data;
+    private final long retry;
+
+    /**
+     * Create a new ServerSentEvent.
+     *
+     * @param id    Event ID, nullable, assigned by the {@link ServerSentEvents} broadcaster if null
+     * @param name  Event name, nullable
+     * @param data  Data, can span several lines
+     * @param retry Reconnection time in milliseconds, negative for none
+     */
+    public ServerSentEvent( String id, String name, String data, long retry )
+    {
+        ensureNotNull( "Data", data );
+        ensureSingleLine( "ID", id );
+        ensureSingleLine( "Name", name );
+        this.id = id;
+        this.name = name;
+        this.data = data;
+        this.retry = retry;
+    }
+
+    /**
+     * @return Event ID, or null
+     */
+    public String id()
+    {
+        return id;
+    }
+
+    /**
+     * @return Event name, or null
+     */
+    public String name()
+    {
+        return name;
+    }
+
+    /**
+     * @return Data
+     */
+    public String data()
+    {
+        return data;
+    }
+
+    /**
+     * @return Reconnection time in milliseconds, negative for none
+     */
+    public long retry()
+    {
+        return retry;
+    }
+
+    /**
+     * @param newId New event ID
+     *
+     * @return A copy of this event with the given ID
+     */
+    public ServerSentEvent withId( String newId )
+    {
+        return new ServerSentEvent( newId, name, data, retry );
+    }
+
+    /**
+     * Encode this event in the {@literal text/event-stream} format.
+     *
+     * @return UTF-8 encoded event, terminated by an empty line
+     */
+    public byte[] encode()
+    {
+        StringBuilder sb = new StringBuilder( data.length() + 32 );
+        if( id != null )
+        {
+            sb.append( "id: " ).append( id ).append( '\n' );
+        }
+        if( name != null )
+        {
+            sb.append( "event: " ).append( name ).append( '\n' );
+        }
+        if( retry >= 0 )
+        {
+            sb.append( "retry: " ).append( retry ).append( '\n' );
+        }
+        for( String line : data.split( "\r\n|\r|\n", -1 ) )
+        {
+            sb.append( "data: " ).append( line ).append( '\n' );
+        }
+        sb.append( '\n' );
+        return sb.toString().getBytes( UTF_8 );
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ServerSentEvent{" + "id=" + id + ", name=" + name + ", data=" + data + ", retry=" + retry + '}';
+    }
+
+    private static void ensureSingleLine( String label, String value )
+    {
+        if( value != null && ( value.indexOf( '\n' ) >= 0 || value.indexOf( '\r' ) >= 0 ) )
+        {
+            throw new IllegalArgumentException( label + " must not contain line breaks." );
+        }
+    }
+}
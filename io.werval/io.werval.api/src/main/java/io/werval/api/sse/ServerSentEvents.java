@@ -0,0 +1,383 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.api.sse;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+import static io.werval.util.Charsets.US_ASCII;
+import static io.werval.util.IllegalArguments.ensureGreaterOrEqual;
+import static io.werval.util.IllegalArguments.ensureNotNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Server-Sent Events broadcaster.
+ * <p>
+ * Return it from a controller using {@link io.werval.api.outcomes.OutcomeBuilder#withBody(ServerSentEvents)}, the
+ * connection is then kept open and subscribed to all events published here.
+ * <p>
+ * Each published event is encoded once, the very same bytes are then handed to all subscribers.
+ * Last {@literal replaySize} events are kept so that reconnecting clients sending a {@literal Last-Event-ID} header
+ * get what they missed.
+ * A comment line is sent as heartbeat when no event has been published for {@literal heartbeatMillis}, keeping
+ * intermediaries from closing idle connections.
+ * Subscribers that stay unable to accept more data for {@literal evictionMillis} are considered too slow and closed.
+ * <p>
+ * Instances are thread-safe and meant to be shared, e.g. held by a Plugin, and {@link #close() closed} when done.
+ */
+public final class ServerSentEvents
+    implements AutoCloseable
+{
+    /**
+     * Server-Sent Events subscriber.
+     * <p>
+     * Implemented by HTTP servers, {@link #send(byte[])} must not block.
+     */
+    public interface Subscriber
+    {
+        /**
+         * @return TRUE if the subscriber can accept more data without buffering, FALSE otherwise
+         */
+        boolean isWritable();
+
+        /**
+         * Send encoded bytes.
+         *
+         * @param frame Encoded bytes, shared among subscribers, must not be modified
+         */
+        void send( byte[] frame );
+
+        /**
+         * Close the subscriber, ending the HTTP response.
+         */
+        void close();
+    }
+
+    /**
+     * Default replay buffer size.
+     */
+    public static final int DEFAULT_REPLAY_SIZE = 64;
+    /**
+     * Default heartbeat interval in milliseconds.
+     */
+    public static final long DEFAULT_HEARTBEAT_MILLIS = 15_000L;
+    /**
+     * Default slow subscribers eviction timeout in milliseconds.
+     */
+    public static final long DEFAULT_EVICTION_MILLIS = 30_000L;
+
+    private static final byte[] HEARTBEAT = ":\n\n".getBytes( US_ASCII );
+
+    private static final class Scheduler
+    {
+        private static final ScheduledExecutorService INSTANCE;
+
+        static
+        {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(
+                1,
+                runnable ->
+                {
+                    Thread thread = new Thread( runnable, "werval-sse-heartbeat" );
+                    thread.setDaemon( true );
+                    return thread;
+                }
+            );
+            executor.setRemoveOnCancelPolicy( true );
+            INSTANCE = executor;
+        }
+    }
+
+    private static final class Published
+    {
+        private final String id;
+        private final byte[] frame;
+
+        private Published( String id, byte[] frame )
+        {
+            this.id = id;
+            this.frame = frame;
+        }
+    }
+
+    private static final class Subscription
+    {
+        private long unwritableSince = -1;
+    }
+
+    private final long heartbeatMillis;
+    private final long evictionMillis;
+    private final Object lock = new Object();
+    private final Published[] replay;
+    private final Map<Subscriber, Subscription> subscribers = new IdentityHashMap<>();
+    private final ScheduledFuture<?> ticker;
+    private int replayHead;
+    private int replayCount;
+    private long sequence;
+    private long lastSentAt;
+    private boolean closed;
+
+    /**
+     * Create a new broadcaster with default settings.
+     */
+    public ServerSentEvents()
+    {
+        this( DEFAULT_REPLAY_SIZE, DEFAULT_HEARTBEAT_MILLIS, DEFAULT_EVICTION_MILLIS );
+    }
+
+    /**
+     * Create a new broadcaster.
+     *
+     * @param replaySize      Number of events kept for replay, 0 to disable
+     * @param heartbeatMillis Heartbeat interval in milliseconds
+     * @param evictionMillis  Slow subscribers eviction timeout in milliseconds
+     */
+    public ServerSentEvents( int replaySize, long heartbeatMillis, long evictionMillis )
+    {
+        ensureGreaterOrEqual( "Replay size", replaySize, 0 );
+        if( heartbeatMillis <= 0 || evictionMillis <= 0 )
+        {
+            throw new IllegalArgumentException( "Heartbeat interval and eviction timeout must be positive." );
+        }
+        this.replay = new Published[ replaySize ];
+        this.heartbeatMillis = heartbeatMillis;
+        this.evictionMillis = evictionMillis;
+        this.lastSentAt = System.currentTimeMillis();
+        long tick = Math.min( heartbeatMillis, evictionMillis );
+        this.ticker = Scheduler.INSTANCE.scheduleWithFixedDelay( this::tick, tick, tick, MILLISECONDS );
+    }
+
+    /**
+     * Subscribe.
+     * <p>
+     * If {@literal lastEventId} is found in the replay buffer, subsequent events are replayed.
+     * If it is unknown, e.g. too old, the whole replay buffer is replayed.
+     *
+     * @param subscriber  Subscriber
+     * @param lastEventId ID of the last event received by a reconnecting client, nullable
+     */
+    public void subscribe( Subscriber subscriber, String lastEventId )
+    {
+        ensureNotNull( "Subscriber", subscriber );
+        synchronized( lock )
+        {
+            if( closed )
+            {
+                subscriber.close();
+                return;
+            }
+            subscribers.put( subscriber, new Subscription() );
+            if( lastEventId != null )
+            {
+                int start = 0;
+                for( int idx = replayCount - 1; idx >= 0; idx-- )
+                {
+                    if( lastEventId.equals( replayed( idx ).id ) )
+                    {
+                        start = idx + 1;
+                        break;
+                    }
+                }
+                for( int idx = start; idx < replayCount; idx++ )
+                {
+                    subscriber.send( replayed( idx ).frame );
+                }
+            }
+        }
+    }
+
+    /**
+     * Unsubscribe.
+     * <p>
+     * Subscriber is not closed.
+     *
+     * @param subscriber Subscriber
+     */
+    public void unsubscribe( Subscriber subscriber )
+    {
+        synchronized( lock )
+        {
+            subscribers.remove( subscriber );
+        }
+    }
+
+    /**
+     * @return Number of current subscribers
+     */
+    public int subscriberCount()
+    {
+        synchronized( lock )
+        {
+            return subscribers.size();
+        }
+    }
+
+    /**
+     * Publish an unnamed event.
+     *
+     * @param data Data
+     *
+     * @return ID of the published event
+     */
+    public String publish( String data )
+    {
+        return publish( ServerSentEvent.of( data ) );
+    }
+
+    /**
+     * Publish an event to all subscribers.
+     * <p>
+     * Events without ID are assigned a sequential one.
+     *
+     * @param event Event
+     *
+     * @return ID of the published event
+     */
+    public String publish( ServerSentEvent event )
+    {
+        ensureNotNull( "Event", event );
+        synchronized( lock )
+        {
+            if( closed )
+            {
+                throw new IllegalStateException( "ServerSentEvents broadcaster is closed" );
+            }
+            ServerSentEvent identified = event.id() == null ? event.withId( String.valueOf( ++sequence ) ) : event;
+            // Encode once
+            Published published = new Published( identified.id(), identified.encode() );
+            if( replay.length > 0 )
+            {
+                replay[( replayHead + replayCount ) % replay.length] = published;
+                if( replayCount < replay.length )
+                {
+                    replayCount++;
+                }
+                else
+                {
+                    replayHead = ( replayHead + 1 ) % replay.length;
+                }
+            }
+            broadcast( published.frame, true );
+            return identified.id();
+        }
+    }
+
+    /**
+     * Close all subscribers and stop heartbeats.
+     */
+    @Override
+    public void close()
+    {
+        ticker.cancel( false );
+        synchronized( lock )
+        {
+            closed = true;
+            for( Subscriber subscriber : subscribers.keySet() )
+            {
+                closeQuietly( subscriber );
+            }
+            subscribers.clear();
+        }
+    }
+
+    private Published replayed( int index )
+    {
+        return replay[( replayHead + index ) % replay.length];
+    }
+
+    private void tick()
+    {
+        synchronized( lock )
+        {
+            boolean heartbeat = System.currentTimeMillis() - lastSentAt >= heartbeatMillis;
+            broadcast( heartbeat ? HEARTBEAT : null, false );
+        }
+    }
+
+    // Must be called while holding the lock
+    private void broadcast( byte[] frame, boolean evenIfUnwritable )
+    {
+        long now = System.currentTimeMillis();
+        List<Subscriber> evicted = null;
+        for( Map.Entry<Subscriber, Subscription> entry : subscribers.entrySet() )
+        {
+            Subscriber subscriber = entry.getKey();
+            Subscription subscription = entry.getValue();
+            boolean writable = subscriber.isWritable();
+            if( writable )
+            {
+                subscription.unwritableSince = -1;
+            }
+            else if( subscription.unwritableSince < 0 )
+            {
+                subscription.unwritableSince = now;
+            }
+            else if( now - subscription.unwritableSince >= evictionMillis )
+            {
+                if( evicted == null )
+                {
+                    evicted = new ArrayList<>();
+                }
+                evicted.add( subscriber );
+                continue;
+            }
+            if( frame != null && ( writable || evenIfUnwritable ) )
+            {
+                try
+                {
+                    subscriber.send( frame );
+                }
+                catch( RuntimeException ex )
+                {
+                    if( evicted == null )
+                    {
+                        evicted = new ArrayList<>();
+                    }
+                    evicted.add( subscriber );
+                }
+            }
+        }
+        if( frame != null )
+        {
+            lastSentAt = now;
+        }
+        if( evicted != null )
+        {
+            for( Subscriber subscriber : evicted )
+            {
+                subscribers.remove( subscriber );
+                closeQuietly( subscriber );
+            }
+        }
+    }
+
+    private static void closeQuietly( Subscriber subscriber )
+    {
+        try
+        {
+            subscriber.close();
+        }
+        catch( RuntimeException ignored )
+        {
+            // Subscriber is gone anyway
+        }
+    }
+}
@@ -21,22 +21,18 @@ import java.lang.annotation.Inherited;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
 import io.werval.api.context.Context;
 import io.werval.api.filters.FilterChain;
 import io.werval.api.filters.FilterWith;
+import io.werval.api.http.MutableHeaders;
 import io.werval.api.outcomes.Outcome;
 import io.werval.util.Dates;
-import io.werval.util.Strings;
 
 import static io.werval.api.http.Headers.Names.ETAG;
 import static io.werval.api.http.Headers.Names.EXPIRES;
-import static io.werval.api.http.Headers.Names.IF_NONE_MATCH;
 
 /**
  * Cached Annotation.
@@ -45,17 +41,26 @@ import static io.werval.api.http.Headers.Names.IF_NONE_MATCH;
  * <p>
  * Leverage both server-side and client-side caching mechanisms:
  * <ul>
- * <li>set the {@literal Expires} and {@literal Etag} headers</li>
+ * <li>set the {@literal Expires} and {@literal Etag} headers ;</li>
  * <li>handle the {@literal If-None-Match} header and return {@literal 304 Not Modified} ;</li>
- * <li>cache the {@link Outcome} in the Application {@link io.werval.api.cache.Cache}.</li>
+ * <li>store responses status, headers and body in the Application {@link io.werval.api.cache.Cache}.</li>
  * </ul>
  * Using {@link #ttl()} you can set how long the data will be cached.
+ * {@literal max-age} and {@literal s-maxage} {@literal Cache-Control} directives set by the controller take
+ * precedence.
  * <p>
  * Using {@link #vary()} you can set the request headers that make the response vary, see the {@literal Vary} header
  * documentation.
+ * Request headers listed in the response {@literal Vary} header are taken into account too.
  * <p>
- * The cache key is generated using the current {@literal Route}, the request parameters and the values of all
- * variable headers declared using {@link #vary()}.
+ * Server-side caching is done by the Runtime, before any filter.
+ * Cache hits are hence served without invoking the filter chain nor the controller.
+ * Only {@literal GET} and {@literal HEAD} requests are cached.
+ * Responses setting cookies or whose {@literal Cache-Control} contains {@literal no-store}, {@literal no-cache} or
+ * {@literal private} are not.
+ * Responses to requests carrying an {@literal Authorization} header are cached only if explicitly marked as shared
+ * using {@literal public}, {@literal s-maxage} or {@literal must-revalidate}.
+ * See the {@literal werval.http.response_cache} configuration for stale responses and concurrent misses handling.
  *
  * @navassoc 1 apply 1 Filter
  */
@@ -78,6 +83,8 @@ public @interface Cached
 
     /**
      * Cached Filter.
+     * <p>
+     * Set the {@literal Expires} and {@literal ETag} headers on responses produced on cache misses.
      */
     public static class Filter
         implements io.werval.api.filters.Filter<Cached>
@@ -85,71 +92,25 @@ public @interface Cached
         @Override
         public CompletableFuture<Outcome> filter( FilterChain chain, Context context, Optional<Cached> annotation )
         {
-            String key = key( context, annotation.get().vary() );
-            String etagKey = key + "-etag";
-
-            Optional<String> requestEtag = context.request().headers().singleValueOptional( IF_NONE_MATCH );
-            String cacheEtag = context.application().cache().get( etagKey );
-            if( requestEtag.isPresent()
-                && ( "*".equals( requestEtag.get() ) || Objects.equals( cacheEtag, requestEtag.get() ) ) )
-            {
-                return CompletableFuture.completedFuture( context.outcomes().notModified().build() );
-            }
-
-            Optional<Object> cached = context.application().cache().getOptional( key );
-            if( cached.isPresent() )
-            {
-                return CompletableFuture.completedFuture( (Outcome) cached.get() );
-            }
-
-            CompletableFuture<Outcome> futureOutcome = chain.next( context );
-
-            return futureOutcome.thenApplyAsync(
+            int ttl = annotation.get().ttl();
+            return chain.next( context ).thenApply(
                 outcome ->
                 {
-                    int ttl = annotation.get().ttl();
-                    String expiration = Dates.HTTP.format(
-                        System.currentTimeMillis() + ( ttl == 0 ? 1000 * 60 * 60 * 24 * 365 : ttl * 1000 )
-                    );
-                    String etag = expiration;
-
-                    outcome.responseHeader().headers().withSingle( EXPIRES, expiration );
-                    outcome.responseHeader().headers().withSingle( ETAG, etag );
-
-                    context.application().cache().set( ttl, key, outcome );
-                    context.application().cache().set( ttl, etagKey, etag );
-
-                    return outcome;
-                },
-                context.executor()
-            );
-        }
-
-        private String key( Context context, String[] vary )
-        {
-            StringBuilder sb = new StringBuilder( context.route().toString() );
-            sb.append( context.request().parameters().toString() );
-            for( String varyHeader : vary )
-            {
-                if( Strings.hasText( varyHeader ) )
-                {
-                    List<String> variables = context.request().headers().values( varyHeader );
-                    if( !variables.isEmpty() )
+                    MutableHeaders headers = outcome.responseHeader().headers();
+                    if( !headers.has( EXPIRES ) )
                     {
-                        sb.append( "_" );
-                        Iterator<String> vit = variables.iterator();
-                        while( vit.hasNext() )
+                        String expiration = Dates.HTTP.format(
+                            System.currentTimeMillis() + ( ttl == 0 ? 1000L * 60 * 60 * 24 * 365 : ttl * 1000L )
+                        );
+                        headers.withSingle( EXPIRES, expiration );
+                        if( !headers.has( ETAG ) )
                         {
-                            sb.append( vit.next() );
-                            if( vit.hasNext() )
-                            {
-                                sb.append( "-" );
-                            }
+                            headers.withSingle( ETAG, expiration );
                         }
                     }
+                    return outcome;
                 }
-            }
-            return context.application().crypto().sha256Base64( sb.toString() );
+            );
         }
     }
 }
@@ -246,6 +246,15 @@ public final class IllegalArguments
         }
     }
 
+    public static void ensureInRange( String name, Long value, Long from, Long to )
+    {
+        ensureNotNull( name, value );
+        if( value < from || value > to )
+        {
+            throw new IllegalArgumentException( name + " was not in range [" + from + "," + to + "]." );
+        }
+    }
+
     public static void ensureGreaterOrEqual( String name, Integer value, Integer lower )
     {
         ensureNotNull( name, value );
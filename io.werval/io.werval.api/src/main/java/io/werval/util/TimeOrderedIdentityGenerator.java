@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.util;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.werval.util.IllegalArguments.ensureInRange;
+
+/**
+ * Time ordered IdentityGenerator.
+ * <p>
+ * Generated identities have the following form: {@literal (PREFIX_)TICK_NODE}.
+ * <p>
+ * {@literal PREFIX} is optional, see {@link #TimeOrderedIdentityGenerator(java.lang.String, long)}.
+ * <p>
+ * {@literal TICK} is a 13 characters Crockford's Base32 encoding of a 64 bits value made of the current time in
+ * milliseconds followed by a 20 bits sequence.
+ * Ticks are strictly monotonic, when more than a million identities are requested in the same millisecond the
+ * sequence overflows into the next millisecond.
+ * <p>
+ * {@literal NODE} is a 8 characters Crockford's Base32 encoding of a 40 bits node identifier.
+ * It is randomly chosen if not given, see {@link #TimeOrderedIdentityGenerator(long)}.
+ * <p>
+ * Generated identities are unique per node and sort lexicographically in generation order.
+ * Generation is lock-free, relying on a single {@link AtomicLong}, and do not consume any entropy.
+ * One instance can then be shared by all threads.
+ */
+public final class TimeOrderedIdentityGenerator
+    implements IdentityGenerator
+{
+    /**
+     * Maximum node identifier value, that is 2^40 - 1.
+     */
+    public static final long MAX_NODE = ( 1L << 40 ) - 1;
+
+    private static final int SEQUENCE_BITS = 20;
+    private static final int TICK_LENGTH = 13;
+    private static final int NODE_LENGTH = 8;
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private final char[] prefix;
+    private final char[] node;
+    private final AtomicLong lastTick = new AtomicLong();
+
+    /**
+     * Create a generator with a random node identifier.
+     */
+    public TimeOrderedIdentityGenerator()
+    {
+        this( Strings.EMPTY, randomNode() );
+    }
+
+    /**
+     * Use this constructor to set the node identifier.
+     *
+     * @param node Node identifier, in the {@literal [0..2^40-1]} range
+     */
+    public TimeOrderedIdentityGenerator( long node )
+    {
+        this( Strings.EMPTY, node );
+    }
+
+    /**
+     * Use this constructor to prefix the identities and set the node identifier.
+     *
+     * @param prefix String to prepend to all generated identities
+     * @param node   Node identifier, in the {@literal [0..2^40-1]} range
+     */
+    public TimeOrderedIdentityGenerator( String prefix, long node )
+    {
+        ensureInRange( "Node", node, 0L, MAX_NODE );
+        this.prefix = Strings.hasText( prefix ) ? ( prefix + "_" ).toCharArray() : new char[ 0 ];
+        this.node = new char[ NODE_LENGTH ];
+        encode( node, this.node, 0, NODE_LENGTH );
+    }
+
+    @Override
+    public String newIdentity()
+    {
+        long tick = nextTick();
+        char[] identity = new char[ prefix.length + TICK_LENGTH + 1 + NODE_LENGTH ];
+        System.arraycopy( prefix, 0, identity, 0, prefix.length );
+        encode( tick, identity, prefix.length, TICK_LENGTH );
+        identity[prefix.length + TICK_LENGTH] = '_';
+        System.arraycopy( node, 0, identity, prefix.length + TICK_LENGTH + 1, NODE_LENGTH );
+        return new String( identity );
+    }
+
+    private long nextTick()
+    {
+        long now = System.currentTimeMillis() << SEQUENCE_BITS;
+        return lastTick.updateAndGet( last -> now > last ? now : last + 1 );
+    }
+
+    private static void encode( long value, char[] target, int offset, int length )
+    {
+        long remaining = value;
+        for( int idx = offset + length - 1; idx >= offset; idx-- )
+        {
+            target[idx] = ALPHABET[(int) ( remaining & 31 )];
+            remaining >>>= 5;
+        }
+    }
+
+    private static long randomNode()
+    {
+        return new SecureRandom().nextLong() & MAX_NODE;
+    }
+}
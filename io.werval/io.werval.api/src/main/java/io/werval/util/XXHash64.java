@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.util;
+
+import static io.werval.util.IllegalArguments.ensureNotNull;
+
+/**
+ * xxHash64, a fast non-cryptographic hash function.
+ * <p>
+ * See <a href="https://github.com/Cyan4973/xxHash">xxHash</a>.
+ * Hashes computed by this class are compatible with the reference implementation.
+ * <p>
+ * Do not use this for security purposes, use {@link io.werval.api.Crypto} instead.
+ */
+public final class XXHash64
+{
+    private static final long PRIME64_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME64_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME64_3 = 0x165667B19E3779F9L;
+    private static final long PRIME64_4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME64_5 = 0x27D4EB2F165667C5L;
+
+    /**
+     * Hash bytes with a zero seed.
+     *
+     * @param bytes Bytes
+     *
+     * @return 64 bits hash
+     */
+    public static long hash( byte[] bytes )
+    {
+        ensureNotNull( "Bytes", bytes );
+        return hash( bytes, 0, bytes.length, 0 );
+    }
+
+    /**
+     * Hash a region of bytes.
+     *
+     * @param bytes  Bytes
+     * @param offset Region offset
+     * @param length Region length
+     * @param seed   Seed
+     *
+     * @return 64 bits hash
+     */
+    public static long hash( byte[] bytes, int offset, int length, long seed )
+    {
+        ensureNotNull( "Bytes", bytes );
+        if( offset < 0 || length < 0 || offset + length > bytes.length )
+        {
+            throw new IndexOutOfBoundsException( "Invalid region " + offset + "+" + length + " of " + bytes.length );
+        }
+        int idx = offset;
+        int end = offset + length;
+        long hash;
+        if( length >= 32 )
+        {
+            int limit = end - 32;
+            long v1 = seed + PRIME64_1 + PRIME64_2;
+            long v2 = seed + PRIME64_2;
+            long v3 = seed;
+            long v4 = seed - PRIME64_1;
+            do
+            {
+                v1 = round( v1, readLong( bytes, idx ) );
+                v2 = round( v2, readLong( bytes, idx + 8 ) );
+                v3 = round( v3, readLong( bytes, idx + 16 ) );
+                v4 = round( v4, readLong( bytes, idx + 24 ) );
+                idx += 32;
+            }
+            while( idx <= limit );
+            hash = Long.rotateLeft( v1, 1 ) + Long.rotateLeft( v2, 7 )
+                   + Long.rotateLeft( v3, 12 ) + Long.rotateLeft( v4, 18 );
+            hash = mergeRound( hash, v1 );
+            hash = mergeRound( hash, v2 );
+            hash = mergeRound( hash, v3 );
+            hash = mergeRound( hash, v4 );
+        }
+        else
+        {
+            hash = seed + PRIME64_5;
+        }
+        hash += length;
+        while( idx + 8 <= end )
+        {
+            hash ^= round( 0, readLong( bytes, idx ) );
+            hash = Long.rotateLeft( hash, 27 ) * PRIME64_1 + PRIME64_4;
+            idx += 8;
+        }
+        if( idx + 4 <= end )
+        {
+            hash ^= ( readInt( bytes, idx ) & 0xFFFFFFFFL ) * PRIME64_1;
+            hash = Long.rotateLeft( hash, 23 ) * PRIME64_2 + PRIME64_3;
+            idx += 4;
+        }
+        while( idx < end )
+        {
+            hash ^= ( bytes[idx] & 0xFFL ) * PRIME64_5;
+            hash = Long.rotateLeft( hash, 11 ) * PRIME64_1;
+            idx++;
+        }
+        hash ^= hash >>> 33;
+        hash *= PRIME64_2;
+        hash ^= hash >>> 29;
+        hash *= PRIME64_3;
+        hash ^= hash >>> 32;
+        return hash;
+    }
+
+    private static long round( long acc, long input )
+    {
+        return Long.rotateLeft( acc + input * PRIME64_2, 31 ) * PRIME64_1;
+    }
+
+    private static long mergeRound( long acc, long value )
+    {
+        return ( acc ^ round( 0, value ) ) * PRIME64_1 + PRIME64_4;
+    }
+
+    private static long readLong( byte[] bytes, int idx )
+    {
+        return ( bytes[idx] & 0xFFL )
+               | ( bytes[idx + 1] & 0xFFL ) << 8
+               | ( bytes[idx + 2] & 0xFFL ) << 16
+               | ( bytes[idx + 3] & 0xFFL ) << 24
+               | ( bytes[idx + 4] & 0xFFL ) << 32
+               | ( bytes[idx + 5] & 0xFFL ) << 40
+               | ( bytes[idx + 6] & 0xFFL ) << 48
+               | ( bytes[idx + 7] & 0xFFL ) << 56;
+    }
+
+    private static int readInt( byte[] bytes, int idx )
+    {
+        return ( bytes[idx] & 0xFF )
+               | ( bytes[idx + 1] & 0xFF ) << 8
+               | ( bytes[idx + 2] & 0xFF ) << 16
+               | ( bytes[idx + 3] & 0xFF ) << 24;
+    }
+
+    private XXHash64()
+    {
+    }
+}
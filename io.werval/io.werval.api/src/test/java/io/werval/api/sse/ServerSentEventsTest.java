@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.api.sse;
+
+import java.io.ByteArrayOutputStream;
+
+import org.junit.Test;
+
+import static io.werval.util.Charsets.UTF_8;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * ServerSentEvents Test.
+ */
+public class ServerSentEventsTest
+{
+    private static final class RecordingSubscriber
+        implements ServerSentEvents.Subscriber
+    {
+        private final ByteArrayOutputStream received = new ByteArrayOutputStream();
+        private volatile boolean writable = true;
+        private volatile boolean closed;
+        private byte[] lastFrame;
+
+        @Override
+        public boolean isWritable()
+        {
+            return writable;
+        }
+
+        @Override
+        public synchronized void send( byte[] frame )
+        {
+            lastFrame = frame;
+            received.write( frame, 0, frame.length );
+        }
+
+        @Override
+        public void close()
+        {
+            closed = true;
+        }
+
+        private synchronized String received()
+        {
+            return new String( received.toByteArray(), UTF_8 );
+        }
+    }
+
+    @Test
+    public void encoding()
+    {
+        assertThat(
+            new String( new ServerSentEvent( "42", "update", "first\nsecond", 1000 ).encode(), UTF_8 ),
+            equalTo( "id: 42\nevent: update\nretry: 1000\ndata: first\ndata: second\n\n" )
+        );
+    }
+
+    @Test
+    public void sameFrameToAllSubscribers()
+    {
+        try( ServerSentEvents events = new ServerSentEvents() )
+        {
+            RecordingSubscriber left = new RecordingSubscriber();
+            RecordingSubscriber right = new RecordingSubscriber();
+            events.subscribe( left, null );
+            events.subscribe( right, null );
+            assertThat( events.publish( "hello" ), equalTo( "1" ) );
+            assertThat( left.received(), equalTo( "id: 1\ndata: hello\n\n" ) );
+            assertThat( right.lastFrame, sameInstance( left.lastFrame ) );
+        }
+    }
+
+    @Test
+    public void replayFromLastEventId()
+    {
+        try( ServerSentEvents events = new ServerSentEvents( 3, 60_000, 60_000 ) )
+        {
+            for( int idx = 1; idx <= 5; idx++ )
+            {
+                events.publish( "event-" + idx );
+            }
+            RecordingSubscriber resuming = new RecordingSubscriber();
+            events.subscribe( resuming, "4" );
+            assertThat( resuming.received(), equalTo( "id: 5\ndata: event-5\n\n" ) );
+
+            RecordingSubscriber tooOld = new RecordingSubscriber();
+            events.subscribe( tooOld, "1" );
+            assertThat(
+                tooOld.received(),
+                equalTo( "id: 3\ndata: event-3\n\nid: 4\ndata: event-4\n\nid: 5\ndata: event-5\n\n" )
+            );
+
+            RecordingSubscriber fresh = new RecordingSubscriber();
+            events.subscribe( fresh, null );
+            assertThat( fresh.received(), equalTo( "" ) );
+        }
+    }
+
+    @Test
+    public void heartbeat()
+        throws InterruptedException
+    {
+        try( ServerSentEvents events = new ServerSentEvents( 0, 50, 60_000 ) )
+        {
+            RecordingSubscriber subscriber = new RecordingSubscriber();
+            events.subscribe( subscriber, null );
+            Thread.sleep( 300 );
+            assertThat( subscriber.received().startsWith( ":\n\n" ), is( true ) );
+        }
+    }
+
+    @Test
+    public void slowSubscribersEviction()
+        throws InterruptedException
+    {
+        try( ServerSentEvents events = new ServerSentEvents( 0, 60_000, 100 ) )
+        {
+            RecordingSubscriber fast = new RecordingSubscriber();
+            RecordingSubscriber slow = new RecordingSubscriber();
+            events.subscribe( fast, null );
+            events.subscribe( slow, null );
+            slow.writable = false;
+            events.publish( "first" );
+            Thread.sleep( 500 );
+            assertThat( slow.closed, is( true ) );
+            assertThat( fast.closed, is( false ) );
+            assertThat( events.subscriberCount(), is( 1 ) );
+        }
+    }
+
+    @Test
+    public void closeClosesSubscribers()
+    {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        ServerSentEvents events = new ServerSentEvents();
+        events.subscribe( subscriber, null );
+        events.close();
+        assertThat( subscriber.closed, is( true ) );
+        assertThat( events.subscriberCount(), is( 0 ) );
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertThat;
+
+/**
+ * TimeOrderedIdentityGenerator Test.
+ */
+public class TimeOrderedIdentityGeneratorTest
+{
+    @Test
+    public void form()
+    {
+        IdentityGenerator idGen = new TimeOrderedIdentityGenerator( 0 );
+        String identity = idGen.newIdentity();
+        assertThat( identity.length(), is( 13 + 1 + 8 ) );
+        assertThat( identity, endsWith( "_00000000" ) );
+    }
+
+    @Test
+    public void prefix()
+    {
+        String prefix = "prefix";
+        IdentityGenerator idGen = new TimeOrderedIdentityGenerator( prefix, TimeOrderedIdentityGenerator.MAX_NODE );
+        String identity = idGen.newIdentity();
+        assertThat( identity, startsWith( "prefix_" ) );
+        assertThat( identity, endsWith( "_ZZZZZZZZ" ) );
+        assertThat( identity.length(), is( prefix.length() + 1 + 13 + 1 + 8 ) );
+    }
+
+    @Test
+    public void randomNodes()
+    {
+        String left = new TimeOrderedIdentityGenerator().newIdentity();
+        String right = new TimeOrderedIdentityGenerator().newIdentity();
+        assertThat( left.substring( 14 ), not( right.substring( 14 ) ) );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void invalidNode()
+    {
+        new TimeOrderedIdentityGenerator( TimeOrderedIdentityGenerator.MAX_NODE + 1 );
+    }
+
+    @Test
+    public void ordered()
+    {
+        IdentityGenerator idGen = new TimeOrderedIdentityGenerator( 42 );
+        String previous = idGen.newIdentity();
+        for( int idx = 0; idx < 100_000; idx++ )
+        {
+            String identity = idGen.newIdentity();
+            assertThat( identity.compareTo( previous ), greaterThan( 0 ) );
+            previous = identity;
+        }
+    }
+
+    @Test
+    public void concurrentUniqueness()
+        throws InterruptedException
+    {
+        int threadCount = 8;
+        int perThread = 50_000;
+        IdentityGenerator idGen = new TimeOrderedIdentityGenerator( 42 );
+        Set<String> identities = Collections.newSetFromMap( new ConcurrentHashMap<>() );
+        CountDownLatch start = new CountDownLatch( 1 );
+        List<Thread> threads = new ArrayList<>();
+        for( int t = 0; t < threadCount; t++ )
+        {
+            Thread thread = new Thread(
+                () ->
+                {
+                    try
+                    {
+                        start.await();
+                    }
+                    catch( InterruptedException ex )
+                    {
+                        throw new RuntimeException( ex );
+                    }
+                    for( int idx = 0; idx < perThread; idx++ )
+                    {
+                        identities.add( idGen.newIdentity() );
+                    }
+                }
+            );
+            thread.start();
+            threads.add( thread );
+        }
+        start.countDown();
+        for( Thread thread : threads )
+        {
+            thread.join();
+        }
+        assertThat( identities.size(), is( threadCount * perThread ) );
+    }
+}
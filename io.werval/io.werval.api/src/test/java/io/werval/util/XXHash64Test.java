@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.util;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import static io.werval.util.Charsets.UTF_8;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+/**
+ * XXHash64 Test.
+ */
+public class XXHash64Test
+{
+    @Test
+    public void referenceVectors()
+    {
+        assertThat( XXHash64.hash( new byte[ 0 ] ), is( 0xEF46DB3751D8E999L ) );
+        assertThat( XXHash64.hash( "a".getBytes( UTF_8 ) ), is( 0xD24EC4F1A98C6E5BL ) );
+        assertThat( XXHash64.hash( "abc".getBytes( UTF_8 ) ), is( 0x44BC2CF5AD770999L ) );
+        assertThat(
+            XXHash64.hash( "Nobody inspects the spammish repetition".getBytes( UTF_8 ) ),
+            is( 0xFBCEA83C8A378BF1L )
+        );
+    }
+
+    @Test
+    public void regions()
+    {
+        byte[] bytes = new byte[ 1024 ];
+        for( int idx = 0; idx < bytes.length; idx++ )
+        {
+            bytes[idx] = (byte) ( idx * 31 );
+        }
+        for( int length = 0; length < 100; length++ )
+        {
+            assertThat(
+                XXHash64.hash( bytes, 17, length, 0 ),
+                is( XXHash64.hash( Arrays.copyOfRange( bytes, 17, 17 + length ) ) )
+            );
+        }
+        assertThat( XXHash64.hash( bytes, 0, bytes.length, 42 ), not( XXHash64.hash( bytes ) ) );
+    }
+
+    @Test( expected = IndexOutOfBoundsException.class )
+    public void invalidRegion()
+    {
+        XXHash64.hash( new byte[ 8 ], 4, 8, 0 );
+    }
+}
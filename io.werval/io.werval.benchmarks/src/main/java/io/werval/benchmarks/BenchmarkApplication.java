@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.benchmarks;
+
+import java.util.Map;
+
+import io.werval.api.Mode;
+import io.werval.api.http.Request;
+import io.werval.runtime.ApplicationInstance;
+import io.werval.runtime.ConfigInstance;
+import io.werval.runtime.http.SessionInstance;
+import io.werval.runtime.routes.RoutesParserProvider;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+
+import static io.werval.api.http.Headers.Names.COOKIE;
+import static io.werval.api.http.ProtocolVersion.HTTP_1_1;
+import static io.werval.runtime.ConfigKeys.APP_SESSION_COOKIE_NAME;
+
+/**
+ * Benchmark Application.
+ * <p>
+ * Activated once per trial in production mode, without any HTTP server, using the {@literal benchmarks.conf}
+ * configuration and a realistic set of routes to {@link BenchmarkController}, the benchmarked ones being the last.
+ */
+@State( Scope.Benchmark )
+public class BenchmarkApplication
+{
+    /* package */ static final String ROUTES;
+
+    static
+    {
+        String controller = BenchmarkController.class.getName();
+        StringBuilder routes = new StringBuilder();
+        for( String resource : new String[]
+        {
+            "users", "groups", "orders", "products", "invoices"
+        } )
+        {
+            routes.append( "GET /" ).append( resource ).append( ' ' ).append( controller ).append( ".index\n" );
+            routes.append( "POST /" ).append( resource ).append( ' ' ).append( controller ).append( ".index\n" );
+            routes.append( "GET /" ).append( resource ).append( "/:id " ).append( controller )
+                .append( ".item( String id, Integer page ?= '1' )\n" );
+            routes.append( "DELETE /" ).append( resource ).append( "/:id " ).append( controller )
+                .append( ".item( String id, Integer page ?= '1' )\n" );
+        }
+        routes.append( "GET / " ).append( controller ).append( ".index\n" );
+        routes.append( "GET /items/:id " ).append( controller ).append( ".item( String id, Integer page ?= '1' )\n" );
+        routes.append( "GET /filtered " ).append( controller ).append( ".filtered\n" );
+        routes.append( "GET /session " ).append( controller ).append( ".visit\n" );
+        ROUTES = routes.toString();
+    }
+
+    /* package */ ApplicationInstance application;
+    /* package */ String sessionCookieHeader;
+
+    @Setup( Level.Trial )
+    public void activate()
+    {
+        ClassLoader loader = BenchmarkApplication.class.getClassLoader();
+        application = new ApplicationInstance(
+            Mode.PROD,
+            new ConfigInstance( loader, "benchmarks.conf" ),
+            loader,
+            new RoutesParserProvider( ROUTES )
+        );
+        application.activate();
+        Map<String, String> session = singletonMap( "user", "42" );
+        sessionCookieHeader = application.config().string( APP_SESSION_COOKIE_NAME ) + "="
+                              + new SessionInstance( application.config(), application.crypto(), session )
+                                  .signedCookie().value();
+    }
+
+    @TearDown( Level.Trial )
+    public void passivate()
+    {
+        application.passivate();
+    }
+
+    /**
+     * Build a synthetic GET request, as the HTTP server would.
+     *
+     * @param uri         Request URI
+     * @param withSession Send a signed session cookie if {@literal true}
+     *
+     * @return Request
+     */
+    /* package */ Request get( String uri, boolean withSession )
+    {
+        return application.httpBuilders().newRequestBuilder()
+            .identifiedBy( "benchmark" )
+            .remoteSocketAddress( "127.0.0.1" )
+            .version( HTTP_1_1 )
+            .get( uri )
+            .headers(
+                withSession
+                ? singletonMap( COOKIE, singletonList( sessionCookieHeader ) )
+                : emptyMap()
+            )
+            .build();
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.benchmarks;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import io.werval.api.context.Context;
+import io.werval.api.filters.Filter;
+import io.werval.api.filters.FilterChain;
+import io.werval.api.filters.FilterWith;
+import io.werval.api.outcomes.Outcome;
+
+import static io.werval.api.context.CurrentContext.outcomes;
+import static io.werval.api.context.CurrentContext.session;
+
+/**
+ * Benchmark Controller.
+ */
+public class BenchmarkController
+{
+    /**
+     * Pass-through Filter.
+     */
+    public static class Noop
+        implements Filter<Void>
+    {
+        @Override
+        public CompletableFuture<Outcome> filter( FilterChain chain, Context context, Optional<Void> annotation )
+        {
+            return chain.next( context );
+        }
+    }
+
+    /**
+     * Header setting Filter.
+     */
+    public static class Header
+        implements Filter<Void>
+    {
+        @Override
+        public CompletableFuture<Outcome> filter( FilterChain chain, Context context, Optional<Void> annotation )
+        {
+            return chain.next( context ).thenApply(
+                outcome ->
+                {
+                    outcome.responseHeader().headers().with( "X-Benchmark", "yes" );
+                    return outcome;
+                }
+            );
+        }
+    }
+
+    public Outcome index()
+    {
+        return outcomes().ok( "Hello Werval!" ).build();
+    }
+
+    public Outcome item( String id, Integer page )
+    {
+        return outcomes().ok( "{\"id\":\"" + id + "\",\"page\":" + page + "}" ).asJson().build();
+    }
+
+    @FilterWith( { Noop.class, Header.class, Noop.class } )
+    public Outcome filtered()
+    {
+        return outcomes().ok( "Filtered" ).build();
+    }
+
+    public Outcome visit()
+    {
+        int visits = Integer.parseInt( session().get( "visits" ).orElse( "0" ) ) + 1;
+        session().set( "visits", String.valueOf( visits ) );
+        return outcomes().ok( "Hello " + session().get( "user" ).orElse( "stranger" ) ).build();
+    }
+}
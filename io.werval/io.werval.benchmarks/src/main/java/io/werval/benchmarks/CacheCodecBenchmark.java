@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.benchmarks;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.werval.spi.cache.CacheCodec;
+import io.werval.spi.cache.CompressingCacheCodec;
+import io.werval.spi.cache.PassthroughCacheCodec;
+import io.werval.spi.cache.SerializationCacheCodec;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cache values codecs benchmark.
+ * <p>
+ * {@literal serialization} is what remote caches did before codecs were configurable.
+ * {@literal smile} and {@literal cbor} mimic the JSON module Jackson codecs with a plain {@link ObjectMapper}.
+ * <p>
+ * The {@literal encode} benchmark also reports an {@literal encodedBytes} auxiliary counter.
+ * In average time mode JMH reports it as time per encoded byte, the encoded payload size is the ratio of the
+ * {@literal encode} score to the {@literal encode:encodedBytes} one.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class CacheCodecBenchmark
+{
+    /**
+     * Encoded and decoded value, a typical small domain object.
+     */
+    public static class Payload
+        implements Serializable
+    {
+        public String name;
+        public List<String> tags;
+        public long[] counts;
+    }
+
+    /**
+     * Encoded bytes, reported by JMH as an auxiliary counter.
+     */
+    @AuxCounters
+    @State( Scope.Thread )
+    public static class EncodedSize
+    {
+        public long encodedBytes;
+
+        @Setup( Level.Iteration )
+        public void reset()
+        {
+            encodedBytes = 0;
+        }
+    }
+
+    @Param( { "serialization", "compressed-serialization", "smile", "compressed-smile", "cbor" } )
+    public String codecName;
+
+    @Param( { "string", "small", "large" } )
+    public String payloadName;
+
+    private CacheCodec codec;
+    private Object payload;
+    private byte[] encoded;
+
+    @Setup
+    public void setup()
+    {
+        codec = codec( codecName );
+        payload = payload( payloadName );
+        encoded = codec.encode( payload );
+    }
+
+    @Benchmark
+    public byte[] encode( EncodedSize size )
+    {
+        byte[] bytes = codec.encode( payload );
+        size.encodedBytes += bytes.length;
+        return bytes;
+    }
+
+    @Benchmark
+    public Object decode()
+    {
+        return codec.decode( encoded );
+    }
+
+    private static CacheCodec codec( String name )
+    {
+        switch( name )
+        {
+            case "serialization":
+                return new SerializationCacheCodec();
+            case "compressed-serialization":
+                return new CompressingCacheCodec( new PassthroughCacheCodec( new SerializationCacheCodec() ), 4096 );
+            case "smile":
+                return new JacksonCodec( new SmileFactory() );
+            case "compressed-smile":
+                return new CompressingCacheCodec(
+                    new PassthroughCacheCodec( new JacksonCodec( new SmileFactory() ) ),
+                    4096
+                );
+            case "cbor":
+                return new JacksonCodec( new CBORFactory() );
+            default:
+                throw new IllegalArgumentException( "Unknown codec: " + name );
+        }
+    }
+
+    private static Object payload( String name )
+    {
+        switch( name )
+        {
+            case "string":
+                return "Werval cache value, a short string as often stored in caches";
+            case "small":
+                return payload( 8 );
+            case "large":
+                return payload( 512 );
+            default:
+                throw new IllegalArgumentException( "Unknown payload: " + name );
+        }
+    }
+
+    private static Payload payload( int size )
+    {
+        Payload payload = new Payload();
+        payload.name = "payload-" + size;
+        payload.tags = new ArrayList<>( size );
+        payload.counts = new long[ size ];
+        for( int idx = 0; idx < size; idx++ )
+        {
+            payload.tags.add( "tag-" + idx );
+            payload.counts[idx] = idx * 31L;
+        }
+        return payload;
+    }
+
+    private static final class JacksonCodec
+        implements CacheCodec
+    {
+        private final ObjectMapper mapper;
+
+        private JacksonCodec( JsonFactory factory )
+        {
+            this.mapper = new ObjectMapper( factory );
+        }
+
+        @Override
+        public byte[] encode( Object value )
+        {
+            try
+            {
+                byte[] className = value.getClass().getName().getBytes( "UTF-8" );
+                byte[] body = mapper.writeValueAsBytes( value );
+                byte[] bytes = new byte[ 1 + className.length + body.length ];
+                bytes[0] = (byte) className.length;
+                System.arraycopy( className, 0, bytes, 1, className.length );
+                System.arraycopy( body, 0, bytes, 1 + className.length, body.length );
+                return bytes;
+            }
+            catch( IOException ex )
+            {
+                throw new UncheckedIOException( ex );
+            }
+        }
+
+        @Override
+        public <T> T decode( byte[] bytes )
+        {
+            try
+            {
+                int classNameLength = bytes[0];
+                Class<?> type = Class.forName( new String( bytes, 1, classNameLength, "UTF-8" ) );
+                int offset = 1 + classNameLength;
+                return (T) mapper.readValue( bytes, offset, bytes.length - offset, type );
+            }
+            catch( IOException ex )
+            {
+                throw new UncheckedIOException( ex );
+            }
+            catch( ClassNotFoundException ex )
+            {
+                throw new IllegalStateException( ex );
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import io.werval.api.context.Context;
+import io.werval.api.filters.FilterChain;
+import io.werval.api.http.Request;
+import io.werval.runtime.ApplicationInstance;
+import io.werval.runtime.context.ContextInstance;
+import io.werval.runtime.filters.FilterChainFactory;
+import io.werval.runtime.http.ResponseHeaderInstance;
+import io.werval.runtime.http.SessionInstance;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * FilterChain building benchmark.
+ * <p>
+ * {@literal /} has no filters, {@literal /filtered} has three.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class FilterChainBenchmark
+{
+    @Param( { "/", "/filtered" } )
+    public String uri;
+
+    private final FilterChainFactory factory = new FilterChainFactory();
+    private ApplicationInstance application;
+    private Context context;
+
+    @Setup
+    public void setup( BenchmarkApplication app )
+    {
+        application = app.application;
+        Request request = app.get( uri, false );
+        context = new ContextInstance(
+            application,
+            new SessionInstance( application.config(), application.crypto() ),
+            application.routes().route( request ),
+            request,
+            new ResponseHeaderInstance( request.version() ),
+            application.executors().defaultExecutor()
+        );
+    }
+
+    @Benchmark
+    public FilterChain buildFilterChain()
+    {
+        return factory.buildFilterChain( application, application.global(), context );
+    }
+}
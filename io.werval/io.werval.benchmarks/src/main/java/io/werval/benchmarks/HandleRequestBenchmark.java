@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.benchmarks;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import io.werval.api.outcomes.Outcome;
+import io.werval.runtime.ApplicationInstance;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Request handling benchmark.
+ * <p>
+ * Synthetic requests are built as the HTTP server would and handed to the Application, without any socket.
+ * This covers routing, parameters binding, session, filters, controller invocation and outcome finalization.
+ * <p>
+ * Outcomes bodies are not written anywhere.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class HandleRequestBenchmark
+{
+    @Param( { "/", "/items/42?page=2", "/filtered", "/session" } )
+    public String uri;
+
+    private BenchmarkApplication app;
+    private ApplicationInstance application;
+    private boolean withSession;
+
+    @Setup
+    public void setup( BenchmarkApplication app )
+    {
+        this.app = app;
+        this.application = app.application;
+        this.withSession = "/session".equals( uri );
+    }
+
+    @Benchmark
+    public Outcome handleRequest()
+        throws InterruptedException, ExecutionException
+    {
+        Outcome outcome = application.handleRequest( app.get( uri, withSession ) ).get();
+        if( outcome.responseHeader().status().code() != 200 )
+        {
+            throw new IllegalStateException( uri + " answered " + outcome.responseHeader().status() );
+        }
+        return outcome;
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.benchmarks;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import io.werval.api.Config;
+import io.werval.api.Crypto;
+import io.werval.api.http.Cookies.Cookie;
+import io.werval.api.http.Headers;
+import io.werval.api.http.QueryString;
+import io.werval.api.http.Session;
+import io.werval.runtime.exceptions.BadRequestException;
+import io.werval.runtime.http.HeadersInstance;
+import io.werval.runtime.http.SessionInstance;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static java.util.Collections.singletonList;
+
+import static io.werval.util.Charsets.UTF_8;
+
+/**
+ * HTTP request parsing benchmark.
+ * <p>
+ * Query string decoding, headers construction from what a browser typically sends, session cookie parsing and
+ * signing.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class HttpParsingBenchmark
+{
+    private static final String URI = "/search/results?q=werval+framework&lang=en&page=2&sort=date&tag=a&tag=b";
+
+    private final Map<String, List<String>> browserHeaders = new LinkedHashMap<>();
+    private Config config;
+    private Crypto crypto;
+    private Optional<Cookie> sessionCookie;
+    private Session session;
+
+    @Setup
+    public void setup( BenchmarkApplication app )
+    {
+        browserHeaders.put( "Host", singletonList( "localhost:23023" ) );
+        browserHeaders.put( "Connection", singletonList( "keep-alive" ) );
+        browserHeaders.put(
+            "Accept",
+            singletonList( "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8" )
+        );
+        browserHeaders.put(
+            "User-Agent",
+            singletonList( "Mozilla/5.0 (X11; Linux x86_64; rv:32.0) Gecko/20100101 Firefox/32.0" )
+        );
+        browserHeaders.put( "Accept-Encoding", singletonList( "gzip, deflate" ) );
+        browserHeaders.put( "Accept-Language", singletonList( "en-US,en;q=0.8,fr;q=0.6" ) );
+        browserHeaders.put( "Cookie", Arrays.asList( "werval_session=abc", "_ga=GA1.1.1234567890.1234567890" ) );
+        browserHeaders.put( "If-None-Match", singletonList( "\"0123456789abcdef\"" ) );
+        config = app.application.config();
+        crypto = app.application.crypto();
+        Map<String, String> values = new LinkedHashMap<>();
+        values.put( "user", "42" );
+        values.put( "lang", "en" );
+        values.put( "cart", "0b5ea5b8-2d33-4e3a-9a55-0f3fb2a1d6c7" );
+        session = new SessionInstance( config, crypto, values );
+        sessionCookie = Optional.of( session.signedCookie() );
+    }
+
+    @Benchmark
+    public Map<String, List<String>> decodeQueryString()
+    {
+        return new QueryString.Decoder( URI, UTF_8 ).parameters();
+    }
+
+    @Benchmark
+    public Headers buildHeaders()
+    {
+        return new HeadersInstance( browserHeaders, BadRequestException.BUILDER );
+    }
+
+    @Benchmark
+    public Session parseSession()
+    {
+        return new SessionInstance( config, crypto, sessionCookie );
+    }
+
+    @Benchmark
+    public Cookie signSession()
+    {
+        return session.signedCookie();
+    }
+}
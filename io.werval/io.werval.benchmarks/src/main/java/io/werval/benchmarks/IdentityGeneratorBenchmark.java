@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import io.werval.spi.server.HttpServerHelper;
+import io.werval.util.IdentityGenerator;
+import io.werval.util.TimeOrderedIdentityGenerator;
+import io.werval.util.UUIDIdentityGenerator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Request identity generation benchmark.
+ * <p>
+ * {@literal perConnection} mimics what happened before request identity generators were shared server-wide,
+ * that is one {@link UUIDIdentityGenerator} per connection, hence a {@literal SecureRandom} based UUID per
+ * connection.
+ * <p>
+ * Others measure generators shared by all connections, with several threads contending.
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@Threads( 4 )
+@State( Scope.Benchmark )
+public class IdentityGeneratorBenchmark
+{
+    private final IdentityGenerator sharedUuid = new UUIDIdentityGenerator();
+    private final IdentityGenerator sharedTimeOrdered = new TimeOrderedIdentityGenerator();
+
+    @Benchmark
+    public String perConnection()
+    {
+        return new HttpServerHelper().generateNewRequestIdentity();
+    }
+
+    @Benchmark
+    public String sharedUuid()
+    {
+        return sharedUuid.newIdentity();
+    }
+
+    @Benchmark
+    public String sharedTimeOrdered()
+    {
+        return sharedTimeOrdered.newIdentity();
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import io.werval.api.Config;
+import io.werval.api.mime.MimeTypes;
+import io.werval.api.outcomes.Outcome;
+import io.werval.runtime.http.ResponseHeaderInstance;
+import io.werval.runtime.outcomes.OutcomesInstance;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static io.werval.api.http.ProtocolVersion.HTTP_1_1;
+
+/**
+ * Outcome building benchmark.
+ * <p>
+ * Each invocation creates the response header and outcomes factory, as done for each request.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class OutcomeBenchmark
+{
+    private static final byte[] BYTES = new byte[ 4096 ];
+
+    private Config config;
+    private MimeTypes mimeTypes;
+
+    @Setup
+    public void setup( BenchmarkApplication app )
+    {
+        config = app.application.config();
+        mimeTypes = app.application.mimeTypes();
+    }
+
+    @Benchmark
+    public Outcome text()
+    {
+        return outcomes().ok( "Hello Werval!" ).build();
+    }
+
+    @Benchmark
+    public Outcome json()
+    {
+        return outcomes().ok( "{\"id\":\"42\",\"page\":2}" ).asJson().withHeader( "Cache-Control", "no-cache" ).build();
+    }
+
+    @Benchmark
+    public Outcome bytes()
+    {
+        return outcomes().ok( BYTES ).as( "application/octet-stream" ).build();
+    }
+
+    @Benchmark
+    public Outcome notFound()
+    {
+        return outcomes().notFound().build();
+    }
+
+    private OutcomesInstance outcomes()
+    {
+        return new OutcomesInstance( config, mimeTypes, new ResponseHeaderInstance( HTTP_1_1 ) );
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.benchmarks;
+
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import io.werval.api.routes.ParameterBinders;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ParameterBinders benchmark.
+ * <p>
+ * Binders are looked up by type in registration order, {@literal Integer} is among the first ones,
+ * {@literal UUID} in the middle and {@literal LocalDate} among the last ones.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class ParameterBindersBenchmark
+{
+    private ParameterBinders parameterBinders;
+
+    @Setup
+    public void setup( BenchmarkApplication app )
+    {
+        parameterBinders = app.application.parameterBinders();
+    }
+
+    @Benchmark
+    public Integer bindInteger()
+    {
+        return parameterBinders.bind( Integer.class, "page", "42" );
+    }
+
+    @Benchmark
+    public UUID bindUUID()
+    {
+        return parameterBinders.bind( UUID.class, "id", "0b5ea5b8-2d33-4e3a-9a55-0f3fb2a1d6c7" );
+    }
+
+    @Benchmark
+    public LocalDate bindLocalDate()
+    {
+        return parameterBinders.bind( LocalDate.class, "day", "2014-09-26" );
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import io.werval.api.http.Request;
+import io.werval.api.routes.ParameterBinders;
+import io.werval.api.routes.Route;
+import io.werval.api.routes.Routes;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Routing and route parameters binding benchmark.
+ * <p>
+ * Routes are matched in declaration order, {@literal /users} is the first declared route, others the last ones.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class RoutingBenchmark
+{
+    @Param( { "/users", "/items/42?page=2", "/session" } )
+    public String uri;
+
+    private Routes routes;
+    private ParameterBinders parameterBinders;
+    private Request request;
+    private Route route;
+
+    @Setup
+    public void setup( BenchmarkApplication app )
+    {
+        routes = app.application.routes();
+        parameterBinders = app.application.parameterBinders();
+        request = app.get( uri, false );
+        route = routes.route( request );
+    }
+
+    @Benchmark
+    public Route route()
+    {
+        return routes.route( request );
+    }
+
+    @Benchmark
+    public Map<String, Object> bindParameters()
+    {
+        return route.bindParameters( parameterBinders, request.path(), request.queryString() );
+    }
+}
@@ -0,0 +1,26 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/**
+ * Werval JMH Benchmarks.
+ * <p>
+ * Run them using {@literal gradle :io.werval.benchmarks:jmh}.
+ * <p>
+ * Run {@literal gradle :io.werval.benchmarks:jmhReport} to profile allocations using {@literal -prof gc} and get a
+ * JSON report in {@literal build/reports/jmh/results.json}.
+ * <p>
+ * Request hot path benchmarks run against a {@link io.werval.benchmarks.BenchmarkApplication} without any socket.
+ */
+package io.werval.benchmarks;
@@ -56,6 +56,48 @@ public class StartCommand
         FORK
     }
 
+    /**
+     * Class data sharing options, implies the {@link ExecutionModel#FORK} execution model.
+     */
+    public static final class ClassDataSharing
+    {
+        /**
+         * Use a class data sharing archive if present.
+         *
+         * @param archive Class data sharing archive
+         *
+         * @return Class data sharing options
+         */
+        public static ClassDataSharing use( File archive )
+        {
+            return new ClassDataSharing( archive, false );
+        }
+
+        /**
+         * Start then stop the Application, dumping a class data sharing archive.
+         * <p>
+         * Requires Java 13 or later.
+         *
+         * @param archive Class data sharing archive
+         *
+         * @return Class data sharing options
+         */
+        public static ClassDataSharing dump( File archive )
+        {
+            return new ClassDataSharing( archive, true );
+        }
+
+        private final File archive;
+        private final boolean dump;
+
+        private ClassDataSharing( File archive, boolean dump )
+        {
+            ensureNotNull( "Class data archive", archive );
+            this.archive = archive;
+            this.dump = dump;
+        }
+    }
+
     private static final long DAEMON_THREAD_JOIN_TIMEOUT = 15000;
     private static final boolean STOP_UNRESPONSIVE_DAEMON_THREADS = false;
     private static final boolean CLEANUP_DAEMON_THREADS = true;
@@ -67,6 +109,7 @@ public class StartCommand
     private final String configResource;
     private final File configFile;
     private final URL configUrl;
+    private final ClassDataSharing classDataSharing;
 
     public StartCommand( ExecutionModel executionModel, String mainClass, String[] arguments, URL[] classpath )
     {
@@ -82,6 +125,25 @@ public class StartCommand
         ensureNotNull( "Execution Model", executionModel );
         ensureNotEmpty( "Main class", mainClass );
         this.executionModel = executionModel;
+        this.classDataSharing = null;
+        this.mainClass = mainClass;
+        this.arguments = arguments == null ? new String[ 0 ] : arguments;
+        this.classpath = classpath == null ? new URL[ 0 ] : classpath;
+        this.configResource = configResource;
+        this.configFile = configFile;
+        this.configUrl = configUrl;
+    }
+
+    public StartCommand(
+        ClassDataSharing classDataSharing,
+        String mainClass, String[] arguments, URL[] classpath,
+        String configResource, File configFile, URL configUrl
+    )
+    {
+        ensureNotNull( "Class data sharing", classDataSharing );
+        ensureNotEmpty( "Main class", mainClass );
+        this.executionModel = ExecutionModel.FORK;
+        this.classDataSharing = classDataSharing;
         this.mainClass = mainClass;
         this.arguments = arguments == null ? new String[ 0 ] : arguments;
         this.classpath = classpath == null ? new URL[ 0 ] : classpath;
@@ -99,7 +161,14 @@ public class StartCommand
                 runIsolatedThreads();
                 break;
             case FORK:
-                runFork();
+                if( classDataSharing != null && classDataSharing.dump )
+                {
+                    runDumpClassData();
+                }
+                else
+                {
+                    runFork();
+                }
                 break;
             default:
                 throw new InternalError();
@@ -107,13 +176,50 @@ public class StartCommand
     }
 
     private void runFork()
+    {
+        List<String> jvmOptions = new ArrayList<>();
+        if( classDataSharing != null && classDataSharing.archive.isFile() )
+        {
+            // Silently fallback to no sharing if the archive does not match the JVM or the classpath
+            jvmOptions.add( "-Xshare:auto" );
+            jvmOptions.add( "-XX:SharedArchiveFile=" + classDataSharing.archive.getAbsolutePath() );
+        }
+        fork( jvmOptions );
+    }
+
+    private void runDumpClassData()
+    {
+        File classDataArchive = classDataSharing.archive;
+        File parent = classDataArchive.getAbsoluteFile().getParentFile();
+        if( classDataArchive.exists() && !classDataArchive.delete() )
+        {
+            throw new WervalException( "Unable to delete previous class data archive: " + classDataArchive );
+        }
+        if( parent != null && !parent.exists() && !parent.mkdirs() )
+        {
+            throw new WervalException( "Unable to create class data archive directory: " + parent );
+        }
+        List<String> jvmOptions = new ArrayList<>();
+        jvmOptions.add( "-XX:ArchiveClassesAtExit=" + classDataArchive.getAbsolutePath() );
+        jvmOptions.add( "-Dwerval.startup.exit=yes" );
+        fork( jvmOptions );
+        if( !classDataArchive.isFile() )
+        {
+            throw new WervalException(
+                "No class data archive dumped to " + classDataArchive + ", Java 13 or later is required."
+            );
+        }
+    }
+
+    private void fork( List<String> jvmOptions )
     {
         // java -cp class:path main.Class arg um ents
         List<String> cmd = new ArrayList<>();
         cmd.add( "java" );
+        cmd.addAll( jvmOptions );
         cmd.add( "-cp" );
         StringBuilder cpBuilder = new StringBuilder();
-        Iterator<URL> cpIt = Arrays.asList( classpath ).iterator();
+        Iterator<URL> cpIt = forkClasspath().iterator();
         while( cpIt.hasNext() )
         {
             URL cpUrl = cpIt.next();
@@ -132,23 +238,24 @@ public class StartCommand
         }
         String classpathString = cpBuilder.toString();
         cmd.add( classpathString );
+        // Arguments are passed as-is to the forked process, no shell quoting
         if( configResource != null )
         {
-            cmd.add( "-Dconfig.resource=\"" + configResource + "\"" );
+            cmd.add( "-Dconfig.resource=" + configResource );
         }
         if( configFile != null )
         {
-            cmd.add( "-Dconfig.file=\"" + configFile.getAbsolutePath() + "\"" );
+            cmd.add( "-Dconfig.file=" + configFile.getAbsolutePath() );
         }
         if( configUrl != null )
         {
-            cmd.add( "-Dconfig.url=\"" + configUrl.toString() + "\"" );
+            cmd.add( "-Dconfig.url=" + configUrl.toString() );
         }
         cmd.add( mainClass );
         cmd.addAll( Arrays.asList( arguments ) );
         try
         {
-            Process process = new ProcessBuilder( cmd ).start();
+            Process process = new ProcessBuilder( cmd ).inheritIO().start();
             int status = process.waitFor();
             if( status != 0 )
             {
@@ -168,6 +275,37 @@ public class StartCommand
         }
     }
 
+    /**
+     * Forked process classpath.
+     * <p>
+     * When using a class data sharing archive, directories are moved after jars as class data sharing only archives
+     * classes loaded from jars and refuses non-empty directories ahead of them.
+     *
+     * @return Forked process classpath
+     */
+    private List<URL> forkClasspath()
+    {
+        if( classDataSharing == null )
+        {
+            return Arrays.asList( classpath );
+        }
+        List<URL> jars = new ArrayList<>();
+        List<URL> directories = new ArrayList<>();
+        for( URL cpUrl : classpath )
+        {
+            if( "file".equals( cpUrl.getProtocol() ) && new File( cpUrl.getPath() ).isDirectory() )
+            {
+                directories.add( cpUrl );
+            }
+            else
+            {
+                jars.add( cpUrl );
+            }
+        }
+        jars.addAll( directories );
+        return jars;
+    }
+
     private void runIsolatedThreads()
     {
         IsolatedThreadGroup threadGroup = new IsolatedThreadGroup( mainClass /* name */ );
@@ -42,6 +42,7 @@ import io.werval.api.Mode;
 import io.werval.api.cache.Cache;
 import io.werval.api.context.Context;
 import io.werval.api.context.ThreadContextHelper;
+import io.werval.api.events.HttpEvent;
 import io.werval.api.exceptions.ParameterBinderException;
 import io.werval.api.exceptions.ParameterBindingException;
 import io.werval.api.exceptions.PassivationException;
@@ -67,17 +68,21 @@ import io.werval.api.routes.ReverseRoutes;
 import io.werval.api.routes.Route;
 import io.werval.api.routes.Routes;
 import io.werval.api.templates.Templates;
+import io.werval.filters.Cached;
 import io.werval.util.Reflectively;
 import io.werval.util.Stacktraces;
 import io.werval.spi.ApplicationSPI;
+import io.werval.spi.StartupTimeline;
 import io.werval.spi.dev.DevShellSPI;
 import io.werval.spi.http.HttpBuildersSPI;
 import io.werval.spi.events.EventsSPI;
 import io.werval.runtime.context.ContextInstance;
 import io.werval.runtime.exceptions.BadRequestException;
 import io.werval.runtime.filters.FilterChainFactory;
+import io.werval.runtime.http.EntityTags;
 import io.werval.runtime.http.HttpBuildersInstance;
 import io.werval.runtime.events.EventsInstance;
+import io.werval.runtime.http.ResponseCache;
 import io.werval.runtime.http.ResponseHeaderInstance;
 import io.werval.runtime.http.SessionInstance;
 import io.werval.runtime.i18n.LangsInstance;
@@ -169,11 +174,14 @@ public final class ApplicationInstance
     private ParameterBinders parameterBinders;
     private MimeTypes mimeTypes;
     private HttpBuildersSPI httpBuilders;
+    private EntityTags entityTags;
     private ApplicationExecutorsInstance executors;
+    private ResponseCache responseCache;
     private final MetaData metaData;
     private final EventsInstance events;
     private final Errors errors;
     private final DevShellSPI devSpi;
+    private StartupTimeline startupTimeline;
 
     /**
      * Create a new Application instance in {@link Mode#PROD} mode.
@@ -283,6 +291,8 @@ public final class ApplicationInstance
         this.events = new EventsInstance( this );
         this.errors = new ErrorsInstance( config );
         this.devSpi = devSpi;
+        this.startupTimeline = new StartupTimeline();
+        this.startupTimeline.record( "config", config.loadNanos() );
         if( mode == Mode.DEV && LOG.isDebugEnabled() )
         {
             LOG.debug( "Runtime classpath: {}", Arrays.toString( devSpi.runtimeClassPath() ) );
@@ -312,10 +322,13 @@ public final class ApplicationInstance
             events.unregisterAll();
 
             // Executors
+            StartupTimeline.Phase phase = startupTimeline.begin( "executors" );
             executors = new ApplicationExecutorsInstance( this );
             executors.activate();
+            phase.end();
 
             // Global
+            phase = startupTimeline.begin( "global" );
             String globalClassName = config.string( APP_GLOBAL );
             this.global = executors.supplyAsync(
                 () ->
@@ -331,23 +344,35 @@ public final class ApplicationInstance
                     }
                 }
             ).join();
+            phase.end();
+
+            // Response Cache
+            responseCache = new ResponseCache( this, global );
 
             // Application Routes
+            phase = startupTimeline.begin( "routes" );
             List<Route> resolvedRoutes = new ArrayList<>();
             resolvedRoutes.addAll( executors.supplyAsync( () -> routesProvider.routes( this ) ).join() );
+            phase.end();
 
             // Activate Plugins
+            phase = startupTimeline.begin( "plugins" );
             plugins = new PluginsInstance();
             executors.runAsync( () -> plugins.onActivate( this ) ).join();
+            phase.end();
 
             // Plugin contributed Routes
+            phase = startupTimeline.begin( "plugins_routes" );
             resolvedRoutes.addAll( 0, executors.supplyAsync( () -> plugins.firstRoutes( this ) ).join() );
             resolvedRoutes.addAll( executors.supplyAsync( () -> plugins.lastRoutes( this ) ).join() );
             routes = new RoutesInstance( resolvedRoutes );
+            phase.end();
 
             // Activated
             activated = true;
+            phase = startupTimeline.begin( "global_activation" );
             executors.runAsync( () -> global.onActivate( this ) ).join();
+            phase.end();
         }
         finally
         {
@@ -481,6 +506,8 @@ public final class ApplicationInstance
             Thread.currentThread().setContextClassLoader( previousLoader );
             activated = false;
             activatingOrPassivating = false;
+            // Next activation gets a fresh timeline
+            startupTimeline = new StartupTimeline();
         }
 
         LOG.debug( "Application Passivated" );
@@ -518,6 +545,13 @@ public final class ApplicationInstance
         return plugins.plugins( pluginApiType );
     }
 
+    @Override
+    public Map<String, Long> pluginsActivationTimes()
+    {
+        ensureActive();
+        return plugins.activationTimes();
+    }
+
     @Override
     public Crypto crypto()
     {
@@ -627,6 +661,8 @@ public final class ApplicationInstance
         }
         this.classLoader = newClassLoader;
         this.config = new ConfigInstance( newClassLoader, config.location() );
+        this.startupTimeline = new StartupTimeline();
+        this.startupTimeline.record( "config", config.loadNanos() );
         configure();
         activate();
     }
@@ -652,6 +688,12 @@ public final class ApplicationInstance
         return httpBuilders;
     }
 
+    @Override
+    public StartupTimeline startupTimeline()
+    {
+        return startupTimeline;
+    }
+
     // SPI
     @Override
     public CompletableFuture<Outcome> handleRequest( Request request )
@@ -660,8 +702,6 @@ public final class ApplicationInstance
         return executors.supplyAsync(
             () ->
             {
-                // Prepare Controller Context
-                ThreadContextHelper contextHelper = new ThreadContextHelper();
                 try
                 {
                     // Validates incoming request
@@ -671,87 +711,115 @@ public final class ApplicationInstance
                     // Route the request
                     final Route route = routes().route( request );
                     LOG.debug( "Routing to: {}", route );
+                    events.emit( new HttpEvent.RequestRouted( request.identity(), route ) );
 
                     // Bind parameters
                     request.bind( parameterBinders(), route );
 
-                    // Parse Session Cookie
-                    Session session = new SessionInstance(
-                        config,
-                        crypto(),
-                        request.cookies().get( config.string( APP_SESSION_COOKIE_NAME ) )
-                    );
-
-                    // Prepare Response Header
-                    ResponseHeaderInstance responseHeader = new ResponseHeaderInstance( request.version() );
-
-                    // Set Controller Context
-                    Context context = new ContextInstance(
-                        this,
-                        session, route, request,
-                        responseHeader,
-                        executors.defaultExecutor()
-                    );
-                    contextHelper.setOnCurrentThread( context );
-
-                    // Plugins beforeInteraction
-                    plugins.beforeInteraction( context );
-
-                    try
+                    // Serve through the Response Cache if needed
+                    Optional<Cached> cached = responseCache.cachedAnnotation( route );
+                    Outcome outcome;
+                    if( cached.isPresent() && responseCache.isCacheable( request ) )
                     {
-                        // Invoke Controller FilterChain, ended by Controller Method Invokation
-                        // TODO Handle Timeout when invoking Controller FilterChain!
-                        LOG.trace( "Invoking interaction method: {}", route.controllerMethod() );
-                        FilterChain chain = new FilterChainFactory().buildFilterChain( this, global, context );
-                        CompletableFuture<Outcome> interaction = chain.next( context );
-                        Outcome outcome = interaction.get( 30, TimeUnit.SECONDS );
-
-                        // Apply Session to ResponseHeader
-                        if( !config.bool( APP_SESSION_COOKIE_ONLYIFCHANGED ) || session.hasChanged() )
-                        {
-                            outcome.responseHeader().cookies().set( session.signedCookie() );
-                        }
-
-                        // Add Set-Cookie headers
-                        for( Cookie cookie : outcome.responseHeader().cookies() )
-                        {
-                            HttpCookie jCookie = new HttpCookie( cookie.name(), cookie.value() );
-                            jCookie.setVersion( cookie.version() );
-                            jCookie.setPath( cookie.path() );
-                            jCookie.setDomain( cookie.domain() );
-                            jCookie.setMaxAge( cookie.maxAge() );
-                            jCookie.setSecure( cookie.secure() );
-                            jCookie.setHttpOnly( cookie.httpOnly() );
-                            jCookie.setComment( cookie.comment().isPresent() ? cookie.comment().get() : null );
-                            jCookie.setCommentURL( cookie.commentUrl().isPresent() ? cookie.commentUrl().get() : null );
-                            outcome.responseHeader().headers().with( SET_COOKIE, jCookie.toString() );
-                        }
-
-                        // Finalize!
-                        finalizeOutcome( request, outcome );
-
-                        // Done!
-                        LOG.trace( "Interaction outcome: {}", outcome );
-                        return outcome;
+                        outcome = responseCache.handle( request, cached.get(), () -> interaction( request, route ) );
                     }
-                    finally
+                    else
                     {
-                        // Plugins afterInteraction
-                        plugins.afterInteraction( context );
+                        outcome = interaction( request, route );
                     }
+
+                    // Conditional GET
+                    outcome = entityTags.conditional( request, outcome );
+
+                    // Finalize!
+                    return finalizeOutcome( request, outcome );
                 }
                 catch( Throwable cause )
                 {
                     // Handle error
                     return handleError( request, cause );
                 }
-                finally
+            }
+        );
+    }
+
+    private Outcome interaction( Request request, Route route )
+        throws Exception
+    {
+        // Prepare Controller Context
+        ThreadContextHelper contextHelper = new ThreadContextHelper();
+        try
+        {
+            // Parse Session Cookie
+            Session session = new SessionInstance(
+                config,
+                crypto(),
+                request.cookies().get( config.string( APP_SESSION_COOKIE_NAME ) )
+            );
+
+            // Prepare Response Header
+            ResponseHeaderInstance responseHeader = new ResponseHeaderInstance( request.version() );
+
+            // Set Controller Context
+            Context context = new ContextInstance(
+                this,
+                session, route, request,
+                responseHeader,
+                executors.defaultExecutor()
+            );
+            contextHelper.setOnCurrentThread( context );
+
+            // Plugins beforeInteraction
+            plugins.beforeInteraction( context );
+
+            try
+            {
+                // Invoke Controller FilterChain, ended by Controller Method Invokation
+                // TODO Handle Timeout when invoking Controller FilterChain!
+                LOG.trace( "Invoking interaction method: {}", route.controllerMethod() );
+                FilterChain chain = new FilterChainFactory().buildFilterChain( this, global, context );
+                CompletableFuture<Outcome> interaction = chain.next( context );
+                Outcome outcome = interaction.get( 30, TimeUnit.SECONDS );
+
+                // Apply Session to ResponseHeader
+                if( !config.bool( APP_SESSION_COOKIE_ONLYIFCHANGED ) || session.hasChanged() )
+                {
+                    outcome.responseHeader().cookies().set( session.signedCookie() );
+                }
+
+                // Add Set-Cookie headers
+                for( Cookie cookie : outcome.responseHeader().cookies() )
                 {
-                    // Clean up Controller Context
-                    contextHelper.clearCurrentThread();
+                    HttpCookie jCookie = new HttpCookie( cookie.name(), cookie.value() );
+                    jCookie.setVersion( cookie.version() );
+                    jCookie.setPath( cookie.path() );
+                    jCookie.setDomain( cookie.domain() );
+                    jCookie.setMaxAge( cookie.maxAge() );
+                    jCookie.setSecure( cookie.secure() );
+                    jCookie.setHttpOnly( cookie.httpOnly() );
+                    jCookie.setComment( cookie.comment().isPresent() ? cookie.comment().get() : null );
+                    jCookie.setCommentURL( cookie.commentUrl().isPresent() ? cookie.commentUrl().get() : null );
+                    outcome.responseHeader().headers().with( SET_COOKIE, jCookie.toString() );
                 }
+
+                // Entity Tag
+                entityTags.tag( request, outcome );
+
+                // Done!
+                LOG.trace( "Interaction outcome: {}", outcome );
+                return outcome;
             }
-        );
+            finally
+            {
+                // Plugins afterInteraction
+                plugins.afterInteraction( context );
+            }
+        }
+        finally
+        {
+            // Clean up Controller Context
+            contextHelper.clearCurrentThread();
+        }
     }
 
     private void validatesRequestHeader( RequestHeader requestHeader )
@@ -1050,9 +1118,12 @@ public final class ApplicationInstance
         configureCrypto();
         configureLangs();
         configureTmpdir();
+        StartupTimeline.Phase phase = startupTimeline.begin( "parameter_binders" );
         configureParameterBinders();
+        phase.end();
         configureMimeTypes();
         configureHttpBuilders();
+        configureEntityTags();
     }
 
     private void configureDefaultCharset()
@@ -1138,6 +1209,11 @@ public final class ApplicationInstance
         httpBuilders = new HttpBuildersInstance( config, defaultCharset, langs );
     }
 
+    private void configureEntityTags()
+    {
+        entityTags = new EntityTags( config, mimeTypes );
+    }
+
     private void showBanner()
     {
         try( InputStream input = classLoader.getResourceAsStream( config.string( APP_BANNER ) ) )
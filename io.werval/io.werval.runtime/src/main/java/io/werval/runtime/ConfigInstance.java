@@ -129,6 +129,7 @@ public class ConfigInstance
     }
 
     private final ConfigLocation location;
+    private final long loadNanos;
     private com.typesafe.config.Config config;
 
     /**
@@ -199,6 +200,7 @@ public class ConfigInstance
 
     public ConfigInstance( ClassLoader loader, ConfigLocation location )
     {
+        long start = System.nanoTime();
         // Gather eventually set previous system properties for config location
         String previousConfigResource = System.getProperty( "config.resource" );
         String previousConfigFile = System.getProperty( "config.file" );
@@ -238,6 +240,7 @@ public class ConfigInstance
             com.typesafe.config.ConfigFactory.invalidateCaches();
             // Effectively load configuration
             this.config = com.typesafe.config.ConfigFactory.load( loader );
+            this.loadNanos = System.nanoTime() - start;
         }
         finally
         {
@@ -296,6 +299,7 @@ public class ConfigInstance
     private ConfigInstance( com.typesafe.config.Config config, ConfigLocation location )
     {
         this.location = location;
+        this.loadNanos = 0;
         this.config = config;
     }
 
@@ -312,6 +316,18 @@ public class ConfigInstance
         return location;
     }
 
+    /**
+     * Config load duration.
+     * <p>
+     * Used internally by {@link ApplicationInstance} to record the config load startup phase.
+     *
+     * @return Nanoseconds spent loading this configuration, {@literal 0} for derived configurations
+     */
+    /* package */ long loadNanos()
+    {
+        return loadNanos;
+    }
+
     @Override
     public boolean isObject( String key )
     {
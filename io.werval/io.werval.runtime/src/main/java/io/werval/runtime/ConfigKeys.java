@@ -24,6 +24,8 @@ public interface ConfigKeys
     // Application configuration keys
     //
     String APP_BANNER = "app.banner";
+    String APP_ERRORS_FINGERPRINTS_FRAMES = "app.errors.fingerprints.frames";
+    String APP_ERRORS_FINGERPRINTS_MAX = "app.errors.fingerprints.max";
     String APP_ERRORS_RECORD_MAX = "app.errors.record.max";
     String APP_EXECUTORS = "app.executors";
     String APP_EXECUTORS_DEFAULT = "app.executors.default";
@@ -52,11 +54,17 @@ public interface ConfigKeys
     String WERVAL_HTTP_LOG_LOWLEVEL_LEVEL = "werval.http.log.low_level.level";
     String WERVAL_HTTP_REQUESTS_BODY_MAX_SIZE = "werval.http.requests.body.max_size";
     String WERVAL_HTTP_REQUESTS_BODY_DISK_THRESHOLD = "werval.http.requests.body.disk_threshold";
+    String WERVAL_HTTP_ETAGS_ENABLED = "werval.http.etags.enabled";
+    String WERVAL_HTTP_ETAGS_MAX_BODY_SIZE = "werval.http.etags.max_body_size";
     String WERVAL_HTTP_FORMS_MULTIVALUED = "werval.http.forms.multi_valued";
     String WERVAL_HTTP_HEADERS_MULTIVALUED = "werval.http.headers.multi_valued";
     String WERVAL_HTTP_HEADERS_X_FORWARDED_FOR_ENABLED = "werval.http.headers.x_forwarded_for.enabled";
     String WERVAL_HTTP_HEADERS_X_FORWARDED_FOR_CHECK = "werval.http.headers.x_forwarded_for.check_proxies";
     String WERVAL_HTTP_HEADERS_X_FORWARDED_FOR_TRUSTED = "werval.http.headers.x_forwarded_for.trusted_proxies";
+    String WERVAL_HTTP_RESPONSE_CACHE_MAX_BODY_SIZE = "werval.http.response_cache.max_body_size";
+    String WERVAL_HTTP_RESPONSE_CACHE_STALE_WHILE_REVALIDATE = "werval.http.response_cache.stale_while_revalidate";
+    String WERVAL_HTTP_RESPONSE_CACHE_STALE_IF_ERROR = "werval.http.response_cache.stale_if_error";
+    String WERVAL_HTTP_RESPONSE_CACHE_COALESCING_TIMEOUT = "werval.http.response_cache.coalescing_timeout";
     String WERVAL_HTTP_QUERYSTRING_MULTIVALUED = "werval.http.query_string.multi_valued";
     String WERVAL_HTTP_UPLOADS_MULTIVALUED = "werval.http.uploads.multi_valued";
     String WERVAL_MIMETYPES_SUPPLEMENTARY = "werval.mimetypes.supplementary";
@@ -15,27 +15,41 @@
  */
 package io.werval.runtime;
 
+import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
 
 import io.werval.api.Config;
 import io.werval.api.Error;
 import io.werval.api.Errors;
-import io.werval.util.UUIDIdentityGenerator;
+import io.werval.util.XXHash64;
 
 import static java.util.Collections.emptyList;
 import static java.util.Collections.unmodifiableList;
 import static java.util.stream.Collectors.toList;
 
+import static io.werval.runtime.ConfigKeys.APP_ERRORS_FINGERPRINTS_FRAMES;
+import static io.werval.runtime.ConfigKeys.APP_ERRORS_FINGERPRINTS_MAX;
 import static io.werval.runtime.ConfigKeys.APP_ERRORS_RECORD_MAX;
+import static io.werval.util.Charsets.UTF_8;
 
 /**
  * Application Errors Instance.
+ * <p>
+ * Errors are recorded in a fixed-size ring indexed by a sequence embedded in their ID, recording and looking up an
+ * error by ID do not lock.
+ * Repeated errors are aggregated by fingerprint, each fingerprint costing a constant amount of memory.
  */
 public final class ErrorsInstance
     implements Errors
@@ -43,14 +57,18 @@ public final class ErrorsInstance
     private static final class ErrorInstance
         implements Error
     {
+        private final long sequence;
         private final Long timestamp;
         private final String errorId;
         private final String requestId;
         private final String message;
         private final Throwable cause;
 
-        private ErrorInstance( long timestamp, String errorId, String requestId, String message, Throwable cause )
+        private ErrorInstance(
+            long sequence, long timestamp, String errorId, String requestId, String message, Throwable cause
+        )
         {
+            this.sequence = sequence;
             this.timestamp = timestamp;
             this.errorId = errorId;
             this.requestId = requestId;
@@ -122,93 +140,216 @@ public final class ErrorsInstance
         }
     }
 
-    private final Config config;
-    private final Map<String, Error> errors;
-    private final UUIDIdentityGenerator errorIdentityGenerator;
+    /**
+     * Last error of a fingerprint, its sequence orders errors recorded on the same millisecond.
+     */
+    private static final class LastSeen
+    {
+        private static final Comparator<LastSeen> ORDER = Comparator.<LastSeen>comparingLong( seen -> seen.timestamp )
+            .thenComparingLong( seen -> seen.sequence );
+
+        private final long timestamp;
+        private final long sequence;
+        private final String errorId;
+
+        private LastSeen( long timestamp, long sequence, String errorId )
+        {
+            this.timestamp = timestamp;
+            this.sequence = sequence;
+            this.errorId = errorId;
+        }
+
+        private boolean isAfter( LastSeen other )
+        {
+            return ORDER.compare( this, other ) > 0;
+        }
+    }
+
+    private static final class FingerprintInstance
+        implements Fingerprint
+    {
+        private final String fingerprint;
+        private final String causeClassName;
+        private final long firstSeen;
+        private final LongAdder count = new LongAdder();
+        private final AtomicReference<LastSeen> last;
+
+        private FingerprintInstance( String fingerprint, String causeClassName, long firstSeen )
+        {
+            this.fingerprint = fingerprint;
+            this.causeClassName = causeClassName;
+            this.firstSeen = firstSeen;
+            this.last = new AtomicReference<>( new LastSeen( firstSeen, -1, null ) );
+        }
+
+        @Override
+        public String fingerprint()
+        {
+            return fingerprint;
+        }
+
+        @Override
+        public String causeClassName()
+        {
+            return causeClassName;
+        }
+
+        @Override
+        public long count()
+        {
+            return count.sum();
+        }
+
+        @Override
+        public long firstSeen()
+        {
+            return firstSeen;
+        }
+
+        @Override
+        public long lastSeen()
+        {
+            return last.get().timestamp;
+        }
+
+        @Override
+        public String lastErrorId()
+        {
+            return last.get().errorId;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Fingerprint( " + fingerprint + ", " + causeClassName + ", " + count() + " )";
+        }
+    }
+
+    /**
+     * A generation of records, replaced as a whole on {@link #clear()}.
+     */
+    private static final class Records
+    {
+        private final String idPrefix = UUID.randomUUID().toString() + "_";
+        private final AtomicLong sequence = new AtomicLong();
+        private final AtomicReferenceArray<ErrorInstance> ring;
+
+        private Records( int capacity )
+        {
+            this.ring = new AtomicReferenceArray<>( capacity );
+        }
+    }
+
+    // Walk at most this many causes, guarding against cyclic chains
+    private static final int MAX_CAUSE_DEPTH = 32;
+    private final int capacity;
+    private final int idPadding;
+    private final int fingerprintsMax;
+    private final int fingerprintFrames;
+    private final Map<String, FingerprintInstance> fingerprints = new ConcurrentHashMap<>();
+    private volatile Records records;
 
     public ErrorsInstance( Config config )
     {
-        this.config = config;
-        this.errors = new TreeMap<>( (o1, o2) -> o2.compareTo( o1 ) );
-        // Left pad incremented error count with zeroes
+        this.capacity = config.intNumber( APP_ERRORS_RECORD_MAX );
+        // Left pad error sequence with zeroes
         // Pad size is max recorded error length + 1
-        this.errorIdentityGenerator = new UUIDIdentityGenerator( config.string( APP_ERRORS_RECORD_MAX ).length() + 1 );
+        this.idPadding = config.string( APP_ERRORS_RECORD_MAX ).length() + 1;
+        this.fingerprintsMax = config.intNumber( APP_ERRORS_FINGERPRINTS_MAX );
+        this.fingerprintFrames = config.intNumber( APP_ERRORS_FINGERPRINTS_FRAMES );
+        this.records = new Records( capacity );
     }
 
     @Override
     public Iterator<Error> iterator()
     {
-        return errors.values().iterator();
+        return snapshot().iterator();
     }
 
     @Override
     public List<Error> asList()
     {
-        return unmodifiableList( new ArrayList<>( errors.values() ) );
+        return unmodifiableList( snapshot() );
     }
 
     @Override
     public Error record( String requestId, String message, Throwable cause )
     {
-        String errorId = errorIdentityGenerator.newIdentity();
-        Error error = new ErrorInstance( System.currentTimeMillis(), errorId, requestId, message, cause );
-        errors.put( errorId, error );
-        while( errors.size() > config.intNumber( APP_ERRORS_RECORD_MAX ) )
+        Records current = records;
+        long sequence = current.sequence.getAndIncrement();
+        String errorId = current.idPrefix + padded( sequence );
+        ErrorInstance error = new ErrorInstance(
+            sequence, System.currentTimeMillis(), errorId, requestId, message, cause
+        );
+        if( capacity > 0 )
         {
-            List<String> keys = new ArrayList<>( errors.keySet() );
-            errors.remove( keys.get( keys.size() - 1 ) );
+            current.ring.set( slotOf( sequence ), error );
         }
+        aggregate( error );
         return error;
     }
 
     @Override
     public int count()
     {
-        return errors.size();
+        return (int) Math.min( records.sequence.get(), capacity );
     }
 
     @Override
-    public synchronized void clear()
+    public void clear()
     {
-        errors.clear();
-        errorIdentityGenerator.reset();
+        records = new Records( capacity );
+        fingerprints.clear();
     }
 
     @Override
     public Optional<Error> get( String errorId )
     {
-        return Optional.ofNullable( errors.get( errorId ) );
+        Records current = records;
+        if( capacity == 0 || errorId == null || !errorId.startsWith( current.idPrefix ) )
+        {
+            return Optional.empty();
+        }
+        long sequence;
+        try
+        {
+            sequence = Long.parseLong( errorId.substring( current.idPrefix.length() ) );
+        }
+        catch( NumberFormatException ex )
+        {
+            return Optional.empty();
+        }
+        if( sequence < 0 )
+        {
+            return Optional.empty();
+        }
+        ErrorInstance error = current.ring.get( slotOf( sequence ) );
+        return error != null && error.sequence == sequence ? Optional.of( error ) : Optional.empty();
     }
 
     @Override
     public Optional<Error> last()
     {
-        if( errors.isEmpty() )
-        {
-            return Optional.empty();
-        }
-        return Optional.of( errors.get( errors.keySet().iterator().next() ) );
+        List<Error> snapshot = snapshot();
+        return snapshot.isEmpty() ? Optional.empty() : Optional.of( snapshot.get( 0 ) );
     }
 
     @Override
     public List<Error> ofRequest( String requestId )
     {
-        if( errors.isEmpty() )
+        List<Error> snapshot = snapshot();
+        if( snapshot.isEmpty() )
         {
             return emptyList();
         }
         return unmodifiableList(
-            errors.values().stream().filter( e -> requestId.equals( e.requestId() ) ).collect( toList() )
+            snapshot.stream().filter( e -> requestId.equals( e.requestId() ) ).collect( toList() )
         );
     }
 
     @Override
     public Optional<Error> lastOfRequest( String requestIdentity )
     {
-        if( errors.isEmpty() )
-        {
-            return Optional.empty();
-        }
         List<Error> ofRequest = ofRequest( requestIdentity );
         if( ofRequest.isEmpty() )
         {
@@ -216,4 +357,118 @@ public final class ErrorsInstance
         }
         return Optional.of( ofRequest.get( 0 ) );
     }
+
+    @Override
+    public List<Fingerprint> fingerprints()
+    {
+        // Last seen captured once as fingerprints keep being updated while sorting
+        List<Map.Entry<LastSeen, Fingerprint>> list = new ArrayList<>( fingerprints.size() );
+        for( FingerprintInstance fingerprint : fingerprints.values() )
+        {
+            list.add( new SimpleImmutableEntry<>( fingerprint.last.get(), fingerprint ) );
+        }
+        list.sort( Map.Entry.comparingByKey( LastSeen.ORDER.reversed() ) );
+        return unmodifiableList( list.stream().map( Map.Entry::getValue ).collect( toList() ) );
+    }
+
+    /**
+     * @return Recorded errors, last first
+     */
+    private List<Error> snapshot()
+    {
+        Records current = records;
+        long next = current.sequence.get();
+        long oldest = Math.max( 0, next - capacity );
+        List<Error> snapshot = new ArrayList<>( (int) ( next - oldest ) );
+        for( long sequence = next - 1; sequence >= oldest; sequence-- )
+        {
+            ErrorInstance error = current.ring.get( slotOf( sequence ) );
+            // Skip slots not written yet or already overwritten
+            if( error != null && error.sequence == sequence )
+            {
+                snapshot.add( error );
+            }
+        }
+        return snapshot;
+    }
+
+    private int slotOf( long sequence )
+    {
+        return (int) ( sequence % capacity );
+    }
+
+    private String padded( long sequence )
+    {
+        String digits = Long.toString( sequence );
+        if( digits.length() >= idPadding )
+        {
+            return digits;
+        }
+        StringBuilder sb = new StringBuilder( idPadding );
+        for( int idx = digits.length(); idx < idPadding; idx++ )
+        {
+            sb.append( '0' );
+        }
+        return sb.append( digits ).toString();
+    }
+
+    private void aggregate( ErrorInstance error )
+    {
+        if( fingerprintsMax <= 0 || error.cause == null )
+        {
+            return;
+        }
+        String fingerprint = fingerprintOf( error.cause );
+        FingerprintInstance aggregate = fingerprints.get( fingerprint );
+        if( aggregate == null )
+        {
+            aggregate = fingerprints.computeIfAbsent(
+                fingerprint,
+                fp -> new FingerprintInstance( fp, error.cause.getClass().getName(), error.timestamp )
+            );
+            if( fingerprints.size() > fingerprintsMax )
+            {
+                evictLeastRecentlySeenFingerprint( fingerprint );
+            }
+        }
+        aggregate.count.increment();
+        LastSeen seen = new LastSeen( error.timestamp, error.sequence, error.errorId );
+        aggregate.last.accumulateAndGet( seen, ( previous, next ) -> next.isAfter( previous ) ? next : previous );
+    }
+
+    private void evictLeastRecentlySeenFingerprint( String keep )
+    {
+        FingerprintInstance eldest = null;
+        for( FingerprintInstance candidate : fingerprints.values() )
+        {
+            if( !candidate.fingerprint.equals( keep )
+                && ( eldest == null || eldest.last.get().isAfter( candidate.last.get() ) ) )
+            {
+                eldest = candidate;
+            }
+        }
+        if( eldest != null )
+        {
+            fingerprints.remove( eldest.fingerprint, eldest );
+        }
+    }
+
+    private String fingerprintOf( Throwable cause )
+    {
+        StringBuilder sb = new StringBuilder();
+        Throwable root = cause;
+        Throwable current = cause;
+        for( int depth = 0; current != null && depth < MAX_CAUSE_DEPTH; depth++ )
+        {
+            sb.append( current.getClass().getName() ).append( '\n' );
+            root = current;
+            current = current.getCause() == current ? null : current.getCause();
+        }
+        StackTraceElement[] frames = root.getStackTrace();
+        for( int idx = 0; idx < frames.length && idx < fingerprintFrames; idx++ )
+        {
+            sb.append( frames[idx] ).append( '\n' );
+        }
+        return Long.toHexString( XXHash64.hash( sb.toString().getBytes( UTF_8 ) ) );
+    }
 }
@@ -34,17 +34,29 @@ import java.util.Objects;
 import java.util.Properties;
 import java.util.Set;
 import java.util.Stack;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import io.werval.api.Application;
 import io.werval.api.Mode;
 import io.werval.api.Plugin;
 import io.werval.api.context.Context;
+import io.werval.api.exceptions.ActivationException;
 import io.werval.api.exceptions.PassivationException;
 import io.werval.api.exceptions.WervalException;
 import io.werval.api.routes.Route;
 import io.werval.runtime.routes.RouteBuilderInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import static java.util.Collections.emptyList;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.stream.Collectors.toList;
 
 import static io.werval.util.IllegalArguments.ensureNotNull;
@@ -56,9 +68,17 @@ import static io.werval.util.Strings.rightPad;
  * Plugins Instance.
  * <p>
  * Manage Plugins lifecycle and provide lookup for {@link ApplicationInstance}.
+ * <p>
+ * Plugins are activated in dependency order, one after the other.
+ * If {@literal app.plugins.parallel_activation.enabled} is set, independent Plugins are activated concurrently on a
+ * bounded pool of {@literal app.plugins.parallel_activation.threads} threads, each Plugin being activated once all
+ * its dependencies are.
+ * Either way, Plugins are passivated in reverse dependency order.
  */
 /* package */ class PluginsInstance
 {
+    private static final Logger LOG = LoggerFactory.getLogger( PluginsInstance.class );
+
     /**
      * Plugin Information.
      * <p>
@@ -118,6 +138,7 @@ import static io.werval.util.Strings.rightPad;
     private volatile boolean activated = false;
     private boolean activatingOrPassivating = false;
     private List<PluginInfo> activePlugins = emptyList();
+    private final Map<PluginInfo, Long> activationNanos = new ConcurrentHashMap<>();
 
     /**
      * Activate Plugins.
@@ -134,12 +155,25 @@ import static io.werval.util.Strings.rightPad;
             List<PluginInfo> dynamicPlugins = loadDynamicPlugins( application, pluginsDescriptors, appPlugins );
             List<PluginInfo> plugins = resolveDependencies( application, appPlugins, dynamicPlugins );
 
-            // Activate all plugins, in order
-            activePlugins = new ArrayList<>( plugins.size() );
-            for( PluginInfo pluginInfo : plugins )
+            activationNanos.clear();
+            if( plugins.size() > 1 && application.config().bool( "app.plugins.parallel_activation.enabled" ) )
+            {
+                // Activate independent plugins concurrently
+                activateConcurrently(
+                    application,
+                    plugins,
+                    application.config().intNumber( "app.plugins.parallel_activation.threads" )
+                );
+            }
+            else
             {
-                pluginInfo.plugin.onActivate( application );
-                activePlugins.add( pluginInfo );
+                // Activate all plugins, in order
+                activePlugins = new ArrayList<>( plugins.size() );
+                for( PluginInfo pluginInfo : plugins )
+                {
+                    activate( application, pluginInfo );
+                    activePlugins.add( pluginInfo );
+                }
             }
 
             // Plugins Activated
@@ -202,6 +236,25 @@ import static io.werval.util.Strings.rightPad;
         }
     }
 
+    /**
+     * Plugins activation times.
+     *
+     * @return Activation time in milliseconds of each active Plugin, by Plugin class name, in activation order
+     */
+    /* package */ Map<String, Long> activationTimes()
+    {
+        Map<String, Long> times = new LinkedHashMap<>();
+        for( PluginInfo pluginInfo : activePlugins )
+        {
+            Long nanos = activationNanos.get( pluginInfo );
+            if( nanos != null )
+            {
+                times.put( pluginInfo.toString(), NANOSECONDS.toMillis( nanos ) );
+            }
+        }
+        return Collections.unmodifiableMap( times );
+    }
+
     /**
      * Collect first routes contributed by active Plugins.
      *
@@ -355,6 +408,151 @@ import static io.werval.util.Strings.rightPad;
         );
     }
 
+    private void activate( ApplicationInstance application, PluginInfo pluginInfo )
+    {
+        long start = System.nanoTime();
+        pluginInfo.plugin.onActivate( application );
+        long elapsed = System.nanoTime() - start;
+        activationNanos.put( pluginInfo, elapsed );
+        LOG.debug( "{} activated in {}ms", pluginInfo, NANOSECONDS.toMillis( elapsed ) );
+    }
+
+    /**
+     * Activate Plugins concurrently.
+     * <p>
+     * Each Plugin activation is chained to its dependencies activations.
+     * Once a Plugin failed to activate, Plugins not started yet are not activated.
+     * A single error is rethrown as is, several errors are aggregated into an {@link ActivationException}.
+     *
+     * @param application Application
+     * @param plugins     Plugins, dependency resolved
+     * @param threads     Maximum number of activation threads
+     */
+    private void activateConcurrently( ApplicationInstance application, List<PluginInfo> plugins, int threads )
+    {
+        // Concurrently activated plugins may lookup each other
+        List<PluginInfo> activated = new CopyOnWriteArrayList<>();
+        activePlugins = activated;
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(
+            Math.max( 1, Math.min( threads, plugins.size() ) ),
+            runnable ->
+            {
+                Thread thread = new Thread( runnable, "werval-plugins-activation-" + threadCount.incrementAndGet() );
+                thread.setDaemon( true );
+                thread.setContextClassLoader( application.classLoader() );
+                return thread;
+            }
+        );
+        try
+        {
+            AtomicBoolean failed = new AtomicBoolean( false );
+            Map<PluginInfo, CompletableFuture<Void>> activations = new LinkedHashMap<>();
+            for( PluginInfo pluginInfo : plugins )
+            {
+                // Plugins are dependency resolved, dependencies activations are then already registered
+                List<CompletableFuture<Void>> dependencies = pluginInfo.plugin.dependencies( application.config() )
+                    .stream()
+                    .map( dependency -> dependencyMatch( plugins, dependency ) )
+                    .filter( Objects::nonNull )
+                    .map( activations::get )
+                    .filter( Objects::nonNull )
+                    .collect( toList() );
+                activations.put(
+                    pluginInfo,
+                    CompletableFuture.allOf(
+                        dependencies.toArray( new CompletableFuture<?>[ dependencies.size() ] )
+                    ).thenRunAsync(
+                        () ->
+                        {
+                            if( failed.get() )
+                            {
+                                return;
+                            }
+                            try
+                            {
+                                activate( application, pluginInfo );
+                                activated.add( pluginInfo );
+                            }
+                            catch( RuntimeException | Error ex )
+                            {
+                                failed.set( true );
+                                throw ex;
+                            }
+                        },
+                        pool
+                    )
+                );
+            }
+
+            // Dependents of a failed plugin fail with the very same error
+            Set<Throwable> errors = new LinkedHashSet<>();
+            for( CompletableFuture<Void> activation : activations.values() )
+            {
+                try
+                {
+                    activation.join();
+                }
+                catch( CompletionException ex )
+                {
+                    errors.add( ex.getCause() );
+                }
+            }
+            if( !errors.isEmpty() )
+            {
+                Iterator<Throwable> it = errors.iterator();
+                Throwable first = it.next();
+                if( !it.hasNext() )
+                {
+                    if( first instanceof RuntimeException )
+                    {
+                        throw (RuntimeException) first;
+                    }
+                    if( first instanceof Error )
+                    {
+                        throw (Error) first;
+                    }
+                }
+                ActivationException ex = new ActivationException(
+                    "There were errors during Plugins activation", first
+                );
+                while( it.hasNext() )
+                {
+                    ex.addSuppressed( it.next() );
+                }
+                throw ex;
+            }
+
+            // Keep dependency order for routes and passivation
+            activePlugins = new ArrayList<>( plugins );
+        }
+        finally
+        {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Match a dependency against resolved Plugins.
+     *
+     * @param plugins    Plugins, dependency resolved
+     * @param dependency Dependency API type
+     *
+     * @return Matching Plugin, same type, then assignable or null
+     */
+    private PluginInfo dependencyMatch( List<PluginInfo> plugins, Class<?> dependency )
+    {
+        return plugins.stream()
+            .filter( p -> p.plugin.apiType().equals( dependency ) )
+            .findFirst()
+            .orElse(
+                plugins.stream()
+                .filter( p -> dependency.isAssignableFrom( p.plugin.apiType() ) )
+                .findFirst()
+                .orElse( null )
+            );
+    }
+
     /**
      * Load plugins descriptors from the application classpath.
      *
@@ -664,6 +862,11 @@ import static io.werval.util.Strings.rightPad;
             sb.append( rightPad( apiTypePadLen, pluginInfo.plugin.apiType().getSimpleName() ) );
             sb.append( " provided by " );
             sb.append( pluginInfo.plugin.getClass().getName() );
+            Long nanos = activationNanos.get( pluginInfo );
+            if( nanos != null )
+            {
+                sb.append( " activated in " ).append( NANOSECONDS.toMillis( nanos ) ).append( "ms" );
+            }
             if( it.hasNext() )
             {
                 sb.append( NEWLINE );
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.runtime.http;
+
+import io.werval.api.Config;
+import io.werval.api.http.Headers;
+import io.werval.api.http.RequestHeader;
+import io.werval.api.http.Status;
+import io.werval.api.mime.MimeTypes;
+import io.werval.api.outcomes.Outcome;
+import io.werval.runtime.outcomes.CachedOutcome;
+import io.werval.runtime.outcomes.OutcomesInstance;
+import io.werval.runtime.outcomes.SimpleOutcome;
+import io.werval.util.XXHash64;
+
+import static io.werval.api.http.Headers.Names.CONTENT_LOCATION;
+import static io.werval.api.http.Headers.Names.ETAG;
+import static io.werval.api.http.Headers.Names.IF_NONE_MATCH;
+import static io.werval.api.http.Method.GET;
+import static io.werval.api.http.Method.HEAD;
+import static io.werval.runtime.ConfigKeys.WERVAL_HTTP_ETAGS_ENABLED;
+import static io.werval.runtime.ConfigKeys.WERVAL_HTTP_ETAGS_MAX_BODY_SIZE;
+
+/**
+ * Entity Tags.
+ * <p>
+ * When enabled, in-memory response bodies are hashed using {@link XXHash64} to set a strong {@literal ETag} header,
+ * and conditional {@literal GET} requests whose {@literal If-None-Match} header matches are answered with
+ * {@literal 304 Not Modified} and no body.
+ * <p>
+ * Bodies larger than the configured maximum size are not hashed.
+ * Responses that already have an {@literal ETag} header are not hashed either, controllers that know a version or
+ * hash of their resources can then set it themselves.
+ */
+public final class EntityTags
+{
+    private final Config config;
+    private final MimeTypes mimeTypes;
+    private final boolean enabled;
+    private final long maxBodySize;
+
+    public EntityTags( Config config, MimeTypes mimeTypes )
+    {
+        this.config = config;
+        this.mimeTypes = mimeTypes;
+        this.enabled = config.bool( WERVAL_HTTP_ETAGS_ENABLED );
+        this.maxBodySize = config.longNumber( WERVAL_HTTP_ETAGS_MAX_BODY_SIZE );
+    }
+
+    /**
+     * Set a strong {@literal ETag} on the given Outcome if enabled and applicable.
+     *
+     * @param request Request header
+     * @param outcome Outcome
+     */
+    public void tag( RequestHeader request, Outcome outcome )
+    {
+        if( !enabled
+            || !isConditionable( request, outcome )
+            || outcome.responseHeader().headers().has( ETAG )
+            || !( outcome instanceof SimpleOutcome ) )
+        {
+            return;
+        }
+        long hash;
+        if( outcome instanceof CachedOutcome )
+        {
+            CachedOutcome cached = (CachedOutcome) outcome;
+            if( cached.length() > maxBodySize )
+            {
+                return;
+            }
+            hash = XXHash64.hash( cached.bytes(), cached.offset(), cached.length(), 0 );
+        }
+        else
+        {
+            byte[] body = ( (SimpleOutcome) outcome ).body().asBytes();
+            if( body.length > maxBodySize )
+            {
+                return;
+            }
+            hash = XXHash64.hash( body );
+        }
+        outcome.responseHeader().headers().withSingle( ETAG, strongETag( hash ) );
+    }
+
+    /**
+     * Evaluate the {@literal If-None-Match} precondition if enabled and applicable.
+     *
+     * @param request Request header
+     * @param outcome Outcome
+     *
+     * @return A {@literal 304 Not Modified} Outcome if the precondition failed, the given Outcome otherwise
+     */
+    public Outcome conditional( RequestHeader request, Outcome outcome )
+    {
+        if( !enabled || !isConditionable( request, outcome ) )
+        {
+            return outcome;
+        }
+        Headers headers = outcome.responseHeader().headers();
+        if( !headers.has( ETAG ) || !request.headers().has( IF_NONE_MATCH ) )
+        {
+            return outcome;
+        }
+        if( !matches( request.headers().values( IF_NONE_MATCH ), headers.singleValue( ETAG ) ) )
+        {
+            return outcome;
+        }
+        ResponseHeaderInstance notModified = new ResponseHeaderInstance( request.version() );
+        for( String name : headers.keys() )
+        {
+            // Representation metadata is not sent along 304 responses, RFC 7232 4.1
+            if( !name.regionMatches( true, 0, "Content-", 0, 8 ) || CONTENT_LOCATION.equalsIgnoreCase( name ) )
+            {
+                notModified.headers().withAll( name, headers.values( name ).toArray( new String[ 0 ] ) );
+            }
+        }
+        return new OutcomesInstance( config, mimeTypes, notModified ).notModified().build();
+    }
+
+    /**
+     * @param hash Hash
+     *
+     * @return Strong {@literal ETag} value for the given hash
+     */
+    public static String strongETag( long hash )
+    {
+        String hex = Long.toHexString( hash );
+        StringBuilder etag = new StringBuilder( 18 ).append( '"' );
+        for( int idx = hex.length(); idx < 16; idx++ )
+        {
+            etag.append( '0' );
+        }
+        return etag.append( hex ).append( '"' ).toString();
+    }
+
+    private static boolean isConditionable( RequestHeader request, Outcome outcome )
+    {
+        return ( request.method().equals( GET ) || request.method().equals( HEAD ) )
+               && outcome.responseHeader().status().code() == Status.OK_CODE;
+    }
+
+    // If-None-Match uses the weak comparison function, RFC 7232 3.2
+    private static boolean matches( Iterable<String> ifNoneMatch, String etag )
+    {
+        String opaque = opaque( etag );
+        for( String value : ifNoneMatch )
+        {
+            for( String candidate : value.split( "," ) )
+            {
+                String trimmed = candidate.trim();
+                if( "*".equals( trimmed ) || opaque.equals( opaque( trimmed ) ) )
+                {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String opaque( String etag )
+    {
+        return etag.startsWith( "W/" ) ? etag.substring( 2 ) : etag;
+    }
+}
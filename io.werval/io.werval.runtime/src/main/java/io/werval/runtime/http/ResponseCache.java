@@ -0,0 +1,786 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.runtime.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import io.werval.api.Application;
+import io.werval.api.Global;
+import io.werval.api.http.Headers;
+import io.werval.api.http.Request;
+import io.werval.api.http.Status;
+import io.werval.api.http.StatusClass;
+import io.werval.api.outcomes.Outcome;
+import io.werval.api.routes.Route;
+import io.werval.filters.Cached;
+import io.werval.runtime.outcomes.CachedOutcome;
+import io.werval.runtime.outcomes.InputStreamOutcome;
+import io.werval.runtime.outcomes.SimpleOutcome;
+import io.werval.util.InputStreams;
+import io.werval.util.Strings;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static io.werval.api.http.Headers.Names.AGE;
+import static io.werval.api.http.Headers.Names.AUTHORIZATION;
+import static io.werval.api.http.Headers.Names.CACHE_CONTROL;
+import static io.werval.api.http.Headers.Names.CONNECTION;
+import static io.werval.api.http.Headers.Names.CONTENT_LENGTH;
+import static io.werval.api.http.Headers.Names.ETAG;
+import static io.werval.api.http.Headers.Names.IF_NONE_MATCH;
+import static io.werval.api.http.Headers.Names.PRAGMA;
+import static io.werval.api.http.Headers.Names.SET_COOKIE;
+import static io.werval.api.http.Headers.Names.TRAILER;
+import static io.werval.api.http.Headers.Names.TRANSFER_ENCODING;
+import static io.werval.api.http.Headers.Names.VARY;
+import static io.werval.api.http.Headers.Names.WARNING;
+import static io.werval.api.http.Headers.Names.X_WERVAL_CONTENT_LENGTH;
+import static io.werval.api.http.Headers.Names.X_WERVAL_REQUEST_ID;
+import static io.werval.api.http.Headers.Values.MAX_AGE;
+import static io.werval.api.http.Headers.Values.MUST_REVALIDATE;
+import static io.werval.api.http.Headers.Values.NO_CACHE;
+import static io.werval.api.http.Headers.Values.NO_STORE;
+import static io.werval.api.http.Headers.Values.PRIVATE;
+import static io.werval.api.http.Headers.Values.PUBLIC;
+import static io.werval.api.http.Headers.Values.S_MAXAGE;
+import static io.werval.api.http.Method.GET;
+import static io.werval.api.http.Method.HEAD;
+import static io.werval.runtime.ConfigKeys.WERVAL_HTTP_RESPONSE_CACHE_COALESCING_TIMEOUT;
+import static io.werval.runtime.ConfigKeys.WERVAL_HTTP_RESPONSE_CACHE_MAX_BODY_SIZE;
+import static io.werval.runtime.ConfigKeys.WERVAL_HTTP_RESPONSE_CACHE_STALE_IF_ERROR;
+import static io.werval.runtime.ConfigKeys.WERVAL_HTTP_RESPONSE_CACHE_STALE_WHILE_REVALIDATE;
+
+/**
+ * HTTP Response Cache.
+ * <p>
+ * Backs the {@link Cached} annotation.
+ * Responses are stored in the Application {@link io.werval.api.cache.Cache} as compact byte arrays holding status,
+ * headers and body.
+ * Hits are answered from these bytes without invoking filters nor controller.
+ * <p>
+ * Cache keys are made of the request method and URI, plus the values of the request headers listed by
+ * {@link Cached#vary()} and by the {@literal Vary} header of stored responses.
+ * The latter are stored alongside responses, with the same time to live.
+ * Requests carrying an {@literal Authorization} header are only answered with responses explicitly marked as shared
+ * using {@literal public}, {@literal s-maxage} or {@literal must-revalidate}.
+ * <p>
+ * Concurrent misses on the same key are coalesced, only one of them reaches the controller.
+ * Stale responses can be served while revalidating in the background and on errors according to the
+ * {@literal stale-while-revalidate} and {@literal stale-if-error} {@literal Cache-Control} extensions, see RFC 5861.
+ */
+public final class ResponseCache
+{
+    /**
+     * Interaction producing an Outcome on cache miss.
+     */
+    @FunctionalInterface
+    public interface Interaction
+    {
+        Outcome interact()
+            throws Exception;
+    }
+
+    private static final Logger LOG = LoggerFactory.getLogger( ResponseCache.class );
+    private static final String KEY_PREFIX = "werval-response:";
+    private static final String VARY_KEY_PREFIX = "werval-response-vary:";
+    private static final byte FORMAT_VERSION = 1;
+    private static final String STALE_WHILE_REVALIDATE = "stale-while-revalidate";
+    private static final String STALE_IF_ERROR = "stale-if-error";
+    private static final String WARNING_STALE = "110 - \"Response is Stale\"";
+    private static final String WARNING_REVALIDATION_FAILED = "111 - \"Revalidation Failed\"";
+    private static final Set<Integer> CACHEABLE_STATUSES = new HashSet<>(
+        Arrays.asList( 200, 203, 204, 300, 301, 404, 405, 410, 414 )
+    );
+    private static final Set<String> UNSTORED_HEADERS = new TreeSet<>( String.CASE_INSENSITIVE_ORDER );
+
+    static
+    {
+        UNSTORED_HEADERS.addAll(
+            Arrays.asList(
+                AGE, CONNECTION, CONTENT_LENGTH, "Keep-Alive", TRAILER, TRANSFER_ENCODING, WARNING,
+                X_WERVAL_CONTENT_LENGTH, X_WERVAL_REQUEST_ID
+            )
+        );
+    }
+
+    private final Application application;
+    private final Global global;
+    private final long maxBodySize;
+    private final long defaultStaleWhileRevalidate;
+    private final long defaultStaleIfError;
+    private final long coalescingTimeout;
+    private final ConcurrentMap<Route, Optional<Cached>> annotations = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CompletableFuture<Entry>> inFlight = new ConcurrentHashMap<>();
+
+    public ResponseCache( Application application, Global global )
+    {
+        this.application = application;
+        this.global = global;
+        this.maxBodySize = application.config().longNumber( WERVAL_HTTP_RESPONSE_CACHE_MAX_BODY_SIZE );
+        this.defaultStaleWhileRevalidate = application.config().milliseconds(
+            WERVAL_HTTP_RESPONSE_CACHE_STALE_WHILE_REVALIDATE
+        );
+        this.defaultStaleIfError = application.config().milliseconds( WERVAL_HTTP_RESPONSE_CACHE_STALE_IF_ERROR );
+        this.coalescingTimeout = application.config().milliseconds( WERVAL_HTTP_RESPONSE_CACHE_COALESCING_TIMEOUT );
+    }
+
+    /**
+     * Find the {@link Cached} annotation applying to a Route.
+     * <p>
+     * Controller method, controller type and Global type are looked up, in that order.
+     *
+     * @param route Route
+     *
+     * @return The applying annotation, or an empty Optional if the Route is not cached
+     */
+    public Optional<Cached> cachedAnnotation( Route route )
+    {
+        return annotations.computeIfAbsent(
+            route,
+            r ->
+            {
+                Cached cached = r.controllerMethod().getAnnotation( Cached.class );
+                if( cached == null )
+                {
+                    cached = r.controllerType().getAnnotation( Cached.class );
+                }
+                if( cached == null )
+                {
+                    cached = global.getClass().getAnnotation( Cached.class );
+                }
+                return Optional.ofNullable( cached );
+            }
+        );
+    }
+
+    /**
+     * @param request Request
+     *
+     * @return {@literal true} if the given request can be served through the cache, {@literal false} otherwise
+     */
+    public boolean isCacheable( Request request )
+    {
+        return ( request.method().equals( GET ) || request.method().equals( HEAD ) )
+               && !cacheControl( request.headers() ).containsKey( NO_STORE );
+    }
+
+    /**
+     * Handle a cacheable request.
+     *
+     * @param request     Request
+     * @param cached      Applying annotation
+     * @param interaction Interaction invoked on cache miss
+     *
+     * @return Outcome, either served from the cache or produced by the interaction
+     *
+     * @throws Exception if the interaction failed and no stale response could be served
+     */
+    public Outcome handle( Request request, Cached cached, Interaction interaction )
+        throws Exception
+    {
+        boolean authorized = request.headers().has( AUTHORIZATION );
+        String primaryKey = request.method().name() + " " + request.uri();
+        long now = System.currentTimeMillis();
+
+        // Lookup, unless the client asked for an end-to-end reload
+        Entry stale = null;
+        Map<String, String> requestCacheControl = cacheControl( request.headers() );
+        boolean reload = requestCacheControl.containsKey( NO_CACHE )
+                         || "0".equals( requestCacheControl.get( MAX_AGE ) )
+                         || NO_CACHE.equalsIgnoreCase( request.headers().singleValueOptional( PRAGMA ).orElse( "" ) );
+        if( !reload )
+        {
+            Entry entry = lookup( request, primaryKey, cached );
+            if( entry != null && ( !authorized || entry.shared ) )
+            {
+                if( now < entry.freshUntil )
+                {
+                    return entry.outcome( request, now, null );
+                }
+                if( now < entry.staleWhileRevalidateUntil )
+                {
+                    revalidate( request, primaryKey, cached, interaction );
+                    return entry.outcome( request, now, WARNING_STALE );
+                }
+                if( now < entry.staleIfErrorUntil )
+                {
+                    stale = entry;
+                }
+            }
+        }
+
+        // Authorized requests are not coalesced
+        if( authorized )
+        {
+            return interactAndStore( request, primaryKey, cached, interaction, stale, null );
+        }
+
+        // Coalesce concurrent misses
+        CompletableFuture<Entry> promise = new CompletableFuture<>();
+        CompletableFuture<Entry> leader = inFlight.putIfAbsent( primaryKey, promise );
+        if( leader == null )
+        {
+            try
+            {
+                return interactAndStore( request, primaryKey, cached, interaction, stale, promise );
+            }
+            finally
+            {
+                inFlight.remove( primaryKey, promise );
+            }
+        }
+        try
+        {
+            Entry entry = leader.get( coalescingTimeout, TimeUnit.MILLISECONDS );
+            if( entry != null && entry.matches( request ) )
+            {
+                return entry.outcome( request, System.currentTimeMillis(), null );
+            }
+        }
+        catch( TimeoutException | ExecutionException ex )
+        {
+            LOG.trace( "Coalesced interaction on '{}' did not complete, invoking", primaryKey, ex );
+        }
+        return interactAndStore( request, primaryKey, cached, interaction, stale, null );
+    }
+
+    private void revalidate( Request request, String primaryKey, Cached cached, Interaction interaction )
+    {
+        CompletableFuture<Entry> promise = new CompletableFuture<>();
+        if( inFlight.putIfAbsent( primaryKey, promise ) != null )
+        {
+            // Already being revalidated
+            return;
+        }
+        application.executors().runAsync(
+            () ->
+            {
+                try
+                {
+                    interactAndStore( request, primaryKey, cached, interaction, null, promise );
+                }
+                catch( Exception ex )
+                {
+                    LOG.warn( "Background revalidation of '{}' failed: {}", primaryKey, ex.getMessage(), ex );
+                }
+                finally
+                {
+                    inFlight.remove( primaryKey, promise );
+                }
+            }
+        );
+    }
+
+    private Outcome interactAndStore(
+        Request request, String primaryKey, Cached cached, Interaction interaction,
+        Entry stale, CompletableFuture<Entry> promise
+    )
+        throws Exception
+    {
+        Entry entry = null;
+        try
+        {
+            Outcome outcome;
+            try
+            {
+                outcome = interaction.interact();
+            }
+            catch( Exception ex )
+            {
+                if( stale != null && System.currentTimeMillis() < stale.staleIfErrorUntil )
+                {
+                    LOG.debug( "Serving stale '{}' on error: {}", primaryKey, ex.getMessage(), ex );
+                    return stale.outcome( request, System.currentTimeMillis(), WARNING_REVALIDATION_FAILED );
+                }
+                throw ex;
+            }
+            long now = System.currentTimeMillis();
+            if( stale != null && now < stale.staleIfErrorUntil
+                && outcome.responseHeader().status().statusClass() == StatusClass.SERVER_ERROR )
+            {
+                LOG.debug( "Serving stale '{}' on {}", primaryKey, outcome.responseHeader().status() );
+                return stale.outcome( request, now, WARNING_REVALIDATION_FAILED );
+            }
+            outcome = buffered( outcome );
+            try
+            {
+                entry = store( request, primaryKey, cached, outcome, now );
+            }
+            catch( IOException | RuntimeException ex )
+            {
+                LOG.warn(
+                    "Unable to cache response for '{}', serving it uncached: {}", primaryKey, ex.getMessage(), ex
+                );
+                return outcome;
+            }
+            if( entry == null )
+            {
+                return outcome;
+            }
+            return entry.outcome( request, now, null );
+        }
+        finally
+        {
+            if( promise != null )
+            {
+                promise.complete( entry );
+            }
+        }
+    }
+
+    /**
+     * Buffer cacheable stream bodies so that the outcome can still be served if storing it fails.
+     */
+    private Outcome buffered( Outcome outcome )
+        throws IOException
+    {
+        if( !( outcome instanceof InputStreamOutcome )
+            || !CACHEABLE_STATUSES.contains( outcome.responseHeader().status().code() ) )
+        {
+            return outcome;
+        }
+        InputStreamOutcome streamOutcome = (InputStreamOutcome) outcome;
+        if( streamOutcome.contentLength() > maxBodySize )
+        {
+            return outcome;
+        }
+        try ( InputStream input = streamOutcome.bodyInputStream() )
+        {
+            ByteArrayOutputStream output = new ByteArrayOutputStream( (int) streamOutcome.contentLength() );
+            InputStreams.transferTo( input, output, InputStreams.BUF_SIZE_4K );
+            byte[] body = output.toByteArray();
+            return new CachedOutcome( outcome.responseHeader(), body, 0, body.length );
+        }
+    }
+
+    private Entry lookup( Request request, String primaryKey, Cached cached )
+    {
+        byte[] bytes;
+        try
+        {
+            String storedNames = application.cache().get( varyKey( primaryKey ) );
+            List<String> names;
+            if( storedNames == null )
+            {
+                names = annotationVaryNames( cached );
+            }
+            else if( storedNames.isEmpty() )
+            {
+                names = Collections.emptyList();
+            }
+            else
+            {
+                names = Arrays.asList( storedNames.split( "," ) );
+            }
+            bytes = application.cache().get( key( request, primaryKey, names ) );
+        }
+        catch( RuntimeException ex )
+        {
+            LOG.warn( "Unable to lookup cached response for '{}': {}", primaryKey, ex.getMessage(), ex );
+            return null;
+        }
+        if( bytes == null )
+        {
+            return null;
+        }
+        try
+        {
+            Entry entry = new Entry( bytes );
+            return entry.matches( request ) ? entry : null;
+        }
+        catch( IOException | RuntimeException ex )
+        {
+            LOG.debug( "Ignoring undecodable cached response for '{}': {}", primaryKey, ex.getMessage() );
+            return null;
+        }
+    }
+
+    private Entry store( Request request, String primaryKey, Cached cached, Outcome outcome, long now )
+        throws IOException
+    {
+        Headers headers = outcome.responseHeader().headers();
+        Status status = outcome.responseHeader().status();
+        if( !CACHEABLE_STATUSES.contains( status.code() ) || headers.has( SET_COOKIE ) )
+        {
+            return null;
+        }
+
+        // Response Cache-Control
+        Map<String, String> cacheControl = cacheControl( headers );
+        if( cacheControl.containsKey( NO_STORE )
+            || cacheControl.containsKey( PRIVATE )
+            || cacheControl.containsKey( NO_CACHE ) )
+        {
+            return null;
+        }
+        boolean shared = cacheControl.containsKey( PUBLIC )
+                         || cacheControl.containsKey( S_MAXAGE )
+                         || cacheControl.containsKey( MUST_REVALIDATE );
+        if( request.headers().has( AUTHORIZATION ) && !shared )
+        {
+            return null;
+        }
+
+        // Vary
+        Set<String> names = new LinkedHashSet<>( annotationVaryNames( cached ) );
+        for( String vary : headers.values( VARY ) )
+        {
+            for( String name : vary.split( "," ) )
+            {
+                String trimmed = name.trim().toLowerCase( Locale.US );
+                if( "*".equals( trimmed ) )
+                {
+                    return null;
+                }
+                if( !trimmed.isEmpty() )
+                {
+                    names.add( trimmed );
+                }
+            }
+        }
+
+        // Freshness
+        long freshFor = seconds( cacheControl, S_MAXAGE, seconds( cacheControl, MAX_AGE, cached.ttl() * 1000L ) );
+        long freshUntil = freshFor == 0 && !cacheControl.containsKey( MAX_AGE ) && !cacheControl.containsKey( S_MAXAGE )
+                          ? Long.MAX_VALUE
+                          : now + freshFor;
+        long staleWhileRevalidateUntil = addSaturated(
+            freshUntil,
+            seconds( cacheControl, STALE_WHILE_REVALIDATE, defaultStaleWhileRevalidate )
+        );
+        long staleIfErrorUntil = addSaturated(
+            freshUntil,
+            seconds( cacheControl, STALE_IF_ERROR, defaultStaleIfError )
+        );
+        long expiresAt = Math.max( staleWhileRevalidateUntil, staleIfErrorUntil );
+        if( expiresAt <= now )
+        {
+            return null;
+        }
+
+        // Body
+        byte[] body;
+        if( outcome instanceof SimpleOutcome )
+        {
+            body = ( (SimpleOutcome) outcome ).body().asBytes();
+            if( body.length > maxBodySize )
+            {
+                return null;
+            }
+        }
+        else
+        {
+            // Stream bodies too large to be buffered and chunked bodies are not cached
+            return null;
+        }
+
+        // Encode & Store
+        List<String> varyList = new ArrayList<>( names );
+        Entry entry = Entry.encode(
+            new Freshness( now, freshUntil, staleWhileRevalidateUntil, staleIfErrorUntil ), shared,
+            status, headers, varyList, varyValues( request, varyList ), body
+        );
+        int ttl = expiresAt == Long.MAX_VALUE ? 0 : (int) Math.max( 1, ( expiresAt - now + 999 ) / 1000 );
+        storeAsync( primaryKey, ttl, varyKey( primaryKey ), String.join( ",", varyList ) );
+        storeAsync( primaryKey, ttl, key( request, primaryKey, varyList ), entry.bytes );
+        return entry;
+    }
+
+    private <T> void storeAsync( String primaryKey, int ttl, String key, T value )
+    {
+        application.cache().setAsync( ttl, key, value ).exceptionally(
+            ex ->
+            {
+                LOG.warn( "Unable to store response for '{}': {}", primaryKey, ex.getMessage(), ex );
+                return null;
+            }
+        );
+    }
+
+    private String varyKey( String primaryKey )
+    {
+        return VARY_KEY_PREFIX + application.crypto().sha256Base64( primaryKey );
+    }
+
+    private String key( Request request, String primaryKey, List<String> names )
+    {
+        StringBuilder key = new StringBuilder( primaryKey );
+        List<String> values = varyValues( request, names );
+        for( int idx = 0; idx < names.size(); idx++ )
+        {
+            key.append( '\n' ).append( names.get( idx ) ).append( ':' ).append( values.get( idx ) );
+        }
+        // Always hashed, plain keys contain whitespace and control characters that some Cache backends reject
+        return KEY_PREFIX + application.crypto().sha256Base64( key.toString() );
+    }
+
+    private static List<String> annotationVaryNames( Cached cached )
+    {
+        List<String> names = new ArrayList<>( cached.vary().length );
+        for( String name : cached.vary() )
+        {
+            if( Strings.hasText( name ) )
+            {
+                names.add( name.trim().toLowerCase( Locale.US ) );
+            }
+        }
+        return names;
+    }
+
+    private static List<String> varyValues( Request request, List<String> names )
+    {
+        List<String> values = new ArrayList<>( names.size() );
+        for( String name : names )
+        {
+            values.add( String.join( ",", request.headers().values( name ) ) );
+        }
+        return values;
+    }
+
+    private static Map<String, String> cacheControl( Headers headers )
+    {
+        List<String> values = headers.values( CACHE_CONTROL );
+        if( values.isEmpty() )
+        {
+            return Collections.emptyMap();
+        }
+        Map<String, String> directives = new LinkedHashMap<>();
+        for( String value : values )
+        {
+            for( String directive : value.split( "," ) )
+            {
+                int eq = directive.indexOf( '=' );
+                if( eq == -1 )
+                {
+                    directives.put( directive.trim().toLowerCase( Locale.US ), "" );
+                }
+                else
+                {
+                    directives.put(
+                        directive.substring( 0, eq ).trim().toLowerCase( Locale.US ),
+                        directive.substring( eq + 1 ).trim().replace( "\"", "" )
+                    );
+                }
+            }
+        }
+        return directives;
+    }
+
+    private static long seconds( Map<String, String> cacheControl, String directive, long defaultMillis )
+    {
+        String value = cacheControl.get( directive );
+        if( value != null )
+        {
+            try
+            {
+                return Math.max( 0, Long.parseLong( value ) ) * 1000L;
+            }
+            catch( NumberFormatException ex )
+            {
+                // Ignored, invalid directives are not honoured
+            }
+        }
+        return defaultMillis;
+    }
+
+    private static long addSaturated( long left, long right )
+    {
+        long sum = left + right;
+        return sum < left ? Long.MAX_VALUE : sum;
+    }
+
+    /**
+     * Stored response timestamps.
+     */
+    private static final class Freshness
+    {
+        private final long storedAt;
+        private final long freshUntil;
+        private final long staleWhileRevalidateUntil;
+        private final long staleIfErrorUntil;
+
+        private Freshness( long storedAt, long freshUntil, long staleWhileRevalidateUntil, long staleIfErrorUntil )
+        {
+            this.storedAt = storedAt;
+            this.freshUntil = freshUntil;
+            this.staleWhileRevalidateUntil = staleWhileRevalidateUntil;
+            this.staleIfErrorUntil = staleIfErrorUntil;
+        }
+    }
+
+    /**
+     * Stored response.
+     * <p>
+     * Encoded as: format version, timestamps, shared flag, status, vary names and values, headers, then body bytes
+     * at the end of the array.
+     */
+    private static final class Entry
+    {
+        private final byte[] bytes;
+        private final long storedAt;
+        private final long freshUntil;
+        private final long staleWhileRevalidateUntil;
+        private final long staleIfErrorUntil;
+        private final boolean shared;
+        private final Status status;
+        private final List<String> varyNames;
+        private final List<String> varyValues;
+        private final List<String> headers;
+        private final int bodyOffset;
+
+        private static Entry encode(
+            Freshness freshness, boolean shared,
+            Status status, Headers headers, List<String> varyNames, List<String> varyValues, byte[] body
+        )
+            throws IOException
+        {
+            List<String> storedHeaders = new ArrayList<>();
+            for( String name : headers.keys() )
+            {
+                if( !UNSTORED_HEADERS.contains( name ) )
+                {
+                    for( String value : headers.values( name ) )
+                    {
+                        storedHeaders.add( name );
+                        storedHeaders.add( value );
+                    }
+                }
+            }
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream( 256 + body.length );
+            try ( DataOutputStream output = new DataOutputStream( buffer ) )
+            {
+                output.writeByte( FORMAT_VERSION );
+                output.writeLong( freshness.storedAt );
+                output.writeLong( freshness.freshUntil );
+                output.writeLong( freshness.staleWhileRevalidateUntil );
+                output.writeLong( freshness.staleIfErrorUntil );
+                output.writeBoolean( shared );
+                output.writeShort( status.code() );
+                output.writeUTF( status.reasonPhrase() );
+                writeStrings( output, varyNames );
+                writeStrings( output, varyValues );
+                writeStrings( output, storedHeaders );
+                output.writeInt( body.length );
+                output.write( body );
+            }
+            return new Entry( buffer.toByteArray() );
+        }
+
+        private static void writeStrings( DataOutputStream output, List<String> strings )
+            throws IOException
+        {
+            output.writeShort( strings.size() );
+            for( String string : strings )
+            {
+                output.writeUTF( string );
+            }
+        }
+
+        private static List<String> readStrings( DataInputStream input )
+            throws IOException
+        {
+            int count = input.readUnsignedShort();
+            List<String> strings = new ArrayList<>( count );
+            for( int idx = 0; idx < count; idx++ )
+            {
+                strings.add( input.readUTF() );
+            }
+            return strings;
+        }
+
+        /**
+         * Decode an encoded response.
+         */
+        private Entry( byte[] bytes )
+            throws IOException
+        {
+            DataInputStream input = new DataInputStream( new ByteArrayInputStream( bytes ) );
+            byte version = input.readByte();
+            if( version != FORMAT_VERSION )
+            {
+                throw new IOException( "Unsupported cached response format version: " + version );
+            }
+            this.bytes = bytes;
+            this.storedAt = input.readLong();
+            this.freshUntil = input.readLong();
+            this.staleWhileRevalidateUntil = input.readLong();
+            this.staleIfErrorUntil = input.readLong();
+            this.shared = input.readBoolean();
+            this.status = new Status( input.readShort(), input.readUTF() );
+            this.varyNames = readStrings( input );
+            this.varyValues = readStrings( input );
+            this.headers = readStrings( input );
+            this.bodyOffset = bytes.length - input.readInt();
+        }
+
+        private boolean matches( Request request )
+        {
+            return varyValues.equals( varyValues( request, varyNames ) );
+        }
+
+        private Outcome outcome( Request request, long now, String warning )
+        {
+            ResponseHeaderInstance response = new ResponseHeaderInstance( request.version() );
+            String etag = null;
+            for( int idx = 0; idx < headers.size(); idx += 2 )
+            {
+                response.headers().with( headers.get( idx ), headers.get( idx + 1 ) );
+                if( ETAG.equalsIgnoreCase( headers.get( idx ) ) )
+                {
+                    etag = headers.get( idx + 1 );
+                }
+            }
+            response.headers().withSingle( AGE, String.valueOf( Math.max( 0, ( now - storedAt ) / 1000 ) ) );
+            if( warning != null )
+            {
+                response.headers().withSingle( WARNING, warning );
+            }
+            Optional<String> ifNoneMatch = request.headers().singleValueOptional( IF_NONE_MATCH );
+            if( etag != null && ifNoneMatch.isPresent()
+                && ( "*".equals( ifNoneMatch.get() ) || etag.equals( ifNoneMatch.get() ) ) )
+            {
+                response.withStatus( Status.NOT_MODIFIED );
+                return new CachedOutcome( response, bytes, bytes.length, 0 );
+            }
+            response.withStatus( status );
+            return new CachedOutcome( response, bytes, bodyOffset, bytes.length - bodyOffset );
+        }
+    }
+}
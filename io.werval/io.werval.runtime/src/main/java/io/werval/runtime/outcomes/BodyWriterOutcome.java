@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.runtime.outcomes;
+
+import io.werval.api.http.ResponseHeader;
+import io.werval.api.outcomes.BodyWriter;
+
+/**
+ * {@link BodyWriter} based Outcome for chunked output.
+ */
+public class BodyWriterOutcome
+    extends AbstractOutcome<BodyWriterOutcome>
+{
+    private final BodyWriter writer;
+    private final int chunkSize;
+
+    /* package */
+    BodyWriterOutcome( ResponseHeader response, BodyWriter writer, int chunkSize )
+    {
+        super( response );
+        this.writer = writer;
+        this.chunkSize = chunkSize;
+    }
+
+    public BodyWriter writer()
+    {
+        return writer;
+    }
+
+    public int chunkSize()
+    {
+        return chunkSize;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.runtime.outcomes;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import io.werval.api.http.ResponseHeader;
+import io.werval.util.ByteSource;
+
+/**
+ * Outcome whose body is a region of a byte array, as stored by the response cache.
+ * <p>
+ * HTTP servers write the region as-is, without copying it.
+ */
+public final class CachedOutcome
+    extends SimpleOutcome
+{
+    private final byte[] bytes;
+    private final int offset;
+    private final int length;
+
+    public CachedOutcome( ResponseHeader response, byte[] bytes, int offset, int length )
+    {
+        super( response );
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+        withEntity( new RegionByteSource( bytes, offset, length ) );
+    }
+
+    /**
+     * @return Backing bytes, not to be modified
+     */
+    public byte[] bytes()
+    {
+        return bytes;
+    }
+
+    /**
+     * @return Body offset in backing bytes
+     */
+    public int offset()
+    {
+        return offset;
+    }
+
+    /**
+     * @return Body length
+     */
+    public int length()
+    {
+        return length;
+    }
+
+    private static final class RegionByteSource
+        implements ByteSource, Serializable
+    {
+        private final byte[] bytes;
+        private final int offset;
+        private final int length;
+
+        private RegionByteSource( byte[] bytes, int offset, int length )
+        {
+            this.bytes = bytes;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public byte[] asBytes()
+        {
+            if( offset == 0 && length == bytes.length )
+            {
+                return bytes;
+            }
+            return Arrays.copyOfRange( bytes, offset, offset + length );
+        }
+
+        @Override
+        public InputStream asStream()
+        {
+            return new ByteArrayInputStream( bytes, offset, length );
+        }
+
+        @Override
+        public String asString( Charset charset )
+        {
+            return new String( bytes, offset, length, charset );
+        }
+    }
+}
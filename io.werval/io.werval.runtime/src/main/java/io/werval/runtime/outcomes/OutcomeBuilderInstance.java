@@ -21,14 +21,19 @@ import java.nio.charset.Charset;
 import io.werval.api.Config;
 import io.werval.api.http.ResponseHeader;
 import io.werval.api.mime.MimeTypes;
+import io.werval.api.outcomes.BodyWriter;
 import io.werval.api.outcomes.Outcome;
 import io.werval.api.outcomes.OutcomeBuilder;
+import io.werval.api.sse.ServerSentEvents;
 import io.werval.util.ByteArrayByteSource;
 import io.werval.util.ByteSource;
 
+import static io.werval.api.http.Headers.Names.CACHE_CONTROL;
 import static io.werval.api.http.Headers.Names.CONTENT_TYPE;
+import static io.werval.api.http.Headers.Values.NO_CACHE;
 import static io.werval.api.mime.MimeTypesNames.APPLICATION_JSON;
 import static io.werval.api.mime.MimeTypesNames.APPLICATION_XML;
+import static io.werval.api.mime.MimeTypesNames.TEXT_EVENT_STREAM;
 import static io.werval.api.mime.MimeTypesNames.TEXT_HTML;
 import static io.werval.api.mime.MimeTypesNames.TEXT_PLAIN;
 import static io.werval.runtime.ConfigKeys.WERVAL_CHARACTER_ENCODING;
@@ -178,6 +183,33 @@ public class OutcomeBuilderInstance
         return this;
     }
 
+    @Override
+    public OutcomeBuilder withBody( BodyWriter bodyWriter )
+    {
+        body = bodyWriter;
+        length = -1;
+        return this;
+    }
+
+    @Override
+    public OutcomeBuilder withBody( BodyWriter bodyWriter, int overridenChunkSize )
+    {
+        body = bodyWriter;
+        length = -1;
+        chunkSize = overridenChunkSize;
+        return this;
+    }
+
+    @Override
+    public OutcomeBuilder withBody( ServerSentEvents events )
+    {
+        as( TEXT_EVENT_STREAM );
+        response.headers().withSingle( CACHE_CONTROL, NO_CACHE );
+        body = events;
+        length = -1;
+        return this;
+    }
+
     @Override
     public Outcome build()
     {
@@ -199,6 +231,14 @@ public class OutcomeBuilderInstance
             }
             return new ChunkedInputOutcome( response, bodyInputStream, chunkSize );
         }
+        if( body instanceof BodyWriter )
+        {
+            return new BodyWriterOutcome( response, (BodyWriter) body, chunkSize );
+        }
+        if( body instanceof ServerSentEvents )
+        {
+            return new ServerSentEventsOutcome( response, (ServerSentEvents) body );
+        }
         throw new UnsupportedOperationException( "Unsupported body type ( " + body.getClass() + " ) " + body );
     }
 }
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.runtime.outcomes;
+
+import io.werval.api.http.ResponseHeader;
+import io.werval.api.sse.ServerSentEvents;
+
+/**
+ * {@link ServerSentEvents} based Outcome, keeping the connection open.
+ */
+public class ServerSentEventsOutcome
+    extends AbstractOutcome<ServerSentEventsOutcome>
+{
+    private final ServerSentEvents events;
+
+    /* package */
+    ServerSentEventsOutcome( ResponseHeader response, ServerSentEvents events )
+    {
+        super( response );
+        this.events = events;
+    }
+
+    public ServerSentEvents events()
+    {
+        return events;
+    }
+}
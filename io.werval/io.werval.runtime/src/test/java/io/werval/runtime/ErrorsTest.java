@@ -15,15 +15,21 @@
  */
 package io.werval.runtime;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
 import io.werval.api.Config;
 import io.werval.api.Error;
 import io.werval.api.Errors;
 import org.junit.Test;
 
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Assert that the Errors API implementation in Runtime behave correctly.
@@ -71,4 +77,96 @@ public class ErrorsTest
         assertThat( errors.count(), is( 10 ) );
         assertThat( errors.last().get().message(), equalTo( "error-message-20" ) );
     }
+
+    @Test
+    public void testEvictedErrorsLookup()
+    {
+        Config config = new ConfigInstance( getClass().getClassLoader() );
+        Errors errors = new ErrorsInstance( config );
+        Error evicted = errors.record( "request-identity", "evicted", new RuntimeException( "Evicted" ) );
+        for( int idx = 1; idx <= 10; idx++ )
+        {
+            errors.record( "request-identity", "error-message-" + idx, new RuntimeException( "Recorded " + idx ) );
+        }
+        assertFalse( errors.get( evicted.errorId() ).isPresent() );
+        assertFalse( errors.get( "not-an-error-id" ).isPresent() );
+        assertThat( errors.asList().size(), is( 10 ) );
+        assertThat( errors.asList().get( 9 ).message(), equalTo( "error-message-1" ) );
+        errors.clear();
+        assertThat( errors.count(), is( 0 ) );
+        assertThat( errors.fingerprints().isEmpty(), is( true ) );
+    }
+
+    @Test
+    public void testFingerprints()
+    {
+        Config config = new ConfigInstance( getClass().getClassLoader() );
+        Errors errors = new ErrorsInstance( config );
+        Error last = null;
+        for( int idx = 1; idx <= 50; idx++ )
+        {
+            last = errors.record( "request-" + idx, "storm-" + idx, storm( idx ) );
+        }
+        errors.record( "other-request", "other", new IllegalStateException( "Other" ) );
+        assertThat( errors.count(), is( 10 ) );
+        List<Errors.Fingerprint> fingerprints = errors.fingerprints();
+        assertThat( fingerprints.size(), is( 2 ) );
+        assertThat( fingerprints.get( 0 ).causeClassName(), equalTo( IllegalStateException.class.getName() ) );
+        Errors.Fingerprint storm = fingerprints.get( 1 );
+        assertThat( storm.causeClassName(), equalTo( RuntimeException.class.getName() ) );
+        assertThat( storm.count(), is( 50L ) );
+        assertThat( storm.lastSeen(), greaterThanOrEqualTo( storm.firstSeen() ) );
+        assertThat( storm.lastErrorId(), equalTo( last.errorId() ) );
+    }
+
+    @Test
+    public void testConcurrentRecords()
+        throws InterruptedException
+    {
+        Config config = new ConfigInstance( getClass().getClassLoader() );
+        Errors errors = new ErrorsInstance( config );
+        int threadCount = 8;
+        int perThread = 1_000;
+        CountDownLatch start = new CountDownLatch( 1 );
+        List<Thread> threads = new ArrayList<>();
+        for( int t = 0; t < threadCount; t++ )
+        {
+            Thread thread = new Thread(
+                () ->
+                {
+                    try
+                    {
+                        start.await();
+                    }
+                    catch( InterruptedException ex )
+                    {
+                        throw new RuntimeException( ex );
+                    }
+                    for( int idx = 0; idx < perThread; idx++ )
+                    {
+                        Error error = errors.record( "request-identity", "concurrent", storm( idx ) );
+                        assertTrue( errors.count() <= 10 );
+                        errors.get( error.errorId() );
+                    }
+                }
+            );
+            thread.start();
+            threads.add( thread );
+        }
+        start.countDown();
+        for( Thread thread : threads )
+        {
+            thread.join();
+        }
+        assertThat( errors.count(), is( 10 ) );
+        assertThat( errors.asList().size(), is( 10 ) );
+        assertThat( errors.fingerprints().size(), is( 1 ) );
+        assertThat( errors.fingerprints().get( 0 ).count(), is( (long) threadCount * perThread ) );
+    }
+
+    private static Throwable storm( int idx )
+    {
+        // Same throw site, different messages
+        return new RuntimeException( "Storm " + idx );
+    }
 }
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.runtime;
+
+import io.werval.spi.StartupTimeline;
+import io.werval.test.WervalHttpRule;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import static io.werval.util.Charsets.UTF_8;
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Startup Timeline Test.
+ */
+public class StartupTimelineTest
+{
+    @ClassRule
+    public static final WervalHttpRule WERVAL = new WervalHttpRule( "startup-timeline-test.conf" );
+
+    @Test
+    public void phases()
+    {
+        StartupTimeline timeline = WERVAL.application().startupTimeline();
+        assertThat( timeline.isReady(), is( true ) );
+        List<String> names = timeline.phases().stream().map( StartupTimeline.Phase::name ).collect( toList() );
+        assertThat(
+            names,
+            contains(
+                "config", "parameter_binders",
+                "executors", "global", "routes", "plugins", "plugins_routes", "global_activation",
+                "server_bind"
+            )
+        );
+        long previousStart = 0;
+        for( StartupTimeline.Phase phase : timeline.phases() )
+        {
+            assertThat( phase.startNanos(), greaterThanOrEqualTo( previousStart ) );
+            assertThat( phase.durationNanos(), greaterThanOrEqualTo( 0L ) );
+            assertThat( timeline.readyNanos(), greaterThan( phase.startNanos() + phase.durationNanos() - 1 ) );
+            previousStart = phase.startNanos();
+        }
+    }
+
+    @Test
+    public void json()
+        throws IOException
+    {
+        File file = WERVAL.application().config().file( "werval.startup.timeline" );
+        String json = new String( Files.readAllBytes( file.toPath() ), UTF_8 );
+        assertThat( json, containsString( "\"ready_ms\":" ) );
+        assertThat( json, containsString( "{\"name\":\"server_bind\",\"start_ms\":" ) );
+        assertThat( json, is( WERVAL.application().startupTimeline().toJSON() ) );
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.runtime.http;
+
+import io.werval.api.outcomes.Outcome;
+import io.werval.runtime.routes.RoutesParserProvider;
+import io.werval.test.WervalHttpRule;
+import io.werval.util.Strings;
+import io.werval.util.XXHash64;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import static com.jayway.restassured.RestAssured.given;
+import static com.jayway.restassured.RestAssured.when;
+import static io.werval.api.context.CurrentContext.outcomes;
+import static io.werval.api.http.Headers.Names.CACHE_CONTROL;
+import static io.werval.api.http.Headers.Names.ETAG;
+import static io.werval.api.http.Headers.Names.IF_NONE_MATCH;
+import static io.werval.util.Charsets.UTF_8;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.isEmptyString;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * Entity Tags Test.
+ */
+public class EntityTagsTest
+{
+    private static final String SMALL = "Small payload";
+    private static final String LARGE = Strings.rightPad( 2048, "Large payload", '-' );
+
+    public static class Controller
+    {
+        public Outcome small()
+        {
+            return outcomes().ok( SMALL ).withHeader( CACHE_CONTROL, "max-age=60" ).build();
+        }
+
+        public Outcome large()
+        {
+            return outcomes().ok( LARGE ).build();
+        }
+
+        public Outcome tagged()
+        {
+            return outcomes().ok( SMALL ).withHeader( ETAG, "\"v42\"" ).build();
+        }
+
+        public Outcome post()
+        {
+            return outcomes().ok( SMALL ).build();
+        }
+    }
+
+    @ClassRule
+    public static final WervalHttpRule WERVAL = new WervalHttpRule(
+        "etags-test.conf",
+        new RoutesParserProvider(
+            "\n"
+            + "GET /small io.werval.runtime.http.EntityTagsTest$Controller.small\n"
+            + "GET /large io.werval.runtime.http.EntityTagsTest$Controller.large\n"
+            + "GET /tagged io.werval.runtime.http.EntityTagsTest$Controller.tagged\n"
+            + "POST /post io.werval.runtime.http.EntityTagsTest$Controller.post\n"
+        )
+    );
+
+    @Test
+    public void strongETagFromBody()
+    {
+        String etag = EntityTags.strongETag( XXHash64.hash( SMALL.getBytes( UTF_8 ) ) );
+        when().get( "/small" ).then().statusCode( 200 ).header( ETAG, equalTo( etag ) ).body( equalTo( SMALL ) );
+        given().header( IF_NONE_MATCH, etag )
+            .when().get( "/small" )
+            .then().statusCode( 304 ).header( ETAG, equalTo( etag ) ).header( CACHE_CONTROL, equalTo( "max-age=60" ) )
+            .body( isEmptyString() );
+        given().header( IF_NONE_MATCH, "\"other\", W/" + etag )
+            .when().get( "/small" )
+            .then().statusCode( 304 );
+        given().header( IF_NONE_MATCH, "\"other\"" )
+            .when().get( "/small" )
+            .then().statusCode( 200 ).body( equalTo( SMALL ) );
+    }
+
+    @Test
+    public void largeBodiesAreNotHashed()
+    {
+        when().get( "/large" ).then().statusCode( 200 ).header( ETAG, nullValue() );
+    }
+
+    @Test
+    public void controllerETagIsReused()
+    {
+        when().get( "/tagged" ).then().statusCode( 200 ).header( ETAG, equalTo( "\"v42\"" ) );
+        given().header( IF_NONE_MATCH, "\"v42\"" ).when().get( "/tagged" ).then().statusCode( 304 );
+    }
+
+    @Test
+    public void unsafeMethodsAreNotTagged()
+    {
+        when().post( "/post" ).then().statusCode( 200 ).header( ETAG, nullValue() );
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.runtime.http;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.werval.api.outcomes.Outcome;
+import io.werval.filters.Cached;
+import io.werval.runtime.routes.RoutesParserProvider;
+import io.werval.test.WervalHttpRule;
+import io.werval.util.Strings;
+
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import static com.jayway.restassured.RestAssured.given;
+import static com.jayway.restassured.RestAssured.when;
+import static io.werval.api.context.CurrentContext.outcomes;
+import static io.werval.api.context.CurrentContext.request;
+import static io.werval.api.http.Headers.Names.ACCEPT_LANGUAGE;
+import static io.werval.api.http.Headers.Names.AGE;
+import static io.werval.api.http.Headers.Names.AUTHORIZATION;
+import static io.werval.api.http.Headers.Names.CACHE_CONTROL;
+import static io.werval.api.http.Headers.Names.ETAG;
+import static io.werval.api.http.Headers.Names.IF_NONE_MATCH;
+import static io.werval.api.http.Headers.Names.VARY;
+import static io.werval.api.http.Headers.Names.WARNING;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.startsWith;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Response Cache Test.
+ */
+public class ResponseCacheTest
+{
+    public static class Controller
+    {
+        private static final AtomicInteger HITS = new AtomicInteger();
+        private static volatile boolean failing = false;
+
+        @Cached
+        public Outcome cached()
+        {
+            return outcomes().ok( "CACHED-" + HITS.incrementAndGet() ).build();
+        }
+
+        @Cached
+        public Outcome vary()
+        {
+            HITS.incrementAndGet();
+            return outcomes().ok( "LANG-" + request().headers().singleValueOptional( ACCEPT_LANGUAGE ).orElse( "" ) )
+                .withHeader( VARY, ACCEPT_LANGUAGE )
+                .build();
+        }
+
+        @Cached
+        public Outcome noStore()
+        {
+            return outcomes().ok( "NO-STORE-" + HITS.incrementAndGet() ).withHeader( CACHE_CONTROL, "no-store" ).build();
+        }
+
+        @Cached
+        public Outcome shared()
+        {
+            return outcomes().ok( "SHARED-" + HITS.incrementAndGet() ).withHeader( CACHE_CONTROL, "public" ).build();
+        }
+
+        @Cached
+        public Outcome swr()
+        {
+            return outcomes().ok( "SWR-" + HITS.incrementAndGet() )
+                .withHeader( CACHE_CONTROL, "max-age=1, stale-while-revalidate=60" )
+                .build();
+        }
+
+        @Cached
+        public Outcome sie()
+        {
+            HITS.incrementAndGet();
+            if( failing )
+            {
+                throw new IllegalStateException( "Failing on purpose" );
+            }
+            return outcomes().ok( "SIE" ).withHeader( CACHE_CONTROL, "max-age=1, stale-if-error=60" ).build();
+        }
+
+        @Cached
+        public Outcome unstorable()
+        {
+            // Header values longer than 64KB cannot be stored
+            return outcomes().ok( "UNSTORABLE-" + HITS.incrementAndGet() )
+                .withHeader( "X-Huge", Strings.repeat( "x", 70_000 ) )
+                .build();
+        }
+
+        @Cached
+        public Outcome slow()
+            throws InterruptedException
+        {
+            HITS.incrementAndGet();
+            Thread.sleep( 500 );
+            return outcomes().ok( "SLOW" ).build();
+        }
+    }
+
+    @ClassRule
+    public static final WervalHttpRule WERVAL = new WervalHttpRule(
+        "response-cache-test.conf",
+        new RoutesParserProvider(
+            "\n"
+            + "GET /cached io.werval.runtime.http.ResponseCacheTest$Controller.cached\n"
+            + "GET /reload io.werval.runtime.http.ResponseCacheTest$Controller.cached\n"
+            + "GET /authorized io.werval.runtime.http.ResponseCacheTest$Controller.cached\n"
+            + "GET /vary io.werval.runtime.http.ResponseCacheTest$Controller.vary\n"
+            + "GET /no-store io.werval.runtime.http.ResponseCacheTest$Controller.noStore\n"
+            + "GET /shared io.werval.runtime.http.ResponseCacheTest$Controller.shared\n"
+            + "GET /swr io.werval.runtime.http.ResponseCacheTest$Controller.swr\n"
+            + "GET /sie io.werval.runtime.http.ResponseCacheTest$Controller.sie\n"
+            + "GET /unstorable io.werval.runtime.http.ResponseCacheTest$Controller.unstorable\n"
+            + "GET /slow io.werval.runtime.http.ResponseCacheTest$Controller.slow\n"
+        )
+    );
+
+    @Before
+    public void before()
+    {
+        Controller.HITS.set( 0 );
+        Controller.failing = false;
+    }
+
+    @Test
+    public void hitsAreServedWithoutInvokingController()
+    {
+        when().get( "/cached" ).then().statusCode( 200 ).body( equalTo( "CACHED-1" ) );
+        String etag = when().get( "/cached" )
+            .then().statusCode( 200 ).body( equalTo( "CACHED-1" ) ).header( AGE, notNullValue() )
+            .extract().header( ETAG );
+        given().header( IF_NONE_MATCH, etag ).when().get( "/cached" ).then().statusCode( 304 );
+        assertThat( Controller.HITS.get(), is( 1 ) );
+    }
+
+    @Test
+    public void clientReloadBypassLookup()
+    {
+        when().get( "/reload" ).then().body( equalTo( "CACHED-1" ) );
+        given().header( CACHE_CONTROL, "no-cache" ).when().get( "/reload" ).then().body( equalTo( "CACHED-2" ) );
+        when().get( "/reload" ).then().body( equalTo( "CACHED-2" ) );
+        assertThat( Controller.HITS.get(), is( 2 ) );
+    }
+
+    @Test
+    public void varyHeadersSelectResponses()
+    {
+        given().header( ACCEPT_LANGUAGE, "fr" ).when().get( "/vary" ).then().body( equalTo( "LANG-fr" ) );
+        given().header( ACCEPT_LANGUAGE, "da" ).when().get( "/vary" ).then().body( equalTo( "LANG-da" ) );
+        given().header( ACCEPT_LANGUAGE, "fr" ).when().get( "/vary" ).then().body( equalTo( "LANG-fr" ) );
+        given().header( ACCEPT_LANGUAGE, "da" ).when().get( "/vary" ).then().body( equalTo( "LANG-da" ) );
+        assertThat( Controller.HITS.get(), is( 2 ) );
+    }
+
+    @Test
+    public void noStoreResponsesAreNotCached()
+    {
+        when().get( "/no-store" ).then().body( equalTo( "NO-STORE-1" ) );
+        when().get( "/no-store" ).then().body( equalTo( "NO-STORE-2" ) );
+    }
+
+    @Test
+    public void authorizedRequestsOnlyGetSharedResponses()
+    {
+        given().header( AUTHORIZATION, "Basic Zm9vOmJhcg==" ).when().get( "/authorized" )
+            .then().body( equalTo( "CACHED-1" ) );
+        given().header( AUTHORIZATION, "Basic Zm9vOmJhcg==" ).when().get( "/authorized" )
+            .then().body( equalTo( "CACHED-2" ) );
+
+        given().header( AUTHORIZATION, "Basic Zm9vOmJhcg==" ).when().get( "/shared" )
+            .then().body( equalTo( "SHARED-3" ) );
+        given().header( AUTHORIZATION, "Basic Zm9vOmJhcg==" ).when().get( "/shared" )
+            .then().body( equalTo( "SHARED-3" ) );
+    }
+
+    @Test
+    public void staleWhileRevalidate()
+        throws InterruptedException
+    {
+        when().get( "/swr" ).then().body( equalTo( "SWR-1" ) );
+        Thread.sleep( 1100 );
+        when().get( "/swr" ).then().body( equalTo( "SWR-1" ) ).header( WARNING, startsWith( "110" ) );
+        long deadline = System.currentTimeMillis() + 5000;
+        while( Controller.HITS.get() < 2 && System.currentTimeMillis() < deadline )
+        {
+            Thread.sleep( 20 );
+        }
+        Thread.sleep( 100 );
+        when().get( "/swr" ).then().body( equalTo( "SWR-2" ) );
+    }
+
+    @Test
+    public void staleIfError()
+        throws InterruptedException
+    {
+        when().get( "/sie" ).then().statusCode( 200 ).body( equalTo( "SIE" ) );
+        Controller.failing = true;
+        Thread.sleep( 1100 );
+        when().get( "/sie" ).then().statusCode( 200 ).body( equalTo( "SIE" ) ).header( WARNING, startsWith( "111" ) );
+        assertThat( Controller.HITS.get(), is( 2 ) );
+    }
+
+    @Test
+    public void storeFailuresServeResponsesUncached()
+    {
+        when().get( "/unstorable" ).then().statusCode( 200 ).body( equalTo( "UNSTORABLE-1" ) );
+        when().get( "/unstorable" ).then().statusCode( 200 ).body( equalTo( "UNSTORABLE-2" ) );
+        assertThat( Controller.HITS.get(), is( 2 ) );
+    }
+
+    @Test
+    public void concurrentMissesAreCoalesced()
+        throws Exception
+    {
+        ExecutorService clients = Executors.newFixedThreadPool( 4 );
+        try
+        {
+            List<Callable<String>> requests = new ArrayList<>();
+            for( int idx = 0; idx < 4; idx++ )
+            {
+                requests.add( () -> when().get( "/slow" ).then().statusCode( 200 ).extract().body().asString() );
+            }
+            for( Future<String> response : clients.invokeAll( requests ) )
+            {
+                assertThat( response.get(), equalTo( "SLOW" ) );
+            }
+        }
+        finally
+        {
+            clients.shutdownNow();
+        }
+        assertThat( Controller.HITS.get(), is( 1 ) );
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.runtime.outcomes;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import io.werval.api.outcomes.Outcome;
+import io.werval.runtime.routes.RoutesParserProvider;
+import io.werval.test.WervalHttpRule;
+import io.werval.util.InputStreams;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import static com.jayway.restassured.RestAssured.expect;
+import static io.werval.api.context.CurrentContext.outcomes;
+import static io.werval.util.Charsets.US_ASCII;
+import static io.werval.util.Charsets.UTF_8;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * BodyWriter Outcome Test.
+ */
+public class BodyWriterOutcomeTest
+{
+    private static final CountDownLatch RELEASE_SLOW = new CountDownLatch( 1 );
+
+    public static class Controller
+    {
+        public Outcome normal()
+        {
+            return outcomes().ok( "normal" ).build();
+        }
+
+        public Outcome stream()
+        {
+            return outcomes().ok().asTextPlain().withBody(
+                output ->
+                {
+                    for( int idx = 0; idx < 1000; idx++ )
+                    {
+                        output.write( ( "line-" + idx + "\n" ).getBytes( UTF_8 ) );
+                        if( idx % 100 == 0 )
+                        {
+                            output.flush();
+                        }
+                    }
+                },
+                64
+            ).build();
+        }
+
+        public Outcome slow()
+        {
+            return outcomes().ok().withBody(
+                output ->
+                {
+                    output.write( "waiting,".getBytes( UTF_8 ) );
+                    output.flush();
+                    try
+                    {
+                        RELEASE_SLOW.await( 10, SECONDS );
+                    }
+                    catch( InterruptedException ex )
+                    {
+                        throw new RuntimeException( ex );
+                    }
+                    output.write( "done".getBytes( UTF_8 ) );
+                }
+            ).build();
+        }
+    }
+
+    @ClassRule
+    public static final WervalHttpRule WERVAL = new WervalHttpRule( "body-writer-test.conf", new RoutesParserProvider(
+        "GET /normal io.werval.runtime.outcomes.BodyWriterOutcomeTest$Controller.normal\n"
+        + "GET /stream io.werval.runtime.outcomes.BodyWriterOutcomeTest$Controller.stream\n"
+        + "GET /slow io.werval.runtime.outcomes.BodyWriterOutcomeTest$Controller.slow\n"
+    ) );
+
+    @Test
+    public void chunkedBody()
+    {
+        StringBuilder expected = new StringBuilder();
+        for( int idx = 0; idx < 1000; idx++ )
+        {
+            expected.append( "line-" ).append( idx ).append( '\n' );
+        }
+        expect()
+            .statusCode( 200 )
+            .header( "Transfer-Encoding", "chunked" )
+            .header( "Trailer", "X-Werval-Content-Length" )
+            .body( equalTo( expected.toString() ) )
+            .when()
+            .get( "/stream" );
+    }
+
+    @Test
+    public void contentLengthTrailer()
+        throws Exception
+    {
+        try( Socket socket = new Socket( WERVAL.httpHost(), WERVAL.httpPort() ) )
+        {
+            OutputStream output = socket.getOutputStream();
+            output.write(
+                ( "GET /stream HTTP/1.1\r\nHost: " + WERVAL.httpHost() + "\r\nConnection: close\r\n\r\n" )
+                .getBytes( US_ASCII )
+            );
+            output.flush();
+            ByteArrayOutputStream raw = new ByteArrayOutputStream();
+            try( InputStream input = socket.getInputStream() )
+            {
+                InputStreams.transferTo( input, raw, InputStreams.BUF_SIZE_4K );
+            }
+            int length = 0;
+            for( int idx = 0; idx < 1000; idx++ )
+            {
+                length += ( "line-" + idx + "\n" ).length();
+            }
+            assertThat( raw.toString( "US-ASCII" ), containsString( "\r\n0\r\nX-Werval-Content-Length: " + length ) );
+        }
+    }
+
+    @Test
+    public void blockingWriterDoNotStallOtherConnections()
+        throws Exception
+    {
+        CompletableFuture<String> slow = CompletableFuture.supplyAsync(
+            () -> expect().statusCode( 200 ).when().get( "/slow" ).asString()
+        );
+        for( int idx = 0; idx < 10; idx++ )
+        {
+            expect().statusCode( 200 ).body( equalTo( "normal" ) ).when().get( "/normal" );
+        }
+        assertThat( slow.isDone(), is( false ) );
+        RELEASE_SLOW.countDown();
+        assertThat( slow.get( 10, SECONDS ), equalTo( "waiting,done" ) );
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.runtime.outcomes;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+
+import io.werval.api.outcomes.Outcome;
+import io.werval.api.sse.ServerSentEvent;
+import io.werval.api.sse.ServerSentEvents;
+import io.werval.runtime.routes.RoutesParserProvider;
+import io.werval.test.WervalHttpRule;
+import org.junit.AfterClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import static io.werval.api.context.CurrentContext.outcomes;
+import static io.werval.util.Charsets.US_ASCII;
+import static io.werval.util.Charsets.UTF_8;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+/**
+ * ServerSentEvents Outcome Test.
+ */
+public class ServerSentEventsOutcomeTest
+{
+    private static final ServerSentEvents EVENTS = new ServerSentEvents( 8, 200, 5_000 );
+
+    public static class Controller
+    {
+        public Outcome events()
+        {
+            return outcomes().ok().withBody( EVENTS ).build();
+        }
+    }
+
+    @ClassRule
+    public static final WervalHttpRule WERVAL = new WervalHttpRule( new RoutesParserProvider(
+        "GET /events io.werval.runtime.outcomes.ServerSentEventsOutcomeTest$Controller.events\n"
+    ) );
+
+    @AfterClass
+    public static void closeEvents()
+    {
+        EVENTS.close();
+    }
+
+    @Test
+    public void publishedEvents()
+        throws Exception
+    {
+        try( Socket socket = connect( null ) )
+        {
+            String headers = readUntil( socket, "\r\n\r\n" );
+            assertThat( headers, containsString( "Content-Type: text/event-stream" ) );
+            assertThat( headers, containsString( "Cache-Control: no-cache" ) );
+            assertThat( headers, containsString( "Transfer-Encoding: chunked" ) );
+            awaitSubscribers( 1 );
+            EVENTS.publish( ServerSentEvent.of( "greeting", "hello\nworld" ) );
+            assertThat(
+                readUntil( socket, "data: world\n\n" ),
+                containsString( "event: greeting\ndata: hello\ndata: world\n\n" )
+            );
+        }
+        awaitSubscribers( 0 );
+    }
+
+    @Test
+    public void lastEventIdReplay()
+        throws Exception
+    {
+        String first = EVENTS.publish( "first" );
+        EVENTS.publish( "second" );
+        EVENTS.publish( "third" );
+        try( Socket socket = connect( first ) )
+        {
+            String received = readUntil( socket, "data: third\n\n" );
+            assertThat( received, not( containsString( "data: first" ) ) );
+            assertThat( received, containsString( "data: second\n\n" ) );
+        }
+    }
+
+    @Test
+    public void heartbeats()
+        throws Exception
+    {
+        try( Socket socket = connect( null ) )
+        {
+            readUntil( socket, "\r\n\r\n" );
+            assertThat( readUntil( socket, ":\n\n" ), containsString( ":\n\n" ) );
+        }
+    }
+
+    private static Socket connect( String lastEventId )
+        throws IOException
+    {
+        Socket socket = new Socket( WERVAL.httpHost(), WERVAL.httpPort() );
+        socket.setSoTimeout( 5_000 );
+        OutputStream output = socket.getOutputStream();
+        output.write(
+            ( "GET /events HTTP/1.1\r\nHost: " + WERVAL.httpHost() + "\r\n"
+              + ( lastEventId == null ? "" : "Last-Event-ID: " + lastEventId + "\r\n" )
+              + "\r\n" )
+            .getBytes( US_ASCII )
+        );
+        output.flush();
+        return socket;
+    }
+
+    private static String readUntil( Socket socket, String expected )
+        throws IOException
+    {
+        InputStream input = socket.getInputStream();
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        while( !new String( received.toByteArray(), UTF_8 ).contains( expected ) )
+        {
+            int read = input.read();
+            assertThat( "Connection closed before receiving " + expected, read, not( is( -1 ) ) );
+            received.write( read );
+        }
+        return new String( received.toByteArray(), UTF_8 );
+    }
+
+    private static void awaitSubscribers( int count )
+        throws InterruptedException
+    {
+        for( int idx = 0; idx < 100 && EVENTS.subscriberCount() != count; idx++ )
+        {
+            Thread.sleep( 50 );
+        }
+        assertThat( EVENTS.subscriberCount(), is( count ) );
+    }
+}
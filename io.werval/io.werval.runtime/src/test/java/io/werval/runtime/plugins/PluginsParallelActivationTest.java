@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.runtime.plugins;
+
+import io.werval.api.Application;
+import io.werval.api.Config;
+import io.werval.api.Plugin;
+import io.werval.api.exceptions.ActivationException;
+import io.werval.test.WervalHttpTest;
+import io.werval.test.WervalRule;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Plugins Parallel Activation Test.
+ * <p>
+ * Left and Right plugins are independent and can only activate concurrently as they wait for each other.
+ * Downstream plugin depends on both.
+ */
+public class PluginsParallelActivationTest
+{
+    @ClassRule
+    public static final WervalRule WERVAL = new WervalRule( "plugin-parallel-activation-test.conf" );
+
+    private static final CyclicBarrier BARRIER = new CyclicBarrier( 2 );
+    private static final CyclicBarrier FAILING_BARRIER = new CyclicBarrier( 2 );
+
+    private static void await( CyclicBarrier barrier )
+    {
+        try
+        {
+            barrier.await( 10, TimeUnit.SECONDS );
+        }
+        catch( Exception ex )
+        {
+            throw new ActivationException( "Plugins not activated concurrently", ex );
+        }
+    }
+
+    public static class Left
+    {
+        private volatile boolean active;
+    }
+
+    public static class LeftPlugin
+        implements Plugin<Left>
+    {
+        private final Left api = new Left();
+
+        @Override
+        public Class<Left> apiType()
+        {
+            return Left.class;
+        }
+
+        @Override
+        public Left api()
+        {
+            return api;
+        }
+
+        @Override
+        public void onActivate( Application application )
+        {
+            await( BARRIER );
+            api.active = true;
+        }
+    }
+
+    public static class Right
+    {
+        private volatile boolean active;
+    }
+
+    public static class RightPlugin
+        implements Plugin<Right>
+    {
+        private final Right api = new Right();
+
+        @Override
+        public Class<Right> apiType()
+        {
+            return Right.class;
+        }
+
+        @Override
+        public Right api()
+        {
+            return api;
+        }
+
+        @Override
+        public void onActivate( Application application )
+        {
+            await( BARRIER );
+            api.active = true;
+        }
+    }
+
+    public static class Downstream
+    {
+    }
+
+    public static class DownstreamPlugin
+        implements Plugin<Downstream>
+    {
+        private final Downstream api = new Downstream();
+
+        @Override
+        public Class<Downstream> apiType()
+        {
+            return Downstream.class;
+        }
+
+        @Override
+        public Downstream api()
+        {
+            return api;
+        }
+
+        @Override
+        public List<Class<?>> dependencies( Config config )
+        {
+            return Arrays.asList( Left.class, Right.class );
+        }
+
+        @Override
+        public void onActivate( Application application )
+        {
+            if( !application.plugin( Left.class ).active || !application.plugin( Right.class ).active )
+            {
+                throw new ActivationException( "Downstream activated before its dependencies" );
+            }
+        }
+    }
+
+    public static class FailingLeftPlugin
+        extends LeftPlugin
+    {
+        @Override
+        public void onActivate( Application application )
+        {
+            await( FAILING_BARRIER );
+            throw new ActivationException( "Left" );
+        }
+    }
+
+    public static class FailingRightPlugin
+        extends RightPlugin
+    {
+        @Override
+        public void onActivate( Application application )
+        {
+            await( FAILING_BARRIER );
+            throw new ActivationException( "Right" );
+        }
+    }
+
+    @Test
+    public void activation()
+    {
+        assertThat( WERVAL.application().plugin( Downstream.class ), notNullValue() );
+        Map<String, Long> times = WERVAL.application().pluginsActivationTimes();
+        assertThat(
+            new ArrayList<>( times.keySet() ).subList( times.size() - 1, times.size() ),
+            contains( DownstreamPlugin.class.getName() )
+        );
+        assertThat( times.get( LeftPlugin.class.getName() ), greaterThanOrEqualTo( 0L ) );
+        assertThat( times.get( RightPlugin.class.getName() ), greaterThanOrEqualTo( 0L ) );
+    }
+
+    @Test
+    public void aggregatedErrors()
+    {
+        WervalHttpTest werval = new WervalHttpTest( "plugin-parallel-activation-test_errors.conf" );
+        try
+        {
+            werval.beforeEachTestMethod();
+            fail( "Activation should have failed" );
+        }
+        catch( RuntimeException ex )
+        {
+            Throwable error = ex;
+            while( !( error instanceof ActivationException ) && error.getCause() != null )
+            {
+                error = error.getCause();
+            }
+            assertThat( error.getMessage(), is( "There were errors during Plugins activation" ) );
+            assertThat( error.getSuppressed().length, is( 1 ) );
+        }
+        finally
+        {
+            werval.afterEachTestMethod();
+        }
+    }
+}
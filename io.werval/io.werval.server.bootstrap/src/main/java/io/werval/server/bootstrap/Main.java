@@ -27,6 +27,8 @@ import static io.werval.util.Iterables.toList;
  * Werval HTTP Server Bootstrap Main Class.
  * <p>
  * Use {@link ServiceLoader} to load {@link ApplicationSPI} and {@link HttpServer} implementations.
+ * <p>
+ * Exit right after startup if {@literal werval.startup.exit} is set, this is used for training runs.
  */
 public final class Main
 {
@@ -38,6 +40,11 @@ public final class Main
         server.setApplicationSPI( app );
         server.registerPassivationShutdownHook();
         server.activate();
+        if( app.config().bool( "werval.startup.exit" ) )
+        {
+            // Training run, the shutdown hook passivates the server
+            System.exit( 0 );
+        }
     }
 
     private static <T> T load( Class<T> type )
@@ -17,12 +17,19 @@ package io.werval.server.jre;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 
 import io.werval.api.http.ProtocolVersion;
 import io.werval.api.http.Request;
+import io.werval.api.http.RequestHeader;
 import io.werval.api.outcomes.Outcome;
+import io.werval.api.sse.ServerSentEvents;
+import io.werval.runtime.outcomes.BodyWriterOutcome;
 import io.werval.runtime.outcomes.ChunkedInputOutcome;
 import io.werval.runtime.outcomes.InputStreamOutcome;
+import io.werval.runtime.outcomes.ServerSentEventsOutcome;
 import io.werval.runtime.outcomes.SimpleOutcome;
 import io.werval.spi.ApplicationSPI;
 import io.werval.spi.dev.DevShellRebuildException;
@@ -35,6 +42,8 @@ import com.sun.net.httpserver.Headers;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 
+import static io.werval.api.http.Headers.Names.LAST_EVENT_ID;
+
 /**
  * com.sun.net HTTP Handler.
  */
@@ -42,14 +51,61 @@ public class WervalHttpHandler
     implements HttpHandler
 {
     private static final int HTTP_BUF_SIZE = 16_384;
+    private static final int SSE_QUEUE_SIZE = 1024;
+
+    /**
+     * Server-Sent Events subscriber queuing frames for the exchange thread to write.
+     */
+    private static final class QueueSubscriber
+        implements ServerSentEvents.Subscriber
+    {
+        private static final byte[] END = new byte[ 0 ];
+        private final BlockingQueue<byte[]> queue = new LinkedBlockingQueue<>();
+
+        @Override
+        public boolean isWritable()
+        {
+            return queue.size() < SSE_QUEUE_SIZE;
+        }
+
+        @Override
+        public void send( byte[] frame )
+        {
+            queue.offer( frame );
+        }
+
+        @Override
+        public void close()
+        {
+            queue.offer( END );
+        }
+
+        private void drainTo( OutputStream output )
+            throws IOException
+        {
+            try
+            {
+                for( byte[] frame = queue.take(); frame != END; frame = queue.take() )
+                {
+                    output.write( frame );
+                    output.flush();
+                }
+            }
+            catch( InterruptedException ex )
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
     private final ApplicationSPI app;
     private final DevShellSPI devSpi;
-    private final HttpServerHelper helper = new HttpServerHelper();
+    private final HttpServerHelper helper;
 
-    public WervalHttpHandler( ApplicationSPI app, DevShellSPI devSpi )
+    public WervalHttpHandler( ApplicationSPI app, DevShellSPI devSpi, HttpServerHelper helper )
     {
         this.app = app;
         this.devSpi = devSpi;
+        this.helper = helper;
     }
 
     @Override
@@ -79,7 +135,7 @@ public class WervalHttpHandler
         Outcome outcome = app.handleRequest( request ).join();
 
         // Write Outcome
-        writeOutcome( outcome, exchange );
+        writeOutcome( request, outcome, exchange );
 
         // Done!
         app.onHttpRequestComplete( request );
@@ -98,7 +154,7 @@ public class WervalHttpHandler
             .build();
     }
 
-    private void writeOutcome( Outcome outcome, HttpExchange exchange )
+    private void writeOutcome( RequestHeader request, Outcome outcome, HttpExchange exchange )
         throws IOException
     {
         // Headers
@@ -109,7 +165,11 @@ public class WervalHttpHandler
         InputStream bodyStream = null;
         int chunkSize = HTTP_BUF_SIZE;
         final long responseLength;
-        if( outcome instanceof ChunkedInputOutcome )
+        if( outcome instanceof BodyWriterOutcome || outcome instanceof ServerSentEventsOutcome )
+        {
+            responseLength = 0;
+        }
+        else if( outcome instanceof ChunkedInputOutcome )
         {
             ChunkedInputOutcome chunked = (ChunkedInputOutcome) outcome;
             bodyStream = chunked.inputStream();
@@ -136,6 +196,31 @@ public class WervalHttpHandler
         // Status and Content-Length
         exchange.sendResponseHeaders( outcome.responseHeader().status().code(), responseLength );
 
+        // Body writer if any, already on an HttpServer thread
+        if( outcome instanceof BodyWriterOutcome )
+        {
+            ( (BodyWriterOutcome) outcome ).writer().writeTo( exchange.getResponseBody() );
+        }
+
+        // Server-Sent Events if any, written until the broadcaster closes the subscriber or the client goes away
+        if( outcome instanceof ServerSentEventsOutcome )
+        {
+            ServerSentEvents events = ( (ServerSentEventsOutcome) outcome ).events();
+            QueueSubscriber subscriber = new QueueSubscriber();
+            String lastEventId = request.headers().has( LAST_EVENT_ID )
+                                 ? request.headers().lastValue( LAST_EVENT_ID )
+                                 : null;
+            events.subscribe( subscriber, lastEventId );
+            try
+            {
+                subscriber.drainTo( exchange.getResponseBody() );
+            }
+            finally
+            {
+                events.unsubscribe( subscriber );
+            }
+        }
+
         // Body if any
         if( bodyStream != null )
         {
@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.server.netty;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.LastHttpContent;
+
+import static io.netty.buffer.Unpooled.EMPTY_BUFFER;
+import static io.werval.api.http.Headers.Names.X_WERVAL_CONTENT_LENGTH;
+
+/**
+ * OutputStream writing HTTP chunks to a Netty channel.
+ * <p>
+ * Meant to be written to by an application thread, never by the channel event loop.
+ * Bytes are buffered up to the chunk size, or until flushed, then written as a HTTP chunk.
+ * Writers block while the channel is not writable, waiting on the given monitor to be notified of writability
+ * changes.
+ * Closing the stream writes the last chunk with a {@literal X-Werval-Content-Length} trailer.
+ */
+/* package */ final class HttpChunkedOutputStream
+    extends OutputStream
+{
+    // Writability changes are signaled, this is only a safety net
+    private static final long WRITABILITY_POLL_MILLIS = 1000;
+    private final ChannelHandlerContext context;
+    private final Object writability;
+    private final int chunkSize;
+    private final ChannelPromise completion;
+    private volatile Throwable failure;
+    private volatile long contentLength;
+    private ByteBuf buffer;
+    private boolean closed;
+
+    /* package */ HttpChunkedOutputStream( ChannelHandlerContext context, Object writability, int chunkSize )
+    {
+        this.context = context;
+        this.writability = writability;
+        this.chunkSize = chunkSize;
+        this.completion = context.newPromise();
+    }
+
+    /**
+     * @return Future completed once the last chunk is written, or failed if the stream is aborted
+     */
+    /* package */ ChannelFuture completion()
+    {
+        return completion;
+    }
+
+    /**
+     * @return Count of body bytes written so far
+     */
+    /* package */ long contentLength()
+    {
+        return contentLength;
+    }
+
+    @Override
+    public void write( int oneByte )
+        throws IOException
+    {
+        ensureOpen();
+        ensureBuffer();
+        buffer.writeByte( oneByte );
+        if( !buffer.isWritable() )
+        {
+            writeChunk();
+        }
+    }
+
+    @Override
+    public void write( byte[] bytes, int offset, int length )
+        throws IOException
+    {
+        ensureOpen();
+        int position = offset;
+        int remaining = length;
+        while( remaining > 0 )
+        {
+            ensureBuffer();
+            int count = Math.min( remaining, buffer.writableBytes() );
+            buffer.writeBytes( bytes, position, count );
+            position += count;
+            remaining -= count;
+            if( !buffer.isWritable() )
+            {
+                writeChunk();
+            }
+        }
+    }
+
+    @Override
+    public void flush()
+        throws IOException
+    {
+        ensureOpen();
+        if( buffer != null && buffer.isReadable() )
+        {
+            writeChunk();
+        }
+    }
+
+    @Override
+    public void close()
+        throws IOException
+    {
+        if( closed )
+        {
+            return;
+        }
+        flush();
+        closed = true;
+        LastHttpContent lastChunk = new DefaultLastHttpContent( EMPTY_BUFFER );
+        lastChunk.trailingHeaders().add( X_WERVAL_CONTENT_LENGTH, contentLength );
+        context.writeAndFlush( lastChunk ).addListener(
+            future ->
+            {
+                if( future.isSuccess() )
+                {
+                    completion.trySuccess();
+                }
+                else
+                {
+                    completion.tryFailure( future.cause() );
+                }
+            }
+        );
+    }
+
+    /**
+     * Abort the response, closing the connection as the response cannot be terminated properly.
+     *
+     * @param cause Cause
+     */
+    /* package */ void abort( Throwable cause )
+    {
+        closed = true;
+        if( buffer != null )
+        {
+            buffer.release();
+            buffer = null;
+        }
+        completion.tryFailure( cause );
+        context.close();
+    }
+
+    private void ensureOpen()
+        throws IOException
+    {
+        if( closed )
+        {
+            throw new IOException( "Stream closed" );
+        }
+        if( failure != null )
+        {
+            throw new IOException( "Unable to write chunk: " + failure.getMessage(), failure );
+        }
+        if( !context.channel().isActive() )
+        {
+            throw new IOException( "Connection closed" );
+        }
+    }
+
+    private void ensureBuffer()
+    {
+        if( buffer == null )
+        {
+            buffer = context.alloc().buffer( chunkSize, chunkSize );
+        }
+    }
+
+    private void writeChunk()
+        throws IOException
+    {
+        awaitWritability();
+        ByteBuf chunk = buffer;
+        buffer = null;
+        contentLength += chunk.readableBytes();
+        context.writeAndFlush( new DefaultHttpContent( chunk ) ).addListener(
+            future ->
+            {
+                if( !future.isSuccess() )
+                {
+                    failure = future.cause();
+                }
+            }
+        );
+    }
+
+    private void awaitWritability()
+        throws IOException
+    {
+        Channel channel = context.channel();
+        synchronized( writability )
+        {
+            while( channel.isActive() && !channel.isWritable() )
+            {
+                try
+                {
+                    writability.wait( WRITABILITY_POLL_MILLIS );
+                }
+                catch( InterruptedException ex )
+                {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException( "Interrupted while waiting for the connection to be writable" );
+                }
+            }
+        }
+        ensureOpen();
+    }
+}
@@ -280,16 +280,18 @@ public class HttpRequestAggregator
             // Set the 'Content-Length' header
             currentRequestHeader.headers().set( CONTENT_LENGTH, String.valueOf( consumedContentlength ) );
 
-            // Create aggregated request
+            // Create aggregated request, handing body ownership over to it so pipelined requests do not share it
             FullHttpRequest fullRequest;
             ByteBuf content = null;
             if( bodyFile != null )
             {
                 content = new FileByteBuff( bodyFile );
+                bodyFile = null;
             }
             else if( bodyBuf != null )
             {
-                content = bodyBuf.retain();
+                content = bodyBuf;
+                bodyBuf = null;
             }
             if( content != null )
             {
@@ -20,6 +20,7 @@ import java.net.InetSocketAddress;
 import io.werval.api.events.ConnectionEvent;
 import io.werval.spi.ApplicationSPI;
 import io.werval.spi.dev.DevShellSPI;
+import io.werval.spi.server.HttpServerHelper;
 
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelInitializer;
@@ -47,12 +48,19 @@ import static io.werval.runtime.ConfigKeys.WERVAL_HTTP_TIMEOUT_WRITE;
     private final ChannelGroup allChannels;
     private final ApplicationSPI app;
     private final DevShellSPI devSpi;
+    private final HttpServerHelper helper;
 
-    /* package */ HttpServerChannelInitializer( ChannelGroup allChannels, ApplicationSPI httpApp, DevShellSPI devSpi )
+    /* package */ HttpServerChannelInitializer(
+        ChannelGroup allChannels,
+        ApplicationSPI httpApp,
+        DevShellSPI devSpi,
+        HttpServerHelper helper
+    )
     {
         this.allChannels = allChannels;
         this.app = httpApp;
         this.devSpi = devSpi;
+        this.helper = helper;
     }
 
     @Override
@@ -99,6 +107,6 @@ import static io.werval.runtime.ConfigKeys.WERVAL_HTTP_TIMEOUT_WRITE;
         pipeline.addLast( "chunked-write-handler", new ChunkedWriteHandler() );
 
         // Protocol Switching Handler
-        pipeline.addLast( "subprotocol-switcher", new SubProtocolSwitchHandler( allChannels, app, devSpi ) );
+        pipeline.addLast( "subprotocol-switcher", new SubProtocolSwitchHandler( allChannels, app, devSpi, helper ) );
     }
 }
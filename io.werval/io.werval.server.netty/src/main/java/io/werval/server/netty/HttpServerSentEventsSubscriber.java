@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.server.netty;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.werval.api.sse.ServerSentEvents;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.LastHttpContent;
+
+/**
+ * Server-Sent Events subscriber writing HTTP chunks to a Netty channel.
+ * <p>
+ * Frames are shared among subscribers, they are wrapped, not copied.
+ * The subscription ends when the channel is closed or when the broadcaster closes the subscriber, in which case the
+ * last chunk is written, or the channel closed if it is not writable.
+ */
+/* package */ final class HttpServerSentEventsSubscriber
+    implements ServerSentEvents.Subscriber
+{
+    private final ChannelHandlerContext context;
+    private final ChannelPromise completion;
+    private final AtomicBoolean closed = new AtomicBoolean( false );
+    private final AtomicLong contentLength = new AtomicLong();
+
+    /* package */ HttpServerSentEventsSubscriber( ChannelHandlerContext context, ServerSentEvents events )
+    {
+        this.context = context;
+        this.completion = context.newPromise();
+        context.channel().closeFuture().addListener(
+            f ->
+            {
+                events.unsubscribe( this );
+                completion.trySuccess();
+            }
+        );
+    }
+
+    /**
+     * @return Future completed once the subscription ended
+     */
+    /* package */ ChannelFuture completion()
+    {
+        return completion;
+    }
+
+    /**
+     * @return Count of body bytes written so far
+     */
+    /* package */ long contentLength()
+    {
+        return contentLength.get();
+    }
+
+    @Override
+    public boolean isWritable()
+    {
+        return context.channel().isWritable();
+    }
+
+    @Override
+    public void send( byte[] frame )
+    {
+        if( closed.get() || !context.channel().isActive() )
+        {
+            return;
+        }
+        contentLength.addAndGet( frame.length );
+        context.writeAndFlush( new DefaultHttpContent( Unpooled.wrappedBuffer( frame ) ) );
+    }
+
+    @Override
+    public void close()
+    {
+        if( closed.compareAndSet( false, true ) )
+        {
+            if( context.channel().isActive() && context.channel().isWritable() )
+            {
+                context.writeAndFlush( LastHttpContent.EMPTY_LAST_CONTENT ).addListener(
+                    f -> completion.trySuccess()
+                );
+            }
+            else
+            {
+                // Evicted slow consumer, or already gone
+                context.close();
+                completion.trySuccess();
+            }
+        }
+    }
+}
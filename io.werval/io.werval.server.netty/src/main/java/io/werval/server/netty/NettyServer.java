@@ -91,7 +91,7 @@ public class NettyServer
         );
         // Server Channel
         bootstrap.channel( NioServerSocketChannel.class );
-        bootstrap.childHandler( new HttpServerChannelInitializer( allChannels, app, devSpi ) );
+        bootstrap.childHandler( new HttpServerChannelInitializer( allChannels, app, devSpi, helper ) );
 
         // See http://www.unixguide.net/network/socketfaq/2.16.shtml
         bootstrap.option( TCP_NODELAY, true );
@@ -41,14 +41,20 @@ public class SubProtocolSwitchHandler
     private final ChannelGroup allChannels;
     private final ApplicationSPI app;
     private final DevShellSPI devSpi;
-    private final HttpServerHelper helper = new HttpServerHelper();
+    private final HttpServerHelper helper;
 
-    public SubProtocolSwitchHandler( ChannelGroup allChannels, ApplicationSPI app, DevShellSPI devSpi )
+    public SubProtocolSwitchHandler(
+        ChannelGroup allChannels,
+        ApplicationSPI app,
+        DevShellSPI devSpi,
+        HttpServerHelper helper
+    )
     {
         super();
         this.allChannels = allChannels;
         this.app = app;
         this.devSpi = devSpi;
+        this.helper = helper;
     }
 
     @Override
@@ -27,15 +27,22 @@ import io.werval.api.http.Request;
 import io.werval.api.http.RequestHeader;
 import io.werval.api.http.ResponseHeader;
 import io.werval.api.http.Status;
+import io.werval.api.outcomes.BodyWriter;
 import io.werval.api.outcomes.Outcome;
+import io.werval.api.sse.ServerSentEvents;
+import io.werval.runtime.outcomes.BodyWriterOutcome;
+import io.werval.runtime.outcomes.CachedOutcome;
 import io.werval.runtime.outcomes.ChunkedInputOutcome;
 import io.werval.runtime.outcomes.InputStreamOutcome;
+import io.werval.runtime.outcomes.ServerSentEventsOutcome;
 import io.werval.runtime.outcomes.SimpleOutcome;
 import io.werval.spi.ApplicationSPI;
 import io.werval.spi.dev.DevShellRebuildException;
 import io.werval.spi.dev.DevShellSPI;
+import io.werval.util.InputStreams;
 
 import io.netty.buffer.ByteBufHolder;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
@@ -44,20 +51,22 @@ import io.netty.handler.codec.http.DefaultFullHttpResponse;
 import io.netty.handler.codec.http.DefaultHttpResponse;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpVersion;
-import io.netty.handler.stream.ChunkedStream;
 import io.netty.handler.timeout.ReadTimeoutException;
 import io.netty.handler.timeout.WriteTimeoutException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import static io.werval.api.http.Headers.Names.CONTENT_LENGTH;
+import static io.werval.api.http.Headers.Names.LAST_EVENT_ID;
 import static io.werval.api.http.Headers.Names.TRAILER;
 import static io.werval.api.http.Headers.Names.TRANSFER_ENCODING;
 import static io.werval.api.http.Headers.Names.X_WERVAL_CONTENT_LENGTH;
 import static io.werval.api.http.Headers.Values.CHUNKED;
 import static io.werval.util.Charsets.UTF_8;
+import static java.util.concurrent.CompletableFuture.runAsync;
 import static io.werval.server.netty.NettyHttpFactories.remoteAddressOf;
 import static io.werval.server.netty.NettyHttpFactories.requestOf;
 
@@ -103,6 +112,7 @@ public final class WervalHttpHandler
 
     private final ApplicationSPI app;
     private final DevShellSPI devSpi;
+    private final Object writability = new Object();
     private String requestIdentity;
     private RequestHeader requestHeader;
 
@@ -134,13 +144,8 @@ public final class WervalHttpHandler
             ).thenAcceptAsync(
                 shuttingDownOutcome ->
                 {
-                    writeOutcome( nettyContext, shuttingDownOutcome )
-                    .addListeners(
-                        new HttpRequestCompleteChannelFutureListener( requestHeader ),
-                        f -> app.events().emit(
-                            new HttpEvent.ResponseSent( requestIdentity, shuttingDownOutcome.responseHeader().status() )
-                        )
-                    );
+                    writeOutcome( nettyContext, requestIdentity, shuttingDownOutcome )
+                    .addListener( new HttpRequestCompleteChannelFutureListener( requestHeader ) );
                 },
                 app.executor()
             );
@@ -165,23 +170,44 @@ public final class WervalHttpHandler
         requestHeader = request;
 
         // Handle Request
-        app.handleRequest( request ).thenAcceptAsync(
+        // Body is read asynchronously, retain it until the request is handled
+        nettyRequest.retain();
+        app.handleRequest( request ).whenComplete( ( outcome, error ) -> nettyRequest.release() ).thenAcceptAsync(
             outcome ->
             {
                 // Write Outcome
-                ChannelFuture writeFuture = writeOutcome( nettyContext, outcome );
+                ChannelFuture writeFuture = writeOutcome( nettyContext, request.identity(), outcome );
                 // Listen to request completion
-                writeFuture.addListeners(
-                    f -> app.events().emit(
-                        new HttpEvent.ResponseSent( requestIdentity, outcome.responseHeader().status() )
-                    ),
-                    new HttpRequestCompleteChannelFutureListener( requestHeader )
-                );
+                writeFuture.addListener( new HttpRequestCompleteChannelFutureListener( request ) );
             },
             app.executor()
         );
     }
 
+    @Override
+    public void channelWritabilityChanged( ChannelHandlerContext nettyContext )
+        throws Exception
+    {
+        // Wake up chunked body writers
+        synchronized( writability )
+        {
+            writability.notifyAll();
+        }
+        super.channelWritabilityChanged( nettyContext );
+    }
+
+    @Override
+    public void channelInactive( ChannelHandlerContext nettyContext )
+        throws Exception
+    {
+        // Wake up chunked body writers so they fail fast
+        synchronized( writability )
+        {
+            writability.notifyAll();
+        }
+        super.channelInactive( nettyContext );
+    }
+
     @Override
     public void exceptionCaught( ChannelHandlerContext nettyContext, Throwable cause )
         throws IOException
@@ -213,14 +239,9 @@ public final class WervalHttpHandler
         {
             // Write Outcome
             Outcome errorOutcome = app.handleError( requestHeader, cause );
-            ChannelFuture writeFuture = writeOutcome( nettyContext, errorOutcome );
+            ChannelFuture writeFuture = writeOutcome( nettyContext, requestHeader.identity(), errorOutcome );
             // Listen to request completion
-            writeFuture.addListeners(
-                f -> app.events().emit(
-                    new HttpEvent.ResponseSent( requestIdentity, errorOutcome.responseHeader().status() )
-                ),
-                new HttpRequestCompleteChannelFutureListener( requestHeader )
-            );
+            writeFuture.addListener( new HttpRequestCompleteChannelFutureListener( requestHeader ) );
         }
         else if( cause instanceof HttpRequestParsingException )
         {
@@ -253,7 +274,7 @@ public final class WervalHttpHandler
         }
     }
 
-    private ChannelFuture writeOutcome( ChannelHandlerContext nettyContext, Outcome outcome )
+    private ChannelFuture writeOutcome( ChannelHandlerContext nettyContext, String identity, Outcome outcome )
     {
         // == Build the Netty Response
         ResponseHeader responseHeader = outcome.responseHeader();
@@ -265,20 +286,75 @@ public final class WervalHttpHandler
         // Netty Headers & Body output
         final HttpResponse nettyResponse;
         final ChannelFuture writeFuture;
-        if( outcome instanceof ChunkedInputOutcome )
+        HttpChunkedOutputStream chunkedBody = null;
+        HttpServerSentEventsSubscriber eventsSubscriber = null;
+        if( outcome instanceof ServerSentEventsOutcome )
         {
-            ChunkedInputOutcome chunkedOutcome = (ChunkedInputOutcome) outcome;
+            ServerSentEvents events = ( (ServerSentEventsOutcome) outcome ).events();
+            nettyResponse = new DefaultHttpResponse( responseVersion, responseStatus );
+            // Headers
+            applyResponseHeader( responseHeader, nettyResponse );
+            nettyResponse.headers().set( TRANSFER_ENCODING, CHUNKED );
+            // Long-lived response, clients are silent
+            if( nettyContext.pipeline().get( "read-timeout" ) != null )
+            {
+                nettyContext.pipeline().remove( "read-timeout" );
+            }
+            nettyContext.writeAndFlush( nettyResponse );
+            // Body, events are written as they are published until either side closes
+            eventsSubscriber = new HttpServerSentEventsSubscriber( nettyContext, events );
+            writeFuture = eventsSubscriber.completion();
+            String lastEventId = requestHeader != null && requestHeader.headers().has( LAST_EVENT_ID )
+                                 ? requestHeader.headers().lastValue( LAST_EVENT_ID )
+                                 : null;
+            events.subscribe( eventsSubscriber, lastEventId );
+        }
+        else if( outcome instanceof BodyWriterOutcome || outcome instanceof ChunkedInputOutcome )
+        {
+            final BodyWriter bodyWriter;
+            final int chunkSize;
+            if( outcome instanceof BodyWriterOutcome )
+            {
+                bodyWriter = ( (BodyWriterOutcome) outcome ).writer();
+                chunkSize = ( (BodyWriterOutcome) outcome ).chunkSize();
+            }
+            else
+            {
+                ChunkedInputOutcome chunkedOutcome = (ChunkedInputOutcome) outcome;
+                chunkSize = chunkedOutcome.chunkSize();
+                bodyWriter = output ->
+                {
+                    try( InputStream input = chunkedOutcome.inputStream() )
+                    {
+                        InputStreams.transferTo( input, output, chunkSize );
+                    }
+                };
+            }
             nettyResponse = new DefaultHttpResponse( responseVersion, responseStatus );
             // Headers
             applyResponseHeader( responseHeader, nettyResponse );
             nettyResponse.headers().set( TRANSFER_ENCODING, CHUNKED );
             nettyResponse.headers().set( TRAILER, X_WERVAL_CONTENT_LENGTH );
-            // Body
-            nettyContext.write( nettyResponse );
-            writeFuture = nettyContext.writeAndFlush(
-                new HttpChunkedBodyEncoder(
-                    new ChunkedStream( chunkedOutcome.inputStream(), chunkedOutcome.chunkSize() )
-                )
+            nettyContext.writeAndFlush( nettyResponse );
+            // Body, produced on an application thread so that blocking writers do not stall the event loop
+            chunkedBody = new HttpChunkedOutputStream( nettyContext, writability, chunkSize );
+            writeFuture = chunkedBody.completion();
+            HttpChunkedOutputStream output = chunkedBody;
+            runAsync(
+                () ->
+                {
+                    try
+                    {
+                        bodyWriter.writeTo( output );
+                        output.close();
+                    }
+                    catch( Exception ex )
+                    {
+                        LOG.debug( "{} Chunked body writing failed, aborting response", identity, ex );
+                        output.abort( ex );
+                    }
+                },
+                app.executor()
             );
         }
         else if( outcome instanceof InputStreamOutcome )
@@ -302,16 +378,33 @@ public final class WervalHttpHandler
             }
             writeFuture = nettyContext.writeAndFlush( nettyResponse );
         }
+        else if( outcome instanceof CachedOutcome )
+        {
+            CachedOutcome cachedOutcome = (CachedOutcome) outcome;
+            // Stored bytes are written as-is
+            nettyResponse = new DefaultFullHttpResponse(
+                responseVersion,
+                responseStatus,
+                Unpooled.wrappedBuffer( cachedOutcome.bytes(), cachedOutcome.offset(), cachedOutcome.length() )
+            );
+            // Headers
+            applyResponseHeader( responseHeader, nettyResponse );
+            nettyResponse.headers().set( CONTENT_LENGTH, cachedOutcome.length() );
+            writeFuture = nettyContext.writeAndFlush( nettyResponse );
+        }
         else if( outcome instanceof SimpleOutcome )
         {
             SimpleOutcome simpleOutcome = (SimpleOutcome) outcome;
             byte[] body = simpleOutcome.body().asBytes();
-            nettyResponse = new DefaultFullHttpResponse( responseVersion, responseStatus );
+            // Body bytes are wrapped, not copied
+            nettyResponse = new DefaultFullHttpResponse(
+                responseVersion,
+                responseStatus,
+                Unpooled.wrappedBuffer( body )
+            );
             // Headers
             applyResponseHeader( responseHeader, nettyResponse );
             nettyResponse.headers().set( CONTENT_LENGTH, body.length );
-            // Body
-            ( (ByteBufHolder) nettyResponse ).content().writeBytes( body );
             writeFuture = nettyContext.writeAndFlush( nettyResponse );
         }
         else
@@ -327,6 +420,22 @@ public final class WervalHttpHandler
             LOG.trace( "{} Sent a HttpResponse:\n{}", requestIdentity, nettyResponse.toString() );
         }
 
+        // Emit the response sent event, with the body length known once chunked bodies are written
+        final HttpChunkedOutputStream sentChunkedBody = chunkedBody;
+        final HttpServerSentEventsSubscriber sentEvents = eventsSubscriber;
+        final long contentLength = HttpHeaders.getContentLength( nettyResponse, -1 );
+        writeFuture.addListener(
+            f -> app.events().emit(
+                new HttpEvent.ResponseSent(
+                    identity,
+                    responseHeader.status(),
+                    sentChunkedBody != null
+                    ? sentChunkedBody.contentLength()
+                    : sentEvents != null ? sentEvents.contentLength() : contentLength
+                )
+            )
+        );
+
         // Close the connection as soon as the response is sent if not keep alive
         if( !outcome.responseHeader().isKeepAlive() || nettyContext.executor().isShuttingDown() )
         {
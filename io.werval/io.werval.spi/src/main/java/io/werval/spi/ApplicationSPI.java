@@ -71,6 +71,15 @@ public interface ApplicationSPI
     @Override
     HttpBuildersSPI httpBuilders();
 
+    /**
+     * Application Startup Timeline.
+     * <p>
+     * Startup phases are recorded by the Application and the HttpServer, see {@link StartupTimeline}.
+     *
+     * @return Application Startup Timeline
+     */
+    StartupTimeline startupTimeline();
+
     /**
      * Handle a HTTP Request.
      *
@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.spi;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import static io.werval.util.Strings.NEWLINE;
+import static io.werval.util.Strings.rightPad;
+
+/**
+ * Startup Timeline.
+ * <p>
+ * Records the Application startup phases, from configuration loading to the HTTP server being bound.
+ * <p>
+ * All times are relative to the JVM start so that the time spent before the Application is created is accounted for.
+ * The timeline is ready once the HTTP server is bound and can then be dumped as JSON, see {@link #toJSON()}.
+ */
+public final class StartupTimeline
+{
+    /**
+     * Startup Phase.
+     */
+    public final class Phase
+    {
+        private final String name;
+        private final long startNanos;
+        private volatile long endNanos;
+
+        private Phase( String name, long startNanos, long endNanos )
+        {
+            this.name = name;
+            this.startNanos = startNanos;
+            this.endNanos = endNanos;
+        }
+
+        /**
+         * @return Phase name
+         */
+        public String name()
+        {
+            return name;
+        }
+
+        /**
+         * @return Phase start in nanoseconds since the JVM start
+         */
+        public long startNanos()
+        {
+            return startNanos;
+        }
+
+        /**
+         * @return Phase duration in nanoseconds, {@literal -1} if the phase has not ended
+         */
+        public long durationNanos()
+        {
+            long end = endNanos;
+            return end < 0 ? -1 : end - startNanos;
+        }
+
+        /**
+         * End this phase.
+         * <p>
+         * Ending an already ended phase has no effect.
+         */
+        public void end()
+        {
+            if( endNanos < 0 )
+            {
+                endNanos = System.nanoTime() - originNanos;
+            }
+        }
+    }
+
+    private final long originNanos;
+    private final List<Phase> phases = new CopyOnWriteArrayList<>();
+    private volatile long readyNanos = -1;
+
+    /**
+     * Create a new empty Startup Timeline.
+     */
+    public StartupTimeline()
+    {
+        long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+        this.originNanos = System.nanoTime() - MILLISECONDS.toNanos( uptime );
+    }
+
+    /**
+     * Begin a startup phase.
+     *
+     * @param name Phase name
+     *
+     * @return The started Phase, to be ended using {@link Phase#end()}
+     */
+    public Phase begin( String name )
+    {
+        Phase phase = new Phase( name, System.nanoTime() - originNanos, -1 );
+        phases.add( phase );
+        return phase;
+    }
+
+    /**
+     * Record a startup phase that just ended.
+     *
+     * @param name          Phase name
+     * @param durationNanos Phase duration in nanoseconds
+     */
+    public void record( String name, long durationNanos )
+    {
+        long end = System.nanoTime() - originNanos;
+        phases.add( new Phase( name, end - durationNanos, end ) );
+    }
+
+    /**
+     * Mark the Application as ready to serve requests.
+     */
+    public void ready()
+    {
+        readyNanos = System.nanoTime() - originNanos;
+    }
+
+    /**
+     * @return {@literal true} if the Application is ready to serve requests, {@literal false} otherwise
+     */
+    public boolean isReady()
+    {
+        return readyNanos >= 0;
+    }
+
+    /**
+     * @return Nanoseconds from the JVM start to the Application being ready, {@literal -1} if not ready
+     */
+    public long readyNanos()
+    {
+        return readyNanos;
+    }
+
+    /**
+     * @return Recorded phases, in order
+     */
+    public List<Phase> phases()
+    {
+        return Collections.unmodifiableList( phases );
+    }
+
+    /**
+     * Render this timeline as JSON.
+     * <p>
+     * Times are in milliseconds since the JVM start:
+     * <pre>
+     * { "ready_ms": 1234.5, "phases": [ { "name": "config", "start_ms": 456.7, "duration_ms": 12.3 }, ... ] }
+     * </pre>
+     *
+     * @return This timeline as a JSON string
+     */
+    public String toJSON()
+    {
+        StringBuilder json = new StringBuilder( "{\"ready_ms\":" );
+        json.append( readyNanos < 0 ? "null" : millis( readyNanos ) ).append( ",\"phases\":[" );
+        for( Iterator<Phase> it = phases.iterator(); it.hasNext(); )
+        {
+            Phase phase = it.next();
+            long duration = phase.durationNanos();
+            json.append( "{\"name\":\"" ).append( phase.name.replace( "\\", "\\\\" ).replace( "\"", "\\\"" ) )
+                .append( "\",\"start_ms\":" ).append( millis( phase.startNanos ) )
+                .append( ",\"duration_ms\":" ).append( duration < 0 ? "null" : millis( duration ) )
+                .append( '}' );
+            if( it.hasNext() )
+            {
+                json.append( ',' );
+            }
+        }
+        return json.append( "]}" ).toString();
+    }
+
+    /**
+     * Write this timeline as JSON to a file.
+     *
+     * @param file Target file, parent directories are created if needed
+     *
+     * @throws IOException if unable to write the file
+     */
+    public void writeJSON( File file )
+        throws IOException
+    {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if( parent != null )
+        {
+            Files.createDirectories( parent.toPath() );
+        }
+        Files.write( file.toPath(), toJSON().getBytes( StandardCharsets.UTF_8 ) );
+    }
+
+    @Override
+    public String toString()
+    {
+        int namePadLen = 0;
+        for( Phase phase : phases )
+        {
+            namePadLen = Math.max( namePadLen, phase.name.length() );
+        }
+        StringBuilder sb = new StringBuilder();
+        for( Phase phase : phases )
+        {
+            long duration = phase.durationNanos();
+            sb.append( rightPad( namePadLen, phase.name ) )
+                .append( " at " ).append( millis( phase.startNanos ) ).append( "ms took " )
+                .append( duration < 0 ? "?" : millis( duration ) ).append( "ms" )
+                .append( NEWLINE );
+        }
+        sb.append( "Ready after " ).append( readyNanos < 0 ? "?" : millis( readyNanos ) ).append( "ms" );
+        return sb.toString();
+    }
+
+    private static String millis( long nanos )
+    {
+        return String.format( Locale.ROOT, "%.3f", nanos / 1_000_000D );
+    }
+}
@@ -15,7 +15,18 @@
  */
 package io.werval.spi.cache;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -25,6 +36,14 @@ import io.werval.api.cache.Cache;
  * Cache Adapter.
  * <p>
  * Default behaviour and Metrics handling (hits, misses, updates and removes meters).
+ * <p>
+ * Concurrent {@literal getOrCompute} calls for a same key share a single computation per JVM.
+ * Remote Cache implementations can coordinate nodes by overriding
+ * {@link #doCompute(java.lang.String, int, java.util.function.Supplier)} using
+ * {@link #doComputeLocked(java.lang.String, int, java.util.function.Supplier, ComputeLock, int, long)}.
+ * <p>
+ * Asynchronous operations default to their synchronous counterparts run on the calling thread, this suits in-process
+ * caches. Remote Cache implementations should override the {@literal doXxxAsync} methods.
  */
 public abstract class CacheAdapter
     implements Cache
@@ -38,7 +57,19 @@ public abstract class CacheAdapter
      */
     public static enum CacheEvent
     {
-        HIT, MISS, GET, SET, REMOVE;
+        HIT, MISS, GET, SET, REMOVE,
+        /**
+         * Bulk operations, sizes are given to {@link BatchSizes} handlers.
+         */
+        BULK_GET, BULK_SET, BULK_REMOVE,
+        /**
+         * An entry was discarded to honor the cache capacity.
+         */
+        EVICTION,
+        /**
+         * An entry was discarded because its time to live elapsed.
+         */
+        EXPIRATION;
 
         /**
          * Close metric recording.
@@ -52,6 +83,22 @@ public abstract class CacheAdapter
             void close();
         }
 
+        /**
+         * Optional interface of metrics handlers interested in bulk operations sizes.
+         *
+         * @hidden
+         */
+        public interface BatchSizes
+        {
+            /**
+             * Record a bulk operation size.
+             *
+             * @param event One of {@link #BULK_GET}, {@link #BULK_SET} or {@link #BULK_REMOVE}
+             * @param size  Number of keys
+             */
+            void batchSize( CacheEvent event, int size );
+        }
+
         /**
          * No-operation closeable.
          */
@@ -76,7 +123,20 @@ public abstract class CacheAdapter
         };
     }
 
+    private static final long LOCK_MIN_PAUSE_MILLIS = 10;
+    private static final long LOCK_MAX_PAUSE_MILLIS = 200;
+
     private final Function<CacheEvent, CacheEvent.Closeable> handler;
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private volatile Set<String> writtenKeys;
+    private final ThreadLocal<Set<String>> computing = new ThreadLocal<Set<String>>()
+    {
+        @Override
+        protected Set<String> initialValue()
+        {
+            return new HashSet<>();
+        }
+    };
 
     /**
      * Create a Cache without metrics handling.
@@ -128,7 +188,7 @@ public abstract class CacheAdapter
     @Override
     public final <T> T getOrSetDefault( String key, Supplier<T> defaultValueSupplier )
     {
-        return getOrSetDefault( key, 0, defaultValueSupplier.get() );
+        return getOrSetDefault( key, 0, defaultValueSupplier );
     }
 
     @Override
@@ -146,7 +206,80 @@ public abstract class CacheAdapter
     @Override
     public final <T> T getOrSetDefault( String key, int ttlSeconds, Supplier<T> defaultValueSupplier )
     {
-        return getOrSetDefault( key, ttlSeconds, defaultValueSupplier.get() );
+        T value = this.<T>get( key );
+        if( value == null )
+        {
+            T defaultValue = defaultValueSupplier.get();
+            set( ttlSeconds, key, defaultValue );
+            return defaultValue;
+        }
+        return value;
+    }
+
+    @Override
+    public final <T> T getOrCompute( String key, Supplier<T> loader )
+    {
+        return getOrCompute( key, 0, loader );
+    }
+
+    @Override
+    public final <T> T getOrCompute( String key, int ttlSeconds, Supplier<T> loader )
+    {
+        T value = this.<T>get( key );
+        if( value != null )
+        {
+            return value;
+        }
+        Set<String> computingKeys = computing.get();
+        if( computingKeys.contains( key ) )
+        {
+            throw new IllegalStateException( "Recursive getOrCompute for key '" + key + "' from its own loader" );
+        }
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent( key, flight );
+        if( existing != null )
+        {
+            // Another thread is already computing this key, share its result
+            try
+            {
+                return (T) existing.join();
+            }
+            catch( CompletionException ex )
+            {
+                if( ex.getCause() instanceof RuntimeException )
+                {
+                    throw (RuntimeException) ex.getCause();
+                }
+                if( ex.getCause() instanceof Error )
+                {
+                    throw (Error) ex.getCause();
+                }
+                throw ex;
+            }
+        }
+        computingKeys.add( key );
+        try
+        {
+            // Check again, the previous flight may have completed between our miss and our registration
+            // Bypass metrics, the miss has already been recorded above
+            value = this.<T>doGet( key );
+            if( value == null )
+            {
+                value = doCompute( key, ttlSeconds, loader );
+            }
+            flight.complete( value );
+            return value;
+        }
+        catch( RuntimeException | Error ex )
+        {
+            flight.completeExceptionally( ex );
+            throw ex;
+        }
+        finally
+        {
+            computingKeys.remove( key );
+            inFlight.remove( key, flight );
+        }
     }
 
     @Override
@@ -158,6 +291,7 @@ public abstract class CacheAdapter
     @Override
     public final <T> void set( int ttlSeconds, String key, T value )
     {
+        recordWrite( key );
         try( CacheEvent.Closeable setTimer = handler.apply( CacheEvent.SET ) )
         {
             doSet( ttlSeconds, key, value );
@@ -167,12 +301,399 @@ public abstract class CacheAdapter
     @Override
     public final void remove( String key )
     {
+        recordWrite( key );
         try( CacheEvent.Closeable removeTimer = handler.apply( CacheEvent.REMOVE ) )
         {
             doRemove( key );
         }
     }
 
+    @Override
+    public final <T> Map<String, T> getAll( Collection<String> keys )
+    {
+        if( keys.isEmpty() )
+        {
+            return new LinkedHashMap<>();
+        }
+        batchSize( CacheEvent.BULK_GET, keys.size() );
+        try( CacheEvent.Closeable getTimer = handler.apply( CacheEvent.BULK_GET ) )
+        {
+            Map<String, T> values = this.<T>doGetAll( keys );
+            hitsAndMisses( keys.size(), values.size() );
+            return values;
+        }
+    }
+
+    @Override
+    public final <T> void setAll( Map<String, T> entries )
+    {
+        setAll( 0, entries );
+    }
+
+    @Override
+    public final <T> void setAll( int ttlSeconds, Map<String, T> entries )
+    {
+        if( entries.isEmpty() )
+        {
+            return;
+        }
+        batchSize( CacheEvent.BULK_SET, entries.size() );
+        recordWrites( entries.keySet() );
+        try( CacheEvent.Closeable setTimer = handler.apply( CacheEvent.BULK_SET ) )
+        {
+            doSetAll( ttlSeconds, entries );
+        }
+    }
+
+    @Override
+    public final void removeAll( Collection<String> keys )
+    {
+        if( keys.isEmpty() )
+        {
+            return;
+        }
+        batchSize( CacheEvent.BULK_REMOVE, keys.size() );
+        recordWrites( keys );
+        try( CacheEvent.Closeable removeTimer = handler.apply( CacheEvent.BULK_REMOVE ) )
+        {
+            doRemoveAll( keys );
+        }
+    }
+
+    /**
+     * Compute a missing value and set it in the Cache.
+     * <p>
+     * Called by {@literal getOrCompute} once per JVM for concurrent callers of a same key.
+     * Default implementation simply runs the loader, override to coordinate with other nodes.
+     *
+     * @param <T>        Parameterized type of value
+     * @param key        Cache Key
+     * @param ttlSeconds TTL in seconds
+     * @param loader     Value loader
+     *
+     * @return Computed value, set in the Cache unless {@literal null}
+     */
+    protected <T> T doCompute( String key, int ttlSeconds, Supplier<T> loader )
+    {
+        return computeAndSet( key, ttlSeconds, loader );
+    }
+
+    /**
+     * Compute a missing value holding a {@link ComputeLock} so that only one node computes it.
+     * <p>
+     * Nodes that fail to acquire the lock poll the Cache until the value appears.
+     * If it do not within the given wait delay, they compute the value themselves.
+     *
+     * @param <T>            Parameterized type of value
+     * @param key            Cache Key
+     * @param ttlSeconds     TTL in seconds
+     * @param loader         Value loader
+     * @param lock           Compute Lock
+     * @param lockTtlSeconds Lock TTL in seconds
+     * @param waitMillis     Maximum delay to wait for another node to compute the value
+     *
+     * @return Computed or concurrently computed value
+     */
+    protected final <T> T doComputeLocked(
+        String key, int ttlSeconds, Supplier<T> loader,
+        ComputeLock lock, int lockTtlSeconds, long waitMillis
+    )
+    {
+        long deadline = System.currentTimeMillis() + waitMillis;
+        long pause = LOCK_MIN_PAUSE_MILLIS;
+        while( true )
+        {
+            String token = lock.tryLock( key, lockTtlSeconds );
+            if( token != null )
+            {
+                try
+                {
+                    T value = doGet( key );
+                    if( value != null )
+                    {
+                        return value;
+                    }
+                    return computeAndSet( key, ttlSeconds, loader );
+                }
+                finally
+                {
+                    lock.unlock( key, token );
+                }
+            }
+            T value = doGet( key );
+            if( value != null )
+            {
+                return value;
+            }
+            if( System.currentTimeMillis() + pause > deadline )
+            {
+                return computeAndSet( key, ttlSeconds, loader );
+            }
+            try
+            {
+                Thread.sleep( pause );
+            }
+            catch( InterruptedException ex )
+            {
+                Thread.currentThread().interrupt();
+                return computeAndSet( key, ttlSeconds, loader );
+            }
+            pause = Math.min( pause * 2, LOCK_MAX_PAUSE_MILLIS );
+        }
+    }
+
+    private void hitsAndMisses( int keys, int hits )
+    {
+        for( int idx = 0; idx < hits; idx++ )
+        {
+            handler.apply( CacheEvent.HIT ).close();
+        }
+        for( int idx = hits; idx < keys; idx++ )
+        {
+            handler.apply( CacheEvent.MISS ).close();
+        }
+    }
+
+    private static <T> CompletableFuture<T> closeOnCompletion(
+        CompletableFuture<T> future,
+        final CacheEvent.Closeable timer
+    )
+    {
+        return future.whenComplete(
+            new BiConsumer<T, Throwable>()
+            {
+                @Override
+                public void accept( T value, Throwable error )
+                {
+                    timer.close();
+                }
+            }
+        );
+    }
+
+    private static <T> CompletableFuture<T> failed( Throwable error )
+    {
+        CompletableFuture<T> failed = new CompletableFuture<>();
+        failed.completeExceptionally( error );
+        return failed;
+    }
+
+    private void batchSize( CacheEvent event, int size )
+    {
+        if( handler instanceof CacheEvent.BatchSizes )
+        {
+            ( (CacheEvent.BatchSizes) handler ).batchSize( event, size );
+        }
+    }
+
+    /**
+     * Start recording keys written or removed, until {@link #stopRecordingWrites()}.
+     * <p>
+     * Used by {@link CacheSnapshots} so that restored entries do not override nor resurrect concurrent writes.
+     */
+    /* package */ final synchronized void startRecordingWrites()
+    {
+        if( writtenKeys == null )
+        {
+            writtenKeys = Collections.newSetFromMap( new ConcurrentHashMap<String, Boolean>() );
+        }
+    }
+
+    /* package */ final synchronized void stopRecordingWrites()
+    {
+        writtenKeys = null;
+    }
+
+    /**
+     * @param key Cache Key
+     *
+     * @return {@literal true} if the key was written or removed since writes are recorded, {@literal false} otherwise
+     */
+    /* package */ final boolean wasWritten( String key )
+    {
+        Set<String> keys = writtenKeys;
+        return keys != null && keys.contains( key );
+    }
+
+    private void recordWrite( String key )
+    {
+        Set<String> keys = writtenKeys;
+        if( keys != null )
+        {
+            keys.add( key );
+        }
+    }
+
+    private void recordWrites( Collection<String> written )
+    {
+        Set<String> keys = writtenKeys;
+        if( keys != null )
+        {
+            keys.addAll( written );
+        }
+    }
+
+    private <T> T computeAndSet( String key, int ttlSeconds, Supplier<T> loader )
+    {
+        T value = loader.get();
+        if( value != null )
+        {
+            set( ttlSeconds, key, value );
+        }
+        return value;
+    }
+
+    /**
+     * Record an event that is not bound to a Cache operation, eg. {@link CacheEvent#EVICTION}.
+     *
+     * @param event Cache Event
+     */
+    protected final void record( CacheEvent event )
+    {
+        handler.apply( event ).close();
+    }
+
+    @Override
+    public final <T> CompletableFuture<T> getAsync( String key )
+    {
+        CacheEvent.Closeable getTimer = handler.apply( CacheEvent.GET );
+        try
+        {
+            return closeOnCompletion( this.<T>doGetAsync( key ), getTimer ).thenApply(
+                new Function<T, T>()
+                {
+                    @Override
+                    public T apply( T value )
+                    {
+                        handler.apply( value == null ? CacheEvent.MISS : CacheEvent.HIT ).close();
+                        return value;
+                    }
+                }
+            );
+        }
+        catch( RuntimeException ex )
+        {
+            getTimer.close();
+            return failed( ex );
+        }
+    }
+
+    @Override
+    public final <T> CompletableFuture<Void> setAsync( String key, T value )
+    {
+        return setAsync( 0, key, value );
+    }
+
+    @Override
+    public final <T> CompletableFuture<Void> setAsync( int ttlSeconds, String key, T value )
+    {
+        recordWrite( key );
+        CacheEvent.Closeable setTimer = handler.apply( CacheEvent.SET );
+        try
+        {
+            return closeOnCompletion( doSetAsync( ttlSeconds, key, value ), setTimer );
+        }
+        catch( RuntimeException ex )
+        {
+            setTimer.close();
+            return failed( ex );
+        }
+    }
+
+    @Override
+    public final CompletableFuture<Void> removeAsync( String key )
+    {
+        recordWrite( key );
+        CacheEvent.Closeable removeTimer = handler.apply( CacheEvent.REMOVE );
+        try
+        {
+            return closeOnCompletion( doRemoveAsync( key ), removeTimer );
+        }
+        catch( RuntimeException ex )
+        {
+            removeTimer.close();
+            return failed( ex );
+        }
+    }
+
+    @Override
+    public final <T> CompletableFuture<Map<String, T>> getAllAsync( final Collection<String> keys )
+    {
+        if( keys.isEmpty() )
+        {
+            return CompletableFuture.<Map<String, T>>completedFuture( new LinkedHashMap<String, T>() );
+        }
+        batchSize( CacheEvent.BULK_GET, keys.size() );
+        CacheEvent.Closeable getTimer = handler.apply( CacheEvent.BULK_GET );
+        try
+        {
+            return closeOnCompletion( this.<T>doGetAllAsync( keys ), getTimer ).thenApply(
+                new Function<Map<String, T>, Map<String, T>>()
+                {
+                    @Override
+                    public Map<String, T> apply( Map<String, T> values )
+                    {
+                        hitsAndMisses( keys.size(), values.size() );
+                        return values;
+                    }
+                }
+            );
+        }
+        catch( RuntimeException ex )
+        {
+            getTimer.close();
+            return failed( ex );
+        }
+    }
+
+    @Override
+    public final <T> CompletableFuture<Void> setAllAsync( Map<String, T> entries )
+    {
+        return setAllAsync( 0, entries );
+    }
+
+    @Override
+    public final <T> CompletableFuture<Void> setAllAsync( int ttlSeconds, Map<String, T> entries )
+    {
+        if( entries.isEmpty() )
+        {
+            return CompletableFuture.completedFuture( null );
+        }
+        batchSize( CacheEvent.BULK_SET, entries.size() );
+        recordWrites( entries.keySet() );
+        CacheEvent.Closeable setTimer = handler.apply( CacheEvent.BULK_SET );
+        try
+        {
+            return closeOnCompletion( doSetAllAsync( ttlSeconds, entries ), setTimer );
+        }
+        catch( RuntimeException ex )
+        {
+            setTimer.close();
+            return failed( ex );
+        }
+    }
+
+    @Override
+    public final CompletableFuture<Void> removeAllAsync( Collection<String> keys )
+    {
+        if( keys.isEmpty() )
+        {
+            return CompletableFuture.completedFuture( null );
+        }
+        batchSize( CacheEvent.BULK_REMOVE, keys.size() );
+        recordWrites( keys );
+        CacheEvent.Closeable removeTimer = handler.apply( CacheEvent.BULK_REMOVE );
+        try
+        {
+            return closeOnCompletion( doRemoveAllAsync( keys ), removeTimer );
+        }
+        catch( RuntimeException ex )
+        {
+            removeTimer.close();
+            return failed( ex );
+        }
+    }
+
     /**
      * Concrete GET.
      *
@@ -199,4 +720,158 @@ public abstract class CacheAdapter
      * @param key Cache Key
      */
     protected abstract void doRemove( String key );
+
+    /**
+     * Concrete bulk GET.
+     * <p>
+     * Default implementation sequentially calls {@link #doGet(java.lang.String)}, override if the backing cache
+     * supports bulk operations.
+     *
+     * @param <T>  Parameterized type of values
+     * @param keys Cache Keys, never empty
+     *
+     * @return Values by key, absent keys must not be present
+     */
+    protected <T> Map<String, T> doGetAll( Collection<String> keys )
+    {
+        Map<String, T> values = new LinkedHashMap<>();
+        for( String key : keys )
+        {
+            T value = doGet( key );
+            if( value != null )
+            {
+                values.put( key, value );
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Concrete bulk SET.
+     * <p>
+     * Default implementation sequentially calls {@link #doSet(int, java.lang.String, java.lang.Object)}, override
+     * if the backing cache supports bulk operations.
+     *
+     * @param <T>        Parameterized type of values
+     * @param ttlSeconds TTL in seconds
+     * @param entries    Values by key, never empty
+     */
+    protected <T> void doSetAll( int ttlSeconds, Map<String, T> entries )
+    {
+        for( Map.Entry<String, T> entry : entries.entrySet() )
+        {
+            doSet( ttlSeconds, entry.getKey(), entry.getValue() );
+        }
+    }
+
+    /**
+     * Concrete bulk REMOVE.
+     * <p>
+     * Default implementation sequentially calls {@link #doRemove(java.lang.String)}, override if the backing cache
+     * supports bulk operations.
+     *
+     * @param keys Cache Keys, never empty
+     */
+    protected void doRemoveAll( Collection<String> keys )
+    {
+        for( String key : keys )
+        {
+            doRemove( key );
+        }
+    }
+
+    /**
+     * Concrete asynchronous GET.
+     * <p>
+     * Default implementation calls {@link #doGet(java.lang.String)} on the calling thread.
+     *
+     * @param <T> Parameterized type of value
+     * @param key Cache Key
+     *
+     * @return Future of the value or null
+     */
+    protected <T> CompletableFuture<T> doGetAsync( String key )
+    {
+        return CompletableFuture.completedFuture( this.<T>doGet( key ) );
+    }
+
+    /**
+     * Concrete asynchronous SET.
+     * <p>
+     * Default implementation calls {@link #doSet(int, java.lang.String, java.lang.Object)} on the calling thread.
+     *
+     * @param <T>        Parameterized type of value
+     * @param ttlSeconds TTL in seconds
+     * @param key        Cache Key
+     * @param value      Value
+     *
+     * @return Future completed once the value is set
+     */
+    protected <T> CompletableFuture<Void> doSetAsync( int ttlSeconds, String key, T value )
+    {
+        doSet( ttlSeconds, key, value );
+        return CompletableFuture.completedFuture( null );
+    }
+
+    /**
+     * Concrete asynchronous REMOVE.
+     * <p>
+     * Default implementation calls {@link #doRemove(java.lang.String)} on the calling thread.
+     *
+     * @param key Cache Key
+     *
+     * @return Future completed once the value is removed
+     */
+    protected CompletableFuture<Void> doRemoveAsync( String key )
+    {
+        doRemove( key );
+        return CompletableFuture.completedFuture( null );
+    }
+
+    /**
+     * Concrete asynchronous bulk GET.
+     * <p>
+     * Default implementation calls {@link #doGetAll(java.util.Collection)} on the calling thread.
+     *
+     * @param <T>  Parameterized type of values
+     * @param keys Cache Keys, never empty
+     *
+     * @return Future of values by key, absent keys must not be present
+     */
+    protected <T> CompletableFuture<Map<String, T>> doGetAllAsync( Collection<String> keys )
+    {
+        return CompletableFuture.completedFuture( this.<T>doGetAll( keys ) );
+    }
+
+    /**
+     * Concrete asynchronous bulk SET.
+     * <p>
+     * Default implementation calls {@link #doSetAll(int, java.util.Map)} on the calling thread.
+     *
+     * @param <T>        Parameterized type of values
+     * @param ttlSeconds TTL in seconds
+     * @param entries    Values by key, never empty
+     *
+     * @return Future completed once all values are set
+     */
+    protected <T> CompletableFuture<Void> doSetAllAsync( int ttlSeconds, Map<String, T> entries )
+    {
+        doSetAll( ttlSeconds, entries );
+        return CompletableFuture.completedFuture( null );
+    }
+
+    /**
+     * Concrete asynchronous bulk REMOVE.
+     * <p>
+     * Default implementation calls {@link #doRemoveAll(java.util.Collection)} on the calling thread.
+     *
+     * @param keys Cache Keys, never empty
+     *
+     * @return Future completed once all values are removed
+     */
+    protected CompletableFuture<Void> doRemoveAllAsync( Collection<String> keys )
+    {
+        doRemoveAll( keys );
+        return CompletableFuture.completedFuture( null );
+    }
 }
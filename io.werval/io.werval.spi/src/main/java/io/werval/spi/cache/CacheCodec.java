@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.spi.cache;
+
+/**
+ * Cache Codec.
+ * <p>
+ * Encode and decode values stored in remote caches.
+ * <p>
+ * Implementations must be thread-safe, they are selected per Cache Plugin in configuration, see
+ * {@link CacheCodecs#codec(io.werval.api.Application, io.werval.api.Config)}.
+ * They must have a public constructor accepting an {@link io.werval.api.Application} or a public no-arg
+ * constructor.
+ */
+public interface CacheCodec
+{
+    /**
+     * Encode a value.
+     *
+     * @param value Value, never {@literal null}
+     *
+     * @return Encoded value
+     */
+    byte[] encode( Object value );
+
+    /**
+     * Decode a value.
+     *
+     * @param <T>   Parameterized type of value
+     * @param bytes Encoded value, never {@literal null}
+     *
+     * @return Decoded value
+     */
+    <T> T decode( byte[] bytes );
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.spi.cache;
+
+import io.werval.api.Application;
+import io.werval.api.Config;
+
+/**
+ * Cache Codecs.
+ */
+public final class CacheCodecs
+{
+    /**
+     * Create a CacheCodec from configuration.
+     * <p>
+     * Expected configuration keys are:
+     * <ul>
+     * <li>{@literal type}: {@literal serialization} or the FQCN of a {@link CacheCodec} implementation;</li>
+     * <li>{@literal passthrough}: store {@literal byte[]} and {@link String} values as-is;</li>
+     * <li>{@literal compression.enabled}: compress encoded values;</li>
+     * <li>{@literal compression.threshold}: size in bytes from which encoded values are compressed.</li>
+     * </ul>
+     *
+     * @param application Application
+     * @param config      Codec configuration
+     *
+     * @return Configured CacheCodec
+     *
+     * @throws io.werval.api.exceptions.WervalException if the codec type is invalid
+     */
+    public static CacheCodec codec( Application application, Config config )
+    {
+        CacheCodec codec = codecType( application, config.string( "type" ) );
+        if( config.bool( "passthrough" ) )
+        {
+            codec = new PassthroughCacheCodec( codec );
+        }
+        if( config.bool( "compression.enabled" ) )
+        {
+            codec = new CompressingCacheCodec( codec, config.intNumber( "compression.threshold" ) );
+        }
+        return codec;
+    }
+
+    private static CacheCodec codecType( Application application, String type )
+    {
+        if( "serialization".equals( type ) )
+        {
+            return new SerializationCacheCodec();
+        }
+        return CacheExtensions.newInstance( application, CacheCodec.class, type );
+    }
+
+    private CacheCodecs()
+    {
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.spi.cache;
+
+import java.lang.reflect.InvocationTargetException;
+
+import io.werval.api.Application;
+import io.werval.api.exceptions.WervalException;
+
+/**
+ * Cache extensions instantiation.
+ */
+/* package */ final class CacheExtensions
+{
+    /**
+     * Instantiate a Cache extension using its public {@link Application} constructor or its public no-arg one.
+     *
+     * @param <T>         Parameterized extension type
+     * @param application Application
+     * @param type        Extension type
+     * @param className   Implementation FQCN
+     *
+     * @return A new extension instance
+     *
+     * @throws WervalException if the extension cannot be instantiated
+     */
+    /* package */ static <T> T newInstance( Application application, Class<T> type, String className )
+    {
+        try
+        {
+            Class<?> implClass = application.classLoader().loadClass( className );
+            try
+            {
+                return type.cast( implClass.getConstructor( Application.class ).newInstance( application ) );
+            }
+            catch( NoSuchMethodException noAppCtor )
+            {
+                return type.cast( implClass.newInstance() );
+            }
+        }
+        catch( ClassNotFoundException | ClassCastException | InstantiationException | IllegalAccessException
+               | InvocationTargetException ex )
+        {
+            throw new WervalException( "Invalid " + type.getSimpleName() + ": " + className, ex );
+        }
+    }
+
+    private CacheExtensions()
+    {
+    }
+}
@@ -0,0 +1,509 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.spi.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.werval.api.Application;
+import io.werval.api.Config;
+import io.werval.api.exceptions.ActivationException;
+import io.werval.api.exceptions.WervalException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static io.werval.util.Charsets.UTF_8;
+
+/**
+ * Cache Snapshots.
+ * <p>
+ * Write the hottest entries of a {@link SnapshotableCache} with their expiration to a compact file, and restore them
+ * in parallel, typically on passivation and activation of a local Cache Plugin.
+ * <p>
+ * Entries that cannot be encoded are skipped, the snapshot file is deleted once restored.
+ * <p>
+ * When the Cache is a {@link CacheAdapter}, keys written or removed while restoring are not restored so that
+ * background restoration never overrides nor resurrects them.
+ */
+public final class CacheSnapshots
+{
+    private static final Logger LOG = LoggerFactory.getLogger( CacheSnapshots.class );
+    private static final int MAGIC = 0x57435348;
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = 5;
+    private static final int END = -1;
+    private static final int BATCH_SIZE = 256;
+
+    /**
+     * Create Cache Snapshots from configuration.
+     * <p>
+     * Expected configuration keys are:
+     * <ul>
+     * <li>{@literal enabled}: snapshots are disabled if {@literal false};</li>
+     * <li>{@literal file}: optional snapshot file, defaulted to {@literal <werval.tmpdir>/<name>.snapshot};</li>
+     * <li>{@literal max_entries}: maximum number of entries written;</li>
+     * <li>{@literal max_size}: maximum size of the snapshot file in bytes;</li>
+     * <li>{@literal policy}: {@literal frequency} or {@literal recency}, see {@link SnapshotableCache.Policy};</li>
+     * <li>{@literal parallelism}: optional number of restoring threads, defaulted to the number of processors;</li>
+     * <li>{@literal blocking}: wait for the snapshot to be restored on activation if {@literal true}.</li>
+     * </ul>
+     *
+     * @param application Application
+     * @param config      Snapshot configuration
+     * @param name        Cache name, used for the default file name
+     * @param codec       Values codec
+     *
+     * @return Configured Cache Snapshots, or {@literal null} if disabled
+     *
+     * @throws WervalException if the configuration is invalid
+     */
+    public static CacheSnapshots fromConfig( Application application, Config config, String name, CacheCodec codec )
+    {
+        if( !config.bool( "enabled" ) )
+        {
+            return null;
+        }
+        SnapshotableCache.Policy policy;
+        try
+        {
+            policy = SnapshotableCache.Policy.valueOf( config.string( "policy" ).toUpperCase( Locale.US ) );
+        }
+        catch( IllegalArgumentException ex )
+        {
+            throw new WervalException( "Invalid cache snapshot policy: " + config.string( "policy" ), ex );
+        }
+        return new CacheSnapshots(
+            config.has( "file" ) ? config.file( "file" ) : new File( application.tmpdir(), name + ".snapshot" ),
+            codec,
+            policy,
+            config.intNumber( "max_entries" ),
+            config.longNumber( "max_size" ),
+            config.has( "parallelism" )
+            ? config.intNumber( "parallelism" )
+            : Runtime.getRuntime().availableProcessors(),
+            config.bool( "blocking" )
+        );
+    }
+
+    private final File file;
+    private final CacheCodec codec;
+    private final SnapshotableCache.Policy policy;
+    private final int maxEntries;
+    private final long maxSize;
+    private final int parallelism;
+    private final boolean blocking;
+
+    public CacheSnapshots(
+        File file, CacheCodec codec, SnapshotableCache.Policy policy,
+        int maxEntries, long maxSize, int parallelism, boolean blocking
+    )
+    {
+        this.file = file;
+        this.codec = codec;
+        this.policy = policy;
+        this.maxEntries = maxEntries;
+        this.maxSize = maxSize;
+        this.parallelism = Math.max( 1, parallelism );
+        this.blocking = blocking;
+    }
+
+    /**
+     * @return Snapshot file
+     */
+    public File file()
+    {
+        return file;
+    }
+
+    /**
+     * Write a snapshot of the hottest entries of the given cache.
+     * <p>
+     * Entries are written hottest first until either the maximum number of entries or the maximum size is reached.
+     *
+     * @param cache Cache
+     *
+     * @return Number of written entries
+     *
+     * @throws IOException if unable to write the snapshot file
+     */
+    public int save( SnapshotableCache cache )
+        throws IOException
+    {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if( !parent.isDirectory() && !parent.mkdirs() )
+        {
+            throw new IOException( "Unable to create cache snapshot directory: " + parent );
+        }
+        File temp = new File( parent, file.getName() + ".tmp" );
+        long now = System.currentTimeMillis();
+        long size = HEADER_SIZE + 4;
+        int count = 0;
+        try ( DataOutputStream output = new DataOutputStream(
+            new BufferedOutputStream( new FileOutputStream( temp ) )
+        ) )
+        {
+            output.writeInt( MAGIC );
+            output.writeByte( VERSION );
+            for( SnapshotableCache.Entry entry : cache.hottest( policy, maxEntries ) )
+            {
+                if( entry.expiresAt() <= now )
+                {
+                    continue;
+                }
+                byte[] value;
+                try
+                {
+                    value = codec.encode( entry.value() );
+                }
+                catch( RuntimeException ex )
+                {
+                    LOG.debug( "Cache entry '{}' not snapshotted: {}", entry.key(), ex.getMessage() );
+                    continue;
+                }
+                byte[] key = entry.key().getBytes( UTF_8 );
+                long recordSize = 4L + key.length + 8 + 4 + value.length;
+                if( size + recordSize > maxSize )
+                {
+                    break;
+                }
+                output.writeInt( key.length );
+                output.write( key );
+                output.writeLong( entry.expiresAt() );
+                output.writeInt( value.length );
+                output.write( value );
+                size += recordSize;
+                count++;
+            }
+            output.writeInt( END );
+        }
+        Files.move( temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING );
+        return count;
+    }
+
+    /**
+     * Restore a snapshot into the given cache, if any.
+     * <p>
+     * The snapshot file is read sequentially, entries are decoded and restored by parallel threads.
+     * Expired entries are skipped.
+     * Entries whose key is already present in the cache, or was written or removed since the restoration started, are
+     * not overwritten.
+     *
+     * @param cache  Cache
+     * @param loader ClassLoader set as context ClassLoader of restoring threads
+     *
+     * @return Number of restored entries
+     *
+     * @throws IOException if unable to read the snapshot file
+     */
+    public int restore( SnapshotableCache cache, ClassLoader loader )
+        throws IOException
+    {
+        startRecordingWrites( cache );
+        try
+        {
+            return restoreEntries( cache, loader );
+        }
+        finally
+        {
+            stopRecordingWrites( cache );
+        }
+    }
+
+    private int restoreEntries( SnapshotableCache cache, ClassLoader loader )
+        throws IOException
+    {
+        if( !file.isFile() )
+        {
+            return 0;
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(
+            parallelism,
+            threadFactory( "werval-cache-snapshot-restore", loader )
+        );
+        List<Future<Integer>> batches = new ArrayList<>();
+        try
+        {
+            try ( DataInputStream input = new DataInputStream(
+                new BufferedInputStream( new FileInputStream( file ) )
+            ) )
+            {
+                if( input.readInt() != MAGIC || input.readByte() != VERSION )
+                {
+                    LOG.warn( "Ignoring invalid cache snapshot: {}", file );
+                    return 0;
+                }
+                Batch batch = new Batch( cache );
+                for( int keyLength = input.readInt(); keyLength != END; keyLength = input.readInt() )
+                {
+                    byte[] key = new byte[ keyLength ];
+                    input.readFully( key );
+                    long expiresAt = input.readLong();
+                    byte[] value = new byte[ input.readInt() ];
+                    input.readFully( value );
+                    batch.add( new String( key, UTF_8 ), expiresAt, value );
+                    if( batch.size() == BATCH_SIZE )
+                    {
+                        batches.add( pool.submit( batch ) );
+                        batch = new Batch( cache );
+                    }
+                }
+                batches.add( pool.submit( batch ) );
+            }
+            catch( EOFException ex )
+            {
+                LOG.warn( "Truncated cache snapshot, restoring what could be read: {}", file );
+            }
+            int restored = 0;
+            for( Future<Integer> batch : batches )
+            {
+                try
+                {
+                    restored += batch.get();
+                }
+                catch( ExecutionException ex )
+                {
+                    LOG.warn( "Unable to restore cache snapshot entries: {}", ex.getMessage(), ex );
+                }
+                catch( InterruptedException ex )
+                {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            Files.deleteIfExists( file.toPath() );
+            return restored;
+        }
+        finally
+        {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Restore a snapshot into the given cache, if any, in the background.
+     *
+     * @param cache  Cache
+     * @param loader ClassLoader set as context ClassLoader of restoring threads
+     *
+     * @return Future number of restored entries
+     */
+    public Future<Integer> restoreInBackground( final SnapshotableCache cache, final ClassLoader loader )
+    {
+        // Record writes from now on, not only once the background restoration started
+        startRecordingWrites( cache );
+        ExecutorService background = Executors.newSingleThreadExecutor(
+            threadFactory( "werval-cache-snapshot", loader )
+        );
+        try
+        {
+            return background.submit(
+                new Callable<Integer>()
+                {
+                    @Override
+                    public Integer call()
+                    {
+                        long start = System.currentTimeMillis();
+                        try
+                        {
+                            int restored = restore( cache, loader );
+                            LOG.info(
+                                "Restored {} cache entries from {} in {}ms",
+                                restored, file, System.currentTimeMillis() - start
+                            );
+                            return restored;
+                        }
+                        catch( IOException ex )
+                        {
+                            LOG.warn( "Unable to restore cache snapshot {}: {}", file, ex.getMessage(), ex );
+                            return 0;
+                        }
+                    }
+                }
+            );
+        }
+        finally
+        {
+            background.shutdown();
+        }
+    }
+
+    /**
+     * Restore a snapshot into the given cache, if any, on Cache Plugin activation.
+     * <p>
+     * Restoration happens in the background unless configured as blocking.
+     *
+     * @param cache  Cache
+     * @param loader ClassLoader set as context ClassLoader of restoring threads
+     *
+     * @throws ActivationException if blocking and interrupted
+     */
+    public void restoreOnActivation( SnapshotableCache cache, ClassLoader loader )
+        throws ActivationException
+    {
+        Future<Integer> restored = restoreInBackground( cache, loader );
+        if( blocking )
+        {
+            try
+            {
+                restored.get();
+            }
+            catch( InterruptedException ex )
+            {
+                Thread.currentThread().interrupt();
+                throw new ActivationException( "Interrupted while restoring cache snapshot " + file, ex );
+            }
+            catch( ExecutionException ex )
+            {
+                throw new ActivationException( "Unable to restore cache snapshot " + file, ex.getCause() );
+            }
+        }
+    }
+
+    /**
+     * Write a snapshot of the given cache on Cache Plugin passivation.
+     * <p>
+     * Failures are logged, not thrown, so that passivation goes on.
+     *
+     * @param cache Cache
+     */
+    public void saveOnPassivation( SnapshotableCache cache )
+    {
+        long start = System.currentTimeMillis();
+        try
+        {
+            int saved = save( cache );
+            LOG.info( "Saved {} cache entries to {} in {}ms", saved, file, System.currentTimeMillis() - start );
+        }
+        catch( IOException | RuntimeException ex )
+        {
+            LOG.warn( "Unable to save cache snapshot {}: {}", file, ex.getMessage(), ex );
+        }
+    }
+
+    private final class Batch
+        implements Callable<Integer>
+    {
+        private final SnapshotableCache cache;
+        private final List<String> keys = new ArrayList<>( BATCH_SIZE );
+        private final List<Long> expirations = new ArrayList<>( BATCH_SIZE );
+        private final List<byte[]> values = new ArrayList<>( BATCH_SIZE );
+
+        private Batch( SnapshotableCache cache )
+        {
+            this.cache = cache;
+        }
+
+        private void add( String key, long expiresAt, byte[] value )
+        {
+            keys.add( key );
+            expirations.add( expiresAt );
+            values.add( value );
+        }
+
+        private int size()
+        {
+            return keys.size();
+        }
+
+        @Override
+        public Integer call()
+        {
+            long now = System.currentTimeMillis();
+            int restored = 0;
+            for( int idx = 0; idx < keys.size(); idx++ )
+            {
+                if( expirations.get( idx ) <= now )
+                {
+                    continue;
+                }
+                try
+                {
+                    if( wasWritten( cache, keys.get( idx ) ) )
+                    {
+                        continue;
+                    }
+                    Object value = codec.decode( values.get( idx ) );
+                    if( cache.restore( keys.get( idx ), value, expirations.get( idx ) ) )
+                    {
+                        restored++;
+                    }
+                }
+                catch( RuntimeException ex )
+                {
+                    LOG.debug( "Cache entry '{}' not restored: {}", keys.get( idx ), ex.getMessage() );
+                }
+            }
+            return restored;
+        }
+    }
+
+    private static void startRecordingWrites( SnapshotableCache cache )
+    {
+        if( cache instanceof CacheAdapter )
+        {
+            ( (CacheAdapter) cache ).startRecordingWrites();
+        }
+    }
+
+    private static void stopRecordingWrites( SnapshotableCache cache )
+    {
+        if( cache instanceof CacheAdapter )
+        {
+            ( (CacheAdapter) cache ).stopRecordingWrites();
+        }
+    }
+
+    private static boolean wasWritten( SnapshotableCache cache, String key )
+    {
+        return cache instanceof CacheAdapter && ( (CacheAdapter) cache ).wasWritten( key );
+    }
+
+    private static ThreadFactory threadFactory( final String name, final ClassLoader loader )
+    {
+        final AtomicInteger count = new AtomicInteger();
+        return new ThreadFactory()
+        {
+            @Override
+            public Thread newThread( Runnable runnable )
+            {
+                Thread thread = new Thread( runnable, name + "-" + count.incrementAndGet() );
+                thread.setDaemon( true );
+                thread.setContextClassLoader( loader );
+                return thread;
+            }
+        };
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.spi.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compressing Cache Codec.
+ * <p>
+ * Deflate values encoded by another codec when they are larger than a threshold.
+ * Encoded values are prefixed by a one byte tag telling if they are compressed.
+ */
+public final class CompressingCacheCodec
+    implements CacheCodec
+{
+    private static final byte RAW = 0;
+    private static final byte DEFLATED = 1;
+    private static final int BUFFER_SIZE = 4096;
+
+    private final CacheCodec delegate;
+    private final int threshold;
+
+    /**
+     * @param delegate  Codec to compress the output of
+     * @param threshold Size in bytes from which encoded values are compressed
+     */
+    public CompressingCacheCodec( CacheCodec delegate, int threshold )
+    {
+        this.delegate = delegate;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public byte[] encode( Object value )
+    {
+        byte[] encoded = delegate.encode( value );
+        if( encoded.length < threshold )
+        {
+            return tagged( RAW, encoded, encoded.length );
+        }
+        Deflater deflater = new Deflater( Deflater.BEST_SPEED );
+        try
+        {
+            deflater.setInput( encoded );
+            deflater.finish();
+            ByteArrayOutputStream output = new ByteArrayOutputStream( encoded.length / 2 + 1 );
+            output.write( DEFLATED );
+            byte[] buffer = new byte[ BUFFER_SIZE ];
+            while( !deflater.finished() )
+            {
+                output.write( buffer, 0, deflater.deflate( buffer ) );
+            }
+            if( output.size() > encoded.length )
+            {
+                // Incompressible
+                return tagged( RAW, encoded, encoded.length );
+            }
+            return output.toByteArray();
+        }
+        finally
+        {
+            deflater.end();
+        }
+    }
+
+    @Override
+    public <T> T decode( byte[] bytes )
+    {
+        switch( bytes[0] )
+        {
+            case RAW:
+                byte[] raw = new byte[ bytes.length - 1 ];
+                System.arraycopy( bytes, 1, raw, 0, raw.length );
+                return delegate.decode( raw );
+            case DEFLATED:
+                return delegate.decode( inflate( bytes ) );
+            default:
+                throw new IllegalArgumentException( "Unknown compressing codec tag: " + bytes[0] );
+        }
+    }
+
+    private static byte[] inflate( byte[] bytes )
+    {
+        Inflater inflater = new Inflater();
+        try
+        {
+            inflater.setInput( bytes, 1, bytes.length - 1 );
+            ByteArrayOutputStream output = new ByteArrayOutputStream( bytes.length * 2 );
+            byte[] buffer = new byte[ BUFFER_SIZE ];
+            while( !inflater.finished() )
+            {
+                int count = inflater.inflate( buffer );
+                if( count == 0 && inflater.needsInput() )
+                {
+                    throw new IllegalArgumentException( "Truncated compressed cache value" );
+                }
+                output.write( buffer, 0, count );
+            }
+            return output.toByteArray();
+        }
+        catch( DataFormatException ex )
+        {
+            throw new IllegalArgumentException( "Corrupted compressed cache value", ex );
+        }
+        finally
+        {
+            inflater.end();
+        }
+    }
+
+    private static byte[] tagged( byte tag, byte[] payload, int length )
+    {
+        byte[] bytes = new byte[ length + 1 ];
+        bytes[0] = tag;
+        System.arraycopy( payload, 0, bytes, 1, length );
+        return bytes;
+    }
+}
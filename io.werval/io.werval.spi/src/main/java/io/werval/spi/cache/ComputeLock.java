@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.spi.cache;
+
+/**
+ * Short lived lock shared by all nodes using a remote Cache.
+ * <p>
+ * Used by {@link CacheAdapter#getOrCompute(java.lang.String, int, java.util.function.Supplier)} to ensure only one
+ * node computes a missing value.
+ * Implementations must make the lock expire on their own so that a crashed node do not hold it forever.
+ */
+public interface ComputeLock
+{
+    /**
+     * Try to acquire the lock for a given cache key, without blocking.
+     *
+     * @param key        Cache Key
+     * @param ttlSeconds Lock Time To Live in seconds
+     *
+     * @return A token to give to {@link #unlock(java.lang.String, java.lang.String)} if the lock was acquired,
+     *         {@literal null} if it is held by someone else
+     */
+    String tryLock( String key, int ttlSeconds );
+
+    /**
+     * Release the lock for a given cache key if still held with the given token.
+     *
+     * @param key   Cache Key
+     * @param token Token returned by {@link #tryLock(java.lang.String, int)}
+     */
+    void unlock( String key, String token );
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.spi.cache;
+
+import java.util.Collection;
+
+/**
+ * Cache Invalidation Channel.
+ * <p>
+ * Broadcast cache keys invalidations between nodes, used by near caches to evict their local entries when another
+ * node sets or removes them.
+ * <p>
+ * Implementations must be thread-safe and have a public constructor accepting an {@link io.werval.api.Application}
+ * or a public no-arg constructor, see {@link InvalidationChannels}.
+ * Delivery is best effort, subscribers must be told to reset when messages may have been lost.
+ */
+public interface InvalidationChannel
+{
+    /**
+     * Invalidation Subscriber.
+     */
+    interface Subscriber
+    {
+        /**
+         * Keys were invalidated.
+         *
+         * @param origin Identity of the publishing node
+         * @param keys   Invalidated keys
+         */
+        void onInvalidation( String origin, Collection<String> keys );
+
+        /**
+         * Invalidations may have been lost, eg. on reconnection, all keys should be considered invalidated.
+         */
+        void onReset();
+    }
+
+    /**
+     * Publish an invalidation.
+     *
+     * @param origin Identity of the publishing node
+     * @param keys   Invalidated keys
+     */
+    void publish( String origin, Collection<String> keys );
+
+    /**
+     * Subscribe to invalidations.
+     *
+     * @param subscriber Subscriber
+     */
+    void subscribe( Subscriber subscriber );
+
+    /**
+     * Close the channel, stop delivering invalidations to subscribers.
+     */
+    void close();
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.spi.cache;
+
+import io.werval.api.Application;
+
+/**
+ * Invalidation Channels.
+ */
+public final class InvalidationChannels
+{
+    /**
+     * Create an InvalidationChannel.
+     *
+     * @param application Application
+     * @param type        {@literal none} or the FQCN of an {@link InvalidationChannel} implementation
+     *
+     * @return A new InvalidationChannel or {@literal null} if type is {@literal none}
+     *
+     * @throws io.werval.api.exceptions.WervalException if the channel type is invalid
+     */
+    public static InvalidationChannel channel( Application application, String type )
+    {
+        if( "none".equals( type ) )
+        {
+            return null;
+        }
+        return CacheExtensions.newInstance( application, InvalidationChannel.class, type );
+    }
+
+    private InvalidationChannels()
+    {
+    }
+}
@@ -15,11 +15,16 @@
  */
 package io.werval.spi.cache;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.function.BiFunction;
 
-import io.werval.util.Couple;
 import io.werval.util.Numbers;
 
 /**
@@ -32,12 +37,18 @@ import io.werval.util.Numbers;
  * <p>
  * No metrics gathered.
  * <p>
- * See the the EhCache, Memcache and Redis based Cache Plugins for alternatives.
+ * Unbounded, see the Local Cache Plugin for a bounded in-process alternative.
+ * <p>
+ * Approximate hits count and last access time of each entry are tracked, without locking nor allocating on reads, so
+ * that the hottest entries can be snapshotted, see {@link SnapshotableCache}.
+ * <p>
+ * See the the EhCache, Memcache and Redis based Cache Plugins for other alternatives.
  */
 public class MapCache
     extends CacheAdapter
+    implements SnapshotableCache
 {
-    protected final ConcurrentMap<String, Couple<Long, Object>> map = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Item> map = new ConcurrentHashMap<>();
 
     public MapCache()
     {
@@ -47,38 +58,125 @@ public class MapCache
     @Override
     protected <T> T doGet( String key )
     {
-        Couple<Long, Object> result = map.computeIfPresent(
-            key,
-            new BiFunction<String, Couple<Long, Object>, Couple<Long, Object>>()
+        Item item = map.get( key );
+        if( item == null )
+        {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if( now > item.expiration )
+        {
+            map.remove( key, item );
+            return null;
+        }
+        item.hit( now );
+        return (T) item.value;
+    }
+
+    @Override
+    protected <T> void doSet( int ttlSeconds, String key, T value )
+    {
+        long now = System.currentTimeMillis();
+        map.put( key, new Item( expiration( now, ttlSeconds ), value, now ) );
+    }
+
+    @Override
+    protected void doRemove( String key )
+    {
+        map.remove( key );
+    }
+
+    @Override
+    protected <T> Map<String, T> doGetAll( Collection<String> keys )
+    {
+        long now = System.currentTimeMillis();
+        Map<String, T> values = new LinkedHashMap<>();
+        for( String key : keys )
+        {
+            Item entry = map.get( key );
+            if( entry != null )
+            {
+                if( now > entry.expiration )
+                {
+                    map.remove( key, entry );
+                }
+                else
+                {
+                    entry.hit( now );
+                    values.put( key, (T) entry.value );
+                }
+            }
+        }
+        return values;
+    }
+
+    @Override
+    protected <T> void doSetAll( int ttlSeconds, Map<String, T> entries )
+    {
+        long now = System.currentTimeMillis();
+        long expiration = expiration( now, ttlSeconds );
+        for( Map.Entry<String, T> entry : entries.entrySet() )
+        {
+            map.put( entry.getKey(), new Item( expiration, entry.getValue(), now ) );
+        }
+    }
+
+    @Override
+    protected void doRemoveAll( Collection<String> keys )
+    {
+        for( String key : keys )
+        {
+            map.remove( key );
+        }
+    }
+
+    @Override
+    public List<Entry> hottest( final Policy policy, int maxEntries )
+    {
+        long now = System.currentTimeMillis();
+        List<Candidate> live = new ArrayList<>( map.size() );
+        for( Map.Entry<String, Item> entry : map.entrySet() )
+        {
+            Item item = entry.getValue();
+            if( now <= item.expiration )
+            {
+                // Rank captured once as hits keep being tracked while sorting
+                live.add(
+                    new Candidate(
+                        entry.getKey(), item, policy == Policy.FREQUENCY ? item.hits : item.lastAccess
+                    )
+                );
+            }
+        }
+        Collections.sort(
+            live,
+            new Comparator<Candidate>()
             {
                 @Override
-                public Couple<Long, Object> apply( String k, Couple<Long, Object> entry )
+                public int compare( Candidate left, Candidate right )
                 {
-                    if( System.currentTimeMillis() > entry.left() )
-                    {
-                        return null;
-                    }
-                    return entry;
+                    // Hottest first
+                    return Long.compare( right.rank, left.rank );
                 }
             }
         );
-        if( result != null )
+        List<Entry> hottest = new ArrayList<>( Math.min( maxEntries, live.size() ) );
+        for( Candidate candidate : live.subList( 0, Math.min( maxEntries, live.size() ) ) )
         {
-            return (T) result.right();
+            hottest.add( new Entry( candidate.key, candidate.item.value, candidate.item.expiration ) );
         }
-        return null;
+        return hottest;
     }
 
     @Override
-    protected <T> void doSet( int ttlSeconds, String key, T value )
+    public boolean restore( String key, Object value, long expiresAt )
     {
-        map.put( key, Couple.of( expiration( System.currentTimeMillis(), ttlSeconds ), (Object) value ) );
+        return map.putIfAbsent( key, new Item( expiresAt, value, System.currentTimeMillis() ) ) == null;
     }
 
-    @Override
-    protected void doRemove( String key )
+    /* package */ void clear()
     {
-        map.remove( key );
+        map.clear();
     }
 
     private long expiration( long now, int ttlSeconds )
@@ -89,4 +187,40 @@ public class MapCache
         }
         return Numbers.safeLongValueOfSum( now, Numbers.safeLongValueOfMultiply( ttlSeconds, 1000 ) );
     }
+
+    private static final class Item
+    {
+        private final long expiration;
+        private final Object value;
+        // WARN Racy updates, hits are approximate
+        private volatile long hits;
+        private volatile long lastAccess;
+
+        private Item( long expiration, Object value, long now )
+        {
+            this.expiration = expiration;
+            this.value = value;
+            this.lastAccess = now;
+        }
+
+        private void hit( long now )
+        {
+            hits++;
+            lastAccess = now;
+        }
+    }
+
+    private static final class Candidate
+    {
+        private final String key;
+        private final Item item;
+        private final long rank;
+
+        private Candidate( String key, Item item, long rank )
+        {
+            this.key = key;
+            this.item = item;
+            this.rank = rank;
+        }
+    }
 }
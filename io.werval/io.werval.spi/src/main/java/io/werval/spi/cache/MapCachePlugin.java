@@ -16,12 +16,15 @@
 package io.werval.spi.cache;
 
 import io.werval.api.Application;
+import io.werval.api.Config;
 import io.werval.api.cache.Cache;
 import io.werval.api.cache.CachePlugin;
 import io.werval.api.exceptions.ActivationException;
 
 /**
  * Cache Plugin backed by a HashMap.
+ * <p>
+ * Can snapshot its hottest entries on passivation and restore them on activation, see {@link CacheSnapshots}.
  *
  * @navcomposed 1 - 1 MapCache
  */
@@ -29,18 +32,33 @@ public class MapCachePlugin
     extends CachePlugin
 {
     private MapCache cache;
+    private CacheSnapshots snapshots;
 
     @Override
     public void onActivate( Application application )
         throws ActivationException
     {
         cache = new MapCache();
+        Config config = application.config().atPath( "map_cache.snapshot" );
+        snapshots = CacheSnapshots.fromConfig(
+            application, config, "werval-map-cache",
+            CacheCodecs.codec( application, config.atKey( "codec" ) )
+        );
+        if( snapshots != null )
+        {
+            snapshots.restoreOnActivation( cache, application.classLoader() );
+        }
     }
 
     @Override
     public void onPassivate( Application application )
     {
-        cache.map.clear();
+        if( snapshots != null )
+        {
+            snapshots.saveOnPassivation( cache );
+            snapshots = null;
+        }
+        cache.clear();
         cache = null;
     }
 
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.spi.cache;
+
+import static io.werval.util.Charsets.UTF_8;
+
+/**
+ * Passthrough Cache Codec.
+ * <p>
+ * Store raw {@literal byte[]} and {@link String} values as-is, prefixed by a one byte tag, and delegate other values
+ * to another codec.
+ */
+public final class PassthroughCacheCodec
+    implements CacheCodec
+{
+    private static final byte BYTES = 0;
+    private static final byte STRING = 1;
+    private static final byte DELEGATED = 2;
+
+    private final CacheCodec delegate;
+
+    public PassthroughCacheCodec( CacheCodec delegate )
+    {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public byte[] encode( Object value )
+    {
+        if( value instanceof byte[] )
+        {
+            return tagged( BYTES, (byte[]) value );
+        }
+        if( value instanceof String )
+        {
+            return tagged( STRING, ( (String) value ).getBytes( UTF_8 ) );
+        }
+        return tagged( DELEGATED, delegate.encode( value ) );
+    }
+
+    @Override
+    public <T> T decode( byte[] bytes )
+    {
+        byte[] payload = new byte[ bytes.length - 1 ];
+        System.arraycopy( bytes, 1, payload, 0, payload.length );
+        switch( bytes[0] )
+        {
+            case BYTES:
+                return (T) payload;
+            case STRING:
+                return (T) new String( payload, UTF_8 );
+            case DELEGATED:
+                return delegate.decode( payload );
+            default:
+                throw new IllegalArgumentException( "Unknown passthrough codec tag: " + bytes[0] );
+        }
+    }
+
+    private static byte[] tagged( byte tag, byte[] payload )
+    {
+        byte[] bytes = new byte[ payload.length + 1 ];
+        bytes[0] = tag;
+        System.arraycopy( payload, 0, bytes, 1, payload.length );
+        return bytes;
+    }
+}
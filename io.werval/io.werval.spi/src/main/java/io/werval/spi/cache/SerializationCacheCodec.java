@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.spi.cache;
+
+import io.werval.util.Serializables;
+
+/**
+ * Java Serialization Cache Codec.
+ * <p>
+ * Default codec, values must be {@link java.io.Serializable}.
+ */
+public final class SerializationCacheCodec
+    implements CacheCodec
+{
+    @Override
+    public byte[] encode( Object value )
+    {
+        return Serializables.toBytes( value );
+    }
+
+    @Override
+    public <T> T decode( byte[] bytes )
+    {
+        return Serializables.fromBytes( bytes );
+    }
+}
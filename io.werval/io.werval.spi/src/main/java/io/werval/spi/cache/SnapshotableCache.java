@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.spi.cache;
+
+import java.util.List;
+
+/**
+ * Cache able to list its hottest entries and to restore entries, see {@link CacheSnapshots}.
+ */
+public interface SnapshotableCache
+{
+    /**
+     * Snapshot selection policy.
+     */
+    enum Policy
+    {
+        /**
+         * Most frequently used entries first.
+         */
+        FREQUENCY,
+        /**
+         * Most recently used entries first.
+         */
+        RECENCY
+    }
+
+    /**
+     * Snapshot entry.
+     */
+    final class Entry
+    {
+        private final String key;
+        private final Object value;
+        private final long expiresAt;
+
+        /**
+         * @param key       Key
+         * @param value     Value
+         * @param expiresAt Expiration as milliseconds since epoch, {@link Long#MAX_VALUE} if the entry never expires
+         */
+        public Entry( String key, Object value, long expiresAt )
+        {
+            this.key = key;
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        public String key()
+        {
+            return key;
+        }
+
+        public Object value()
+        {
+            return value;
+        }
+
+        public long expiresAt()
+        {
+            return expiresAt;
+        }
+    }
+
+    /**
+     * List live entries, hottest first.
+     * <p>
+     * Implementations that do not track what the given policy needs fallback to the closest one they support.
+     *
+     * @param policy     Selection policy
+     * @param maxEntries Maximum number of entries to list
+     *
+     * @return Live entries, hottest first
+     */
+    List<Entry> hottest( Policy policy, int maxEntries );
+
+    /**
+     * Restore an entry, unless its key is already present.
+     *
+     * @param key       Key
+     * @param value     Value
+     * @param expiresAt Expiration as milliseconds since epoch, {@link Long#MAX_VALUE} if the entry never expires
+     *
+     * @return {@literal true} if the entry was restored, {@literal false} if its key was already present
+     */
+    boolean restore( String key, Object value, long expiresAt );
+}
@@ -15,11 +15,14 @@
  */
 package io.werval.spi.server;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
 import io.werval.api.exceptions.PassivationException;
 import io.werval.spi.ApplicationSPI;
+import io.werval.spi.StartupTimeline;
 import io.werval.spi.dev.DevShellSPI;
 import io.werval.util.Reflectively;
 
@@ -42,6 +45,10 @@ public abstract class HttpServerAdapter
     private final Thread shutdownHook;
     protected ApplicationSPI app;
     protected DevShellSPI devSpi;
+    /**
+     * Helper shared by all connections, created on activation.
+     */
+    protected HttpServerHelper helper;
 
     protected HttpServerAdapter()
     {
@@ -90,15 +97,37 @@ public abstract class HttpServerAdapter
         // Activate Application
         app.activate();
 
+        // Create the helper shared by all connections
+        helper = new HttpServerHelper( app );
+
         // Notify Global object that the HttpServer will start listening to network connections
         app.global().beforeHttpBind( app );
 
         // Activate HttpServer
+        StartupTimeline timeline = app.startupTimeline();
+        StartupTimeline.Phase bind = timeline.begin( "server_bind" );
         activateHttpServer();
+        bind.end();
 
         // Notify Global object that the HttpServer started listening to network connections
         app.global().afterHttpBind( app );
 
+        // Startup Timeline
+        timeline.ready();
+        LOG.debug( "Startup Timeline\n{}", timeline );
+        if( app.config().has( "werval.startup.timeline" ) )
+        {
+            File timelineFile = app.config().file( "werval.startup.timeline" );
+            try
+            {
+                timeline.writeJSON( timelineFile );
+            }
+            catch( IOException ex )
+            {
+                LOG.warn( "Unable to write startup timeline to {}", timelineFile, ex );
+            }
+        }
+
         // Log
         if( LOG.isInfoEnabled() )
         {
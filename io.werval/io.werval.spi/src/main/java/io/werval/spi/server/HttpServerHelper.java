@@ -15,22 +15,70 @@
  */
 package io.werval.spi.server;
 
+import io.werval.api.Application;
+import io.werval.api.exceptions.WervalException;
 import io.werval.util.IdentityGenerator;
+import io.werval.util.TimeOrderedIdentityGenerator;
 import io.werval.util.UUIDIdentityGenerator;
 
+import static io.werval.util.IllegalArguments.ensureNotNull;
+
 /**
  * Helper object for HttpServer implementations.
+ * <p>
+ * HttpServer implementations should share a single instance across all connections,
+ * see {@link HttpServerAdapter#helper}.
  *
  * @composed 1 - 1 IdentityGenerator
  */
 public class HttpServerHelper
 {
-    private final IdentityGenerator idGen = new UUIDIdentityGenerator();
+    /**
+     * Request identity generator configuration key.
+     * <p>
+     * Either {@literal time-ordered}, {@literal uuid} or the FQCN of an {@link IdentityGenerator} implementation.
+     */
+    public static final String REQUESTS_IDENTITY_GENERATOR = "werval.http.requests.identity.generator";
+    /**
+     * Request identity node configuration key.
+     * <p>
+     * Used by the {@literal time-ordered} generator, random if absent.
+     */
+    public static final String REQUESTS_IDENTITY_NODE = "werval.http.requests.identity.node";
+
+    private final IdentityGenerator idGen;
+
+    /**
+     * Create a new HttpServerHelper using an {@link UUIDIdentityGenerator}.
+     */
+    public HttpServerHelper()
+    {
+        this( new UUIDIdentityGenerator() );
+    }
+
+    /**
+     * Create a new HttpServerHelper using the request identity generator configured for the given Application.
+     *
+     * @param application Application
+     */
+    public HttpServerHelper( Application application )
+    {
+        this( requestIdentityGenerator( application ) );
+    }
+
+    /**
+     * Create a new HttpServerHelper using the given request identity generator.
+     *
+     * @param idGen Request identity generator, must be thread-safe
+     */
+    public HttpServerHelper( IdentityGenerator idGen )
+    {
+        ensureNotNull( "Request IdentityGenerator", idGen );
+        this.idGen = idGen;
+    }
 
     /**
      * Generates a new request identity.
-     * <p>
-     * See {@link UUIDIdentityGenerator}.
      *
      * @return a new request identity.
      */
@@ -38,4 +86,32 @@ public class HttpServerHelper
     {
         return idGen.newIdentity();
     }
+
+    private static IdentityGenerator requestIdentityGenerator( Application application )
+    {
+        String generator = application.config().string( REQUESTS_IDENTITY_GENERATOR );
+        switch( generator )
+        {
+            case "time-ordered":
+                if( application.config().has( REQUESTS_IDENTITY_NODE ) )
+                {
+                    return new TimeOrderedIdentityGenerator(
+                        application.config().longNumber( REQUESTS_IDENTITY_NODE )
+                    );
+                }
+                return new TimeOrderedIdentityGenerator();
+            case "uuid":
+                return new UUIDIdentityGenerator();
+            default:
+                try
+                {
+                    return (IdentityGenerator) application.classLoader().loadClass( generator ).newInstance();
+                }
+                catch( ClassNotFoundException | ClassCastException
+                       | InstantiationException | IllegalAccessException ex )
+                {
+                    throw new WervalException( "Invalid request IdentityGenerator: " + generator, ex );
+                }
+        }
+    }
 }
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.spi.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+
+/**
+ * CacheCodec Test.
+ */
+public class CacheCodecTest
+{
+    @Test
+    public void serialization()
+    {
+        CacheCodec codec = new SerializationCacheCodec();
+        List<String> value = new ArrayList<>( Arrays.asList( "foo", "bar" ) );
+        assertThat( codec.<List<String>>decode( codec.encode( value ) ), equalTo( value ) );
+    }
+
+    @Test
+    public void passthrough()
+    {
+        CacheCodec codec = new PassthroughCacheCodec( new SerializationCacheCodec() );
+        byte[] bytes = new byte[]
+        {
+            1, 2, 3
+        };
+        assertThat( codec.encode( bytes ).length, is( 4 ) );
+        assertThat( codec.<byte[]>decode( codec.encode( bytes ) ), equalTo( bytes ) );
+        assertThat( codec.encode( "héllo" ).length, is( 7 ) );
+        assertThat( codec.<String>decode( codec.encode( "héllo" ) ), equalTo( "héllo" ) );
+        assertThat( codec.<Long>decode( codec.encode( 42L ) ), equalTo( 42L ) );
+    }
+
+    @Test
+    public void compression()
+    {
+        CacheCodec codec = new CompressingCacheCodec( new PassthroughCacheCodec( new SerializationCacheCodec() ), 64 );
+        String small = "small";
+        assertThat( codec.encode( small ).length, is( small.length() + 2 ) );
+        assertThat( codec.<String>decode( codec.encode( small ) ), equalTo( small ) );
+        StringBuilder sb = new StringBuilder();
+        for( int idx = 0; idx < 1000; idx++ )
+        {
+            sb.append( "compressible " );
+        }
+        String large = sb.toString();
+        assertThat( codec.encode( large ).length, lessThan( large.length() / 10 ) );
+        assertThat( codec.<String>decode( codec.encode( large ) ), equalTo( large ) );
+    }
+}
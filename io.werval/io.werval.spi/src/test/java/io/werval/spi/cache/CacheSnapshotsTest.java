@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.spi.cache;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * CacheSnapshots Test.
+ */
+public class CacheSnapshotsTest
+{
+    @Rule
+    public final TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void roundTrip()
+        throws Exception
+    {
+        MapCache cache = new MapCache();
+        cache.set( "forever", "bar" );
+        cache.set( 3600, "ttl", 42L );
+        cache.set( "not-serializable", new Object() );
+        CacheSnapshots snapshots = snapshots( SnapshotableCache.Policy.FREQUENCY, 100, 1024 * 1024 );
+        assertThat( snapshots.save( cache ), is( 2 ) );
+
+        MapCache restored = new MapCache();
+        restored.set( "ttl", 23L );
+        assertThat( snapshots.restore( restored, getClass().getClassLoader() ), is( 1 ) );
+        assertThat( restored.<String>get( "forever" ), equalTo( "bar" ) );
+        assertThat( restored.<Long>get( "ttl" ), equalTo( 23L ) );
+        assertThat( restored.get( "not-serializable" ), nullValue() );
+        assertThat( snapshots.file().exists(), is( false ) );
+    }
+
+    @Test
+    public void keysWrittenOrRemovedWhileRestoringAreSkipped()
+        throws Exception
+    {
+        MapCache cache = new MapCache();
+        cache.set( "removed", "snapshotted" );
+        cache.set( "updated", "snapshotted" );
+        cache.set( "untouched", "snapshotted" );
+        CacheSnapshots snapshots = snapshots( SnapshotableCache.Policy.FREQUENCY, 100, 1024 * 1024 );
+        snapshots.save( cache );
+
+        // As if served while restoring in the background
+        MapCache restored = new MapCache();
+        restored.startRecordingWrites();
+        restored.set( "removed", "written" );
+        restored.remove( "removed" );
+        restored.set( "updated", "written" );
+        assertThat( snapshots.restore( restored, getClass().getClassLoader() ), is( 1 ) );
+        assertThat( restored.get( "removed" ), nullValue() );
+        assertThat( restored.<String>get( "updated" ), equalTo( "written" ) );
+        assertThat( restored.<String>get( "untouched" ), equalTo( "snapshotted" ) );
+
+        // Writes are no longer recorded once restored
+        assertThat( restored.wasWritten( "updated" ), is( false ) );
+    }
+
+    @Test
+    public void expirationPreserved()
+        throws Exception
+    {
+        MapCache cache = new MapCache();
+        cache.set( 3600, "foo", "bar" );
+        long before = System.currentTimeMillis();
+        List<SnapshotableCache.Entry> entries = cache.hottest( SnapshotableCache.Policy.RECENCY, 10 );
+        assertThat( entries.size(), is( 1 ) );
+        assertThat( entries.get( 0 ).expiresAt(), greaterThan( before + 3500 * 1000 ) );
+        assertThat( entries.get( 0 ).expiresAt(), lessThanOrEqualTo( before + 3600 * 1000 ) );
+
+        CacheSnapshots snapshots = snapshots( SnapshotableCache.Policy.RECENCY, 10, 1024 * 1024 );
+        snapshots.save( cache );
+        MapCache restored = new MapCache();
+        snapshots.restore( restored, getClass().getClassLoader() );
+        assertThat(
+            restored.hottest( SnapshotableCache.Policy.RECENCY, 10 ).get( 0 ).expiresAt(),
+            equalTo( entries.get( 0 ).expiresAt() )
+        );
+    }
+
+    @Test
+    public void mostFrequentlyUsedFirst()
+        throws Exception
+    {
+        MapCache cache = new MapCache();
+        for( int idx = 0; idx < 10; idx++ )
+        {
+            cache.set( "key-" + idx, idx );
+            for( int hit = 0; hit < idx; hit++ )
+            {
+                cache.get( "key-" + idx );
+            }
+        }
+        assertThat(
+            keys( cache.hottest( SnapshotableCache.Policy.FREQUENCY, 3 ) ),
+            contains( "key-9", "key-8", "key-7" )
+        );
+
+        CacheSnapshots snapshots = snapshots( SnapshotableCache.Policy.FREQUENCY, 3, 1024 * 1024 );
+        assertThat( snapshots.save( cache ), is( 3 ) );
+        MapCache restored = new MapCache();
+        assertThat( snapshots.restore( restored, getClass().getClassLoader() ), is( 3 ) );
+        assertThat( restored.<Integer>get( "key-9" ), is( 9 ) );
+        assertThat( restored.get( "key-6" ), nullValue() );
+    }
+
+    @Test
+    public void maximumSize()
+        throws Exception
+    {
+        MapCache cache = new MapCache();
+        for( int idx = 0; idx < 100; idx++ )
+        {
+            cache.set( "key-" + idx, new byte[ 100 ] );
+        }
+        CacheSnapshots snapshots = snapshots( SnapshotableCache.Policy.FREQUENCY, 100, 1024 );
+        int saved = snapshots.save( cache );
+        assertThat( saved, greaterThan( 0 ) );
+        assertThat( saved * 100, lessThanOrEqualTo( 1024 ) );
+        assertThat( snapshots.file().length(), lessThanOrEqualTo( 1024L ) );
+    }
+
+    @Test
+    public void parallelRestore()
+        throws Exception
+    {
+        MapCache cache = new MapCache();
+        for( int idx = 0; idx < 5000; idx++ )
+        {
+            cache.set( "key-" + idx, "value-" + idx );
+        }
+        CacheSnapshots snapshots = snapshots( SnapshotableCache.Policy.RECENCY, 10_000, 64 * 1024 * 1024 );
+        assertThat( snapshots.save( cache ), is( 5000 ) );
+        MapCache restored = new MapCache();
+        assertThat( snapshots.restoreInBackground( restored, getClass().getClassLoader() ).get(), is( 5000 ) );
+        assertThat( restored.<String>get( "key-4242" ), equalTo( "value-4242" ) );
+    }
+
+    @Test
+    public void missingSnapshot()
+        throws Exception
+    {
+        CacheSnapshots snapshots = snapshots( SnapshotableCache.Policy.FREQUENCY, 10, 1024 );
+        assertThat( snapshots.restore( new MapCache(), getClass().getClassLoader() ), is( 0 ) );
+    }
+
+    private CacheSnapshots snapshots( SnapshotableCache.Policy policy, int maxEntries, long maxSize )
+    {
+        return new CacheSnapshots(
+            new File( tmp.getRoot(), "cache.snapshot" ),
+            new PassthroughCacheCodec( new SerializationCacheCodec() ),
+            policy, maxEntries, maxSize, 4, false
+        );
+    }
+
+    private static List<String> keys( List<SnapshotableCache.Entry> entries )
+    {
+        List<String> keys = new ArrayList<>();
+        for( SnapshotableCache.Entry entry : entries )
+        {
+            keys.add( entry.key() );
+        }
+        return keys;
+    }
+}
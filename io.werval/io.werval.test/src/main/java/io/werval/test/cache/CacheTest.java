@@ -15,6 +15,14 @@
  */
 package io.werval.test.cache;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import io.werval.api.cache.Cache;
 import io.werval.api.http.Request;
 import io.werval.api.outcomes.Outcome;
@@ -35,9 +43,11 @@ import static io.werval.api.http.Method.GET;
 
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNull.nullValue;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * Cache Test.
@@ -197,6 +207,159 @@ public abstract class CacheTest
         assertThat( cache.get( FOO ), equalTo( "bazar" ) );
     }
 
+    @Test
+    public void getOrSetDefaultSupplierIsLazy()
+    {
+        Cache cache = application().cache();
+        AtomicInteger calls = new AtomicInteger();
+        cache.set( FOO, BAR );
+        assertThat( cache.getOrSetDefault( FOO, () -> "bazar" + calls.incrementAndGet() ), equalTo( BAR ) );
+        assertThat( calls.get(), is( 0 ) );
+    }
+
+    @Test
+    public void getOrCompute()
+    {
+        Cache cache = application().cache();
+        AtomicInteger calls = new AtomicInteger();
+        assertFalse( cache.has( FOO ) );
+        assertThat( cache.getOrCompute( FOO, () -> BAR + calls.incrementAndGet() ), equalTo( BAR + 1 ) );
+        assertThat( cache.getOrCompute( FOO, () -> BAR + calls.incrementAndGet() ), equalTo( BAR + 1 ) );
+        assertThat( calls.get(), is( 1 ) );
+        cache.remove( FOO );
+    }
+
+    @Test
+    public void getOrComputeRecursiveCallOnSameKeyFails()
+    {
+        Cache cache = application().cache();
+        try
+        {
+            cache.getOrCompute( FOO, () -> cache.getOrCompute( FOO, () -> BAR ) );
+            fail( "Recursive getOrCompute on a same key should fail" );
+        }
+        catch( IllegalStateException expected )
+        {
+            // Expected
+        }
+        assertFalse( cache.has( FOO ) );
+        assertThat( cache.getOrCompute( FOO, () -> BAR ), equalTo( BAR ) );
+        cache.remove( FOO );
+    }
+
+    @Test
+    public void getOrComputeConcurrentCallsShareOneComputation()
+        throws InterruptedException
+    {
+        Cache cache = application().cache();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch( 1 );
+        List<String> results = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for( int idx = 0; idx < 8; idx++ )
+        {
+            Thread thread = new Thread(
+                () ->
+                {
+                    try
+                    {
+                        start.await();
+                    }
+                    catch( InterruptedException ex )
+                    {
+                        throw new RuntimeException( ex );
+                    }
+                    String result = cache.getOrCompute(
+                        FOO, 1,
+                        () ->
+                        {
+                            calls.incrementAndGet();
+                            try
+                            {
+                                Thread.sleep( 200 );
+                            }
+                            catch( InterruptedException ex )
+                            {
+                                throw new RuntimeException( ex );
+                            }
+                            return BAR;
+                        }
+                    );
+                    synchronized( results )
+                    {
+                        results.add( result );
+                    }
+                }
+            );
+            thread.start();
+            threads.add( thread );
+        }
+        start.countDown();
+        for( Thread thread : threads )
+        {
+            thread.join();
+        }
+        assertThat( calls.get(), is( 1 ) );
+        assertThat( results.size(), is( 8 ) );
+        results.forEach( result -> assertThat( result, equalTo( BAR ) ) );
+        cache.remove( FOO );
+    }
+
+    @Test
+    public void getAllSetAllRemoveAll()
+    {
+        Cache cache = application().cache();
+        List<String> keys = Arrays.asList( "bulk-1", "bulk-2", "bulk-3" );
+        assertTrue( cache.getAll( keys ).isEmpty() );
+        Map<String, String> entries = new LinkedHashMap<>();
+        entries.put( "bulk-1", "one" );
+        entries.put( "bulk-2", "two" );
+        cache.setAll( entries );
+        Map<String, String> values = cache.getAll( keys );
+        assertThat( values.size(), is( 2 ) );
+        assertThat( values.get( "bulk-1" ), equalTo( "one" ) );
+        assertThat( values.get( "bulk-2" ), equalTo( "two" ) );
+        assertFalse( values.containsKey( "bulk-3" ) );
+        cache.removeAll( keys );
+        assertTrue( cache.getAll( keys ).isEmpty() );
+        assertTrue( cache.getAll( new ArrayList<>() ).isEmpty() );
+    }
+
+    @Test
+    public void setAllTimeToLive()
+        throws InterruptedException
+    {
+        Cache cache = application().cache();
+        Map<String, String> entries = new LinkedHashMap<>();
+        entries.put( "bulk-ttl-1", "one" );
+        entries.put( "bulk-ttl-2", "two" );
+        cache.setAll( 1, entries );
+        assertThat( cache.getAll( entries.keySet() ).size(), is( 2 ) );
+        Thread.sleep( 1100 );
+        assertTrue( cache.getAll( entries.keySet() ).isEmpty() );
+    }
+
+    @Test
+    public void asyncOperations()
+    {
+        Cache cache = application().cache();
+        assertThat( cache.getAsync( FOO ).join(), is( nullValue() ) );
+        cache.setAsync( FOO, BAR ).join();
+        assertThat( cache.<String>getAsync( FOO ).join(), equalTo( BAR ) );
+        cache.removeAsync( FOO ).join();
+        assertFalse( cache.has( FOO ) );
+
+        Map<String, String> entries = new LinkedHashMap<>();
+        entries.put( "async-1", "one" );
+        entries.put( "async-2", "two" );
+        cache.setAllAsync( 60, entries ).join();
+        List<String> keys = Arrays.asList( "async-1", "async-2", "async-3" );
+        Map<String, String> values = cache.<String>getAllAsync( keys ).join();
+        assertThat( values, equalTo( entries ) );
+        cache.removeAllAsync( entries.keySet() ).join();
+        assertTrue( cache.getAllAsync( entries.keySet() ).join().isEmpty() );
+    }
+
     @Test
     public void removeAbsent()
     {
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.test.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import io.werval.spi.cache.InvalidationChannel;
+
+/**
+ * In-process Cache invalidations broker.
+ * <p>
+ * Connect several near caches living in the same JVM as if they were on different nodes.
+ * Invalidations are delivered synchronously to all open channels, including the publishing one.
+ */
+public class InProcessInvalidationBroker
+{
+    private final List<Channel> channels = new CopyOnWriteArrayList<>();
+
+    /**
+     * @return A new channel connected to this broker
+     */
+    public InvalidationChannel channel()
+    {
+        Channel channel = new Channel();
+        channels.add( channel );
+        return channel;
+    }
+
+    /**
+     * Tell all subscribers that invalidations may have been lost.
+     */
+    public void reset()
+    {
+        channels.forEach( channel -> channel.subscribers.forEach( InvalidationChannel.Subscriber::onReset ) );
+    }
+
+    private void deliver( String origin, Collection<String> keys )
+    {
+        List<String> message = new ArrayList<>( keys );
+        channels.forEach(
+            channel -> channel.subscribers.forEach( subscriber -> subscriber.onInvalidation( origin, message ) )
+        );
+    }
+
+    private final class Channel
+        implements InvalidationChannel
+    {
+        private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void publish( String origin, Collection<String> keys )
+        {
+            deliver( origin, keys );
+        }
+
+        @Override
+        public void subscribe( Subscriber subscriber )
+        {
+            subscribers.add( subscriber );
+        }
+
+        @Override
+        public void close()
+        {
+            channels.remove( this );
+        }
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.test.load;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * HTTP Load Test Report.
+ * <p>
+ * Latencies are recorded in nanoseconds with three significant digits, percentiles are returned in the requested
+ * unit, truncated.
+ * Assertions throw {@link AssertionError} with the report summary in their message.
+ */
+public final class LoadReport
+{
+    private final Histogram latencies;
+    private final Map<Integer, Long> statuses;
+    private final long errors;
+    private final long durationNanos;
+
+    /* package */ LoadReport( Histogram latencies, long[] statuses, long errors, long durationNanos )
+    {
+        this.latencies = latencies;
+        Map<Integer, Long> map = new TreeMap<>();
+        for( int status = 0; status < statuses.length; status++ )
+        {
+            if( statuses[status] > 0 )
+            {
+                map.put( status, statuses[status] );
+            }
+        }
+        this.statuses = Collections.unmodifiableMap( map );
+        this.errors = errors;
+        this.durationNanos = durationNanos;
+    }
+
+    /**
+     * @return Count of completed requests, excluding warmup
+     */
+    public long requests()
+    {
+        return latencies.getTotalCount();
+    }
+
+    /**
+     * @return Count of requests that did not complete, because of transport errors or timeout
+     */
+    public long errors()
+    {
+        return errors;
+    }
+
+    /**
+     * @return Count of completed requests per HTTP status code
+     */
+    public Map<Integer, Long> statuses()
+    {
+        return statuses;
+    }
+
+    /**
+     * @return Completed requests per second over the measurement duration
+     */
+    public double requestsPerSecond()
+    {
+        return requests() * (double) SECONDS.toNanos( 1 ) / durationNanos;
+    }
+
+    /**
+     * @param percentile Percentile, in the {@literal [0..100]} range
+     * @param unit       Unit
+     *
+     * @return Latency at the given percentile
+     */
+    public long percentile( double percentile, TimeUnit unit )
+    {
+        return unit.convert( latencies.getValueAtPercentile( percentile ), NANOSECONDS );
+    }
+
+    /**
+     * @param unit Unit
+     *
+     * @return Median latency
+     */
+    public long p50( TimeUnit unit )
+    {
+        return percentile( 50, unit );
+    }
+
+    /**
+     * @param unit Unit
+     *
+     * @return 99th percentile latency
+     */
+    public long p99( TimeUnit unit )
+    {
+        return percentile( 99, unit );
+    }
+
+    /**
+     * @param unit Unit
+     *
+     * @return 99.9th percentile latency
+     */
+    public long p999( TimeUnit unit )
+    {
+        return percentile( 99.9, unit );
+    }
+
+    /**
+     * @param unit Unit
+     *
+     * @return Maximum latency
+     */
+    public long max( TimeUnit unit )
+    {
+        return unit.convert( latencies.getMaxValue(), NANOSECONDS );
+    }
+
+    /**
+     * @param value Value
+     * @param unit  Unit
+     *
+     * @return This very report
+     *
+     * @throws AssertionError if the median latency is not below the given value
+     */
+    public LoadReport assertP50Below( long value, TimeUnit unit )
+    {
+        return assertPercentileBelow( 50, value, unit );
+    }
+
+    /**
+     * @param value Value
+     * @param unit  Unit
+     *
+     * @return This very report
+     *
+     * @throws AssertionError if the 99th percentile latency is not below the given value
+     */
+    public LoadReport assertP99Below( long value, TimeUnit unit )
+    {
+        return assertPercentileBelow( 99, value, unit );
+    }
+
+    /**
+     * @param value Value
+     * @param unit  Unit
+     *
+     * @return This very report
+     *
+     * @throws AssertionError if the 99.9th percentile latency is not below the given value
+     */
+    public LoadReport assertP999Below( long value, TimeUnit unit )
+    {
+        return assertPercentileBelow( 99.9, value, unit );
+    }
+
+    /**
+     * @param percentile Percentile, in the {@literal [0..100]} range
+     * @param value      Value
+     * @param unit       Unit
+     *
+     * @return This very report
+     *
+     * @throws AssertionError if the latency at the given percentile is not below the given value
+     */
+    public LoadReport assertPercentileBelow( double percentile, long value, TimeUnit unit )
+    {
+        long actual = latencies.getValueAtPercentile( percentile );
+        if( actual >= unit.toNanos( value ) )
+        {
+            throw new AssertionError(
+                "Expected p" + percentile + " latency below " + value + " " + unit
+                + " but was " + NANOSECONDS.toMicros( actual ) + " MICROSECONDS\n" + this
+            );
+        }
+        return this;
+    }
+
+    /**
+     * @param value Value
+     * @param unit  Unit
+     *
+     * @return This very report
+     *
+     * @throws AssertionError if the maximum latency is not below the given value
+     */
+    public LoadReport assertMaxBelow( long value, TimeUnit unit )
+    {
+        return assertPercentileBelow( 100, value, unit );
+    }
+
+    /**
+     * @param requestsPerSecond Requests per second
+     *
+     * @return This very report
+     *
+     * @throws AssertionError if the throughput is not above the given value
+     */
+    public LoadReport assertRequestsPerSecondAbove( double requestsPerSecond )
+    {
+        if( requestsPerSecond() <= requestsPerSecond )
+        {
+            throw new AssertionError(
+                "Expected more than " + requestsPerSecond + " requests per second\n" + this
+            );
+        }
+        return this;
+    }
+
+    /**
+     * @return This very report
+     *
+     * @throws AssertionError if no request completed, if some did not, or if some responses status were not 2xx
+     */
+    public LoadReport assertAllSuccessful()
+    {
+        if( requests() == 0 )
+        {
+            throw new AssertionError( "No request completed\n" + this );
+        }
+        if( errors > 0 )
+        {
+            throw new AssertionError( "Expected no error but got " + errors + "\n" + this );
+        }
+        for( Map.Entry<Integer, Long> status : statuses.entrySet() )
+        {
+            if( status.getKey() < 200 || status.getKey() >= 300 )
+            {
+                throw new AssertionError(
+                    "Expected only 2xx statuses but got " + status.getValue() + " " + status.getKey() + "\n" + this
+                );
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format(
+            "%d requests in %dms, %.1f req/s, %d errors, statuses %s%n"
+            + "latency (us) p50=%d p99=%d p99.9=%d max=%d",
+            requests(), NANOSECONDS.toMillis( durationNanos ), requestsPerSecond(), errors, statuses,
+            p50( MICROSECONDS ), p99( MICROSECONDS ), p999( MICROSECONDS ), max( MICROSECONDS )
+        );
+    }
+}
@@ -0,0 +1,500 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.test.load;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.werval.test.WervalHttpTestSupport;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObject;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.LastHttpContent;
+import org.HdrHistogram.Histogram;
+
+import static io.netty.handler.codec.http.HttpHeaders.Names.CONTENT_LENGTH;
+import static io.netty.handler.codec.http.HttpHeaders.Names.CONTENT_TYPE;
+import static io.netty.handler.codec.http.HttpHeaders.Names.HOST;
+import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
+import static io.werval.util.Charsets.UTF_8;
+import static io.werval.util.IllegalArguments.ensureGreater;
+import static io.werval.util.IllegalArguments.ensureNotEmpty;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * HTTP Load Test.
+ * <p>
+ * Generate load against a running HTTP server, typically started by a {@link io.werval.test.WervalHttpRule}, and
+ * report latency percentiles and throughput, see {@link LoadReport}.
+ * <pre>
+ * LoadReport report = LoadTest.against( WERVAL )
+ *     .connections( 8 ).pipelining( 2 )
+ *     .warmup( 2, SECONDS ).duration( 10, SECONDS )
+ *     .request( 9, "GET", "/" )
+ *     .request( 1, "POST", "/items", "{}", "application/json" )
+ *     .run();
+ * report.assertAllSuccessful();
+ * report.assertP99Below( 5, MILLISECONDS );
+ * </pre>
+ * <p>
+ * Each connection keeps {@literal pipelining} requests in flight and sends a new one as soon as a response is
+ * complete, requests being picked at random according to their weights.
+ * Latency is measured from the request being written to the response being fully read.
+ * As this is a closed loop, latencies of requests that could not be sent while the server stalled are not
+ * accounted for, keep that in mind when asserting on high percentiles.
+ * <p>
+ * Requests sent during the warmup period are not reported.
+ */
+public final class LoadTest
+{
+    /**
+     * Create a load test against a running Werval HTTP test support.
+     *
+     * @param werval Werval HTTP test support, eg. a {@link io.werval.test.WervalHttpRule}
+     *
+     * @return Load test
+     */
+    public static LoadTest against( WervalHttpTestSupport werval )
+    {
+        return new LoadTest( werval.httpHost(), werval.httpPort() );
+    }
+
+    /**
+     * Create a load test against a HTTP server.
+     *
+     * @param host Host
+     * @param port Port
+     *
+     * @return Load test
+     */
+    public static LoadTest against( String host, int port )
+    {
+        return new LoadTest( host, port );
+    }
+
+    private final String host;
+    private final int port;
+    private final List<LoadRequest> mix = new ArrayList<>();
+    private int totalWeight;
+    private int connections = 4;
+    private int pipelining = 1;
+    private long warmupNanos = 0;
+    private long durationNanos = SECONDS.toNanos( 10 );
+    private long timeoutNanos = SECONDS.toNanos( 30 );
+
+    private LoadTest( String host, int port )
+    {
+        ensureNotEmpty( "Host", host );
+        this.host = host;
+        this.port = port;
+    }
+
+    /**
+     * @param connections Number of concurrent connections, defaulted to 4
+     *
+     * @return This very load test
+     */
+    public LoadTest connections( int connections )
+    {
+        ensureGreater( "Connections", connections, 0 );
+        this.connections = connections;
+        return this;
+    }
+
+    /**
+     * @param pipelining Number of requests in flight per connection, defaulted to 1, that is no pipelining
+     *
+     * @return This very load test
+     */
+    public LoadTest pipelining( int pipelining )
+    {
+        ensureGreater( "Pipelining", pipelining, 0 );
+        this.pipelining = pipelining;
+        return this;
+    }
+
+    /**
+     * @param warmup Warmup duration, requests sent during warmup are not reported, defaulted to none
+     * @param unit   Warmup duration unit
+     *
+     * @return This very load test
+     */
+    public LoadTest warmup( long warmup, TimeUnit unit )
+    {
+        this.warmupNanos = unit.toNanos( warmup );
+        return this;
+    }
+
+    /**
+     * @param duration Measurement duration, after warmup, defaulted to 10 seconds
+     * @param unit     Duration unit
+     *
+     * @return This very load test
+     */
+    public LoadTest duration( long duration, TimeUnit unit )
+    {
+        if( duration <= 0 )
+        {
+            throw new IllegalArgumentException( "Duration was lesser than or equal to 0" );
+        }
+        this.durationNanos = unit.toNanos( duration );
+        return this;
+    }
+
+    /**
+     * @param timeout How long to wait for in-flight requests once the duration elapsed, defaulted to 30 seconds
+     * @param unit    Timeout unit
+     *
+     * @return This very load test
+     */
+    public LoadTest timeout( long timeout, TimeUnit unit )
+    {
+        this.timeoutNanos = unit.toNanos( timeout );
+        return this;
+    }
+
+    /**
+     * Add a request without body to the mix.
+     *
+     * @param weight Relative weight of the request in the mix
+     * @param method HTTP method
+     * @param uri    Request URI
+     *
+     * @return This very load test
+     */
+    public LoadTest request( int weight, String method, String uri )
+    {
+        return request( weight, method, uri, null, null );
+    }
+
+    /**
+     * Add a request to the mix.
+     *
+     * @param weight      Relative weight of the request in the mix
+     * @param method      HTTP method
+     * @param uri         Request URI
+     * @param body        Request body, encoded as UTF-8, can be null
+     * @param contentType Request body content type, can be null
+     *
+     * @return This very load test
+     */
+    public LoadTest request( int weight, String method, String uri, String body, String contentType )
+    {
+        ensureGreater( "Weight", weight, 0 );
+        ensureNotEmpty( "Method", method );
+        ensureNotEmpty( "URI", uri );
+        totalWeight += weight;
+        mix.add(
+            new LoadRequest(
+                totalWeight, HttpMethod.valueOf( method ), uri,
+                body == null ? null : body.getBytes( UTF_8 ), contentType
+            )
+        );
+        return this;
+    }
+
+    /**
+     * Run the load test.
+     *
+     * @return Load report
+     *
+     * @throws InterruptedException if interrupted while waiting for the load test to complete
+     * @throws IllegalStateException if no request were added or if connections could not be established
+     */
+    public LoadReport run()
+        throws InterruptedException
+    {
+        if( mix.isEmpty() )
+        {
+            throw new IllegalStateException( "No request to send, add some to the load test mix" );
+        }
+        EventLoopGroup group = new NioEventLoopGroup(
+            Math.min( connections, Runtime.getRuntime().availableProcessors() )
+        );
+        try
+        {
+            List<Connection> handlers = new ArrayList<>( connections );
+            CountDownLatch done = new CountDownLatch( connections );
+            AtomicLong transportErrors = new AtomicLong();
+            long start = System.nanoTime();
+            Clock clock = new Clock( start + warmupNanos, start + warmupNanos + durationNanos );
+            List<Channel> channels = new ArrayList<>( connections );
+            for( int idx = 0; idx < connections; idx++ )
+            {
+                Connection handler = new Connection( clock, done, transportErrors );
+                handlers.add( handler );
+                ChannelFuture connect = new Bootstrap()
+                    .group( group )
+                    .channel( NioSocketChannel.class )
+                    .option( ChannelOption.TCP_NODELAY, true )
+                    .handler(
+                        new ChannelInitializer<SocketChannel>()
+                        {
+                            @Override
+                            protected void initChannel( SocketChannel channel )
+                            {
+                                channel.pipeline().addLast( "http", new HttpClientCodec() );
+                                channel.pipeline().addLast( "load", handler );
+                            }
+                        }
+                    )
+                    .connect( host, port )
+                    .await();
+                if( !connect.isSuccess() )
+                {
+                    for( Channel channel : channels )
+                    {
+                        channel.close();
+                    }
+                    throw new IllegalStateException(
+                        "Unable to connect to " + host + ":" + port + " - " + connect.cause().getMessage(),
+                        connect.cause()
+                    );
+                }
+                channels.add( connect.channel() );
+            }
+            long remaining = clock.stopAt - System.nanoTime() + timeoutNanos;
+            if( !done.await( Math.max( 0, remaining ), NANOSECONDS ) )
+            {
+                // Unanswered in-flight requests are reported as errors
+                for( Connection handler : handlers )
+                {
+                    handler.abort();
+                }
+            }
+            for( Channel channel : channels )
+            {
+                channel.close().await();
+            }
+            Histogram latencies = new Histogram( 3 );
+            long[] statuses = new long[ Connection.MAX_STATUS + 1 ];
+            long errors = transportErrors.get();
+            for( Connection handler : handlers )
+            {
+                synchronized( handler )
+                {
+                    latencies.add( handler.latencies );
+                    for( int status = 0; status < statuses.length; status++ )
+                    {
+                        statuses[status] += handler.statuses[status];
+                    }
+                    errors += handler.unanswered;
+                }
+            }
+            return new LoadReport( latencies, statuses, errors, durationNanos );
+        }
+        finally
+        {
+            group.shutdownGracefully( 0, 1, SECONDS );
+        }
+    }
+
+    private LoadRequest pick()
+    {
+        if( mix.size() == 1 )
+        {
+            return mix.get( 0 );
+        }
+        int draw = ThreadLocalRandom.current().nextInt( totalWeight );
+        for( LoadRequest request : mix )
+        {
+            if( draw < request.cumulativeWeight )
+            {
+                return request;
+            }
+        }
+        return mix.get( mix.size() - 1 );
+    }
+
+    private static final class LoadRequest
+    {
+        private final int cumulativeWeight;
+        private final HttpMethod method;
+        private final String uri;
+        private final byte[] body;
+        private final String contentType;
+
+        private LoadRequest( int cumulativeWeight, HttpMethod method, String uri, byte[] body, String contentType )
+        {
+            this.cumulativeWeight = cumulativeWeight;
+            this.method = method;
+            this.uri = uri;
+            this.body = body;
+            this.contentType = contentType;
+        }
+    }
+
+    private static final class Clock
+    {
+        private final long measureFrom;
+        private final long stopAt;
+
+        private Clock( long measureFrom, long stopAt )
+        {
+            this.measureFrom = measureFrom;
+            this.stopAt = stopAt;
+        }
+    }
+
+    // One instance per channel, all callbacks happen on the channel event loop, merged under its monitor
+    private final class Connection
+        extends SimpleChannelInboundHandler<HttpObject>
+    {
+        private static final int MAX_STATUS = 599;
+        private final Clock clock;
+        private final CountDownLatch done;
+        private final AtomicLong transportErrors;
+        private final Queue<Long> inFlight = new ArrayDeque<>();
+        private final Histogram latencies = new Histogram( 3 );
+        private final long[] statuses = new long[ MAX_STATUS + 1 ];
+        private long unanswered;
+        private int status;
+        private boolean finished;
+
+        private Connection( Clock clock, CountDownLatch done, AtomicLong transportErrors )
+        {
+            this.clock = clock;
+            this.done = done;
+            this.transportErrors = transportErrors;
+        }
+
+        @Override
+        public void channelActive( ChannelHandlerContext ctx )
+        {
+            for( int idx = 0; idx < pipelining; idx++ )
+            {
+                send( ctx );
+            }
+            ctx.flush();
+        }
+
+        @Override
+        protected void channelRead0( ChannelHandlerContext ctx, HttpObject message )
+        {
+            if( message instanceof HttpResponse )
+            {
+                status = ( (HttpResponse) message ).getStatus().code();
+            }
+            if( message instanceof LastHttpContent )
+            {
+                long now = System.nanoTime();
+                synchronized( this )
+                {
+                    Long sentAt = inFlight.poll();
+                    if( sentAt != null && sentAt >= clock.measureFrom )
+                    {
+                        latencies.recordValue( now - sentAt );
+                        statuses[Math.min( MAX_STATUS, Math.max( 0, status ) )]++;
+                    }
+                }
+                if( now < clock.stopAt )
+                {
+                    send( ctx );
+                    ctx.flush();
+                }
+                else if( drained() )
+                {
+                    finish();
+                }
+            }
+        }
+
+        @Override
+        public void exceptionCaught( ChannelHandlerContext ctx, Throwable cause )
+        {
+            transportErrors.incrementAndGet();
+            ctx.close();
+        }
+
+        @Override
+        public void channelInactive( ChannelHandlerContext ctx )
+        {
+            abort();
+        }
+
+        private void send( ChannelHandlerContext ctx )
+        {
+            LoadRequest request = pick();
+            ByteBuf content = request.body == null ? Unpooled.EMPTY_BUFFER : Unpooled.wrappedBuffer( request.body );
+            FullHttpRequest httpRequest = new DefaultFullHttpRequest( HTTP_1_1, request.method, request.uri, content );
+            httpRequest.headers().set( HOST, host + ":" + port );
+            if( request.body != null )
+            {
+                httpRequest.headers().set( CONTENT_LENGTH, request.body.length );
+                if( request.contentType != null )
+                {
+                    httpRequest.headers().set( CONTENT_TYPE, request.contentType );
+                }
+            }
+            synchronized( this )
+            {
+                inFlight.add( System.nanoTime() );
+            }
+            ctx.write( httpRequest );
+        }
+
+        private synchronized boolean drained()
+        {
+            return inFlight.isEmpty();
+        }
+
+        private synchronized void abort()
+        {
+            for( Long sentAt : inFlight )
+            {
+                if( sentAt >= clock.measureFrom )
+                {
+                    unanswered++;
+                }
+            }
+            inFlight.clear();
+            finish();
+        }
+
+        private synchronized void finish()
+        {
+            if( !finished )
+            {
+                finished = true;
+                done.countDown();
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2014 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.werval.test.load;
+
+import io.werval.api.outcomes.Outcome;
+import io.werval.runtime.routes.RoutesParserProvider;
+import io.werval.test.WervalHttpRule;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import static io.werval.api.context.CurrentContext.outcomes;
+import static io.werval.api.context.CurrentContext.request;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Assert LoadTest behaviour.
+ */
+public class LoadTestTest
+{
+    public static class Controller
+    {
+        public Outcome index()
+        {
+            return outcomes().ok( "good" ).build();
+        }
+
+        public Outcome echo()
+        {
+            return outcomes().ok( request().body().asString() ).build();
+        }
+
+        public Outcome missing()
+        {
+            return outcomes().notFound().build();
+        }
+    }
+
+    @ClassRule
+    public static final WervalHttpRule WERVAL = new WervalHttpRule( new RoutesParserProvider(
+        "GET / io.werval.test.load.LoadTestTest$Controller.index\n"
+        + "POST /echo io.werval.test.load.LoadTestTest$Controller.echo\n"
+        + "GET /missing io.werval.test.load.LoadTestTest$Controller.missing"
+    ) );
+
+    @Test
+    public void loadTest()
+        throws InterruptedException
+    {
+        LoadReport report = LoadTest.against( WERVAL )
+            .connections( 2 ).pipelining( 2 )
+            .warmup( 200, MILLISECONDS ).duration( 1, SECONDS )
+            .request( 3, "GET", "/" )
+            .request( 1, "POST", "/echo", "{\"foo\":\"bar\"}", "application/json" )
+            .run();
+        report.assertAllSuccessful();
+        report.assertP99Below( 5, SECONDS );
+        assertThat( report.statuses().get( 200 ), is( report.requests() ) );
+        assertThat( report.requestsPerSecond(), greaterThan( 0D ) );
+        assertThat( report.max( MILLISECONDS ), greaterThan( -1L ) );
+    }
+
+    @Test( expected = AssertionError.class )
+    public void unsuccessful()
+        throws InterruptedException
+    {
+        LoadTest.against( WERVAL )
+            .connections( 1 ).duration( 200, MILLISECONDS )
+            .request( 1, "GET", "/missing" )
+            .run()
+            .assertAllSuccessful();
+    }
+
+    @Test( expected = IllegalStateException.class )
+    public void emptyMix()
+        throws InterruptedException
+    {
+        LoadTest.against( WERVAL ).run();
+    }
+}